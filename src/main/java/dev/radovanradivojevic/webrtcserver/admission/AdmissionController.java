@@ -0,0 +1,204 @@
+package dev.radovanradivojevic.webrtcserver.admission;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.control.ControlFrames;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import dev.radovanradivojevic.webrtcserver.session.OutboundMessageDispatcher;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AdmissionController - Decides whether an inbound message is handled at all
+ *
+ * Purpose: Nothing used to limit how fast a client may send. One misbehaving
+ * client flooding ICE candidates or offers kept its container thread busy and
+ * filled other users' outbound queues, so every session on the node suffered.
+ *
+ * Two checks, in this order:
+ *
+ * 1. Per session and message type (signaling.rate-limit.*): a TokenBucket for
+ *    each type, so a flood of ICE candidates does not use up the session's
+ *    offers. Over the limit the message is rejected with reason "rate-limited".
+ *
+ * 2. Node-wide (signaling.admission.*): one shared TokenBucket at the rate the
+ *    node is sized for, plus the outbound backlog measured every
+ *    backlog-check-interval. When the node is saturated, messages are shed by
+ *    priority with reason "overloaded":
+ *    - ice-candidate (and unknown types): shed first - once the shared bucket is
+ *      below ice-reserve, or while the outbound backlog is over its limit.
+ *      Browsers gather more candidates than a call needs, losing some is cheap.
+ *    - offer, answer: shed only when the shared bucket is empty
+ *    - register, end-call: never shed (they still use up tokens). Dropping an
+ *      end-call would leave the callee ringing.
+ *
+ * A rejected message is answered with an error frame - but only the first one
+ * of a streak per session and type, so a flooding client does not get a flood
+ * of errors back:
+ * {"type":"error","code":"rate-limited","messageType":"ice-candidate"}
+ *
+ * Everything is counted in signaling.messages.rejected{reason,type}.
+ *
+ * Structure: Map<sessionId, SessionLimits>
+ */
+@Component
+public class AdmissionController {
+
+    static final String RATE_LIMITED = ControlFrames.RATE_LIMITED;
+    static final String OVERLOADED = ControlFrames.OVERLOADED;
+
+    private static final int REGISTER = 0;
+    private static final int OFFER = 1;
+    private static final int ANSWER = 2;
+    private static final int ICE_CANDIDATE = 3;
+    private static final int END_CALL = 4;
+    private static final int OTHER = 5;
+
+    private final Map<String, SessionLimits> sessions = new ConcurrentHashMap<>();
+    private final OutboundMessageDispatcher outbound;
+    private final SignalingMetrics metrics;
+    private final SignalingEventLog eventLog;
+
+    private final boolean rateLimitEnabled;
+    private final SignalingProperties.Limit[] limits;
+
+    private final boolean admissionEnabled;
+    private final TokenBucket node;
+    private final int iceReserve;
+    private final long maxOutboundBacklog;
+    private volatile boolean backlogged;
+
+    public AdmissionController(SignalingProperties properties, OutboundMessageDispatcher outbound,
+                               @Qualifier("signalingScheduler") ScheduledExecutorService scheduler,
+                               SignalingMetrics metrics, SignalingEventLog eventLog) {
+        this.outbound = outbound;
+        this.metrics = metrics;
+        this.eventLog = eventLog;
+
+        SignalingProperties.RateLimit rateLimit = properties.getRateLimit();
+        this.rateLimitEnabled = rateLimit.isEnabled();
+        this.limits = new SignalingProperties.Limit[]{rateLimit.getRegister(), rateLimit.getOffer(),
+                rateLimit.getAnswer(), rateLimit.getIceCandidate(), rateLimit.getEndCall(), rateLimit.getOther()};
+
+        SignalingProperties.Admission admission = properties.getAdmission();
+        this.admissionEnabled = admission.isEnabled();
+        this.node = admissionEnabled ? new TokenBucket(admission.getRate(), admission.getBurst()) : null;
+        this.iceReserve = (int) Math.ceil(admission.getBurst() * admission.getIceReserve());
+        this.maxOutboundBacklog = admission.getMaxOutboundBacklog();
+
+        if (admissionEnabled && maxOutboundBacklog > 0) {
+            // Walks every outbound queue, so it runs on the timer instead of per message
+            long intervalNanos = admission.getBacklogCheckInterval().toNanos();
+            scheduler.scheduleWithFixedDelay(this::checkBacklog, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Check an inbound message of the given type, answering the session with an error frame if it is rejected
+     *
+     * Called on the container thread receiving the session's frames, one message at
+     * a time, before the message is queued for handling.
+     *
+     * @return true if the message should be handled
+     */
+    public boolean admit(WebSocketSession session, String type) {
+        if (!rateLimitEnabled && !admissionEnabled) {
+            return true;
+        }
+        long now = System.nanoTime();
+        int index = indexOf(type);
+        SessionLimits state = sessions.computeIfAbsent(session.getId(), id -> new SessionLimits(limits));
+
+        if (rateLimitEnabled && !state.buckets[index].tryAcquire(now)) {
+            metrics.rateLimited(type);
+            reject(session, state, index, type, RATE_LIMITED);
+            return false;
+        }
+        if (admissionEnabled && !admitToNode(index, now)) {
+            metrics.overloaded(type);
+            reject(session, state, index, type, OVERLOADED);
+            return false;
+        }
+        state.notified[index] = false;
+        return true;
+    }
+
+    /**
+     * Forget a closed session
+     */
+    public void release(WebSocketSession session) {
+        sessions.remove(session.getId());
+    }
+
+    /**
+     * Whether ice-candidate is currently shed because of the outbound backlog (for testing and monitoring)
+     */
+    public boolean isBacklogged() {
+        return backlogged;
+    }
+
+    void checkBacklog() {
+        backlogged = outbound.queuedBytes() > maxOutboundBacklog;
+    }
+
+    private boolean admitToNode(int index, long now) {
+        return switch (index) {
+            case REGISTER, END_CALL -> {
+                node.acquire(now);
+                yield true;
+            }
+            case OFFER, ANSWER -> node.tryAcquire(now);
+            default -> !backlogged && node.tryAcquire(now, iceReserve);
+        };
+    }
+
+    private void reject(WebSocketSession session, SessionLimits limits, int index, String type, String reason) {
+        if (limits.notified[index]) {
+            return;
+        }
+        limits.notified[index] = true;
+        eventLog.rejected(session.getId(), type, reason);
+        outbound.send(session, ControlFrames.rejected(reason, type));
+        metrics.messageSent(ControlFrames.ERROR);
+    }
+
+    private static int indexOf(String type) {
+        if (type == null) {
+            return OTHER;
+        }
+        return switch (type) {
+            case "register" -> REGISTER;
+            case "offer" -> OFFER;
+            case "answer" -> ANSWER;
+            case "ice-candidate" -> ICE_CANDIDATE;
+            case "end-call" -> END_CALL;
+            default -> OTHER;
+        };
+    }
+
+    /**
+     * Token buckets of one session, one per message type
+     */
+    private static final class SessionLimits {
+        private final TokenBucket[] buckets;
+
+        /**
+         * Whether the current streak of rejections was already answered with an error frame
+         */
+        private final boolean[] notified;
+
+        SessionLimits(SignalingProperties.Limit[] limits) {
+            this.buckets = new TokenBucket[limits.length];
+            for (int i = 0; i < limits.length; i++) {
+                buckets[i] = new TokenBucket(limits[i].getRate(), limits[i].getBurst());
+            }
+            this.notified = new boolean[limits.length];
+        }
+    }
+}
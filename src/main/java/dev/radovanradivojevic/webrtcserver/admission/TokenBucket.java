@@ -0,0 +1,93 @@
+package dev.radovanradivojevic.webrtcserver.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TokenBucket - A token bucket kept in a single long
+ *
+ * Instead of a token count that a timer refills, the bucket stores the time at
+ * which it will be full again ("theoretical arrival time", the GCRA form of a
+ * token bucket). Taking a token moves that time one interval into the future;
+ * the request is allowed as long as the bucket would not be further than
+ * burst intervals in debt. So a check is one clock value and one CAS - no
+ * refill thread, no floating point, nothing allocated.
+ *
+ * Example: rate=50/s, burst=100 - a client may send 100 messages at once,
+ * then one every 20ms.
+ *
+ * reserve keeps the last tokens for more important traffic: tryAcquire(now, 20)
+ * fails once fewer than 20 tokens are left, while tryAcquire(now, 0) may still
+ * take them.
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+
+    /**
+     * Time (System.nanoTime()) at which the bucket is full again
+     */
+    private final AtomicLong fullAt;
+
+    public TokenBucket(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("rate and burst must be positive: " + ratePerSecond + "/" + burst);
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.toleranceNanos = intervalNanos * burst;
+        // Full since one burst ago, so a caller's slightly older "now" still sees a full bucket
+        this.fullAt = new AtomicLong(System.nanoTime() - toleranceNanos);
+    }
+
+    /**
+     * Take one token
+     *
+     * @param now System.nanoTime()
+     * @return false if the bucket is empty
+     */
+    public boolean tryAcquire(long now) {
+        return tryAcquire(now, 0);
+    }
+
+    /**
+     * Take one token unless that would leave fewer than reserve tokens
+     *
+     * @param now System.nanoTime()
+     */
+    public boolean tryAcquire(long now, int reserve) {
+        long limit = toleranceNanos - (long) reserve * intervalNanos;
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + intervalNanos;
+            if (next - now > limit) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Take one token if there is one, without failing (an empty bucket stays empty)
+     *
+     * @param now System.nanoTime()
+     */
+    public void acquire(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.min(Math.max(current, now) + intervalNanos, now + toleranceNanos);
+            if (fullAt.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Tokens available right now (for monitoring)
+     */
+    public long available(long now) {
+        long debt = Math.max(0, fullAt.get() - now);
+        return (toleranceNanos - debt) / intervalNanos;
+    }
+}
@@ -0,0 +1,37 @@
+package dev.radovanradivojevic.webrtcserver.audit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Recent call history over HTTP
+ *
+ * GET /audit/calls?userId=dad&limit=20
+ * [{"type":"CALL_ENDED","userId":"son","peerId":"dad","reason":"end-call","timestamp":"..."}, ...]
+ *
+ * Newest first. userId is required: there is no listing of everyone's calls.
+ *
+ * Call history is personal data and this is the public port, so the endpoint
+ * only exists with signaling.audit.endpoint-enabled=true - put it behind an
+ * authenticating proxy (or Spring Security) before turning it on.
+ */
+@RestController
+@ConditionalOnProperty(prefix = "signaling.audit", name = "endpoint-enabled", havingValue = "true")
+public class AuditController {
+
+    private final AuditLog audit;
+
+    public AuditController(AuditLog audit) {
+        this.audit = audit;
+    }
+
+    @GetMapping("/audit/calls")
+    public List<AuditEvent> recentCalls(@RequestParam String userId,
+                                        @RequestParam(defaultValue = "50") int limit) {
+        return audit.recentCalls(userId, limit);
+    }
+}
@@ -0,0 +1,74 @@
+package dev.radovanradivojevic.webrtcserver.audit;
+
+import java.time.Instant;
+
+/**
+ * One row of the audit store
+ *
+ * Examples:
+ * REGISTERED   userId=dad session=3f2a
+ * CALL_STARTED userId=dad peerId=son          (dad sent the offer)
+ * CALL_ENDED   userId=son peerId=dad reason=end-call
+ * CALL_ENDED   userId=dad peerId=son reason=disconnected
+ */
+public class AuditEvent {
+
+    private final AuditEventType type;
+    private final String userId;
+    private final String peerId;
+    private final String sessionId;
+    private final String reason;
+    private final long timestampMillis;
+
+    public AuditEvent(AuditEventType type, String userId, String peerId, String sessionId, String reason,
+                      long timestampMillis) {
+        this.type = type;
+        this.userId = userId;
+        this.peerId = peerId;
+        this.sessionId = sessionId;
+        this.reason = reason;
+        this.timestampMillis = timestampMillis;
+    }
+
+    public AuditEventType getType() {
+        return type;
+    }
+
+    /**
+     * User the event is about; for call events the one who sent the message
+     */
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * Other party of a call event, null otherwise
+     */
+    public String getPeerId() {
+        return peerId;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Why a call ended ("end-call" or "disconnected"), null otherwise
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    public Instant getTimestamp() {
+        return Instant.ofEpochMilli(timestampMillis);
+    }
+
+    long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + userId + (peerId != null ? " -> " + peerId : "") + " at " + getTimestamp();
+    }
+}
@@ -0,0 +1,19 @@
+package dev.radovanradivojevic.webrtcserver.audit;
+
+/**
+ * Kinds of events kept in the audit store
+ */
+public enum AuditEventType {
+    REGISTERED,
+    DISCONNECTED,
+    CALL_STARTED,
+    CALL_ANSWERED,
+    CALL_ENDED;
+
+    /**
+     * Whether the event belongs to a call (the ones recentCalls returns)
+     */
+    public boolean isCall() {
+        return this == CALL_STARTED || this == CALL_ANSWERED || this == CALL_ENDED;
+    }
+}
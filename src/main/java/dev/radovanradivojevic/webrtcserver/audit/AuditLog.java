@@ -0,0 +1,220 @@
+package dev.radovanradivojevic.webrtcserver.audit;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * AuditLog - Records registrations, disconnects and calls without slowing them down
+ *
+ * Purpose: A history of who was online and who called whom, kept in the
+ * AuditStore (a database table by default). A JDBC insert takes a connection
+ * and a round trip - far more than handling the message itself - so the
+ * handler never waits for one:
+ *
+ * 1. The handler calls registered()/callStarted()/... which only appends the
+ *    event to a lock-free queue. If the queue is full (the database is down or
+ *    too slow) the event is dropped and counted; signaling carries on.
+ * 2. One background thread ("signaling-audit") collects up to batch-size events
+ *    and writes them with a single batch insert - every flush-interval, or as
+ *    soon as a full batch is waiting.
+ * 3. Every prune-interval the same thread deletes events older than the
+ *    retention, so the table (in memory, with the default H2) stops growing.
+ *
+ * History is read back with recentCalls(), e.g. through GET /audit/calls.
+ *
+ * Everything is counted in signaling.audit.events{outcome=written|dropped|failed|pruned}.
+ */
+@Component
+public class AuditLog {
+
+    static final String END_CALL = "end-call";
+    static final String DISCONNECTED = "disconnected";
+
+    private final AuditStore store;
+    private final SignalingMetrics metrics;
+    private final SignalingEventLog eventLog;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final int maxQueryLimit;
+    private final long flushIntervalNanos;
+    private final long retentionMillis;
+    private final long pruneIntervalNanos;
+    private final Queue<AuditEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public AuditLog(SignalingProperties properties, AuditStore store, SignalingMetrics metrics,
+                    SignalingEventLog eventLog) {
+        SignalingProperties.Audit config = properties.getAudit();
+        this.store = store;
+        this.metrics = metrics;
+        this.eventLog = eventLog;
+        this.enabled = config.isEnabled();
+        this.batchSize = config.getBatchSize();
+        this.queueCapacity = config.getQueueCapacity();
+        this.maxQueryLimit = config.getMaxQueryLimit();
+        this.flushIntervalNanos = config.getFlushInterval().toNanos();
+        this.retentionMillis = config.getRetention().toMillis();
+        this.pruneIntervalNanos = config.getPruneInterval().toNanos();
+        metrics.bindAuditQueue(queued::get);
+
+        if (enabled) {
+            this.flusher = Thread.ofPlatform().name("signaling-audit").daemon(true).unstarted(this::flushLoop);
+            this.flusher.start();
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    // ---- Recording (hot path: one queue append) ----
+
+    public void registered(String sessionId, String userId) {
+        record(AuditEventType.REGISTERED, userId, null, sessionId, null);
+    }
+
+    public void disconnected(String sessionId, String userId) {
+        record(AuditEventType.DISCONNECTED, userId, null, sessionId, null);
+    }
+
+    /**
+     * A routed message changed a call (see CallRegistry.track): offer, answer or end-call from senderId
+     */
+    public void call(String messageType, String senderId, String recipientId) {
+        switch (messageType) {
+            case "offer" -> record(AuditEventType.CALL_STARTED, senderId, recipientId, null, null);
+            case "answer" -> record(AuditEventType.CALL_ANSWERED, senderId, recipientId, null, null);
+            case "end-call" -> record(AuditEventType.CALL_ENDED, senderId, recipientId, null, END_CALL);
+            default -> {
+                // Nothing else changes a call
+            }
+        }
+    }
+
+    /**
+     * The server ended the call because userId's connection is gone
+     */
+    public void callTornDown(String userId, String peerId) {
+        record(AuditEventType.CALL_ENDED, userId, peerId, null, DISCONNECTED);
+    }
+
+    // ---- Queries ----
+
+    /**
+     * Most recent call events, newest first (events still waiting for the flusher are not included)
+     *
+     * @param userId only calls this user took part in, or null for all
+     * @param limit  capped at signaling.audit.max-query-limit
+     */
+    public List<AuditEvent> recentCalls(String userId, int limit) {
+        return store.recentCalls(userId, Math.max(0, Math.min(limit, maxQueryLimit)));
+    }
+
+    /**
+     * Events waiting to be written (for testing and monitoring)
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Write whatever is queued, on the calling thread (for shutdown and tests)
+     */
+    public synchronized void flush() {
+        while (flushBatch() > 0) {
+            // until the queue is empty
+        }
+    }
+
+    /**
+     * Delete events older than the retention, on the calling thread (normally the flusher; for tests)
+     */
+    public void prune() {
+        if (retentionMillis <= 0) {
+            return;
+        }
+        try {
+            metrics.audit("pruned", store.deleteOlderThan(System.currentTimeMillis() - retentionMillis));
+        } catch (RuntimeException e) {
+            // Tried again at the next interval
+            eventLog.handlerError(null, e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            flusher.join(5000);
+        }
+    }
+
+    private void record(AuditEventType type, String userId, String peerId, String sessionId, String reason) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        int size = queued.incrementAndGet();
+        if (size > queueCapacity) {
+            queued.decrementAndGet();
+            metrics.audit("dropped", 1);
+            return;
+        }
+        queue.offer(new AuditEvent(type, userId, peerId, sessionId, reason, System.currentTimeMillis()));
+        if (size == batchSize) {
+            // A full batch is waiting - no need to sit out the rest of the interval
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    private void flushLoop() {
+        long lastPrune = System.nanoTime();
+        while (running) {
+            LockSupport.parkNanos(flushIntervalNanos);
+            flush();
+            if (System.nanoTime() - lastPrune >= pruneIntervalNanos) {
+                prune();
+                lastPrune = System.nanoTime();
+            }
+        }
+        // Whatever was recorded before shutdown still goes out
+        flush();
+    }
+
+    /**
+     * Write up to one batch
+     *
+     * @return events taken from the queue
+     */
+    private int flushBatch() {
+        List<AuditEvent> batch = new ArrayList<>(Math.min(batchSize, queued.get()));
+        AuditEvent event;
+        while (batch.size() < batchSize && (event = queue.poll()) != null) {
+            batch.add(event);
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        queued.addAndGet(-batch.size());
+        try {
+            store.insert(batch);
+            metrics.audit("written", batch.size());
+        } catch (RuntimeException e) {
+            // The batch is lost, but the flusher lives on for the next one
+            metrics.audit("failed", batch.size());
+            eventLog.handlerError(null, e);
+        }
+        return batch.size();
+    }
+}
@@ -0,0 +1,35 @@
+package dev.radovanradivojevic.webrtcserver.audit;
+
+import java.util.List;
+
+/**
+ * AuditStore - Where presence and call events end up
+ *
+ * Only ever called from the AuditLog's flusher thread (insert and
+ * deleteOlderThan) and from queries, never from the thread handling a message.
+ *
+ * The default is JdbcAuditStore on the application's DataSource; replace it
+ * by declaring an AuditStore bean.
+ */
+public interface AuditStore {
+
+    /**
+     * Append a batch of events, in order, preferably in one round trip
+     */
+    void insert(List<AuditEvent> events);
+
+    /**
+     * Most recent call events (CALL_STARTED, CALL_ANSWERED, CALL_ENDED), newest first
+     *
+     * @param userId only events where this user is either party, or null for all users
+     * @param limit  maximum number of events returned
+     */
+    List<AuditEvent> recentCalls(String userId, int limit);
+
+    /**
+     * Delete events recorded before the given time
+     *
+     * @return number of events deleted
+     */
+    int deleteOlderThan(long cutoffMillis);
+}
@@ -0,0 +1,69 @@
+package dev.radovanradivojevic.webrtcserver.audit;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * InMemoryAuditStore - AuditStore that keeps the newest events on the heap
+ *
+ * Used by the standalone handler and by tests. Keeps at most capacity
+ * events; the oldest are forgotten first.
+ */
+public class InMemoryAuditStore implements AuditStore {
+
+    private final Deque<AuditEvent> events = new ArrayDeque<>();
+    private final int capacity;
+
+    public InMemoryAuditStore() {
+        this(10_000);
+    }
+
+    public InMemoryAuditStore(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void insert(List<AuditEvent> batch) {
+        for (AuditEvent event : batch) {
+            if (events.size() == capacity) {
+                events.removeFirst();
+            }
+            events.addLast(event);
+        }
+    }
+
+    @Override
+    public synchronized List<AuditEvent> recentCalls(String userId, int limit) {
+        List<AuditEvent> recent = new ArrayList<>(Math.min(limit, events.size()));
+        Iterator<AuditEvent> newestFirst = events.descendingIterator();
+        while (newestFirst.hasNext() && recent.size() < limit) {
+            AuditEvent event = newestFirst.next();
+            if (event.getType().isCall() && (userId == null
+                    || userId.equals(event.getUserId()) || Objects.equals(userId, event.getPeerId()))) {
+                recent.add(event);
+            }
+        }
+        return recent;
+    }
+
+    @Override
+    public synchronized int deleteOlderThan(long cutoffMillis) {
+        int deleted = 0;
+        while (!events.isEmpty() && events.peekFirst().getTimestampMillis() < cutoffMillis) {
+            events.removeFirst();
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * All events kept, oldest first (for testing)
+     */
+    public synchronized List<AuditEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+}
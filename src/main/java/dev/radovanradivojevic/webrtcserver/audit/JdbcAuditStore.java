@@ -0,0 +1,107 @@
+package dev.radovanradivojevic.webrtcserver.audit;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * JdbcAuditStore - AuditStore on a relational database
+ *
+ * One append-only table, created by schema.sql:
+ * signaling_audit(id, event_type, user_id, peer_id, session_id, reason, created_at)
+ *
+ * Rows are never updated, so a batch is a single JDBC batch insert and
+ * writers never wait on each other's row locks. A call's history is read
+ * back by user, newest first, from the (user_id, id) and (peer_id, id) indexes.
+ * Events past the retention are deleted through the created_at index.
+ *
+ * user_id and peer_id hold up to 255 characters. Registration enforces that
+ * for userIds, but a peer is whatever recipient a client named, so longer ids
+ * are cut to fit - one oversized value would fail the whole batch insert.
+ *
+ * Works on the embedded H2 database by default; point spring.datasource.*
+ * at a shared database to keep the history across restarts and nodes.
+ */
+public class JdbcAuditStore implements AuditStore {
+
+    private static final String INSERT = "INSERT INTO signaling_audit "
+            + "(event_type, user_id, peer_id, session_id, reason, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Width of the user_id and peer_id columns in schema.sql
+     */
+    static final int MAX_ID_LENGTH = 255;
+
+    private static final String DELETE_OLDER_THAN = "DELETE FROM signaling_audit WHERE created_at < ?";
+
+    private static final String CALL_TYPES = "('CALL_STARTED', 'CALL_ANSWERED', 'CALL_ENDED')";
+
+    private static final String COLUMNS = "event_type, user_id, peer_id, session_id, reason, created_at";
+
+    private static final String RECENT_CALLS = "SELECT " + COLUMNS + " FROM signaling_audit "
+            + "WHERE event_type IN " + CALL_TYPES + " ORDER BY id DESC LIMIT ?";
+
+    // Two index range scans merged, instead of "user_id = ? OR peer_id = ?" over the whole table
+    private static final String RECENT_CALLS_OF_USER = "SELECT " + COLUMNS + " FROM ("
+            + "SELECT id, " + COLUMNS + " FROM signaling_audit WHERE user_id = ? AND event_type IN " + CALL_TYPES
+            + " UNION ALL "
+            + "SELECT id, " + COLUMNS + " FROM signaling_audit WHERE peer_id = ? AND event_type IN " + CALL_TYPES
+            + ") calls ORDER BY id DESC LIMIT ?";
+
+    private static final RowMapper<AuditEvent> ROW_MAPPER = (rs, rowNum) -> new AuditEvent(
+            AuditEventType.valueOf(rs.getString("event_type")),
+            rs.getString("user_id"),
+            rs.getString("peer_id"),
+            rs.getString("session_id"),
+            rs.getString("reason"),
+            rs.getTimestamp("created_at").getTime());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcAuditStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insert(List<AuditEvent> events) {
+        jdbcTemplate.batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                AuditEvent event = events.get(i);
+                statement.setString(1, event.getType().name());
+                statement.setString(2, fit(event.getUserId()));
+                statement.setString(3, fit(event.getPeerId()));
+                statement.setString(4, event.getSessionId());
+                statement.setString(5, event.getReason());
+                statement.setTimestamp(6, new Timestamp(event.getTimestampMillis()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return events.size();
+            }
+        });
+    }
+
+    private static String fit(String id) {
+        return id != null && id.length() > MAX_ID_LENGTH ? id.substring(0, MAX_ID_LENGTH) : id;
+    }
+
+    @Override
+    public List<AuditEvent> recentCalls(String userId, int limit) {
+        if (userId == null) {
+            return jdbcTemplate.query(RECENT_CALLS, ROW_MAPPER, limit);
+        }
+        return jdbcTemplate.query(RECENT_CALLS_OF_USER, ROW_MAPPER, userId, userId, limit);
+    }
+
+    @Override
+    public int deleteOlderThan(long cutoffMillis) {
+        return jdbcTemplate.update(DELETE_OLDER_THAN, new Timestamp(cutoffMillis));
+    }
+}
@@ -0,0 +1,258 @@
+package dev.radovanradivojevic.webrtcserver.call;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CallRegistry - Which calls and rooms are active on this node
+ *
+ * Purpose: The server used to only see individual messages. Without knowing
+ * who is in a call with whom, a caller whose app crashed left the callee
+ * staring at a frozen video until it noticed on its own. With this state the
+ * handler can end those calls itself when a connection closes.
+ *
+ * 1:1 calls are derived from the messages the handler routes anyway:
+ * - "offer" from A to B starts a RINGING call between A and B
+ * - "answer" from B to A makes it ACTIVE
+ * - "end-call" either way removes it
+ *
+ * Rooms are joined and left explicitly ("join-room"/"leave-room"). Members get
+ * room-addressed offer/ice-candidate/end-call messages fanned out by the server,
+ * so a client sends one message instead of one per member.
+ *
+ * Writes (offer/answer/end-call/join/leave - a handful per call) take one
+ * lock. Room member lists are immutable snapshots, so the hot fan-out path
+ * reads them without locking.
+ *
+ * Rooms are node-local: in a cluster, clients of one room must be connected
+ * to the same node (e.g. a load balancer hashing on the room name).
+ *
+ * Structure: Map<userId, Map<peerUserId, Call>> and Map<room, List<userId>>
+ */
+@Component
+public class CallRegistry {
+
+    /**
+     * Progress of a 1:1 call
+     */
+    public enum CallState {
+        RINGING,
+        ACTIVE
+    }
+
+    private final Object lock = new Object();
+    private final Map<String, Map<String, CallState>> calls = new HashMap<>();
+    private final Map<String, List<String>> rooms = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> roomsByUser = new HashMap<>();
+    private final int maxRoomMembers;
+    private int callCount;
+
+    public CallRegistry(SignalingProperties properties, SignalingMetrics metrics) {
+        this.maxRoomMembers = properties.getRooms().getMaxMembers();
+        metrics.bindCalls(this::getCallCount, rooms::size);
+    }
+
+    /**
+     * Update call state for a message routed from senderId to recipientId
+     *
+     * @return true if the message changed the call: an offer started a new call,
+     * an answer made a ringing call active or an end-call ended one
+     */
+    public boolean track(String type, String senderId, String recipientId) {
+        switch (type) {
+            case "offer" -> {
+                synchronized (lock) {
+                    if (put(senderId, recipientId, CallState.RINGING) == null) {
+                        put(recipientId, senderId, CallState.RINGING);
+                        callCount++;
+                        return true;
+                    }
+                    return false;
+                }
+            }
+            case "answer" -> {
+                synchronized (lock) {
+                    Map<String, CallState> peers = calls.get(senderId);
+                    if (peers != null && peers.get(recipientId) == CallState.RINGING) {
+                        peers.put(recipientId, CallState.ACTIVE);
+                        calls.get(recipientId).put(senderId, CallState.ACTIVE);
+                        return true;
+                    }
+                    return false;
+                }
+            }
+            case "end-call" -> {
+                synchronized (lock) {
+                    if (remove(senderId, recipientId) != null) {
+                        remove(recipientId, senderId);
+                        callCount--;
+                        return true;
+                    }
+                    return false;
+                }
+            }
+            default -> {
+                // ICE candidates do not change call state
+                return false;
+            }
+        }
+    }
+
+    /**
+     * State of the call between two users, or null if there is none
+     */
+    public CallState getCall(String userId, String peerId) {
+        synchronized (lock) {
+            Map<String, CallState> peers = calls.get(userId);
+            return peers != null ? peers.get(peerId) : null;
+        }
+    }
+
+    /**
+     * Add userId to a room
+     *
+     * @return the members that were in the room before, or null if the room is full
+     */
+    public List<String> join(String room, String userId) {
+        synchronized (lock) {
+            List<String> before = rooms.getOrDefault(room, List.of());
+            if (before.contains(userId)) {
+                return without(before, userId);
+            }
+            if (before.size() >= maxRoomMembers) {
+                return null;
+            }
+            List<String> after = new ArrayList<>(before.size() + 1);
+            after.addAll(before);
+            after.add(userId);
+            rooms.put(room, List.copyOf(after));
+            roomsByUser.computeIfAbsent(userId, id -> new LinkedHashSet<>()).add(room);
+            return before;
+        }
+    }
+
+    /**
+     * Remove userId from a room
+     *
+     * @return the members still in the room, or null if userId was not a member
+     */
+    public List<String> leave(String room, String userId) {
+        synchronized (lock) {
+            Set<String> joined = roomsByUser.get(userId);
+            if (joined == null || !joined.remove(room)) {
+                return null;
+            }
+            if (joined.isEmpty()) {
+                roomsByUser.remove(userId);
+            }
+            return removeMember(room, userId);
+        }
+    }
+
+    /**
+     * Current members of a room (an immutable snapshot; empty if the room does not exist)
+     */
+    public List<String> members(String room) {
+        return rooms.getOrDefault(room, List.of());
+    }
+
+    /**
+     * End everything userId took part in, because its connection is gone
+     */
+    public Departure disconnected(String userId) {
+        synchronized (lock) {
+            Map<String, CallState> peers = calls.remove(userId);
+            List<String> endedCalls = List.of();
+            if (peers != null) {
+                endedCalls = List.copyOf(peers.keySet());
+                for (String peer : endedCalls) {
+                    remove(peer, userId);
+                    callCount--;
+                }
+            }
+
+            Set<String> joined = roomsByUser.remove(userId);
+            Map<String, List<String>> leftRooms = new HashMap<>();
+            if (joined != null) {
+                for (String room : joined) {
+                    leftRooms.put(room, removeMember(room, userId));
+                }
+            }
+            return new Departure(endedCalls, leftRooms);
+        }
+    }
+
+    public int getCallCount() {
+        synchronized (lock) {
+            return callCount;
+        }
+    }
+
+    private CallState put(String userId, String peerId, CallState state) {
+        return calls.computeIfAbsent(userId, id -> new HashMap<>()).putIfAbsent(peerId, state);
+    }
+
+    private CallState remove(String userId, String peerId) {
+        Map<String, CallState> peers = calls.get(userId);
+        if (peers == null) {
+            return null;
+        }
+        CallState removed = peers.remove(peerId);
+        if (peers.isEmpty()) {
+            calls.remove(userId);
+        }
+        return removed;
+    }
+
+    private List<String> removeMember(String room, String userId) {
+        List<String> remaining = without(rooms.getOrDefault(room, List.of()), userId);
+        if (remaining.isEmpty()) {
+            rooms.remove(room);
+        } else {
+            rooms.put(room, remaining);
+        }
+        return remaining;
+    }
+
+    private static List<String> without(List<String> members, String userId) {
+        List<String> remaining = new ArrayList<>(members);
+        remaining.remove(userId);
+        return List.copyOf(remaining);
+    }
+
+    /**
+     * What a disconnected user leaves behind
+     */
+    public static final class Departure {
+        private final List<String> endedCalls;
+        private final Map<String, List<String>> leftRooms;
+
+        Departure(List<String> endedCalls, Map<String, List<String>> leftRooms) {
+            this.endedCalls = endedCalls;
+            this.leftRooms = leftRooms;
+        }
+
+        /**
+         * Peers whose 1:1 call with the user ended
+         */
+        public List<String> getEndedCalls() {
+            return endedCalls;
+        }
+
+        /**
+         * Rooms the user was in, mapped to the members still in them
+         */
+        public Map<String, List<String>> getLeftRooms() {
+            return leftRooms;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package dev.radovanradivojevic.webrtcserver.call;
+
+import java.time.Instant;
+
+/**
+ * The signaling timeline of one 1:1 call, as served by /calls/slowest
+ *
+ * Example:
+ * {"callerId":"dad","calleeId":"son","startedAt":"...","state":"ENDED","setupMillis":4210,
+ *  "firstIceMillis":35,"iceCandidates":12,"iceToEndMillis":183000}
+ *
+ * Durations are milliseconds after the offer; firstIceMillis and iceToEndMillis
+ * are null until the call got that far.
+ */
+public class CallTrace {
+
+    /**
+     * Where the call's signaling has got to
+     */
+    public enum State {
+        RINGING,
+        ACTIVE,
+        ENDED,
+        UNANSWERED
+    }
+
+    private final String callerId;
+    private final String calleeId;
+    private final long startedAtMillis;
+    private final State state;
+    private final long setupMillis;
+    private final Long firstIceMillis;
+    private final int iceCandidates;
+    private final Long iceToEndMillis;
+
+    public CallTrace(String callerId, String calleeId, long startedAtMillis, State state, long setupMillis,
+                     Long firstIceMillis, int iceCandidates, Long iceToEndMillis) {
+        this.callerId = callerId;
+        this.calleeId = calleeId;
+        this.startedAtMillis = startedAtMillis;
+        this.state = state;
+        this.setupMillis = setupMillis;
+        this.firstIceMillis = firstIceMillis;
+        this.iceCandidates = iceCandidates;
+        this.iceToEndMillis = iceToEndMillis;
+    }
+
+    /**
+     * User who sent the offer
+     */
+    public String getCallerId() {
+        return callerId;
+    }
+
+    public String getCalleeId() {
+        return calleeId;
+    }
+
+    /**
+     * When the offer was routed
+     */
+    public Instant getStartedAt() {
+        return Instant.ofEpochMilli(startedAtMillis);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Offer to answer; for calls without an answer, offer to end-call or to now
+     */
+    public long getSetupMillis() {
+        return setupMillis;
+    }
+
+    /**
+     * Offer to the first ICE candidate in either direction
+     */
+    public Long getFirstIceMillis() {
+        return firstIceMillis;
+    }
+
+    /**
+     * ICE candidates routed in both directions
+     */
+    public int getIceCandidates() {
+        return iceCandidates;
+    }
+
+    /**
+     * First ICE candidate to end-call
+     */
+    public Long getIceToEndMillis() {
+        return iceToEndMillis;
+    }
+}
@@ -0,0 +1,46 @@
+package dev.radovanradivojevic.webrtcserver.call;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Call setup timing over HTTP
+ *
+ * GET /calls/setup-latency
+ * {"answer":{"count":412,"meanMillis":2380.5,...},"first-ice":{...},"ice-to-end":{...}}
+ *
+ * GET /calls/slowest?limit=10
+ * [{"callerId":"dad","calleeId":"son","state":"RINGING","setupMillis":31020,...}, ...]
+ *
+ * Both are in-memory and node-local; the histograms cover every call since
+ * startup, the slowest calls only the last signaling.trace.capacity calls.
+ *
+ * The slowest calls name who called whom, so like /audit/calls the endpoints
+ * only exist with signaling.trace.endpoint-enabled=true, meant for use behind
+ * an authenticating proxy. The histograms are also on /actuator/prometheus.
+ */
+@RestController
+@ConditionalOnProperty(prefix = "signaling.trace", name = "endpoint-enabled", havingValue = "true")
+public class CallTraceController {
+
+    private final CallTracer tracer;
+
+    public CallTraceController(CallTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @GetMapping("/calls/setup-latency")
+    public Map<String, SetupLatency> setupLatency() {
+        return tracer.setupLatency();
+    }
+
+    @GetMapping("/calls/slowest")
+    public List<CallTrace> slowest(@RequestParam(defaultValue = "10") int limit) {
+        return tracer.slowest(limit);
+    }
+}
@@ -0,0 +1,205 @@
+package dev.radovanradivojevic.webrtcserver.call;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * CallTracer - Timestamps of every 1:1 call's signaling, and how long call setup takes
+ *
+ * Purpose: The server routed offers and answers without keeping any time, so
+ * "calls take long to connect" could not be told apart from "users take long
+ * to pick up" or "ICE takes long to start". The handler now reports each
+ * routed offer/answer/ice-candidate/end-call here, and every call gets a trace:
+ * - offer from A to B starts the trace of call A -> B
+ * - the first answer from B to A, the first ICE candidate either way and the
+ *   end-call either way are timestamped; ICE candidates are counted
+ *
+ * Three phases are recorded in signaling.call.setup (see SignalingMetrics) as
+ * they complete: answer (offer to answer), first-ice (offer to first
+ * candidate) and ice-to-end (first candidate to end-call). /calls/setup-latency
+ * serves those histograms, /calls/slowest the traces with the longest setup.
+ *
+ * Traces live in a fixed-size ring: an offer claims the next slot with one
+ * atomic increment and overwrites the oldest trace, and the timestamps are
+ * set with compare-and-set - recording never takes a lock. Calls still in
+ * progress are also indexed by caller/callee; a trace overwritten before its
+ * call ended drops out of that index, so memory stays bounded by the capacity.
+ *
+ * Room calls are not traced: their offers go to several members at once.
+ *
+ * Structure: Trace[capacity] ring and Map<(caller, callee), trace> of calls in progress
+ */
+@Component
+public class CallTracer {
+
+    private final AtomicReferenceArray<Trace> ring;
+    private final AtomicLong cursor = new AtomicLong();
+    private final int mask;
+    private final Map<Pair, Trace> inProgress = new ConcurrentHashMap<>();
+    private final SignalingMetrics metrics;
+    private final boolean enabled;
+
+    public CallTracer(SignalingProperties properties, SignalingMetrics metrics) {
+        SignalingProperties.Trace config = properties.getTrace();
+        int capacity = config.getCapacity() <= 1 ? 1 : Integer.highestOneBit(config.getCapacity() - 1) << 1;
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.metrics = metrics;
+        this.enabled = config.isEnabled();
+    }
+
+    /**
+     * A message of the given type was routed from senderId to recipientId
+     */
+    public void record(String type, String senderId, String recipientId) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        switch (type) {
+            case "offer" -> offer(senderId, recipientId, now);
+            case "answer" -> {
+                Trace trace = inProgress.get(new Pair(recipientId, senderId));
+                if (trace != null && trace.answerAt.compareAndSet(0, now)) {
+                    metrics.recordCallSetup("answer", now - trace.offerAt);
+                }
+            }
+            case "ice-candidate" -> {
+                Trace trace = find(senderId, recipientId);
+                if (trace != null && trace.iceCandidates.getAndIncrement() == 0) {
+                    trace.firstIceAt.set(now);
+                    metrics.recordCallSetup("first-ice", now - trace.offerAt);
+                }
+            }
+            case "end-call" -> {
+                Trace trace = find(senderId, recipientId);
+                if (trace != null && trace.endAt.compareAndSet(0, now)) {
+                    inProgress.remove(trace.pair, trace);
+                    long firstIceAt = trace.firstIceAt.get();
+                    if (firstIceAt != 0) {
+                        metrics.recordCallSetup("ice-to-end", now - firstIceAt);
+                    }
+                }
+            }
+            default -> {
+                // Other messages are not part of a call's setup
+            }
+        }
+    }
+
+    /**
+     * The recent calls whose setup took longest, slowest first
+     *
+     * Setup is offer to answer; a call that is still ringing, or ended
+     * unanswered, counts with the time it has been (or was) waiting.
+     */
+    public List<CallTrace> slowest(int limit) {
+        long now = System.nanoTime();
+        List<CallTrace> traces = new ArrayList<>();
+        for (int i = 0; i < ring.length(); i++) {
+            Trace trace = ring.get(i);
+            if (trace != null) {
+                traces.add(trace.snapshot(now));
+            }
+        }
+        traces.sort(Comparator.comparingLong(CallTrace::getSetupMillis).reversed());
+        return traces.subList(0, Math.min(Math.max(limit, 0), traces.size()));
+    }
+
+    /**
+     * Histogram of each phase, in the order of SignalingMetrics.CALL_SETUP_PHASES
+     */
+    public Map<String, SetupLatency> setupLatency() {
+        Map<String, SetupLatency> phases = new LinkedHashMap<>();
+        for (String phase : SignalingMetrics.CALL_SETUP_PHASES) {
+            phases.put(phase, new SetupLatency(metrics.callSetupSnapshot(phase)));
+        }
+        return phases;
+    }
+
+    /**
+     * Calls currently indexed as in progress (for testing and monitoring)
+     */
+    public int inProgress() {
+        return inProgress.size();
+    }
+
+    private void offer(String callerId, String calleeId, long now) {
+        // A re-offer (renegotiation) either way belongs to the call already traced
+        if (inProgress.containsKey(new Pair(calleeId, callerId))) {
+            return;
+        }
+        Trace trace = new Trace(new Pair(callerId, calleeId), now, System.currentTimeMillis());
+        if (inProgress.putIfAbsent(trace.pair, trace) != null) {
+            return;
+        }
+        Trace overwritten = ring.getAndSet((int) (cursor.getAndIncrement() & mask), trace);
+        if (overwritten != null) {
+            inProgress.remove(overwritten.pair, overwritten);
+        }
+    }
+
+    /**
+     * The call in progress between two users, whichever of them sent the offer
+     */
+    private Trace find(String senderId, String recipientId) {
+        Trace trace = inProgress.get(new Pair(senderId, recipientId));
+        return trace != null ? trace : inProgress.get(new Pair(recipientId, senderId));
+    }
+
+    private record Pair(String callerId, String calleeId) {
+    }
+
+    /**
+     * Timestamps of one call; 0 until the event happened
+     */
+    private static final class Trace {
+        private final Pair pair;
+        private final long offerAt;
+        private final long startedAtMillis;
+        private final AtomicLong answerAt = new AtomicLong();
+        private final AtomicLong firstIceAt = new AtomicLong();
+        private final AtomicLong endAt = new AtomicLong();
+        private final AtomicInteger iceCandidates = new AtomicInteger();
+
+        Trace(Pair pair, long offerAt, long startedAtMillis) {
+            this.pair = pair;
+            this.offerAt = offerAt;
+            this.startedAtMillis = startedAtMillis;
+        }
+
+        CallTrace snapshot(long now) {
+            long answered = answerAt.get();
+            long firstIce = firstIceAt.get();
+            long ended = endAt.get();
+            long setupEnd = answered != 0 ? answered : ended != 0 ? ended : now;
+            return new CallTrace(pair.callerId(), pair.calleeId(), startedAtMillis,
+                    state(answered, ended), millis(setupEnd - offerAt),
+                    firstIce != 0 ? millis(firstIce - offerAt) : null,
+                    iceCandidates.get(),
+                    firstIce != 0 && ended != 0 ? millis(ended - firstIce) : null);
+        }
+
+        private static CallTrace.State state(long answered, long ended) {
+            if (ended != 0) {
+                return answered != 0 ? CallTrace.State.ENDED : CallTrace.State.UNANSWERED;
+            }
+            return answered != 0 ? CallTrace.State.ACTIVE : CallTrace.State.RINGING;
+        }
+
+        private static long millis(long nanos) {
+            return nanos / 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package dev.radovanradivojevic.webrtcserver.call;
+
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregated latency of one call setup phase, as served by /calls/setup-latency
+ *
+ * Example:
+ * {"count":412,"meanMillis":2380.5,"maxMillis":29114.0,
+ *  "buckets":{"50":3,"100":9,"250":40,...,"3600000":412}}
+ *
+ * Buckets are cumulative like Prometheus' "le": each bound in milliseconds
+ * maps to the number of calls that took at most that long.
+ */
+public class SetupLatency {
+
+    private final long count;
+    private final double meanMillis;
+    private final double maxMillis;
+    private final Map<String, Long> buckets = new LinkedHashMap<>();
+
+    SetupLatency(HistogramSnapshot snapshot) {
+        this.count = snapshot.count();
+        this.meanMillis = snapshot.mean(TimeUnit.MILLISECONDS);
+        this.maxMillis = snapshot.max(TimeUnit.MILLISECONDS);
+        for (CountAtBucket bucket : snapshot.histogramCounts()) {
+            buckets.put(String.valueOf((long) bucket.bucket(TimeUnit.MILLISECONDS)), (long) bucket.count());
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    public Map<String, Long> getBuckets() {
+        return buckets;
+    }
+}
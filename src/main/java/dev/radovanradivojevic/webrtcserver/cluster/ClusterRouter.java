@@ -0,0 +1,153 @@
+package dev.radovanradivojevic.webrtcserver.cluster;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * ClusterRouter - Finds and reaches users connected to other nodes
+ *
+ * SignalingHandler always looks in its own session map first; only when the
+ * recipient is not connected locally does it ask this router. So the common
+ * case (caller and callee on the same node) stays a single map hit and never
+ * touches the directory.
+ *
+ * Remote locations are cached for signaling.cluster.location-cache-ttl, because
+ * the messages of one call setup (offer, answer, a burst of ICE candidates)
+ * all go to the same user within a second or two. A cached entry is dropped
+ * early when:
+ * - the user registers on this node
+ * - the node it points to cannot be reached
+ *
+ * Only positive lookups are cached: a user who just came online somewhere
+ * must be reachable immediately.
+ *
+ * A cached location can still be stale - the user moved to another node or
+ * went offline within the TTL. The node a frame then reaches looks the user
+ * up again and passes the frame on once (forward), or else bounces it back
+ * to the sender's node, which drops its cache entry and retries (see
+ * RelayedFrame.Leg). So a frame is held, and a wakeup sent, only on the
+ * sender's node, and never for a user who is online elsewhere.
+ */
+@Component
+public class ClusterRouter {
+
+    private final String nodeId;
+    private final SessionDirectory directory;
+    private final NodeRelay relay;
+    private final long locationTtlNanos;
+    private final Map<String, CachedLocation> locations = new ConcurrentHashMap<>();
+
+    public ClusterRouter(SignalingProperties properties, SessionDirectory directory, NodeRelay relay) {
+        String configuredNodeId = properties.getCluster().getNodeId();
+        this.nodeId = configuredNodeId != null && !configuredNodeId.isBlank()
+                ? configuredNodeId
+                : UUID.randomUUID().toString();
+        this.directory = directory;
+        this.relay = relay;
+        this.locationTtlNanos = properties.getCluster().getLocationCacheTtl().toNanos();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Receive frames other nodes relay to users on this node
+     */
+    public void onRelayedFrame(Consumer<RelayedFrame> receiver) {
+        relay.bind(nodeId, receiver);
+    }
+
+    /**
+     * A user registered on this node
+     */
+    public void registered(String userId) {
+        locations.remove(userId);
+        directory.register(userId, nodeId);
+    }
+
+    /**
+     * A user's session on this node went away
+     */
+    public void unregistered(String userId) {
+        directory.unregister(userId, nodeId);
+    }
+
+    /**
+     * Node holding userId's session, or null if the user is not connected to another node
+     */
+    public String locate(String userId) {
+        long now = System.nanoTime();
+        CachedLocation cached = locations.get(userId);
+        if (cached != null && now - cached.cachedAt < locationTtlNanos) {
+            return cached.nodeId;
+        }
+
+        String location = directory.locate(userId);
+        if (location == null || location.equals(nodeId)) {
+            // Offline, or the directory still lists a session this node has already dropped
+            locations.remove(userId);
+            return null;
+        }
+        locations.put(userId, new CachedLocation(location, now));
+        return location;
+    }
+
+    /**
+     * Hand a stamped payload to the node holding the recipient
+     *
+     * @return false if that node could not be reached
+     */
+    public boolean relay(String targetNodeId, String senderId, String recipientId, String type, String payload) {
+        return forward(targetNodeId, new RelayedFrame(senderId, recipientId, type, payload, nodeId,
+                RelayedFrame.Leg.FIRST));
+    }
+
+    /**
+     * Pass a relayed frame that missed its recipient on to targetNodeId, on its next leg
+     *
+     * @return false if that node could not be reached
+     */
+    public boolean forward(String targetNodeId, RelayedFrame frame) {
+        if (relay.send(targetNodeId, frame)) {
+            return true;
+        }
+        locations.remove(frame.getRecipientId());
+        return false;
+    }
+
+    /**
+     * Node holding userId's session according to the directory, ignoring the cache
+     * (after a frame did not find userId where the cache said)
+     */
+    public String relocate(String userId) {
+        locations.remove(userId);
+        return locate(userId);
+    }
+
+    /**
+     * Send a frame that did not find its recipient here back to the sender's node
+     *
+     * @return false if the frame started here or the sender's node could not be reached
+     */
+    public boolean bounce(RelayedFrame frame) {
+        String origin = frame.getOriginNodeId();
+        return origin != null && !origin.equals(nodeId)
+                && relay.send(origin, frame.on(RelayedFrame.Leg.BOUNCED));
+    }
+
+    private static final class CachedLocation {
+        private final String nodeId;
+        private final long cachedAt;
+
+        CachedLocation(String nodeId, long cachedAt) {
+            this.nodeId = nodeId;
+            this.cachedAt = cachedAt;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package dev.radovanradivojevic.webrtcserver.cluster;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * InMemorySessionDirectory - SessionDirectory inside one JVM
+ *
+ * The default for a single node, where every lookup misses because local
+ * users are found before the directory is consulted. Tests share one instance
+ * between several handlers to simulate a cluster.
+ */
+public class InMemorySessionDirectory implements SessionDirectory {
+
+    private final Map<String, String> locations = new ConcurrentHashMap<>();
+
+    @Override
+    public void register(String userId, String nodeId) {
+        locations.put(userId, nodeId);
+    }
+
+    @Override
+    public void unregister(String userId, String nodeId) {
+        locations.remove(userId, nodeId);
+    }
+
+    @Override
+    public String locate(String userId) {
+        return locations.get(userId);
+    }
+}
@@ -0,0 +1,55 @@
+package dev.radovanradivojevic.webrtcserver.cluster;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * LoopbackNodeRelay - NodeRelay between nodes in the same JVM
+ *
+ * Frames are handed to the receiving node's callback on the sender's thread,
+ * which is fine because the receiving side only queues them. Relays created
+ * with peer() share one "network", so a test can run two or more
+ * handlers side by side and route calls between them.
+ */
+public class LoopbackNodeRelay implements NodeRelay {
+
+    private final Map<String, Consumer<RelayedFrame>> nodes;
+
+    public LoopbackNodeRelay() {
+        this(new ConcurrentHashMap<>());
+    }
+
+    private LoopbackNodeRelay(Map<String, Consumer<RelayedFrame>> nodes) {
+        this.nodes = nodes;
+    }
+
+    /**
+     * Another relay on the same loopback network as this one
+     */
+    public LoopbackNodeRelay peer() {
+        return new LoopbackNodeRelay(nodes);
+    }
+
+    @Override
+    public void bind(String nodeId, Consumer<RelayedFrame> receiver) {
+        nodes.put(nodeId, receiver);
+    }
+
+    @Override
+    public boolean send(String nodeId, RelayedFrame frame) {
+        Consumer<RelayedFrame> receiver = nodes.get(nodeId);
+        if (receiver == null) {
+            return false;
+        }
+        receiver.accept(frame);
+        return true;
+    }
+
+    /**
+     * Take a node off the network, as if it had crashed (for testing)
+     */
+    public void disconnect(String nodeId) {
+        nodes.remove(nodeId);
+    }
+}
@@ -0,0 +1,29 @@
+package dev.radovanradivojevic.webrtcserver.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * NodeRelay - Node-to-node channel for signaling frames
+ *
+ * Carries an already stamped signaling payload to the node that holds the
+ * recipient's session, where it is queued like any locally routed message.
+ * Implementations only move frames; they never parse the payload.
+ *
+ * Replace the default loopback relay by declaring a NodeRelay bean.
+ */
+public interface NodeRelay {
+
+    /**
+     * Start accepting frames addressed to nodeId and hand them to receiver
+     */
+    void bind(String nodeId, Consumer<RelayedFrame> receiver);
+
+    /**
+     * Send a frame to nodeId
+     *
+     * Must not block on the remote node processing the frame.
+     *
+     * @return false if nodeId is not reachable
+     */
+    boolean send(String nodeId, RelayedFrame frame);
+}
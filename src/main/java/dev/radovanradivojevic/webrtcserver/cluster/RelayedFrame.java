@@ -0,0 +1,81 @@
+package dev.radovanradivojevic.webrtcserver.cluster;
+
+/**
+ * RelayedFrame - A signaling message on its way to another node
+ *
+ * The payload is exactly what the recipient will receive ("from" is already
+ * set); type and the user ids travel next to it so the receiving node can
+ * route and count it without parsing the payload again.
+ *
+ * originNodeId and leg let a frame that missed its recipient (the sender's
+ * node had a stale location) find them anyway, without ever circling:
+ * FIRST may be passed on once (RELOCATED), either may come back to the
+ * origin (BOUNCED), and the origin's one RETRY is final.
+ */
+public class RelayedFrame {
+
+    /**
+     * How far a frame has got
+     */
+    public enum Leg {
+        /** From the sender's node to the node it located the recipient on */
+        FIRST,
+        /** Passed on by a node that no longer had the recipient and looked them up again */
+        RELOCATED,
+        /** Back to the sender's node: the recipient was not where the frame went */
+        BOUNCED,
+        /** The sender's node's one retry after a bounce */
+        RETRY
+    }
+
+    private final String senderId;
+    private final String recipientId;
+    private final String type;
+    private final String payload;
+    private final String originNodeId;
+    private final Leg leg;
+
+    public RelayedFrame(String senderId, String recipientId, String type, String payload,
+                        String originNodeId, Leg leg) {
+        this.senderId = senderId;
+        this.recipientId = recipientId;
+        this.type = type;
+        this.payload = payload;
+        this.originNodeId = originNodeId;
+        this.leg = leg;
+    }
+
+    public String getSenderId() {
+        return senderId;
+    }
+
+    public String getRecipientId() {
+        return recipientId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    /**
+     * Node the sender is connected to
+     */
+    public String getOriginNodeId() {
+        return originNodeId;
+    }
+
+    public Leg getLeg() {
+        return leg;
+    }
+
+    /**
+     * The same frame on its next leg
+     */
+    public RelayedFrame on(Leg next) {
+        return new RelayedFrame(senderId, recipientId, type, payload, originNodeId, next);
+    }
+}
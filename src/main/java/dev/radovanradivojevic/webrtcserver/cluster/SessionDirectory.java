@@ -0,0 +1,30 @@
+package dev.radovanradivojevic.webrtcserver.cluster;
+
+/**
+ * SessionDirectory - Cluster-wide map of which node holds which user's WebSocket
+ *
+ * Every node writes its own registrations here and reads other nodes' entries
+ * when a recipient is not connected locally. Implementations can be backed by
+ * anything shared between the nodes (Redis, a database, a gossip protocol).
+ *
+ * Replace the default in-memory directory by declaring a SessionDirectory bean.
+ */
+public interface SessionDirectory {
+
+    /**
+     * Record that userId is connected to nodeId, replacing any previous node
+     */
+    void register(String userId, String nodeId);
+
+    /**
+     * Remove userId, but only if it is still recorded for nodeId
+     *
+     * A user who reconnected to another node in the meantime must keep the new entry.
+     */
+    void unregister(String userId, String nodeId);
+
+    /**
+     * Node currently holding userId's session, or null if the user is not connected anywhere
+     */
+    String locate(String userId);
+}
@@ -0,0 +1,44 @@
+package dev.radovanradivojevic.webrtcserver.compression;
+
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+
+/**
+ * A "/signal" session that can switch to compressed frames
+ *
+ * Sends text frames unchanged until FrameCompressor.negotiate() enables
+ * compression (on register); from then on large frames go out deflated.
+ * Sends happen on the outbound writer thread, so compression never runs
+ * on the sender's thread.
+ */
+public class CompressingSessionDecorator extends WebSocketSessionDecorator {
+
+    private final FrameCompressor compressor;
+    private volatile boolean compression;
+
+    public CompressingSessionDecorator(WebSocketSession session, FrameCompressor compressor) {
+        super(session);
+        this.compressor = compressor;
+    }
+
+    void enableCompression() {
+        compression = true;
+    }
+
+    public boolean isCompressionEnabled() {
+        return compression;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (compression && message instanceof TextMessage text) {
+            super.sendMessage(compressor.compress(text));
+        } else {
+            super.sendMessage(message);
+        }
+    }
+}
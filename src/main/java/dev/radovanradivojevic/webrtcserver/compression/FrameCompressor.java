@@ -0,0 +1,209 @@
+package dev.radovanradivojevic.webrtcserver.compression;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * FrameCompressor - Deflate with an SDP dictionary for large signaling frames
+ *
+ * Purpose: Offers and answers are several KB of repetitive SDP sent on every
+ * call setup, often over cellular links. Frames at or above the threshold are
+ * sent to clients that opted in as binary frames holding zlib data compressed
+ * against SdpDictionary; everything smaller (ICE candidates, acks) stays a
+ * plain text frame, so they cost no CPU and gain no framing overhead.
+ *
+ * Negotiation:
+ * - the server needs signaling.compression.enabled=true
+ * - the client lists "deflate-sdp" in the capabilities of its RegisterMessage
+ * - the connection did not negotiate the standard permessage-deflate extension,
+ *   which already compresses every frame (compressing twice only costs CPU)
+ *
+ * Clients may send compressed frames the same way; they are inflated before
+ * handling, up to max-inflated-size or the endpoint's text frame limit,
+ * whichever is smaller - inflating must not smuggle in a frame the container
+ * would have refused as text.
+ *
+ * Deflater/Inflater hold native zlib state that is expensive to create, so
+ * instances are pooled and reused.
+ */
+@Component
+public class FrameCompressor {
+
+    /**
+     * Capability a client puts in its RegisterMessage to receive compressed frames
+     */
+    public static final String CAPABILITY = "deflate-sdp";
+
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+    private static final byte[] DICTIONARY = SdpDictionary.bytes();
+
+    private final boolean enabled;
+    private final int threshold;
+    private final int level;
+    private final int maxInflatedSize;
+    private final SignalingMetrics metrics;
+    private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+    private final Queue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+
+    public FrameCompressor(SignalingProperties properties, SignalingMetrics metrics) {
+        SignalingProperties.Compression config = properties.getCompression();
+        this.enabled = config.isEnabled();
+        this.threshold = config.getThreshold();
+        this.level = config.getLevel();
+        this.maxInflatedSize = config.getMaxInflatedSize();
+        this.metrics = metrics;
+    }
+
+    /**
+     * Enable compression for a session if it asked for it and can use it
+     *
+     * @return true if the client should be told compression was agreed
+     */
+    public boolean negotiate(WebSocketSession session, List<String> capabilities) {
+        if (!enabled || capabilities == null || !capabilities.contains(CAPABILITY)
+                || !(session instanceof CompressingSessionDecorator compressing)
+                || hasPerMessageDeflate(session)) {
+            return false;
+        }
+        compressing.enableCompression();
+        return true;
+    }
+
+    /**
+     * The frame to put on the wire for a text frame to a session that negotiated compression
+     */
+    public WebSocketMessage<?> compress(TextMessage message) {
+        byte[] raw = message.getPayload().getBytes(StandardCharsets.UTF_8);
+        if (raw.length < threshold) {
+            metrics.compression(false, raw.length, raw.length);
+            return message;
+        }
+
+        byte[] compressed = deflate(raw);
+        if (compressed.length >= raw.length) {
+            metrics.compression(false, raw.length, raw.length);
+            return message;
+        }
+        metrics.compression(true, raw.length, compressed.length);
+        return new BinaryMessage(compressed);
+    }
+
+    /**
+     * Inflate a compressed frame from a client back to JSON text
+     */
+    public String decompress(ByteBuffer compressed) throws IOException {
+        return decompress(compressed, maxInflatedSize);
+    }
+
+    /**
+     * Inflate a compressed frame from a client, stopping as soon as it exceeds maxSize bytes
+     *
+     * @throws FrameTooLargeException if the frame inflates beyond maxSize (or max-inflated-size)
+     */
+    public String decompress(ByteBuffer compressed, int maxSize) throws IOException {
+        int limit = Math.min(maxInflatedSize, maxSize);
+        ByteBuffer buffer = compressed.duplicate();
+        byte[] input = new byte[buffer.remaining()];
+        buffer.get(input);
+
+        Inflater inflater = inflaters.poll();
+        if (inflater == null) {
+            inflater = new Inflater();
+        }
+        try {
+            inflater.setInput(input);
+            byte[] output = new byte[Math.min(limit, Math.max(256, input.length * 4))];
+            int length = 0;
+            while (!inflater.finished()) {
+                if (length == output.length) {
+                    if (output.length >= limit) {
+                        throw new FrameTooLargeException("Compressed frame inflates beyond " + limit + " bytes");
+                    }
+                    output = Arrays.copyOf(output, Math.min(limit, output.length * 2));
+                }
+                int inflated = inflater.inflate(output, length, output.length - length);
+                if (inflated == 0) {
+                    if (inflater.needsDictionary()) {
+                        if (inflater.getAdler() != SdpDictionary.getId()) {
+                            throw new IOException("Frame was compressed with an unknown dictionary");
+                        }
+                        inflater.setDictionary(DICTIONARY);
+                    } else if (inflater.needsInput()) {
+                        throw new IOException("Truncated compressed frame");
+                    }
+                }
+                length += inflated;
+            }
+            return new String(output, 0, length, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid compressed frame", e);
+        } finally {
+            inflater.reset();
+            inflaters.offer(inflater);
+        }
+    }
+
+    private byte[] deflate(byte[] raw) {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(level);
+        }
+        try {
+            deflater.setDictionary(DICTIONARY);
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] output = new byte[raw.length + 64];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                length += deflater.deflate(output, length, output.length - length);
+            }
+            return Arrays.copyOf(output, length);
+        } finally {
+            deflater.reset();
+            deflaters.offer(deflater);
+        }
+    }
+
+    private static boolean hasPerMessageDeflate(WebSocketSession session) {
+        List<WebSocketExtension> extensions = session.getExtensions();
+        if (extensions == null) {
+            return false;
+        }
+        for (WebSocketExtension extension : extensions) {
+            if (PERMESSAGE_DEFLATE.equalsIgnoreCase(extension.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A compressed frame that inflates beyond the allowed size
+     */
+    public static class FrameTooLargeException extends IOException {
+
+        public FrameTooLargeException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package dev.radovanradivojevic.webrtcserver.compression;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Adler32;
+
+/**
+ * SdpDictionary - Preset deflate dictionary for signaling frames
+ *
+ * Deflate can refer back to a preset dictionary as if it had been sent just
+ * before the message. An SDP offer is mostly boilerplate every client
+ * produces (codec, rtcp-fb and extmap lines), so with these bytes as the
+ * dictionary even the first offer on a connection compresses as well as a
+ * repeated one would.
+ *
+ * The text is SDP as it appears inside a JSON string - line breaks are the
+ * escaped "\r\n" - followed by the JSON envelope of our messages. Deflate
+ * encodes nearer matches more cheaply, so the most common strings are last.
+ *
+ * Clients must use exactly these bytes. The zlib header of every compressed
+ * frame carries the dictionary's Adler-32 (getId()), so a change here is
+ * detected rather than producing garbage; change it only together with a new
+ * capability name.
+ */
+public final class SdpDictionary {
+
+    private static final String TEXT = ""
+            + "a=extmap:8 http://www.webrtc.org/experiments/rtp-hdrext/color-space\\r\\n"
+            + "a=extmap:7 http://www.webrtc.org/experiments/rtp-hdrext/video-timing\\r\\n"
+            + "a=extmap:6 http://www.webrtc.org/experiments/rtp-hdrext/video-content-type\\r\\n"
+            + "a=extmap:5 http://www.webrtc.org/experiments/rtp-hdrext/playout-delay\\r\\n"
+            + "a=extmap:13 urn:3gpp:video-orientation\\r\\n"
+            + "a=extmap:14 urn:ietf:params:rtp-hdrext:toffset\\r\\n"
+            + "a=extmap:10 urn:ietf:params:rtp-hdrext:sdes:rtp-stream-id\\r\\n"
+            + "a=extmap:11 urn:ietf:params:rtp-hdrext:sdes:repaired-rtp-stream-id\\r\\n"
+            + "a=fmtp:100 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42e01f\\r\\n"
+            + "a=fmtp:102 level-asymmetry-allowed=1;packetization-mode=0;profile-level-id=42e01f\\r\\n"
+            + "a=fmtp:127 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=4d001f\\r\\n"
+            + "a=rtpmap:98 VP9/90000\\r\\na=fmtp:98 profile-id=0\\r\\n"
+            + "a=rtpmap:35 AV1/90000\\r\\n"
+            + "a=rtpmap:100 H264/90000\\r\\na=rtpmap:102 H264/90000\\r\\n"
+            + "a=rtpmap:97 rtx/90000\\r\\na=fmtp:97 apt=96\\r\\n"
+            + "a=rtpmap:99 rtx/90000\\r\\na=fmtp:99 apt=98\\r\\n"
+            + "a=rtpmap:101 rtx/90000\\r\\na=fmtp:101 apt=100\\r\\n"
+            + "a=rtpmap:125 red/90000\\r\\na=rtpmap:127 ulpfec/90000\\r\\n"
+            + "a=rtpmap:63 red/48000/2\\r\\na=fmtp:63 111/111\\r\\n"
+            + "a=rtpmap:9 G722/8000\\r\\na=rtpmap:0 PCMU/8000\\r\\na=rtpmap:8 PCMA/8000\\r\\n"
+            + "a=rtpmap:13 CN/8000\\r\\na=rtpmap:110 telephone-event/48000\\r\\n"
+            + "a=rtpmap:126 telephone-event/8000\\r\\n"
+            + "a=rtpmap:111 opus/48000/2\\r\\na=rtcp-fb:111 transport-cc\\r\\n"
+            + "a=fmtp:111 minptime=10;useinbandfec=1\\r\\n"
+            + "m=audio 9 UDP/TLS/RTP/SAVPF 111 63 9 0 8 13 110 126\\r\\n"
+            + "m=video 9 UDP/TLS/RTP/SAVPF 96 97 98 99 100 101 35 36 102 125 127\\r\\n"
+            + "a=ssrc-group:FID \\r\\na=ssrc: cname:\\r\\na=msid:\\r\\n"
+            + "a=extmap:1 urn:ietf:params:rtp-hdrext:ssrc-audio-level\\r\\n"
+            + "a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time\\r\\n"
+            + "a=extmap:3 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01\\r\\n"
+            + "a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid\\r\\n"
+            + "a=extmap-allow-mixed\\r\\na=msid-semantic: WMS \\r\\n"
+            + "v=0\\r\\no=- 2 IN IP4 127.0.0.1\\r\\ns=-\\r\\nt=0 0\\r\\na=group:BUNDLE 0 1\\r\\n"
+            + "c=IN IP4 0.0.0.0\\r\\na=rtcp:9 IN IP4 0.0.0.0\\r\\n"
+            + "a=ice-options:trickle renomination\\r\\na=fingerprint:sha-256 \\r\\n"
+            + "a=setup:actpass\\r\\na=setup:active\\r\\na=mid:0\\r\\na=mid:1\\r\\n"
+            + "a=sendrecv\\r\\na=rtcp-mux\\r\\na=rtcp-rsize\\r\\na=ice-ufrag:\\r\\na=ice-pwd:\\r\\n"
+            + " goog-remb\\r\\n transport-cc\\r\\n ccm fir\\r\\n nack\\r\\n nack pli\\r\\n"
+            + "a=rtcp-fb:96 a=rtcp-fb:98 a=rtcp-fb:100 a=rtcp-fb:102 a=rtpmap:96 VP8/90000\\r\\n"
+            + "candidate: 1 udp  typ host generation 0 ufrag  network-id 1 network-cost 10"
+            + " typ srflx raddr  rport  typ relay \",\"sdpMid\":\"0\",\"sdpMLineIndex\":0,"
+            + "{\"type\":\"ice-candidate\",\"from\":\"\",\"to\":\"\",\"candidate\":{\"sdp\":\""
+            + "{\"type\":\"answer\",\"from\":\"\",\"to\":\"\",\"sdp\":\"v=0\\r\\no=- "
+            + "{\"type\":\"offer\",\"from\":\"\",\"to\":\"\",\"sdp\":\"v=0\\r\\no=- ";
+
+    private static final byte[] BYTES = TEXT.getBytes(StandardCharsets.UTF_8);
+    private static final int ID;
+
+    static {
+        Adler32 adler = new Adler32();
+        adler.update(BYTES);
+        ID = (int) adler.getValue();
+    }
+
+    private SdpDictionary() {
+    }
+
+    /**
+     * The dictionary (a copy; callers may keep it)
+     */
+    public static byte[] bytes() {
+        return BYTES.clone();
+    }
+
+    /**
+     * Adler-32 of the dictionary, as carried in the zlib header of compressed frames
+     */
+    public static int getId() {
+        return ID;
+    }
+}
@@ -0,0 +1,122 @@
+package dev.radovanradivojevic.webrtcserver.config;
+
+import dev.radovanradivojevic.webrtcserver.audit.AuditStore;
+import dev.radovanradivojevic.webrtcserver.audit.JdbcAuditStore;
+import dev.radovanradivojevic.webrtcserver.cluster.InMemorySessionDirectory;
+import dev.radovanradivojevic.webrtcserver.cluster.LoopbackNodeRelay;
+import dev.radovanradivojevic.webrtcserver.cluster.NodeRelay;
+import dev.radovanradivojevic.webrtcserver.cluster.SessionDirectory;
+import dev.radovanradivojevic.webrtcserver.session.ExecutionMode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Signaling infrastructure beans
+ *
+ * Binds SignalingProperties and creates the executors that run signaling work:
+ * - inboundExecutor: handles inbound messages in VIRTUAL execution mode, the
+ *   cleanup of sessions the HeartbeatMonitor reaped, and session closes
+ * - outboundExecutor: drains the per-session outbound queues
+ * - signalingScheduler: shared timer for short delays such as the ICE batching window
+ * - wakeupExecutor: runs the WakeupDispatcher, which may block on a push service
+ * - sessionDirectory / nodeRelay: single-node defaults for cluster routing,
+ *   replaced by declaring beans of the same types
+ * - auditStore: presence and call history in the application's database
+ */
+@Configuration
+@EnableConfigurationProperties(SignalingProperties.class)
+public class SignalingConfig {
+
+    /**
+     * Writer pool for outbound queues
+     *
+     * Separate from the servlet container's pool, so a slow peer only ever
+     * occupies a writer thread and never the thread reading the sender's socket -
+     * and only until the send time limit, when the OutboundMessageDispatcher's
+     * watchdog closes it.
+     * In VIRTUAL mode every writer pass gets its own virtual thread instead of
+     * competing for a fixed number of platform threads.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService outboundExecutor(SignalingProperties properties) {
+        if (properties.getExecution().getMode() == ExecutionMode.VIRTUAL) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("signaling-writer-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(properties.getOutbound().getWriterThreads(),
+                Thread.ofPlatform().name("signaling-writer-", 0).daemon(true).factory());
+    }
+
+    /**
+     * Virtual threads for inbound message handling
+     *
+     * Handles messages only in VIRTUAL mode; in PLATFORM mode they are handled
+     * on the container thread, and SHARDED mode runs them on the dispatcher's
+     * own event loops. In every mode it also runs the cleanup of reaped
+     * sessions, which must not run on the shared timer, and session closes,
+     * which must not queue behind writers stuck on stalled peers.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService inboundExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("signaling-inbound-", 0).factory());
+    }
+
+    /**
+     * Virtual threads for push-notification wakeups
+     *
+     * A push service call can take hundreds of milliseconds; it never runs on a
+     * signaling thread or the shared timer. No thread is started unless a
+     * WakeupDispatcher bean is declared.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService wakeupExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("signaling-wakeup-", 0).factory());
+    }
+
+    /**
+     * Timer for short-lived delayed tasks
+     *
+     * Tasks scheduled here must only enqueue work, never block.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ScheduledExecutorService signalingScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("signaling-timer").daemon(true).factory());
+    }
+
+    /**
+     * Single-node session directory
+     *
+     * Sufficient as long as there is one instance; a multi-node deployment
+     * declares a SessionDirectory bean backed by shared storage.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public SessionDirectory sessionDirectory() {
+        return new InMemorySessionDirectory();
+    }
+
+    /**
+     * Single-node relay - there are no other nodes to reach
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public NodeRelay nodeRelay() {
+        return new LoopbackNodeRelay();
+    }
+
+    /**
+     * Audit history in the application's DataSource (embedded H2 unless configured otherwise)
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public AuditStore auditStore(JdbcTemplate jdbcTemplate) {
+        return new JdbcAuditStore(jdbcTemplate);
+    }
+}
@@ -0,0 +1,39 @@
+package dev.radovanradivojevic.webrtcserver.config;
+
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.util.List;
+
+/**
+ * Handshake for the signaling endpoints
+ *
+ * With signaling.compression.permessage-deflate=false the standard
+ * permessage-deflate extension is not offered back to clients. The container
+ * then stops compressing every frame - including ICE candidates far too small
+ * to gain anything - and clients can use the "deflate-sdp" capability instead,
+ * which only compresses large frames (see FrameCompressor).
+ */
+public class SignalingHandshakeHandler extends DefaultHandshakeHandler {
+
+    private final boolean perMessageDeflate;
+
+    public SignalingHandshakeHandler(SignalingProperties properties) {
+        this.perMessageDeflate = properties.getCompression().isPerMessageDeflate();
+    }
+
+    @Override
+    protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+                                                                 List<WebSocketExtension> requested,
+                                                                 List<WebSocketExtension> supported) {
+        List<WebSocketExtension> extensions = super.filterRequestedExtensions(request, requested, supported);
+        if (perMessageDeflate) {
+            return extensions;
+        }
+        return extensions.stream()
+                .filter(extension -> !"permessage-deflate".equalsIgnoreCase(extension.getName()))
+                .toList();
+    }
+}
@@ -0,0 +1,1229 @@
+package dev.radovanradivojevic.webrtcserver.config;
+
+import dev.radovanradivojevic.webrtcserver.logging.PayloadLogging;
+import dev.radovanradivojevic.webrtcserver.relay.RelayMode;
+import dev.radovanradivojevic.webrtcserver.session.ExecutionMode;
+import dev.radovanradivojevic.webrtcserver.session.OverflowPolicy;
+import org.slf4j.event.Level;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Tunables for the signaling server, bound from "signaling.*" in application.properties
+ *
+ * Example:
+ * signaling.outbound.buffer-size-limit=524288
+ * signaling.outbound.send-time-limit=10s
+ * signaling.outbound.overflow-policy=disconnect
+ * signaling.relay.mode=streaming
+ * signaling.ice-batch.enabled=true
+ * signaling.execution.mode=virtual
+ * signaling.execution.shards=8
+ * signaling.log.level=debug
+ * signaling.cluster.node-id=signal-1
+ * signaling.pending.ttl=30s
+ * signaling.compression.threshold=1024
+ * signaling.rate-limit.ice-candidate.rate=50
+ * signaling.admission.rate=20000
+ * signaling.rooms.max-members=16
+ * signaling.heartbeat.idle-timeout=60s
+ * signaling.audit.batch-size=256
+ * signaling.receipts.window=20ms
+ * signaling.drain.spread=10s
+ * signaling.limits.signal.max-text-frame-size=32768
+ * signaling.trace.capacity=1024
+ * signaling.wakeup.window=200ms
+ */
+@ConfigurationProperties(prefix = "signaling")
+public class SignalingProperties {
+
+    private final Outbound outbound = new Outbound();
+    private final Relay relay = new Relay();
+    private final IceBatch iceBatch = new IceBatch();
+    private final Execution execution = new Execution();
+    private final Log log = new Log();
+    private final Cluster cluster = new Cluster();
+    private final Pending pending = new Pending();
+    private final Compression compression = new Compression();
+    private final RateLimit rateLimit = new RateLimit();
+    private final Admission admission = new Admission();
+    private final Rooms rooms = new Rooms();
+    private final Heartbeat heartbeat = new Heartbeat();
+    private final Audit audit = new Audit();
+    private final Receipts receipts = new Receipts();
+    private final Drain drain = new Drain();
+    private final Limits limits = new Limits();
+    private final Trace trace = new Trace();
+    private final Wakeup wakeup = new Wakeup();
+
+    public Outbound getOutbound() {
+        return outbound;
+    }
+
+    public Relay getRelay() {
+        return relay;
+    }
+
+    public IceBatch getIceBatch() {
+        return iceBatch;
+    }
+
+    public Execution getExecution() {
+        return execution;
+    }
+
+    public Log getLog() {
+        return log;
+    }
+
+    public Cluster getCluster() {
+        return cluster;
+    }
+
+    public Pending getPending() {
+        return pending;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public Admission getAdmission() {
+        return admission;
+    }
+
+    public Rooms getRooms() {
+        return rooms;
+    }
+
+    public Heartbeat getHeartbeat() {
+        return heartbeat;
+    }
+
+    public Audit getAudit() {
+        return audit;
+    }
+
+    public Receipts getReceipts() {
+        return receipts;
+    }
+
+    public Drain getDrain() {
+        return drain;
+    }
+
+    public Limits getLimits() {
+        return limits;
+    }
+
+    public Trace getTrace() {
+        return trace;
+    }
+
+    public Wakeup getWakeup() {
+        return wakeup;
+    }
+
+    /**
+     * Per-session outbound queue settings
+     */
+    public static class Outbound {
+
+        /**
+         * Maximum number of payload bytes buffered for one session
+         */
+        private int bufferSizeLimit = 512 * 1024;
+
+        /**
+         * Maximum time a single send may take before the session is closed
+         */
+        private Duration sendTimeLimit = Duration.ofSeconds(10);
+
+        /**
+         * What to do when the buffer limit is reached
+         */
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DISCONNECT;
+
+        /**
+         * Number of threads draining outbound queues (PLATFORM execution mode only)
+         */
+        private int writerThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        public int getBufferSizeLimit() {
+            return bufferSizeLimit;
+        }
+
+        public void setBufferSizeLimit(int bufferSizeLimit) {
+            this.bufferSizeLimit = bufferSizeLimit;
+        }
+
+        public Duration getSendTimeLimit() {
+            return sendTimeLimit;
+        }
+
+        public void setSendTimeLimit(Duration sendTimeLimit) {
+            this.sendTimeLimit = sendTimeLimit;
+        }
+
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public int getWriterThreads() {
+            return writerThreads;
+        }
+
+        public void setWriterThreads(int writerThreads) {
+            this.writerThreads = writerThreads;
+        }
+    }
+
+    /**
+     * Forwarding of offer/answer/ice-candidate/end-call payloads
+     */
+    public static class Relay {
+
+        /**
+         * STREAMING splices "from" into the original payload, OBJECT re-serializes the message
+         */
+        private RelayMode mode = RelayMode.STREAMING;
+
+        public RelayMode getMode() {
+            return mode;
+        }
+
+        public void setMode(RelayMode mode) {
+            this.mode = mode;
+        }
+    }
+
+    /**
+     * Coalescing of trickle ICE candidates into "ice-candidates" batch frames
+     */
+    public static class IceBatch {
+
+        /**
+         * Off by default; clients must also request the "ice-batch" capability
+         */
+        private boolean enabled = false;
+
+        /**
+         * How long candidates for one recipient are gathered before sending
+         */
+        private Duration window = Duration.ofMillis(10);
+
+        /**
+         * Send the batch early once this many candidates are pending
+         */
+        private int maxCandidates = 16;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public int getMaxCandidates() {
+            return maxCandidates;
+        }
+
+        public void setMaxCandidates(int maxCandidates) {
+            this.maxCandidates = maxCandidates;
+        }
+    }
+
+    /**
+     * Threading model for inbound handling and outbound writes
+     */
+    public static class Execution {
+
+        /**
+         * PLATFORM keeps handling on container threads, VIRTUAL uses virtual threads,
+         * SHARDED uses one event loop per shard of users
+         */
+        private ExecutionMode mode = ExecutionMode.PLATFORM;
+
+        /**
+         * Event loops (and routing table slices) in SHARDED mode
+         */
+        private int shards = Runtime.getRuntime().availableProcessors();
+
+        public ExecutionMode getMode() {
+            return mode;
+        }
+
+        public void setMode(ExecutionMode mode) {
+            this.mode = mode;
+        }
+
+        public int getShards() {
+            return shards;
+        }
+
+        public void setShards(int shards) {
+            this.shards = shards;
+        }
+    }
+
+    /**
+     * Asynchronous signaling event log
+     */
+    public static class Log {
+
+        /**
+         * Minimum level recorded; per-message events are DEBUG
+         */
+        private Level level = Level.INFO;
+
+        /**
+         * Fraction (0.0 - 1.0) of per-message events that are recorded
+         */
+        private double sampleRate = 1.0;
+
+        /**
+         * Ring buffer slots; events are dropped when the writer falls this far behind
+         */
+        private int bufferSize = 8192;
+
+        /**
+         * How much of the payload is written with RECEIVED events
+         */
+        private PayloadLogging payload = PayloadLogging.REDACTED;
+
+        /**
+         * Payloads longer than this are truncated in REDACTED mode
+         */
+        private int maxPayloadChars = 256;
+
+        public Level getLevel() {
+            return level;
+        }
+
+        public void setLevel(Level level) {
+            this.level = level;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public PayloadLogging getPayload() {
+            return payload;
+        }
+
+        public void setPayload(PayloadLogging payload) {
+            this.payload = payload;
+        }
+
+        public int getMaxPayloadChars() {
+            return maxPayloadChars;
+        }
+
+        public void setMaxPayloadChars(int maxPayloadChars) {
+            this.maxPayloadChars = maxPayloadChars;
+        }
+    }
+
+    /**
+     * Routing to users connected to other nodes
+     */
+    public static class Cluster {
+
+        /**
+         * This node's id in the session directory; a random id is generated if unset
+         */
+        private String nodeId;
+
+        /**
+         * How long a remote user's node is cached before the directory is asked again
+         */
+        private Duration locationCacheTtl = Duration.ofSeconds(5);
+
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        public void setNodeId(String nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        public Duration getLocationCacheTtl() {
+            return locationCacheTtl;
+        }
+
+        public void setLocationCacheTtl(Duration locationCacheTtl) {
+            this.locationCacheTtl = locationCacheTtl;
+        }
+    }
+
+    /**
+     * Store-and-forward for recipients who are briefly offline
+     */
+    public static class Pending {
+
+        /**
+         * Hold messages for offline recipients until they register again
+         */
+        private boolean enabled = true;
+
+        /**
+         * How long a held message stays deliverable
+         */
+        private Duration ttl = Duration.ofSeconds(30);
+
+        /**
+         * Payload characters held for all recipients together
+         */
+        private long maxBytes = 8 * 1024 * 1024;
+
+        /**
+         * Messages held for one recipient; later ones are rejected
+         */
+        private int maxMessagesPerRecipient = 64;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        public int getMaxMessagesPerRecipient() {
+            return maxMessagesPerRecipient;
+        }
+
+        public void setMaxMessagesPerRecipient(int maxMessagesPerRecipient) {
+            this.maxMessagesPerRecipient = maxMessagesPerRecipient;
+        }
+    }
+
+    /**
+     * Compression of large frames on "/signal"
+     */
+    public static class Compression {
+
+        /**
+         * Offer the "deflate-sdp" capability to clients
+         */
+        private boolean enabled = true;
+
+        /**
+         * Frames smaller than this many UTF-8 bytes are sent uncompressed
+         */
+        private int threshold = 1024;
+
+        /**
+         * Deflate level, 1 (fastest) to 9 (smallest)
+         */
+        private int level = 6;
+
+        /**
+         * Largest frame a compressed client frame may inflate to (also capped by the endpoint's text frame limit)
+         */
+        private int maxInflatedSize = 256 * 1024;
+
+        /**
+         * Accept the standard permessage-deflate extension when a client offers it
+         */
+        private boolean perMessageDeflate = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(int threshold) {
+            this.threshold = threshold;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public void setLevel(int level) {
+            this.level = level;
+        }
+
+        public int getMaxInflatedSize() {
+            return maxInflatedSize;
+        }
+
+        public void setMaxInflatedSize(int maxInflatedSize) {
+            this.maxInflatedSize = maxInflatedSize;
+        }
+
+        public boolean isPerMessageDeflate() {
+            return perMessageDeflate;
+        }
+
+        public void setPerMessageDeflate(boolean perMessageDeflate) {
+            this.perMessageDeflate = perMessageDeflate;
+        }
+    }
+
+    /**
+     * Per-session, per-message-type token buckets
+     */
+    public static class RateLimit {
+
+        /**
+         * Reject messages of a session that exceeds its limits
+         */
+        private boolean enabled = true;
+
+        private final Limit register = new Limit(1, 5);
+        private final Limit offer = new Limit(5, 10);
+        private final Limit answer = new Limit(5, 10);
+
+        /**
+         * Trickle ICE sends a burst of candidates right after each offer/answer
+         */
+        private final Limit iceCandidate = new Limit(50, 100);
+
+        private final Limit endCall = new Limit(5, 10);
+
+        /**
+         * Any other message type
+         */
+        private final Limit other = new Limit(5, 10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Limit getRegister() {
+            return register;
+        }
+
+        public Limit getOffer() {
+            return offer;
+        }
+
+        public Limit getAnswer() {
+            return answer;
+        }
+
+        public Limit getIceCandidate() {
+            return iceCandidate;
+        }
+
+        public Limit getEndCall() {
+            return endCall;
+        }
+
+        public Limit getOther() {
+            return other;
+        }
+    }
+
+    /**
+     * Size and shape limits of inbound frames, enforced before a frame is materialized
+     * (the rate of each message type, e.g. ICE candidates per second, is limited by RateLimit)
+     */
+    public static class Limits {
+
+        /**
+         * "/signal" - JSON text, deflated binary from "deflate-sdp" clients
+         */
+        private final Endpoint signal = new Endpoint(32 * 1024, 8 * 1024);
+
+        /**
+         * "/signal-cbor" - CBOR binary, JSON text is still accepted
+         */
+        private final Endpoint signalCbor = new Endpoint(8 * 1024, 32 * 1024);
+
+        /**
+         * Deepest nesting of objects and arrays in a frame (signaling messages need 3)
+         */
+        private int maxDepth = 8;
+
+        /**
+         * Longest string value in a frame, in characters after unescaping - in practice the SDP
+         */
+        private int maxSdpLength = 16 * 1024;
+
+        /**
+         * Longest userId a client may register with; longer ones are rejected with
+         * "invalid-user-id" (the audit table stores up to 255)
+         */
+        private int maxUserIdLength = 255;
+
+        public Endpoint getSignal() {
+            return signal;
+        }
+
+        public Endpoint getSignalCbor() {
+            return signalCbor;
+        }
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        public void setMaxDepth(int maxDepth) {
+            this.maxDepth = maxDepth;
+        }
+
+        public int getMaxSdpLength() {
+            return maxSdpLength;
+        }
+
+        public void setMaxSdpLength(int maxSdpLength) {
+            this.maxSdpLength = maxSdpLength;
+        }
+
+        public int getMaxUserIdLength() {
+            return maxUserIdLength;
+        }
+
+        public void setMaxUserIdLength(int maxUserIdLength) {
+            this.maxUserIdLength = maxUserIdLength;
+        }
+    }
+
+    /**
+     * Largest frames one WebSocket endpoint accepts; larger frames close the session (1009)
+     *
+     * The container keeps a buffer of each size per connection (text in chars),
+     * so a connection costs about 2 * max-text-frame-size + max-binary-frame-size bytes.
+     */
+    public static class Endpoint {
+
+        /**
+         * Largest text frame, in characters
+         */
+        private int maxTextFrameSize;
+
+        /**
+         * Largest binary frame, in bytes
+         */
+        private int maxBinaryFrameSize;
+
+        public Endpoint() {
+        }
+
+        public Endpoint(int maxTextFrameSize, int maxBinaryFrameSize) {
+            this.maxTextFrameSize = maxTextFrameSize;
+            this.maxBinaryFrameSize = maxBinaryFrameSize;
+        }
+
+        public int getMaxTextFrameSize() {
+            return maxTextFrameSize;
+        }
+
+        public void setMaxTextFrameSize(int maxTextFrameSize) {
+            this.maxTextFrameSize = maxTextFrameSize;
+        }
+
+        public int getMaxBinaryFrameSize() {
+            return maxBinaryFrameSize;
+        }
+
+        public void setMaxBinaryFrameSize(int maxBinaryFrameSize) {
+            this.maxBinaryFrameSize = maxBinaryFrameSize;
+        }
+    }
+
+    /**
+     * Sustained rate and burst of one token bucket
+     */
+    public static class Limit {
+
+        /**
+         * Messages per second
+         */
+        private double rate;
+
+        /**
+         * Messages that may arrive at once
+         */
+        private int burst;
+
+        public Limit() {
+        }
+
+        public Limit(double rate, int burst) {
+            this.rate = rate;
+            this.burst = burst;
+        }
+
+        public double getRate() {
+            return rate;
+        }
+
+        public void setRate(double rate) {
+            this.rate = rate;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+    }
+
+    /**
+     * Node-wide load shedding
+     */
+    public static class Admission {
+
+        /**
+         * Shed low-priority messages when the node is saturated
+         */
+        private boolean enabled = true;
+
+        /**
+         * Messages per second this node handles
+         */
+        private double rate = 20_000;
+
+        /**
+         * Messages the node absorbs at once above rate
+         */
+        private int burst = 2_000;
+
+        /**
+         * Fraction of burst kept for offer/answer/end-call; ice-candidate is shed below it
+         */
+        private double iceReserve = 0.5;
+
+        /**
+         * Outbound bytes queued on this node above which ice-candidate is shed
+         */
+        private long maxOutboundBacklog = 64 * 1024 * 1024;
+
+        /**
+         * How often the outbound backlog is measured
+         */
+        private Duration backlogCheckInterval = Duration.ofMillis(100);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getRate() {
+            return rate;
+        }
+
+        public void setRate(double rate) {
+            this.rate = rate;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        public double getIceReserve() {
+            return iceReserve;
+        }
+
+        public void setIceReserve(double iceReserve) {
+            this.iceReserve = iceReserve;
+        }
+
+        public long getMaxOutboundBacklog() {
+            return maxOutboundBacklog;
+        }
+
+        public void setMaxOutboundBacklog(long maxOutboundBacklog) {
+            this.maxOutboundBacklog = maxOutboundBacklog;
+        }
+
+        public Duration getBacklogCheckInterval() {
+            return backlogCheckInterval;
+        }
+
+        public void setBacklogCheckInterval(Duration backlogCheckInterval) {
+            this.backlogCheckInterval = backlogCheckInterval;
+        }
+    }
+
+    /**
+     * Rooms with server-side fan-out
+     */
+    public static class Rooms {
+
+        /**
+         * Members one room can have; every room message is sent to all of them
+         */
+        private int maxMembers = 16;
+
+        public int getMaxMembers() {
+            return maxMembers;
+        }
+
+        public void setMaxMembers(int maxMembers) {
+            this.maxMembers = maxMembers;
+        }
+    }
+
+    /**
+     * Server pings and reaping of silent connections
+     */
+    public static class Heartbeat {
+
+        /**
+         * Ping silent sessions and close those that stay silent
+         */
+        private boolean enabled = true;
+
+        /**
+         * Silence after which the server sends a ping (below typical 30-60s NAT/proxy idle timeouts)
+         */
+        private Duration pingInterval = Duration.ofSeconds(25);
+
+        /**
+         * Silence after which the session is closed and cleaned up; should cover at least two pings
+         */
+        private Duration idleTimeout = Duration.ofSeconds(60);
+
+        /**
+         * Resolution of the timer wheel - pings and reaps happen up to one tick late
+         */
+        private Duration tick = Duration.ofSeconds(1);
+
+        /**
+         * Buckets of the timer wheel (rounded up to a power of two); ideally covers ping-interval / tick
+         */
+        private int wheelSize = 512;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getPingInterval() {
+            return pingInterval;
+        }
+
+        public void setPingInterval(Duration pingInterval) {
+            this.pingInterval = pingInterval;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public Duration getTick() {
+            return tick;
+        }
+
+        public void setTick(Duration tick) {
+            this.tick = tick;
+        }
+
+        public int getWheelSize() {
+            return wheelSize;
+        }
+
+        public void setWheelSize(int wheelSize) {
+            this.wheelSize = wheelSize;
+        }
+    }
+
+    /**
+     * Presence and call history written to the AuditStore
+     */
+    public static class Audit {
+
+        /**
+         * Record registrations, disconnects and calls
+         */
+        private boolean enabled = true;
+
+        /**
+         * Events written with one batch insert
+         */
+        private int batchSize = 256;
+
+        /**
+         * Longest time an event waits before it is written
+         */
+        private Duration flushInterval = Duration.ofMillis(500);
+
+        /**
+         * Events waiting to be written; more are dropped (and counted) instead of slowing signaling down
+         */
+        private int queueCapacity = 65536;
+
+        /**
+         * Most events one query returns
+         */
+        private int maxQueryLimit = 500;
+
+        /**
+         * How long events are kept; older ones are deleted by the flusher (0 keeps them forever)
+         */
+        private Duration retention = Duration.ofDays(7);
+
+        /**
+         * How often the flusher deletes events older than the retention
+         */
+        private Duration pruneInterval = Duration.ofMinutes(1);
+
+        /**
+         * Serve GET /audit/calls - call history is personal data, so it is off unless asked for
+         */
+        private boolean endpointEnabled = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getMaxQueryLimit() {
+            return maxQueryLimit;
+        }
+
+        public void setMaxQueryLimit(int maxQueryLimit) {
+            this.maxQueryLimit = maxQueryLimit;
+        }
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+
+        public Duration getPruneInterval() {
+            return pruneInterval;
+        }
+
+        public void setPruneInterval(Duration pruneInterval) {
+            this.pruneInterval = pruneInterval;
+        }
+
+        public boolean isEndpointEnabled() {
+            return endpointEnabled;
+        }
+
+        public void setEndpointEnabled(boolean endpointEnabled) {
+            this.endpointEnabled = endpointEnabled;
+        }
+    }
+
+    /**
+     * Delivery receipts and peer-unavailable errors for the senders of routed messages
+     */
+    public static class Receipts {
+
+        /**
+         * Whether "delivered" receipts are sent; clients must also request the "receipts" capability
+         */
+        private boolean enabled = true;
+
+        /**
+         * How long message ids of one sender are gathered before the receipt goes out
+         */
+        private Duration window = Duration.ofMillis(20);
+
+        /**
+         * Send the receipt early once this many ids are pending
+         */
+        private int maxIds = 32;
+
+        /**
+         * Longer client message ids are not echoed (the message is still routed)
+         */
+        private int maxIdLength = 64;
+
+        /**
+         * Peer-unavailable errors for messages without an id go out at most once per peer within this interval
+         */
+        private Duration unavailableInterval = Duration.ofSeconds(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public int getMaxIds() {
+            return maxIds;
+        }
+
+        public void setMaxIds(int maxIds) {
+            this.maxIds = maxIds;
+        }
+
+        public int getMaxIdLength() {
+            return maxIdLength;
+        }
+
+        public void setMaxIdLength(int maxIdLength) {
+            this.maxIdLength = maxIdLength;
+        }
+
+        public Duration getUnavailableInterval() {
+            return unavailableInterval;
+        }
+
+        public void setUnavailableInterval(Duration unavailableInterval) {
+            this.unavailableInterval = unavailableInterval;
+        }
+    }
+
+    /**
+     * Hand-off of connected clients to other nodes when this node shuts down
+     */
+    public static class Drain {
+
+        /**
+         * Send "reconnect-elsewhere" to every session on shutdown instead of dropping them all at once
+         */
+        private boolean enabled = true;
+
+        /**
+         * Window over which the hand-offs are spread at random, so reconnects reach the other nodes gradually
+         */
+        private Duration spread = Duration.ofSeconds(10);
+
+        /**
+         * Time after the spread to wait for outbound queues to flush and sessions to close;
+         * spread + flush-timeout must stay below spring.lifecycle.timeout-per-shutdown-phase
+         */
+        private Duration flushTimeout = Duration.ofSeconds(5);
+
+        /**
+         * How often the drain checks whether every session is gone
+         */
+        private Duration checkInterval = Duration.ofMillis(100);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getSpread() {
+            return spread;
+        }
+
+        public void setSpread(Duration spread) {
+            this.spread = spread;
+        }
+
+        public Duration getFlushTimeout() {
+            return flushTimeout;
+        }
+
+        public void setFlushTimeout(Duration flushTimeout) {
+            this.flushTimeout = flushTimeout;
+        }
+
+        public Duration getCheckInterval() {
+            return checkInterval;
+        }
+
+        public void setCheckInterval(Duration checkInterval) {
+            this.checkInterval = checkInterval;
+        }
+    }
+
+    /**
+     * In-memory per-call signaling trace and call setup latency
+     */
+    public static class Trace {
+
+        /**
+         * Record offer/answer/ICE/end-call timestamps of 1:1 calls
+         */
+        private boolean enabled = true;
+
+        /**
+         * Most recent calls kept (rounded up to a power of two); older traces are overwritten
+         */
+        private int capacity = 1024;
+
+        /**
+         * Serve GET /calls/setup-latency and /calls/slowest - the traces name callers and callees
+         */
+        private boolean endpointEnabled = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public boolean isEndpointEnabled() {
+            return endpointEnabled;
+        }
+
+        public void setEndpointEnabled(boolean endpointEnabled) {
+            this.endpointEnabled = endpointEnabled;
+        }
+    }
+
+    /**
+     * Push-notification wakeups for offline callees (needs a WakeupDispatcher bean)
+     */
+    public static class Wakeup {
+
+        /**
+         * Wake callees whose offers are being held, if a WakeupDispatcher is declared
+         */
+        private boolean enabled = true;
+
+        /**
+         * Offers for the same callee within this window are sent as one wakeup
+         */
+        private Duration window = Duration.ofMillis(200);
+
+        /**
+         * After a wakeup, further offers for the callee do not wake it again for this long
+         */
+        private Duration dedupeInterval = Duration.ofSeconds(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public Duration getDedupeInterval() {
+            return dedupeInterval;
+        }
+
+        public void setDedupeInterval(Duration dedupeInterval) {
+            this.dedupeInterval = dedupeInterval;
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package dev.radovanradivojevic.webrtcserver.config;
 
-import dev.radovanradivojevic.webrtcserver.handler.SignalingHandler;
+import dev.radovanradivojevic.webrtcserver.handler.BinarySignalingHandler;
+import dev.radovanradivojevic.webrtcserver.handler.CompressingSignalingHandler;
+import org.apache.tomcat.websocket.server.Constants;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
@@ -10,16 +15,44 @@ import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry
 /**
  * WebSocket Configuration for WebRTC Signaling Server
  *
- * Configures the WebSocket endpoint where Android clients connect to exchange signaling messages.
+ * Configures the WebSocket endpoints where Android clients connect to exchange signaling messages:
+ * - "/signal": JSON text frames, large ones optionally compressed (see CompressingSignalingHandler)
+ * - "/signal-cbor": the same messages as CBOR binary frames (see BinarySignalingHandler)
+ *
+ * Frame size limits (signaling.limits.*): each endpoint's handler sets its
+ * limits on every session, and the container closes a session whose frame
+ * does not fit (1009 "message too big") while reading it - an oversized frame
+ * is never assembled into a message. The container allocates its per-connection
+ * frame buffers at the "/signal" limits up front, so memory per connection is
+ * known and "/signal" connections never resize them.
  */
 @Configuration
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
 
-    private final SignalingHandler signalingHandler;
+    private final CompressingSignalingHandler signalingHandler;
+    private final BinarySignalingHandler binarySignalingHandler;
+    private final SignalingHandshakeHandler handshakeHandler;
 
-    public WebSocketConfig(SignalingHandler signalingHandler) {
+    public WebSocketConfig(CompressingSignalingHandler signalingHandler, BinarySignalingHandler binarySignalingHandler,
+                           SignalingProperties properties) {
         this.signalingHandler = signalingHandler;
+        this.binarySignalingHandler = binarySignalingHandler;
+        this.handshakeHandler = new SignalingHandshakeHandler(properties);
+    }
+
+    /**
+     * Default per-connection frame buffers of Tomcat's WebSocket container, sized to the "/signal" limits
+     */
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> webSocketBufferSizes(SignalingProperties properties) {
+        SignalingProperties.Endpoint signal = properties.getLimits().getSignal();
+        return factory -> factory.addContextCustomizers(context -> {
+            context.addParameter(Constants.TEXT_BUFFER_SIZE_SERVLET_CONTEXT_INIT_PARAM,
+                    String.valueOf(signal.getMaxTextFrameSize()));
+            context.addParameter(Constants.BINARY_BUFFER_SIZE_SERVLET_CONTEXT_INIT_PARAM,
+                    String.valueOf(signal.getMaxBinaryFrameSize()));
+        });
     }
 
     /**
@@ -28,6 +61,10 @@ public class WebSocketConfig implements WebSocketConfigurer {
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
         registry.addHandler(this.signalingHandler, "/signal")
+                .setHandshakeHandler(this.handshakeHandler)
+                .setAllowedOrigins("*");
+        registry.addHandler(this.binarySignalingHandler, "/signal-cbor")
+                .setHandshakeHandler(this.handshakeHandler)
                 .setAllowedOrigins("*");
     }
 }
\ No newline at end of file
@@ -0,0 +1,225 @@
+package dev.radovanradivojevic.webrtcserver.control;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ControlFrames - Frames the server sends on its own, encoded once where possible
+ *
+ * Purpose: Acks, error replies and pings are not forwarded client payloads, so
+ * the server writes their JSON itself. They are small but frequent - an
+ * overloaded node answers every shed ICE candidate's session with an error -
+ * so instead of building them with an ObjectMapper or string concatenation
+ * every time:
+ * - frames without user-supplied fields (e.g. "rate-limited" for an offer) are
+ *   built once at class load and the same TextMessage is handed out every time
+ * - frames with user-supplied fields (userId, room, peer) are pre-split into
+ *   constant prefix/suffix strings; only the user value is written per frame,
+ *   JSON-escaped, into a builder sized up front
+ *
+ * Escaping matters: a userId like  x","admin":true,"y":"  must come back as
+ * that string, not as extra fields in the ack.
+ *
+ * Frames:
+ * {"type":"registered","userId":"son"}
+ * {"type":"registered","userId":"son","capabilities":["ice-batch"]}
+ * {"type":"error","code":"rate-limited","messageType":"ice-candidate"}     (also "overloaded")
+ * {"type":"error","code":"room-full","room":"family"}
+ * {"type":"error","code":"peer-unavailable","to":"son","messageType":"offer","id":"m7"}  ("id" if the message had one)
+ * {"type":"delivered","ids":["m5","m6"]}
+ * {"type":"end-call","from":"dad","to":"son"}                              (call torn down by the server)
+ * {"type":"reconnect-elsewhere"}                                           (node is draining, see SessionDrainer)
+ * WebSocket ping with payload "hb"
+ *
+ * TextMessage only wraps its String, so sharing one instance between sessions
+ * and outbound queues is safe.
+ */
+public final class ControlFrames {
+
+    /**
+     * Message type of all error frames, as counted in signaling.messages.out
+     */
+    public static final String ERROR = "error";
+
+    public static final String RATE_LIMITED = "rate-limited";
+    public static final String OVERLOADED = "overloaded";
+    public static final String ROOM_FULL = "room-full";
+    public static final String PEER_UNAVAILABLE = "peer-unavailable";
+    public static final String INVALID_USER_ID = "invalid-user-id";
+
+    /**
+     * Message type of the hand-off frame, as counted in signaling.messages.out
+     */
+    public static final String RECONNECT_ELSEWHERE = "reconnect-elsewhere";
+
+    private static final List<String> MESSAGE_TYPES = List.of(
+            "register", "offer", "answer", "ice-candidate", "end-call", "join-room", "leave-room");
+
+    private static final String REGISTERED = "{\"type\":\"registered\",\"userId\":\"";
+    private static final String REGISTERED_END = "\"}";
+    private static final String ROOM_FULL_PREFIX = "{\"type\":\"error\",\"code\":\"" + ROOM_FULL + "\",\"room\":\"";
+    private static final String PEER_UNAVAILABLE_PREFIX =
+            "{\"type\":\"error\",\"code\":\"" + PEER_UNAVAILABLE + "\",\"to\":\"";
+    private static final String MESSAGE_TYPE_FIELD = "\",\"messageType\":\"";
+    private static final String END_CALL_PREFIX = "{\"type\":\"end-call\",\"from\":\"";
+    private static final String TO_FIELD = "\",\"to\":\"";
+    private static final String ID_FIELD = "\",\"id\":\"";
+    private static final String DELIVERED = "{\"type\":\"delivered\",\"ids\":[\"";
+    private static final String DELIVERED_END = "\"]}";
+    private static final String END = "\"}";
+
+    private static final TextMessage RECONNECT = new TextMessage("{\"type\":\"" + RECONNECT_ELSEWHERE + "\"}");
+
+    private static final ByteBuffer PING_PAYLOAD = ByteBuffer.wrap(new byte[]{'h', 'b'}).asReadOnlyBuffer();
+
+    private static final JsonStringEncoder ENCODER = JsonStringEncoder.getInstance();
+
+    /**
+     * code -> messageType -> frame, for every rejection of a known type
+     */
+    private static final Map<String, Map<String, TextMessage>> REJECTIONS = new HashMap<>();
+
+    /**
+     * Agreed capabilities -> end of the registered ack; keys only ever hold server-side constants
+     */
+    private static final Map<List<String>, String> CAPABILITY_SUFFIXES = new ConcurrentHashMap<>();
+
+    static {
+        for (String code : List.of(RATE_LIMITED, OVERLOADED)) {
+            Map<String, TextMessage> byType = new HashMap<>();
+            for (String type : MESSAGE_TYPES) {
+                byType.put(type, new TextMessage(rejectionPayload(code, type)));
+            }
+            REJECTIONS.put(code, Map.copyOf(byType));
+        }
+    }
+
+    private ControlFrames() {
+    }
+
+    /**
+     * Ack of a register message, echoing the capabilities the server agreed to
+     */
+    public static TextMessage registered(String userId, List<String> capabilities) {
+        String suffix = capabilities.isEmpty() ? REGISTERED_END : CAPABILITY_SUFFIXES.get(capabilities);
+        if (suffix == null) {
+            suffix = capabilitySuffix(capabilities);
+            CAPABILITY_SUFFIXES.putIfAbsent(List.copyOf(capabilities), suffix);
+        }
+        StringBuilder out = new StringBuilder(REGISTERED.length() + userId.length() + suffix.length() + 8);
+        out.append(REGISTERED);
+        ENCODER.quoteAsString(userId, out);
+        return new TextMessage(out.append(suffix));
+    }
+
+    /**
+     * A message of messageType was not handled: code is RATE_LIMITED, OVERLOADED or INVALID_USER_ID
+     */
+    public static TextMessage rejected(String code, String messageType) {
+        Map<String, TextMessage> byType = REJECTIONS.get(code);
+        TextMessage cached = byType != null && messageType != null ? byType.get(messageType) : null;
+        return cached != null ? cached : new TextMessage(rejectionPayload(code, messageType));
+    }
+
+    /**
+     * The room already has signaling.rooms.max-members members
+     */
+    public static TextMessage roomFull(String room) {
+        StringBuilder out = new StringBuilder(ROOM_FULL_PREFIX.length() + room.length() + 8);
+        out.append(ROOM_FULL_PREFIX);
+        ENCODER.quoteAsString(room, out);
+        return new TextMessage(out.append(END));
+    }
+
+    /**
+     * The sender's message of messageType could not be delivered to peerId
+     *
+     * @param messageId the client's id of the message, or null
+     */
+    public static TextMessage peerUnavailable(String peerId, String messageType, String messageId) {
+        StringBuilder out = new StringBuilder(PEER_UNAVAILABLE_PREFIX.length() + peerId.length()
+                + MESSAGE_TYPE_FIELD.length() + messageType.length()
+                + (messageId != null ? ID_FIELD.length() + messageId.length() : 0) + 8);
+        out.append(PEER_UNAVAILABLE_PREFIX);
+        ENCODER.quoteAsString(peerId, out);
+        out.append(MESSAGE_TYPE_FIELD);
+        ENCODER.quoteAsString(messageType, out);
+        if (messageId != null) {
+            out.append(ID_FIELD);
+            ENCODER.quoteAsString(messageId, out);
+        }
+        return new TextMessage(out.append(END));
+    }
+
+    /**
+     * Receipt for the messages with the given client ids (at least one)
+     */
+    public static TextMessage delivered(List<String> messageIds) {
+        int length = DELIVERED.length() + DELIVERED_END.length();
+        for (String id : messageIds) {
+            length += id.length() + 3;
+        }
+        StringBuilder out = new StringBuilder(length + 8);
+        out.append(DELIVERED);
+        for (int i = 0; i < messageIds.size(); i++) {
+            if (i > 0) {
+                out.append("\",\"");
+            }
+            ENCODER.quoteAsString(messageIds.get(i), out);
+        }
+        return new TextMessage(out.append(DELIVERED_END));
+    }
+
+    /**
+     * The end-call userId's client would have sent to peerId, had its connection not gone away
+     */
+    public static String endCall(String userId, String peerId) {
+        StringBuilder out = new StringBuilder(END_CALL_PREFIX.length() + userId.length()
+                + TO_FIELD.length() + peerId.length() + 8);
+        out.append(END_CALL_PREFIX);
+        ENCODER.quoteAsString(userId, out);
+        out.append(TO_FIELD);
+        ENCODER.quoteAsString(peerId, out);
+        return out.append(END).toString();
+    }
+
+    /**
+     * This node is going away: close and connect again, the load balancer picks another node
+     */
+    public static TextMessage reconnectElsewhere() {
+        return RECONNECT;
+    }
+
+    /**
+     * Heartbeat ping; every ping gets its own view of the shared payload, as sending consumes it
+     */
+    public static PingMessage ping() {
+        return new PingMessage(PING_PAYLOAD.duplicate());
+    }
+
+    private static String rejectionPayload(String code, String messageType) {
+        StringBuilder out = new StringBuilder(64);
+        out.append("{\"type\":\"error\",\"code\":\"");
+        ENCODER.quoteAsString(code, out);
+        out.append(MESSAGE_TYPE_FIELD);
+        ENCODER.quoteAsString(String.valueOf(messageType), out);
+        return out.append(END).toString();
+    }
+
+    private static String capabilitySuffix(List<String> capabilities) {
+        StringBuilder out = new StringBuilder("\",\"capabilities\":[");
+        for (int i = 0; i < capabilities.size(); i++) {
+            out.append(i == 0 ? "\"" : ",\"");
+            ENCODER.quoteAsString(capabilities.get(i), out);
+            out.append('"');
+        }
+        return out.append("]}").toString();
+    }
+}
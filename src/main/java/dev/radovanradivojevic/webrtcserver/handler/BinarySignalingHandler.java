@@ -0,0 +1,106 @@
+package dev.radovanradivojevic.webrtcserver.handler;
+
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.relay.CborTranscoder;
+import dev.radovanradivojevic.webrtcserver.session.OutboundMessageDispatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.io.IOException;
+
+/**
+ * BinarySignalingHandler - CBOR endpoint in front of SignalingHandler
+ *
+ * Purpose: Binary clients skip JSON escaping and parse frames without
+ * scanning text; an ICE candidate message is about 10% smaller in CBOR and an
+ * SDP offer no longer escapes every line break (see WireFormatBenchmark).
+ * Both kinds of clients share one
+ * SignalingHandler, so a JSON caller can reach a CBOR callee and vice versa:
+ *
+ * - inbound binary frames are transcoded to JSON text and handled as usual
+ * - the session is wrapped in a CborSessionDecorator, so every frame sent to
+ *   this client (forwarded messages, acks, ICE batches) goes out as CBOR
+ *
+ * The same decorator instance is used for all callbacks of a connection (it
+ * lives in the session attributes), so the handler's session maps see one
+ * stable session object.
+ *
+ * Registered at "/signal-cbor" by WebSocketConfig, with the frame size limits
+ * of signaling.limits.signal-cbor set on every session.
+ *
+ * A frame over the FrameLimits (nested too deep, SDP too long) is dropped and
+ * counted as invalid{reason=too-large}, as on the text endpoint. A frame that
+ * is not CBOR at all closes the session with BAD_DATA, through its outbound queue.
+ */
+@Component
+public class BinarySignalingHandler extends WebSocketHandlerDecorator {
+
+    private static final String DECORATED_SESSION = BinarySignalingHandler.class.getName() + ".session";
+
+    private final SignalingHandler signalingHandler;
+    private final CborTranscoder transcoder;
+    private final OutboundMessageDispatcher outbound;
+    private final SignalingEventLog eventLog;
+    private final SignalingProperties.Endpoint limits;
+
+    public BinarySignalingHandler(SignalingHandler signalingHandler, CborTranscoder transcoder,
+                                  OutboundMessageDispatcher outbound, SignalingEventLog eventLog,
+                                  SignalingProperties properties) {
+        super(signalingHandler);
+        this.signalingHandler = signalingHandler;
+        this.transcoder = transcoder;
+        this.outbound = outbound;
+        this.eventLog = eventLog;
+        this.limits = properties.getLimits().getSignalCbor();
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        session.setTextMessageSizeLimit(limits.getMaxTextFrameSize());
+        session.setBinaryMessageSizeLimit(limits.getMaxBinaryFrameSize());
+        super.afterConnectionEstablished(decorate(session));
+    }
+
+    @Override
+    public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+        WebSocketSession binarySession = decorate(session);
+        if (message instanceof BinaryMessage binary) {
+            TextMessage json;
+            try {
+                json = new TextMessage(transcoder.toJson(binary.getPayload()));
+            } catch (StreamConstraintsException e) {
+                signalingHandler.tooLarge(binarySession, binary.getPayloadLength(), e);
+                return;
+            } catch (IOException e) {
+                eventLog.handlerError(session.getId(), e);
+                outbound.close(binarySession, CloseStatus.BAD_DATA);
+                return;
+            }
+            super.handleMessage(binarySession, json);
+        } else {
+            super.handleMessage(binarySession, message);
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+        super.handleTransportError(decorate(session), exception);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        super.afterConnectionClosed(decorate(session), closeStatus);
+    }
+
+    private WebSocketSession decorate(WebSocketSession session) {
+        return (WebSocketSession) session.getAttributes()
+                .computeIfAbsent(DECORATED_SESSION, key -> new CborSessionDecorator(session, transcoder));
+    }
+}
@@ -0,0 +1,36 @@
+package dev.radovanradivojevic.webrtcserver.handler;
+
+import dev.radovanradivojevic.webrtcserver.relay.CborTranscoder;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+
+/**
+ * A binary client's session as SignalingHandler sees it
+ *
+ * Everything the signaling code sends is JSON text; this decorator turns it
+ * into a CBOR binary frame on the way out. Sends happen on the outbound
+ * writer thread, so the transcoding never runs on the sender's thread.
+ */
+class CborSessionDecorator extends WebSocketSessionDecorator {
+
+    private final CborTranscoder transcoder;
+
+    CborSessionDecorator(WebSocketSession session, CborTranscoder transcoder) {
+        super(session);
+        this.transcoder = transcoder;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (message instanceof TextMessage text) {
+            super.sendMessage(new BinaryMessage(transcoder.toCbor(text.getPayload())));
+        } else {
+            super.sendMessage(message);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package dev.radovanradivojevic.webrtcserver.handler;
+
+import dev.radovanradivojevic.webrtcserver.compression.CompressingSessionDecorator;
+import dev.radovanradivojevic.webrtcserver.compression.FrameCompressor;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.session.OutboundMessageDispatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.io.IOException;
+
+/**
+ * CompressingSignalingHandler - The "/signal" endpoint with optional SDP-dictionary compression
+ *
+ * Wraps SignalingHandler like BinarySignalingHandler does for CBOR:
+ * - every session is wrapped in a CompressingSessionDecorator, which starts
+ *   compressing large outgoing frames once the client negotiated "deflate-sdp"
+ * - binary frames from the client are compressed JSON and are inflated
+ *   before SignalingHandler sees them
+ *
+ * Text frames pass through untouched, so clients that never ask for
+ * compression see exactly the old protocol.
+ *
+ * Each session gets the frame size limits of signaling.limits.signal, so the
+ * container rejects larger frames before buffering them. A compressed frame
+ * is held to the text limit too: inflating stops once it is exceeded and the
+ * session is closed with 1009, as the container does for an oversized text frame.
+ * Like every close, it goes through the session's outbound queue, so it never
+ * blocks the reading thread or races the session's writer.
+ */
+@Component
+public class CompressingSignalingHandler extends WebSocketHandlerDecorator {
+
+    private static final String DECORATED_SESSION = CompressingSignalingHandler.class.getName() + ".session";
+
+    private final FrameCompressor compressor;
+    private final OutboundMessageDispatcher outbound;
+    private final SignalingEventLog eventLog;
+    private final SignalingProperties.Endpoint limits;
+
+    public CompressingSignalingHandler(SignalingHandler signalingHandler, FrameCompressor compressor,
+                                       OutboundMessageDispatcher outbound, SignalingEventLog eventLog,
+                                       SignalingProperties properties) {
+        super(signalingHandler);
+        this.compressor = compressor;
+        this.outbound = outbound;
+        this.eventLog = eventLog;
+        this.limits = properties.getLimits().getSignal();
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        session.setTextMessageSizeLimit(limits.getMaxTextFrameSize());
+        session.setBinaryMessageSizeLimit(limits.getMaxBinaryFrameSize());
+        super.afterConnectionEstablished(decorate(session));
+    }
+
+    @Override
+    public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+        WebSocketSession compressingSession = decorate(session);
+        if (message instanceof BinaryMessage binary) {
+            TextMessage json;
+            try {
+                json = new TextMessage(compressor.decompress(binary.getPayload(), limits.getMaxTextFrameSize()));
+            } catch (FrameCompressor.FrameTooLargeException e) {
+                eventLog.handlerError(session.getId(), e);
+                outbound.close(compressingSession, CloseStatus.TOO_BIG_TO_PROCESS);
+                return;
+            } catch (IOException e) {
+                eventLog.handlerError(session.getId(), e);
+                outbound.close(compressingSession, CloseStatus.BAD_DATA);
+                return;
+            }
+            super.handleMessage(compressingSession, json);
+        } else {
+            super.handleMessage(compressingSession, message);
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+        super.handleTransportError(decorate(session), exception);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        super.afterConnectionClosed(decorate(session), closeStatus);
+    }
+
+    private WebSocketSession decorate(WebSocketSession session) {
+        return (WebSocketSession) session.getAttributes()
+                .computeIfAbsent(DECORATED_SESSION, key -> new CompressingSessionDecorator(session, compressor));
+    }
+}
@@ -0,0 +1,167 @@
+package dev.radovanradivojevic.webrtcserver.handler;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.model.SignalingMessage;
+import dev.radovanradivojevic.webrtcserver.relay.FrameLimits;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * MessageTypeRegistry - Which handler and which class each inbound "type" goes to
+ *
+ * Purpose: SignalingMessage resolves its subclass through @JsonTypeInfo, which
+ * buffers the properties of a payload until "type" is found, looks the name up
+ * and throws deep inside Jackson when there is no match. Clients send "type"
+ * first, so the handler peeks at it with the streaming parser
+ * (StreamingRelayCodec.readType) and looks the subtype up here instead:
+ *
+ * 1. At startup every type is mapped to a Registration holding its handler and
+ *    an ObjectReader for the concrete class, created once. The readers come
+ *    from a copy of the ObjectMapper with polymorphic type handling switched
+ *    off, so "type" is read as a plain field, and with the FrameLimits
+ *    enforced while reading.
+ * 2. Per message, SignalingHandler does one map lookup: an unknown type is
+ *    rejected before the payload is parsed any further, a known one is read
+ *    straight into its class and handed to its handler.
+ *
+ * Registrations come from two places:
+ * - SignalingHandler registers the built-in types in its constructor
+ * - every SignalingMessageHandler bean is added once all singletons exist,
+ *   so such a bean may itself depend on SignalingHandler
+ *
+ * The map is replaced (never changed) on registration, so lookups take no lock.
+ */
+@Component
+public class MessageTypeRegistry implements SmartInitializingSingleton {
+
+    private final ObjectMapper typedMapper;
+    private final ObjectProvider<SignalingMessageHandler<?>> handlerBeans;
+    private volatile Map<String, Registration> registrations = Map.of();
+
+    @Autowired
+    public MessageTypeRegistry(ObjectMapper objectMapper, ObjectProvider<SignalingMessageHandler<?>> handlerBeans,
+                               SignalingProperties properties) {
+        this.typedMapper = FrameLimits.constrain(objectMapper, properties.getLimits())
+                .addMixIn(SignalingMessage.class, NoTypeInfo.class);
+        this.handlerBeans = handlerBeans;
+    }
+
+    /**
+     * Registry without handler beans - only what is registered by hand (for testing)
+     */
+    public MessageTypeRegistry(ObjectMapper objectMapper, SignalingProperties properties) {
+        this(objectMapper, null, properties);
+    }
+
+    /**
+     * Registry without handler beans and with the default limits (for testing)
+     */
+    public MessageTypeRegistry(ObjectMapper objectMapper) {
+        this(objectMapper, new SignalingProperties());
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (handlerBeans != null) {
+            handlerBeans.orderedStream().forEach(this::register);
+        }
+    }
+
+    /**
+     * Add a handler whose messages are always deserialized
+     *
+     * @throws IllegalStateException if one of its types already has a handler
+     */
+    public void register(SignalingMessageHandler<?> handler) {
+        register(handler, false);
+    }
+
+    /**
+     * Add a handler
+     *
+     * @param relayable whether STREAMING relay mode may forward the payload without calling the handler
+     * @throws IllegalStateException if one of its types already has a handler
+     */
+    public synchronized void register(SignalingMessageHandler<?> handler, boolean relayable) {
+        Map<String, Registration> updated = new HashMap<>(registrations);
+        ObjectReader reader = typedMapper.readerFor(handler.getMessageClass());
+        for (String type : handler.getTypes()) {
+            Registration previous = updated.put(type, new Registration(type, reader, handler, relayable));
+            if (previous != null) {
+                throw new IllegalStateException("Message type \"" + type + "\" is already handled by "
+                        + previous.handler.getClass().getName());
+            }
+        }
+        registrations = Map.copyOf(updated);
+    }
+
+    /**
+     * @return the registration of type, or null if no handler takes it
+     */
+    public Registration lookup(String type) {
+        return registrations.get(type);
+    }
+
+    public Set<String> getTypes() {
+        return registrations.keySet();
+    }
+
+    /**
+     * One message type: how to read it and who handles it
+     */
+    public static final class Registration {
+
+        private final String type;
+        private final ObjectReader reader;
+        private final SignalingMessageHandler<?> handler;
+        private final boolean relayable;
+
+        private Registration(String type, ObjectReader reader, SignalingMessageHandler<?> handler, boolean relayable) {
+            this.type = type;
+            this.reader = reader;
+            this.handler = handler;
+            this.relayable = relayable;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public boolean isRelayable() {
+            return relayable;
+        }
+
+        /**
+         * Deserialize a payload of this type into the handler's message class
+         */
+        public SignalingMessage read(String payload) throws IOException {
+            return reader.readValue(payload);
+        }
+
+        /**
+         * Pass a message produced by read() to the handler
+         */
+        @SuppressWarnings("unchecked")
+        public void handle(WebSocketSession session, SignalingMessage message) throws Exception {
+            ((SignalingMessageHandler<SignalingMessage>) handler).handle(session, message);
+        }
+    }
+
+    /**
+     * Mix-in that switches off @JsonTypeInfo on SignalingMessage and its subclasses
+     */
+    @JsonTypeInfo(use = JsonTypeInfo.Id.NONE)
+    private interface NoTypeInfo {
+    }
+}
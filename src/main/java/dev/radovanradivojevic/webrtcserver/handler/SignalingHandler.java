@@ -1,21 +1,59 @@
 package dev.radovanradivojevic.webrtcserver.handler;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.radovanradivojevic.webrtcserver.admission.AdmissionController;
+import dev.radovanradivojevic.webrtcserver.audit.AuditLog;
+import dev.radovanradivojevic.webrtcserver.audit.InMemoryAuditStore;
+import dev.radovanradivojevic.webrtcserver.call.CallRegistry;
+import dev.radovanradivojevic.webrtcserver.call.CallTracer;
+import dev.radovanradivojevic.webrtcserver.cluster.ClusterRouter;
+import dev.radovanradivojevic.webrtcserver.cluster.InMemorySessionDirectory;
+import dev.radovanradivojevic.webrtcserver.cluster.LoopbackNodeRelay;
+import dev.radovanradivojevic.webrtcserver.cluster.RelayedFrame;
+import dev.radovanradivojevic.webrtcserver.compression.FrameCompressor;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.control.ControlFrames;
 import dev.radovanradivojevic.webrtcserver.config.WebSocketConfig;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
 import dev.radovanradivojevic.webrtcserver.model.CallMessage;
 import dev.radovanradivojevic.webrtcserver.model.EndCallMessage;
 import dev.radovanradivojevic.webrtcserver.model.IceCandidateMessage;
 import dev.radovanradivojevic.webrtcserver.model.RegisterMessage;
+import dev.radovanradivojevic.webrtcserver.model.RoomEvent;
+import dev.radovanradivojevic.webrtcserver.model.RoomMessage;
 import dev.radovanradivojevic.webrtcserver.model.SignalingMessage;
+import dev.radovanradivojevic.webrtcserver.relay.DeliveryReceipts;
+import dev.radovanradivojevic.webrtcserver.relay.IceCandidateBatcher;
+import dev.radovanradivojevic.webrtcserver.relay.PendingMessageBuffer;
+import dev.radovanradivojevic.webrtcserver.relay.PendingMessageBuffer.PendingMessage;
+import dev.radovanradivojevic.webrtcserver.relay.RelayHeader;
+import dev.radovanradivojevic.webrtcserver.relay.RelayMode;
+import dev.radovanradivojevic.webrtcserver.relay.StreamingRelayCodec;
+import dev.radovanradivojevic.webrtcserver.session.HeartbeatMonitor;
+import dev.radovanradivojevic.webrtcserver.session.InboundMessageDispatcher;
+import dev.radovanradivojevic.webrtcserver.session.OutboundMessageDispatcher;
+import dev.radovanradivojevic.webrtcserver.session.SessionDrainer;
+import dev.radovanradivojevic.webrtcserver.session.SessionRegistry;
+import dev.radovanradivojevic.webrtcserver.wakeup.CalleeWakeups;
+import dev.radovanradivojevic.webrtcserver.wakeup.WakeupDispatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * SignalingHandler - Handles WebSocket connections for WebRTC signaling
@@ -25,8 +63,42 @@ import java.util.concurrent.ConcurrentHashMap;
  *
  * Architecture:
  * - Extends TextWebSocketHandler (handles text-based WebSocket messages)
- * - Maintains an in-memory map of connected sessions
+ * - Keeps track of connected users in the SessionRegistry
  * - Routes messages from one client to another
+ * - Picks the handler of each message by its "type" in the MessageTypeRegistry,
+ *   which also takes SignalingMessageHandler beans for types added later;
+ *   frames without a string "type" and unknown types are dropped before a full parse
+ * - Drops frames nested too deep or with an oversized SDP while parsing them
+ *   (see FrameLimits); oversized frames never reach it, the container closes
+ *   the session first (see WebSocketConfig)
+ * - Hands every outgoing message to the OutboundMessageDispatcher, so a slow
+ *   recipient never blocks the thread that received the message
+ * - In STREAMING relay mode, forwards offer/answer/ice-candidate/end-call
+ *   payloads as-is with only "from" spliced in (see StreamingRelayCodec)
+ * - Optionally coalesces ICE candidates per recipient (see IceCandidateBatcher)
+ * - Runs message handling on the thread chosen by InboundMessageDispatcher
+ *   (container thread, a per-session virtual thread lane, or the event loop of
+ *   the user's shard)
+ * - Relays messages for users connected to other nodes through the ClusterRouter
+ * - Rejects messages of clients over their rate limit, and sheds ICE candidates
+ *   first when the node is saturated (see AdmissionController)
+ * - Tracks 1:1 calls and rooms (see CallRegistry): room messages are serialized
+ *   once and fanned out to all members, and a closed connection ends its calls
+ * - Timestamps the offer/answer/ICE/end-call sequence of every 1:1 call for
+ *   setup-latency histograms and the slowest recent calls (see CallTracer)
+ * - Pings silent connections and closes those that stay silent, through the
+ *   same cleanup as a normal close (see HeartbeatMonitor)
+ * - Records registrations, disconnects and calls in the AuditLog (batched,
+ *   written by a background thread)
+ * - Tells senders right away when a recipient cannot be reached, and acknowledges
+ *   messages carrying an "id" to clients that asked for receipts (see DeliveryReceipts)
+ * - On shutdown, turns new registrations away and hands connected clients to
+ *   other nodes with "reconnect-elsewhere", spread over time (see SessionDrainer)
+ * - Holds messages for briefly offline users and delivers them when they
+ *   register again (see PendingMessageBuffer), waking the callee's device
+ *   for held offers if a push dispatcher is configured (see CalleeWakeups)
+ * - Records what happens in the SignalingEventLog (asynchronous, never on the hot path)
+ *   and counts/times it in SignalingMetrics
  *
  * Key Concept: This is NOT handling video/audio data! This only handles
  * the "signaling" - exchanging connection information so devices can
@@ -36,20 +108,109 @@ import java.util.concurrent.ConcurrentHashMap;
 public class SignalingHandler extends TextWebSocketHandler {
 
     /**
-     * Store active WebSocket sessions mapped by userId
-     *
-     * QUESTION: Why ConcurrentHashMap instead of regular HashMap?
-     * HINT: Think about multiple devices connecting/disconnecting simultaneously
+     * Session attribute set once the session was cleaned up, so a reaped
+     * session is not cleaned up again when the container reports the close
+     */
+    private static final String CLOSED = SignalingHandler.class.getName() + ".closed";
+
+    /**
+     * Connected users, in both directions
      *
-     * Structure: Map<userId, WebSocketSession>
-     * Example: {"dad" -> session1, "son" -> session2}
+     * userId -> session for the recipient, session -> userId for the sender.
+     * Both are updated together, so re-registering never leaves a stale mapping.
      */
-    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
-    private final Map<String, String> sessionToUser = new ConcurrentHashMap<>();
+    private final SessionRegistry sessions;
     private final ObjectMapper objectMapper;
+    private final InboundMessageDispatcher inbound;
+    private final OutboundMessageDispatcher outbound;
+    private final StreamingRelayCodec relayCodec;
+    private final RelayMode relayMode;
+    private final int maxUserIdLength;
+    private final IceCandidateBatcher iceBatcher;
+    private final SignalingEventLog eventLog;
+    private final SignalingMetrics metrics;
+    private final ClusterRouter cluster;
+    private final PendingMessageBuffer pending;
+    private final FrameCompressor compressor;
+    private final AdmissionController admission;
+    private final CallRegistry calls;
+    private final CallTracer tracer;
+    private final HeartbeatMonitor heartbeats;
+    private final AuditLog audit;
+    private final MessageTypeRegistry messageTypes;
+    private final DeliveryReceipts receipts;
+    private final SessionDrainer drainer;
+    private final CalleeWakeups wakeups;
 
-    public SignalingHandler(ObjectMapper objectMapper) {
+    @Autowired
+    public SignalingHandler(ObjectMapper objectMapper, InboundMessageDispatcher inbound,
+                            OutboundMessageDispatcher outbound, StreamingRelayCodec relayCodec,
+                            IceCandidateBatcher iceBatcher, SignalingEventLog eventLog,
+                            SignalingMetrics metrics, ClusterRouter cluster, PendingMessageBuffer pending,
+                            FrameCompressor compressor, SessionRegistry sessions,
+                            AdmissionController admission, CallRegistry calls, CallTracer tracer,
+                            HeartbeatMonitor heartbeats, AuditLog audit, MessageTypeRegistry messageTypes,
+                            DeliveryReceipts receipts, SessionDrainer drainer, CalleeWakeups wakeups,
+                            SignalingProperties properties) {
         this.objectMapper = objectMapper;
+        this.inbound = inbound;
+        this.outbound = outbound;
+        this.relayCodec = relayCodec;
+        this.iceBatcher = iceBatcher;
+        this.eventLog = eventLog;
+        this.metrics = metrics;
+        this.cluster = cluster;
+        this.pending = pending;
+        this.compressor = compressor;
+        this.sessions = sessions;
+        this.admission = admission;
+        this.calls = calls;
+        this.tracer = tracer;
+        this.heartbeats = heartbeats;
+        this.audit = audit;
+        this.messageTypes = messageTypes;
+        this.receipts = receipts;
+        this.drainer = drainer;
+        this.wakeups = wakeups;
+        this.relayMode = properties.getRelay().getMode();
+        this.maxUserIdLength = properties.getLimits().getMaxUserIdLength();
+        metrics.bindActiveSessions(sessions::size);
+        cluster.onRelayedFrame(this::deliverRelayedFrame);
+        heartbeats.onIdle(this::reap);
+
+        // Built-in types; the relayable ones are forwarded as-is in STREAMING relay mode
+        messageTypes.register(SignalingMessageHandler.of(RegisterMessage.class, this::handleRegister, "register"));
+        messageTypes.register(SignalingMessageHandler.of(CallMessage.class, this::handleCallMessage,
+                "offer", "answer"), true);
+        messageTypes.register(SignalingMessageHandler.of(IceCandidateMessage.class, this::handleIceCandidate,
+                "ice-candidate"), true);
+        messageTypes.register(SignalingMessageHandler.of(EndCallMessage.class, this::handleEndCall,
+                "end-call"), true);
+        messageTypes.register(SignalingMessageHandler.of(RoomMessage.class, this::handleRoom,
+                "join-room", "leave-room"));
+    }
+
+    /**
+     * Standalone handler with default settings that handles and sends on the calling thread (for testing)
+     */
+    public SignalingHandler(ObjectMapper objectMapper) {
+        this(objectMapper, new StandaloneComponents(objectMapper, new SignalingProperties(), null));
+    }
+
+    /**
+     * Standalone handler that is one node of the given cluster (for testing)
+     */
+    public SignalingHandler(ObjectMapper objectMapper, ClusterRouter cluster) {
+        this(objectMapper, new StandaloneComponents(objectMapper, new SignalingProperties(), cluster));
+    }
+
+    private SignalingHandler(ObjectMapper objectMapper, StandaloneComponents components) {
+        this(objectMapper, components.inbound, components.outbound, components.relayCodec,
+                components.iceBatcher, components.eventLog, components.metrics, components.cluster,
+                components.pending, components.compressor, components.sessions,
+                components.admission, components.calls, components.tracer, components.heartbeats,
+                components.audit, components.messageTypes, components.receipts, components.drainer,
+                components.wakeups, components.properties);
     }
 
     /**
@@ -57,111 +218,541 @@ public class SignalingHandler extends TextWebSocketHandler {
      */
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        System.out.println("New WebSocket connection established: " + session.getId());
+        metrics.connectionOpened();
+        eventLog.connected(session.getId());
+        heartbeats.track(session);
+        // While draining the session is told to reconnect elsewhere straight away
+        drainer.track(session);
+    }
+
+    /**
+     * Called for every inbound frame - text, binary and pong alike show the connection is alive
+     */
+    @Override
+    public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+        heartbeats.touch(session);
+        super.handleMessage(session, message);
     }
 
     /**
      * Called when a WebSocket message is received from a client
      * Handles registration and message routing between peers
+     *
+     * The type is read and the message admitted here, on the container thread,
+     * before it is handed to the inbound executor: in VIRTUAL and SHARDED mode a
+     * session's lane is an unbounded queue, and a flooding client must be turned
+     * away before its messages pile up there (or hold up its shard).
      */
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
         String payload = message.getPayload();
-        System.out.println("Received message: " + payload);
-
-        SignalingMessage signalingMessage = objectMapper.readValue(payload, SignalingMessage.class);
-
-        // Use instanceof to determine message type instead of checking the type field
-        if (signalingMessage instanceof RegisterMessage) {
-            handleRegister(session, (RegisterMessage) signalingMessage);
-        } else if (signalingMessage instanceof CallMessage) {
-            handleCallMessage(session, (CallMessage) signalingMessage);
-        } else if (signalingMessage instanceof IceCandidateMessage) {
-            handleIceCandidate(session, (IceCandidateMessage) signalingMessage);
-        } else if (signalingMessage instanceof EndCallMessage) {
-            handleEndCall(session, (EndCallMessage) signalingMessage);
+        eventLog.received(session.getId(), payload);
+
+        // Only "type" is read here: unknown and malformed frames cost a few tokens, not a full parse
+        String type;
+        try {
+            type = readType(payload);
+        } catch (StreamConstraintsException e) {
+            tooLarge(session, payload.length(), e);
+            return;
+        }
+        if (type == null) {
+            malformed(session, payload);
+            return;
+        }
+        MessageTypeRegistry.Registration registration = messageTypes.lookup(type);
+        if (registration == null) {
+            metrics.invalidMessage("unknown-type");
+            eventLog.unknownType(session.getId(), type);
+            return;
+        }
+        metrics.messageReceived(type);
+        if (!admission.admit(session, type)) {
+            return;
+        }
+
+        inbound.dispatch(session, () -> processMessage(session, payload, type, registration));
+    }
+
+    private void processMessage(WebSocketSession session, String payload, String type,
+                                MessageTypeRegistry.Registration registration) throws Exception {
+        long start = System.nanoTime();
+
+        // Fast path: route by "type"/"to" only and forward the original payload
+        if (relayMode == RelayMode.STREAMING && registration.isRelayable()) {
+            RelayHeader header;
+            try {
+                header = readHeader(payload);
+            } catch (StreamConstraintsException e) {
+                tooLarge(session, payload.length(), e);
+                return;
+            }
+            // A repeated "type" must not let the frame be routed as something else
+            if (header != null && !type.equals(header.getType())) {
+                malformed(session, payload);
+                return;
+            }
+            // No header: the frame cannot be spliced as-is (e.g. a nested or repeated
+            // "from"), so it takes the object path below, as in OBJECT mode
+            if (header != null) {
+                long parsed = System.nanoTime();
+                metrics.recordDeserialize(parsed - start);
+                relayMessage(session, payload, header);
+                metrics.recordRoute(System.nanoTime() - parsed);
+                return;
+            }
+        }
+
+        SignalingMessage signalingMessage;
+        try {
+            signalingMessage = registration.read(payload);
+        } catch (StreamConstraintsException e) {
+            tooLarge(session, payload.length(), e);
+            return;
+        } catch (JsonProcessingException e) {
+            // Not JSON after all, or not the shape its type calls for
+            malformed(session, payload);
+            return;
+        }
+        long parsed = System.nanoTime();
+        metrics.recordDeserialize(parsed - start);
+        registration.handle(session, signalingMessage);
+        metrics.recordRoute(System.nanoTime() - parsed);
+    }
+
+    /**
+     * @throws StreamConstraintsException if the payload exceeds the FrameLimits; other parse errors yield null
+     */
+    private String readType(String payload) throws IOException {
+        try {
+            return relayCodec.readType(payload);
+        } catch (StreamConstraintsException e) {
+            throw e;
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @throws StreamConstraintsException if the payload exceeds the FrameLimits; other parse errors yield null
+     */
+    private RelayHeader readHeader(String payload) throws IOException {
+        try {
+            return relayCodec.readHeader(payload);
+        } catch (StreamConstraintsException e) {
+            throw e;
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private void malformed(WebSocketSession session, String payload) {
+        metrics.invalidMessage("malformed");
+        eventLog.malformed(session.getId(), payload.length());
+    }
+
+    /**
+     * Nested too deep or a string (SDP) too long - dropped before it was read any further
+     * (also for CBOR frames that BinarySignalingHandler could not transcode for that reason)
+     */
+    void tooLarge(WebSocketSession session, int size, StreamConstraintsException e) {
+        metrics.invalidMessage("too-large");
+        String message = String.valueOf(e.getMessage());
+        eventLog.tooLarge(session.getId(), size, message.contains("nesting depth") ? "max-depth"
+                : message.contains("String value length") || message.contains("SDP length") ? "max-sdp-length"
+                : "other");
+    }
+
+    /**
+     * Forward an offer/answer/ice-candidate/end-call payload without deserializing it
+     */
+    private void relayMessage(WebSocketSession session, String payload, RelayHeader header) {
+        // Get sender's userId
+        String senderId = sessions.userIdOf(session);
+        if (senderId == null) {
+            metrics.undeliverable("sender-not-registered");
+            eventLog.senderNotRegistered(session.getId(), header.getType());
+            return;
+        }
+
+        // Splice the "from" field into the original payload and route it
+        routeOrFanOut(session, header.getId(), header.getType(), senderId, header.getTo(), header.getRoom(),
+                relayCodec.withSender(payload, header, senderId));
+    }
+
+    /**
+     * Messages with a "room" and without a "to" go to every other member of the room
+     *
+     * The sender then gets a receipt, or a peer-unavailable error if the
+     * recipient cannot be reached (see DeliveryReceipts).
+     */
+    private void routeOrFanOut(WebSocketSession session, String messageId, String type, String senderId,
+                               String recipientId, String room, String forwardedMessage) {
+        boolean accepted = recipientId == null && room != null
+                ? fanOut(type, senderId, room, forwardedMessage)
+                : route(type, senderId, recipientId, forwardedMessage);
+        if (accepted) {
+            receipts.delivered(session, messageId);
+        } else if (recipientId != null) {
+            receipts.unavailable(session, recipientId, type, messageId);
+        }
+    }
+
+    /**
+     * Deliver a stamped message to every other member of a room
+     *
+     * The message is serialized once: every member's outbound queue gets the same TextMessage.
+     *
+     * @return false if the sender is not a member of the room
+     */
+    private boolean fanOut(String type, String senderId, String room, String forwardedMessage) {
+        List<String> members = calls.members(room);
+        if (!members.contains(senderId)) {
+            metrics.undeliverable("not-in-room");
+            eventLog.notInRoom(type, senderId, room);
+            return false;
+        }
+        TextMessage frame = new TextMessage(forwardedMessage);
+        for (String member : members) {
+            if (member.equals(senderId)) {
+                continue;
+            }
+            WebSocketSession memberSession = sessions.sessionOf(member);
+            if (memberSession != null && memberSession.isOpen()) {
+                inbound.runOnOwner(member, () -> forward(memberSession, type, frame));
+                eventLog.forwarded(type, senderId, member, forwardedMessage.length());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Send one server-generated frame to each of the given members
+     */
+    private void broadcast(List<String> members, String type, String message) {
+        TextMessage frame = new TextMessage(message);
+        for (String member : members) {
+            WebSocketSession memberSession = sessions.sessionOf(member);
+            if (memberSession != null && memberSession.isOpen()) {
+                outbound.send(memberSession, frame);
+                metrics.messageSent(type);
+            }
+        }
+    }
+
+    /**
+     * Deliver a stamped message to the recipient, on this node or on the node holding their session
+     *
+     * The call is tracked, audited and traced only once the message got somewhere:
+     * an offer that ends in "peer-unavailable" must not leave a ringing call behind.
+     * An end-call ends the call whether or not it reached the peer.
+     *
+     * @return true if the message was queued for the recipient, relayed to its node or held for it
+     */
+    private boolean route(String type, String senderId, String recipientId, String forwardedMessage) {
+        if (recipientId == null) {
+            metrics.undeliverable("recipient-offline");
+            eventLog.recipientOffline(type, senderId, null);
+            return false;
+        }
+
+        // Local recipients are a single map hit; the cluster is only asked on a miss
+        WebSocketSession recipientSession = sessions.sessionOf(recipientId);
+        if (recipientSession != null && recipientSession.isOpen()) {
+            trackCall(type, senderId, recipientId, true);
+            // In SHARDED mode a recipient on another shard gets the frame through its loop's mailbox
+            inbound.runOnOwner(recipientId, () -> forward(recipientSession, type, forwardedMessage));
+            eventLog.forwarded(type, senderId, recipientId, forwardedMessage.length());
+            return true;
+        }
+
+        String nodeId = cluster.locate(recipientId);
+        boolean routed;
+        if (nodeId == null) {
+            routed = recipientOffline(type, senderId, recipientId, forwardedMessage);
+        } else if (cluster.relay(nodeId, senderId, recipientId, type, forwardedMessage)) {
+            metrics.relayedToNode();
+            eventLog.forwardedToNode(type, senderId, recipientId, nodeId, forwardedMessage.length());
+            routed = true;
+        } else {
+            metrics.undeliverable("node-unreachable");
+            eventLog.nodeUnreachable(type, senderId, recipientId, nodeId);
+            routed = false;
+        }
+        if (routed || "end-call".equals(type)) {
+            trackCall(type, senderId, recipientId, true);
+        }
+        return routed;
+    }
+
+    /**
+     * Update the 1:1 call a routed message belongs to in the CallRegistry, AuditLog and CallTracer
+     *
+     * Both nodes of a cross-node call track and trace it, each seeing the messages of
+     * its own user in one direction and the relayed ones in the other. Only the sender's
+     * node audits, so a shared audit table gets each event once.
+     *
+     * @param audited false for frames relayed from another node, which audited them already
+     */
+    private void trackCall(String type, String senderId, String recipientId, boolean audited) {
+        if (calls.track(type, senderId, recipientId) && audited) {
+            audit.call(type, senderId, recipientId);
+        }
+        tracer.record(type, senderId, recipientId);
+    }
+
+    /**
+     * A message another node relayed to a user connected here
+     *
+     * The sender's node may have used a stale cached location: the user has
+     * moved to another node or gone offline. Nothing is held here then - the
+     * user would only get it by coming back to this node, and would be woken
+     * while online elsewhere. Instead the user is looked up again and the
+     * frame passed on once; failing that it goes back to the sender's node,
+     * which retries with a fresh lookup and holds it if the user is offline.
+     */
+    private void deliverRelayedFrame(RelayedFrame frame) {
+        metrics.relayedFromNode();
+        if (frame.getLeg() == RelayedFrame.Leg.BOUNCED) {
+            retryBounced(frame);
+            return;
+        }
+        String type = frame.getType();
+        WebSocketSession recipientSession = sessions.sessionOf(frame.getRecipientId());
+        if (recipientSession != null && recipientSession.isOpen()) {
+            trackCall(type, frame.getSenderId(), frame.getRecipientId(), false);
+            forward(recipientSession, type, frame.getPayload());
+            eventLog.forwarded(type, frame.getSenderId(), frame.getRecipientId(), frame.getPayload().length());
+            return;
+        }
+
+        if (frame.getLeg() == RelayedFrame.Leg.FIRST) {
+            String nodeId = cluster.relocate(frame.getRecipientId());
+            if (nodeId != null && cluster.forward(nodeId, frame.on(RelayedFrame.Leg.RELOCATED))) {
+                metrics.relayedToNode();
+                eventLog.forwardedToNode(type, frame.getSenderId(), frame.getRecipientId(), nodeId,
+                        frame.getPayload().length());
+                return;
+            }
+        }
+        if (frame.getLeg() != RelayedFrame.Leg.RETRY && cluster.bounce(frame)) {
+            return;
+        }
+        metrics.undeliverable("recipient-offline");
+        eventLog.recipientOffline(type, frame.getSenderId(), frame.getRecipientId());
+    }
+
+    /**
+     * A message this node relayed came back: the recipient was not on the node it was sent to
+     *
+     * The call was tracked when the message was first relayed, so it is not tracked again.
+     */
+    private void retryBounced(RelayedFrame frame) {
+        String type = frame.getType();
+        String recipientId = frame.getRecipientId();
+        WebSocketSession recipientSession = sessions.sessionOf(recipientId);
+        if (recipientSession != null && recipientSession.isOpen()) {
+            forward(recipientSession, type, frame.getPayload());
+            eventLog.forwarded(type, frame.getSenderId(), recipientId, frame.getPayload().length());
+            return;
+        }
+
+        String nodeId = cluster.relocate(recipientId);
+        if (nodeId == null) {
+            recipientOffline(type, frame.getSenderId(), recipientId, frame.getPayload());
+        } else if (cluster.forward(nodeId, frame.on(RelayedFrame.Leg.RETRY))) {
+            metrics.relayedToNode();
+            eventLog.forwardedToNode(type, frame.getSenderId(), recipientId, nodeId, frame.getPayload().length());
         } else {
-            System.err.println("Unknown message type: " + signalingMessage.getClass().getName());
+            metrics.undeliverable("node-unreachable");
+            eventLog.nodeUnreachable(type, frame.getSenderId(), recipientId, nodeId);
         }
     }
 
+    /**
+     * The recipient is not connected anywhere - hold the message for when they are back
+     *
+     * An end-call instead cancels whatever the sender has held: the callee
+     * should not get an offer for a call that is already over.
+     *
+     * @return true if the message was held
+     */
+    private boolean recipientOffline(String type, String senderId, String recipientId, String forwardedMessage) {
+        if ("end-call".equals(type)) {
+            pending.cancel(recipientId, senderId);
+            wakeups.cancel(senderId, recipientId);
+        } else if (pending.hold(recipientId, senderId, type, forwardedMessage)) {
+            eventLog.held(type, senderId, recipientId, forwardedMessage.length());
+            if ("offer".equals(type)) {
+                wakeups.offerHeld(senderId, recipientId);
+            }
+
+            // The recipient may have registered (and flushed) between our lookup and the hold
+            WebSocketSession recipientSession = sessions.sessionOf(recipientId);
+            if (recipientSession != null && recipientSession.isOpen()) {
+                deliverPending(recipientSession, recipientId);
+            }
+            return true;
+        }
+        metrics.undeliverable("recipient-offline");
+        eventLog.recipientOffline(type, senderId, recipientId);
+        return false;
+    }
+
+    /**
+     * Send what was held for userId while it was offline, oldest first
+     */
+    private void deliverPending(WebSocketSession session, String userId) {
+        List<PendingMessage> messages = pending.drain(userId);
+        for (PendingMessage message : messages) {
+            forward(session, message.getType(), message.getPayload());
+            eventLog.forwarded(message.getType(), message.getSenderId(), userId, message.getPayload().length());
+        }
+        if (!messages.isEmpty()) {
+            eventLog.pendingFlushed(session.getId(), userId, messages.size());
+        }
+    }
+
+    /**
+     * Queue a forwarded message for the recipient
+     *
+     * ICE candidates may be held briefly for batching; anything else first flushes
+     * pending candidates so the recipient sees messages in the order they were sent.
+     */
+    private void forward(WebSocketSession recipientSession, String type, String forwardedMessage) {
+        forward(recipientSession, type, new TextMessage(forwardedMessage));
+    }
+
+    private void forward(WebSocketSession recipientSession, String type, TextMessage frame) {
+        metrics.messageSent(type);
+        if ("ice-candidate".equals(type) && iceBatcher.offer(recipientSession, frame.getPayload())) {
+            return;
+        }
+        iceBatcher.flush(recipientSession);
+        outbound.send(recipientSession, frame);
+    }
+
     private void handleRegister(WebSocketSession session, RegisterMessage registerMessage) throws IOException {
+        if (!drainer.admitRegistration(session)) {
+            return;
+        }
         String userId = registerMessage.getUserId();
-        sessions.put(userId, session);
-        sessionToUser.put(session.getId(), userId);
-        System.out.println("User registered: " + userId);
+        if (userId == null || userId.length() > maxUserIdLength) {
+            // Would not fit the audit table, and fail the batch of everyone else's events with it
+            metrics.invalidMessage(ControlFrames.INVALID_USER_ID);
+            eventLog.rejected(session.getId(), "register", ControlFrames.INVALID_USER_ID);
+            outbound.send(session, ControlFrames.rejected(ControlFrames.INVALID_USER_ID, "register"));
+            metrics.messageSent(ControlFrames.ERROR);
+            return;
+        }
+        sessions.register(session, userId);
+        inbound.bind(session, userId);
+        cluster.registered(userId);
+        List<String> agreed = new ArrayList<>(3);
+        if (iceBatcher.negotiate(session, registerMessage.getCapabilities())) {
+            agreed.add(IceCandidateBatcher.CAPABILITY);
+        }
+        if (compressor.negotiate(session, registerMessage.getCapabilities())) {
+            agreed.add(FrameCompressor.CAPABILITY);
+        }
+        if (receipts.negotiate(session, registerMessage.getCapabilities())) {
+            agreed.add(DeliveryReceipts.CAPABILITY);
+        }
+        metrics.registration();
+        eventLog.registered(session.getId(), userId);
+        audit.registered(session.getId(), userId);
 
-        // Send acknowledgment
-        String ackMessage = "{\"type\":\"registered\",\"userId\":\"" + userId + "\"}";
-        session.sendMessage(new TextMessage(ackMessage));
+        // Send acknowledgment, echoing the capabilities the server agreed to
+        outbound.send(session, ControlFrames.registered(userId, agreed));
+        metrics.messageSent("registered");
+
+        // Anything sent to this user while it was reconnecting follows the ack
+        wakeups.registered(userId);
+        deliverPending(session, userId);
     }
 
     private void handleCallMessage(WebSocketSession session, CallMessage callMessage) throws IOException {
         // Get sender's userId
-        String senderId = sessionToUser.get(session.getId());
+        String senderId = sessions.userIdOf(session);
         if (senderId == null) {
-            System.err.println("Sender not registered: " + session.getId());
+            metrics.undeliverable("sender-not-registered");
+            eventLog.senderNotRegistered(session.getId(), callMessage.getType());
             return;
         }
 
         // Set the "from" field
         callMessage.setFrom(senderId);
 
-        // Get recipient's session
-        WebSocketSession recipientSession = sessions.get(callMessage.getTo());
-        if (recipientSession != null && recipientSession.isOpen()) {
-            // Convert message to JSON and send
-            String forwardedMessage = objectMapper.writeValueAsString(callMessage);
-            recipientSession.sendMessage(new TextMessage(forwardedMessage));
-            System.out.println("Forwarded call message from " + senderId + " to " + callMessage.getTo());
-        } else {
-            System.err.println("Recipient not found or offline: " + callMessage.getTo());
-        }
+        // Convert message to JSON and route it
+        routeOrFanOut(session, callMessage.getId(), callMessage.getType(), senderId, callMessage.getTo(),
+                callMessage.getRoom(), objectMapper.writeValueAsString(callMessage));
     }
 
     private void handleIceCandidate(WebSocketSession session, IceCandidateMessage iceCandidateMessage) throws IOException {
         // Get sender's userId
-        String senderId = sessionToUser.get(session.getId());
+        String senderId = sessions.userIdOf(session);
         if (senderId == null) {
-            System.err.println("Sender not registered: " + session.getId());
+            metrics.undeliverable("sender-not-registered");
+            eventLog.senderNotRegistered(session.getId(), iceCandidateMessage.getType());
             return;
         }
 
         // Set the "from" field
         iceCandidateMessage.setFrom(senderId);
 
-        // Get recipient's session
-        WebSocketSession recipientSession = sessions.get(iceCandidateMessage.getTo());
-        if (recipientSession != null && recipientSession.isOpen()) {
-            // Convert message to JSON and send
-            String forwardedMessage = objectMapper.writeValueAsString(iceCandidateMessage);
-            recipientSession.sendMessage(new TextMessage(forwardedMessage));
-            System.out.println("Forwarded ICE candidate from " + senderId + " to " + iceCandidateMessage.getTo());
-        } else {
-            System.err.println("Recipient not found or offline: " + iceCandidateMessage.getTo());
-        }
+        // Convert message to JSON and route it
+        routeOrFanOut(session, iceCandidateMessage.getId(), iceCandidateMessage.getType(), senderId,
+                iceCandidateMessage.getTo(), iceCandidateMessage.getRoom(),
+                objectMapper.writeValueAsString(iceCandidateMessage));
     }
 
     private void handleEndCall(WebSocketSession session, EndCallMessage endCallMessage) throws IOException {
         // Get sender's userId
-        String senderId = sessionToUser.get(session.getId());
+        String senderId = sessions.userIdOf(session);
         if (senderId == null) {
-            System.err.println("Sender not registered: " + session.getId());
+            metrics.undeliverable("sender-not-registered");
+            eventLog.senderNotRegistered(session.getId(), endCallMessage.getType());
             return;
         }
 
         // Set the "from" field
         endCallMessage.setFrom(senderId);
 
-        // Get recipient's session
-        WebSocketSession recipientSession = sessions.get(endCallMessage.getTo());
-        if (recipientSession != null && recipientSession.isOpen()) {
-            // Convert message to JSON and send
-            String forwardedMessage = objectMapper.writeValueAsString(endCallMessage);
-            recipientSession.sendMessage(new TextMessage(forwardedMessage));
-            System.out.println("Forwarded end-call from " + senderId + " to " + endCallMessage.getTo());
+        // Convert message to JSON and route it
+        routeOrFanOut(session, endCallMessage.getId(), endCallMessage.getType(), senderId, endCallMessage.getTo(),
+                endCallMessage.getRoom(), objectMapper.writeValueAsString(endCallMessage));
+    }
+
+    private void handleRoom(WebSocketSession session, RoomMessage roomMessage) throws IOException {
+        String userId = sessions.userIdOf(session);
+        if (userId == null) {
+            metrics.undeliverable("sender-not-registered");
+            eventLog.senderNotRegistered(session.getId(), roomMessage.getType());
+            return;
+        }
+        String room = roomMessage.getRoom();
+        if (room == null) {
+            eventLog.unknownType(session.getId(), roomMessage.getType());
+            return;
+        }
+
+        if ("join-room".equals(roomMessage.getType())) {
+            List<String> before = calls.join(room, userId);
+            if (before == null) {
+                outbound.send(session, ControlFrames.roomFull(room));
+                metrics.messageSent(ControlFrames.ERROR);
+                return;
+            }
+            outbound.send(session, new TextMessage(objectMapper.writeValueAsString(RoomEvent.joined(room, before))));
+            metrics.messageSent("room-joined");
+            broadcast(before, "member-joined", objectMapper.writeValueAsString(RoomEvent.memberJoined(room, userId)));
+            eventLog.roomJoined(session.getId(), userId, room, before.size() + 1);
         } else {
-            System.err.println("Recipient not found or offline: " + endCallMessage.getTo());
+            List<String> remaining = calls.leave(room, userId);
+            if (remaining != null) {
+                broadcast(remaining, "member-left", objectMapper.writeValueAsString(RoomEvent.memberLeft(room, userId)));
+                eventLog.roomLeft(session.getId(), userId, room, remaining.size());
+            }
         }
     }
 
@@ -171,12 +762,63 @@ public class SignalingHandler extends TextWebSocketHandler {
      */
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
-        System.out.println("WebSocket connection closed: " + session.getId());
+        if (session.getAttributes().putIfAbsent(CLOSED, Boolean.TRUE) != null) {
+            return;
+        }
+        metrics.connectionClosed();
+
+        // Runs after any messages of this session that are still being handled
+        inbound.dispatchLast(session, () -> cleanupSession(session));
+    }
 
-        String userId = sessionToUser.remove(session.getId());
-        if (userId != null) {
-            sessions.remove(userId);
-            System.out.println("User disconnected: " + userId);
+    private void cleanupSession(WebSocketSession session) throws IOException {
+        outbound.release(session);
+        iceBatcher.release(session);
+        admission.release(session);
+        heartbeats.release(session);
+        receipts.release(session);
+        drainer.release(session);
+
+        String userId = sessions.userIdOf(session);
+        // Null if the user has since registered from another session - that one stays
+        if (sessions.unregister(session) != null) {
+            cluster.unregistered(userId);
+            audit.disconnected(session.getId(), userId);
+            endCallsOf(session, userId);
+        }
+        eventLog.disconnected(session.getId(), userId);
+    }
+
+    /**
+     * End the calls and leave the rooms of a user whose connection is gone
+     *
+     * Each peer gets the end-call its client would have sent, so it can release
+     * its camera and peer connection instead of waiting for ICE to time out.
+     */
+    private void endCallsOf(WebSocketSession session, String userId) throws IOException {
+        CallRegistry.Departure departure = calls.disconnected(userId);
+        for (String peer : departure.getEndedCalls()) {
+            route("end-call", userId, peer, ControlFrames.endCall(userId, peer));
+            eventLog.callTornDown(userId, peer);
+            audit.callTornDown(userId, peer);
+        }
+        metrics.callsTornDown(departure.getEndedCalls().size());
+
+        for (Map.Entry<String, List<String>> left : departure.getLeftRooms().entrySet()) {
+            String room = left.getKey();
+            broadcast(left.getValue(), "member-left", objectMapper.writeValueAsString(RoomEvent.memberLeft(room, userId)));
+            eventLog.roomLeft(session.getId(), userId, room, left.getValue().size());
+        }
+    }
+
+    /**
+     * Clean up a session the HeartbeatMonitor found silent for too long (its socket is already being closed)
+     */
+    private void reap(WebSocketSession session) {
+        try {
+            afterConnectionClosed(session, HeartbeatMonitor.SESSION_IDLE);
+        } catch (Exception e) {
+            eventLog.handlerError(session.getId(), e);
         }
     }
 
@@ -186,8 +828,7 @@ public class SignalingHandler extends TextWebSocketHandler {
      */
     @Override
     public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
-        System.err.println("WebSocket error for session " + session.getId());
-        exception.printStackTrace();
+        eventLog.transportError(session.getId(), exception);
         session.close();
     }
 
@@ -195,13 +836,83 @@ public class SignalingHandler extends TextWebSocketHandler {
      * Get session by userId (for testing)
      */
     public WebSocketSession getSession(String userId) {
-        return sessions.get(userId);
+        return sessions.sessionOf(userId);
     }
 
     /**
      * Get userId by sessionId (for testing)
      */
     public String getUserId(String sessionId) {
-        return sessionToUser.get(sessionId);
+        return sessions.userIdOf(sessionId);
+    }
+
+    /**
+     * Call traces of this node (for testing)
+     */
+    public CallTracer getCallTracer() {
+        return tracer;
+    }
+
+    /**
+     * Message types this handler dispatches (for testing)
+     */
+    public MessageTypeRegistry getMessageTypes() {
+        return messageTypes;
+    }
+
+    /**
+     * Default collaborators wired by hand, for using the handler outside a Spring context.
+     * Everything runs on the calling thread, metrics and audit history stay in memory and,
+     * unless a cluster is given, the handler is a single node.
+     */
+    private static final class StandaloneComponents {
+        private final SignalingProperties properties;
+        private final SignalingEventLog eventLog;
+        private final SignalingMetrics metrics;
+        private final InboundMessageDispatcher inbound;
+        private final OutboundMessageDispatcher outbound;
+        private final StreamingRelayCodec relayCodec;
+        private final IceCandidateBatcher iceBatcher;
+        private final ClusterRouter cluster;
+        private final PendingMessageBuffer pending;
+        private final FrameCompressor compressor;
+        private final SessionRegistry sessions;
+        private final AdmissionController admission;
+        private final CallRegistry calls;
+        private final CallTracer tracer;
+        private final HeartbeatMonitor heartbeats;
+        private final AuditLog audit;
+        private final MessageTypeRegistry messageTypes;
+        private final DeliveryReceipts receipts;
+        private final SessionDrainer drainer;
+        private final CalleeWakeups wakeups;
+
+        StandaloneComponents(ObjectMapper objectMapper, SignalingProperties properties, ClusterRouter cluster) {
+            this.properties = properties;
+            this.eventLog = new SignalingEventLog(properties);
+            this.metrics = new SignalingMetrics(new SimpleMeterRegistry(), eventLog);
+            this.outbound = new OutboundMessageDispatcher(properties, Runnable::run, eventLog, metrics);
+            this.inbound = new InboundMessageDispatcher(properties, Runnable::run, outbound, eventLog);
+            this.relayCodec = new StreamingRelayCodec(objectMapper, properties);
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("signaling-timer").daemon(true).factory());
+            this.iceBatcher = new IceCandidateBatcher(properties, outbound, scheduler);
+            this.pending = new PendingMessageBuffer(properties, scheduler, metrics);
+            this.compressor = new FrameCompressor(properties, metrics);
+            this.admission = new AdmissionController(properties, outbound, scheduler, metrics, eventLog);
+            this.calls = new CallRegistry(properties, metrics);
+            this.tracer = new CallTracer(properties, metrics);
+            this.heartbeats = new HeartbeatMonitor(properties, outbound, scheduler, metrics, eventLog);
+            this.audit = new AuditLog(properties, new InMemoryAuditStore(), metrics, eventLog);
+            this.messageTypes = new MessageTypeRegistry(objectMapper, properties);
+            this.receipts = new DeliveryReceipts(properties, outbound, scheduler, metrics);
+            this.drainer = new SessionDrainer(properties, outbound, scheduler, metrics, eventLog);
+            this.wakeups = new CalleeWakeups(properties, (WakeupDispatcher) null, Runnable::run, scheduler,
+                    metrics, eventLog);
+            this.sessions = new SessionRegistry(properties);
+            this.cluster = cluster != null
+                    ? cluster
+                    : new ClusterRouter(properties, new InMemorySessionDirectory(), new LoopbackNodeRelay());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,76 @@
+package dev.radovanradivojevic.webrtcserver.handler;
+
+import dev.radovanradivojevic.webrtcserver.model.SignalingMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Set;
+
+/**
+ * SignalingMessageHandler - Handles the inbound messages of one or more "type" values
+ *
+ * Purpose: New message types are added without touching SignalingHandler.
+ * Declare a Spring bean implementing this interface and the MessageTypeRegistry
+ * picks it up at startup; frames whose "type" is one of getTypes() are then
+ * deserialized straight into getMessageClass() and passed to handle().
+ *
+ * Example:
+ * <pre>
+ * &#64;Component
+ * class MuteHandler implements SignalingMessageHandler&lt;MuteMessage&gt; {
+ *     public Set&lt;String&gt; getTypes() { return Set.of("mute", "unmute"); }
+ *     public Class&lt;MuteMessage&gt; getMessageClass() { return MuteMessage.class; }
+ *     public void handle(WebSocketSession session, MuteMessage message) { ... }
+ * }
+ * </pre>
+ *
+ * Handlers run on the thread chosen by InboundMessageDispatcher, after the
+ * message has passed the AdmissionController. A type can only have one handler:
+ * claiming a type that is already registered (including the built-in ones)
+ * fails the startup.
+ */
+public interface SignalingMessageHandler<T extends SignalingMessage> {
+
+    /**
+     * Values of the "type" field this handler takes
+     */
+    Set<String> getTypes();
+
+    /**
+     * Class the payload is deserialized into; its "type" field is set from the payload
+     */
+    Class<T> getMessageClass();
+
+    void handle(WebSocketSession session, T message) throws Exception;
+
+    /**
+     * Handler for the given types that calls action
+     */
+    static <T extends SignalingMessage> SignalingMessageHandler<T> of(Class<T> messageClass, Action<T> action,
+                                                                      String... types) {
+        Set<String> typeSet = Set.of(types);
+        return new SignalingMessageHandler<>() {
+            @Override
+            public Set<String> getTypes() {
+                return typeSet;
+            }
+
+            @Override
+            public Class<T> getMessageClass() {
+                return messageClass;
+            }
+
+            @Override
+            public void handle(WebSocketSession session, T message) throws Exception {
+                action.handle(session, message);
+            }
+        };
+    }
+
+    /**
+     * The handle() method on its own, for registering a method reference
+     */
+    @FunctionalInterface
+    interface Action<T> {
+        void handle(WebSocketSession session, T message) throws Exception;
+    }
+}
@@ -0,0 +1,14 @@
+package dev.radovanradivojevic.webrtcserver.logging;
+
+/**
+ * How much of a message payload ends up in the event log
+ *
+ * NONE      - only type/from/to/size
+ * REDACTED  - truncated payload with ICE credentials and DTLS fingerprints masked
+ * FULL      - the whole payload, unmodified (local debugging only)
+ */
+public enum PayloadLogging {
+    NONE,
+    REDACTED,
+    FULL
+}
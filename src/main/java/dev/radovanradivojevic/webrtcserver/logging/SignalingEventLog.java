@@ -0,0 +1,524 @@
+package dev.radovanradivojevic.webrtcserver.logging;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+/**
+ * SignalingEventLog - Asynchronous, allocation-light structured log for signaling events
+ *
+ * Purpose: Printing every message (including multi-KB SDPs) with System.out is
+ * synchronous and lock-contended, and at our message rates it costs more than the
+ * routing itself. This log keeps the hot path down to a level check and a few
+ * field writes:
+ *
+ * 1. Callers pass fields (type, from, to, size, payload reference) as arguments -
+ *    nothing is concatenated, and a disabled level returns before touching anything.
+ * 2. Per-message events (RECEIVED, FORWARDED) can be sampled.
+ * 3. Events are written into a preallocated ring buffer of reusable slots.
+ *    If the buffer is full the event is dropped and counted, the caller never waits.
+ * 4. One background thread formats the events as key=value lines, truncates or
+ *    redacts payloads, and hands them to SLF4J (logger "signaling.events").
+ *    Values a client chose (user ids, payloads) are quoted and escaped when they
+ *    contain spaces, '=', quotes or control characters, so they can neither
+ *    break a line in two nor pass for another field.
+ * 5. While events keep coming the writer polls with a short back-off; once idle
+ *    it sleeps until the next producer wakes it.
+ *
+ * Example output:
+ * event=FORWARDED type=offer from=dad to=son size=3012
+ * event=FORWARDED type=offer from=dad to="son\nevent=REGISTERED" size=3012
+ */
+@Component
+public class SignalingEventLog {
+
+    private static final Logger log = LoggerFactory.getLogger("signaling.events");
+
+    /**
+     * SDP attribute values that must not end up in log files
+     */
+    private static final Pattern SENSITIVE_SDP = Pattern.compile("(a=(?:ice-pwd|ice-ufrag|fingerprint|crypto):)[^\\\\\"]*");
+
+    /**
+     * Longest back-off between polls while events are still trickling in
+     */
+    private static final long MAX_BACKOFF_NANOS = 1_000_000;
+
+    /**
+     * Longest sleep once idle - producers normally wake the writer long before
+     */
+    private static final long IDLE_PARK_NANOS = 1_000_000_000;
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final int threshold;
+    private final double sampleRate;
+    private final PayloadLogging payloadLogging;
+    private final int maxPayloadChars;
+    private final Thread writer;
+
+    /**
+     * Next sequence the writer thread will read
+     */
+    private volatile long consumed;
+    private volatile boolean running = true;
+
+    /**
+     * The writer is idle and waits for a producer to unpark it
+     */
+    private volatile boolean sleeping;
+
+    public SignalingEventLog(SignalingProperties properties) {
+        SignalingProperties.Log config = properties.getLog();
+        int capacity = Integer.highestOneBit(Math.max(2, config.getBufferSize() - 1)) << 1;
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+        this.threshold = config.getLevel().toInt();
+        this.sampleRate = config.getSampleRate();
+        this.payloadLogging = config.getPayload();
+        this.maxPayloadChars = config.getMaxPayloadChars();
+
+        this.writer = Thread.ofPlatform().name("signaling-log").daemon(true).unstarted(this::drainLoop);
+        this.writer.start();
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.toInt() >= threshold;
+    }
+
+    // ---- Per-message events (DEBUG, sampled) ----
+
+    public void received(String sessionId, String payload) {
+        if (isEnabled(Level.DEBUG) && sampled()) {
+            publish(Level.DEBUG, SignalingEventType.RECEIVED, sessionId, null, null, null, payload.length(),
+                    payload, null, null);
+        }
+    }
+
+    public void forwarded(String messageType, String from, String to, int size) {
+        if (isEnabled(Level.DEBUG) && sampled()) {
+            publish(Level.DEBUG, SignalingEventType.FORWARDED, null, messageType, from, to, size, null, null, null);
+        }
+    }
+
+    /**
+     * Forwarded to a user on another node, logged as to=user@node
+     */
+    public void forwardedToNode(String messageType, String from, String to, String nodeId, int size) {
+        if (isEnabled(Level.DEBUG) && sampled()) {
+            publish(Level.DEBUG, SignalingEventType.FORWARDED, null, messageType, from, to + "@" + nodeId, size,
+                    null, null, null);
+        }
+    }
+
+    /**
+     * Held for a recipient who is offline right now
+     */
+    public void held(String messageType, String from, String to, int size) {
+        if (isEnabled(Level.DEBUG) && sampled()) {
+            publish(Level.DEBUG, SignalingEventType.HELD, null, messageType, from, to, size, null, null, null);
+        }
+    }
+
+    // ---- Session lifecycle (INFO) ----
+
+    public void connected(String sessionId) {
+        if (isEnabled(Level.INFO)) {
+            publish(Level.INFO, SignalingEventType.CONNECTED, sessionId, null, null, null, -1, null, null, null);
+        }
+    }
+
+    public void registered(String sessionId, String userId) {
+        if (isEnabled(Level.INFO)) {
+            publish(Level.INFO, SignalingEventType.REGISTERED, sessionId, null, userId, null, -1, null, null, null);
+        }
+    }
+
+    /**
+     * Messages held while userId was offline were delivered after it registered
+     */
+    public void pendingFlushed(String sessionId, String userId, int count) {
+        if (isEnabled(Level.INFO)) {
+            publish(Level.INFO, SignalingEventType.PENDING_FLUSHED, sessionId, null, null, userId, count, null, null,
+                    null);
+        }
+    }
+
+    /**
+     * userId joined room, which now has size members (logged as to=room)
+     */
+    public void roomJoined(String sessionId, String userId, String room, int size) {
+        if (isEnabled(Level.INFO)) {
+            publish(Level.INFO, SignalingEventType.ROOM_JOINED, sessionId, null, userId, room, size, null, null, null);
+        }
+    }
+
+    /**
+     * userId left room, which now has size members (logged as to=room)
+     */
+    public void roomLeft(String sessionId, String userId, String room, int size) {
+        if (isEnabled(Level.INFO)) {
+            publish(Level.INFO, SignalingEventType.ROOM_LEFT, sessionId, null, userId, room, size, null, null, null);
+        }
+    }
+
+    /**
+     * The call between from and to was ended by the server because from disconnected
+     */
+    public void callTornDown(String from, String to) {
+        if (isEnabled(Level.INFO)) {
+            publish(Level.INFO, SignalingEventType.CALL_TORN_DOWN, null, null, from, to, -1, null, null, null);
+        }
+    }
+
+    /**
+     * The node started or finished draining (action = started-N / drained / timed-out-N, N = open sessions)
+     */
+    public void drain(String action) {
+        if (isEnabled(Level.INFO)) {
+            publish(Level.INFO, SignalingEventType.DRAIN, null, null, null, null, -1, null, action, null);
+        }
+    }
+
+    /**
+     * A session was told to reconnect elsewhere (action = drained / turned-away)
+     */
+    public void handedOff(String sessionId, String reason) {
+        if (isEnabled(Level.INFO)) {
+            publish(Level.INFO, SignalingEventType.HANDED_OFF, sessionId, null, null, null, -1, null, reason, null);
+        }
+    }
+
+    /**
+     * The WakeupDispatcher was asked to wake userId for the given number of callers
+     */
+    public void wakeup(String userId, int callers) {
+        if (isEnabled(Level.INFO)) {
+            publish(Level.INFO, SignalingEventType.WAKEUP, null, null, null, userId, callers, null, null, null);
+        }
+    }
+
+    public void disconnected(String sessionId, String userId) {
+        if (isEnabled(Level.INFO)) {
+            publish(Level.INFO, SignalingEventType.DISCONNECTED, sessionId, null, userId, null, -1, null, null, null);
+        }
+    }
+
+    // ---- Routing problems (WARN) ----
+
+    public void senderNotRegistered(String sessionId, String messageType) {
+        if (isEnabled(Level.WARN)) {
+            publish(Level.WARN, SignalingEventType.SENDER_NOT_REGISTERED, sessionId, messageType, null, null, -1,
+                    null, null, null);
+        }
+    }
+
+    public void recipientOffline(String messageType, String from, String to) {
+        if (isEnabled(Level.WARN)) {
+            publish(Level.WARN, SignalingEventType.RECIPIENT_OFFLINE, null, messageType, from, to, -1, null, null, null);
+        }
+    }
+
+    public void nodeUnreachable(String messageType, String from, String to, String nodeId) {
+        if (isEnabled(Level.WARN)) {
+            publish(Level.WARN, SignalingEventType.NODE_UNREACHABLE, null, messageType, from, to + "@" + nodeId, -1,
+                    null, null, null);
+        }
+    }
+
+    /**
+     * A message was not handled; reason is "rate-limited" or "overloaded"
+     */
+    public void rejected(String sessionId, String messageType, String reason) {
+        if (isEnabled(Level.WARN)) {
+            publish(Level.WARN, SignalingEventType.REJECTED, sessionId, messageType, null, null, -1, null, reason, null);
+        }
+    }
+
+    /**
+     * A session was silent for the idle timeout and is being closed (action = silence in ms)
+     */
+    public void idleTimeout(String sessionId, long silentMillis) {
+        if (isEnabled(Level.WARN)) {
+            publish(Level.WARN, SignalingEventType.IDLE_TIMEOUT, sessionId, null, null, null, -1, null,
+                    "silent-" + silentMillis + "ms", null);
+        }
+    }
+
+    /**
+     * A room message from a user who is not a member of the room (logged as to=room)
+     */
+    public void notInRoom(String messageType, String from, String room) {
+        if (isEnabled(Level.WARN)) {
+            publish(Level.WARN, SignalingEventType.NOT_IN_ROOM, null, messageType, from, room, -1, null, null, null);
+        }
+    }
+
+    public void unknownType(String sessionId, String messageType) {
+        if (isEnabled(Level.WARN)) {
+            publish(Level.WARN, SignalingEventType.UNKNOWN_TYPE, sessionId, messageType, null, null, -1, null, null, null);
+        }
+    }
+
+    public void malformed(String sessionId, int size) {
+        if (isEnabled(Level.WARN)) {
+            publish(Level.WARN, SignalingEventType.MALFORMED, sessionId, null, null, null, size, null, null, null);
+        }
+    }
+
+    /**
+     * A frame exceeded a FrameLimit while being parsed (action = which limit)
+     */
+    public void tooLarge(String sessionId, int size, String limit) {
+        if (isEnabled(Level.WARN)) {
+            publish(Level.WARN, SignalingEventType.TOO_LARGE, sessionId, null, null, null, size, null, limit, null);
+        }
+    }
+
+    public void queueOverflow(String sessionId, int size, String action) {
+        if (isEnabled(Level.WARN)) {
+            publish(Level.WARN, SignalingEventType.QUEUE_OVERFLOW, sessionId, null, null, null, size, null, action, null);
+        }
+    }
+
+    /**
+     * The WakeupDispatcher could not wake userId
+     */
+    public void wakeupFailed(String userId, Throwable error) {
+        if (isEnabled(Level.WARN)) {
+            publish(Level.WARN, SignalingEventType.WAKEUP_FAILED, null, null, null, userId, -1, null, null, error);
+        }
+    }
+
+    public void sendFailed(String sessionId, Throwable error) {
+        if (isEnabled(Level.WARN)) {
+            publish(Level.WARN, SignalingEventType.SEND_FAILED, sessionId, null, null, null, -1, null, null, error);
+        }
+    }
+
+    // ---- Failures (ERROR) ----
+
+    public void handlerError(String sessionId, Throwable error) {
+        if (isEnabled(Level.ERROR)) {
+            publish(Level.ERROR, SignalingEventType.HANDLER_ERROR, sessionId, null, null, null, -1, null, null, error);
+        }
+    }
+
+    public void transportError(String sessionId, Throwable error) {
+        if (isEnabled(Level.ERROR)) {
+            publish(Level.ERROR, SignalingEventType.TRANSPORT_ERROR, sessionId, null, null, null, -1, null, null, error);
+        }
+    }
+
+    /**
+     * Number of events discarded because the ring buffer was full
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stop the writer thread after it has written everything already buffered
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(1000);
+    }
+
+    private boolean sampled() {
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private void publish(Level level, SignalingEventType type, String sessionId, String messageType,
+                         String from, String to, int size, String payload, String action, Throwable error) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= slots.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.timestamp = System.currentTimeMillis();
+        slot.level = level;
+        slot.type = type;
+        slot.sessionId = sessionId;
+        slot.messageType = messageType;
+        slot.from = from;
+        slot.to = to;
+        slot.size = size;
+        slot.payload = payload;
+        slot.action = action;
+        slot.error = error;
+        // Volatile write publishes the slot to the writer thread
+        slot.sequence = sequence;
+        if (sleeping) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void drainLoop() {
+        StringBuilder line = new StringBuilder(256);
+        long idleNanos = 0;
+        while (true) {
+            long next = consumed;
+            Slot slot = slots[(int) (next & mask)];
+            if (slot.sequence != next) {
+                if (!running) {
+                    return;
+                }
+                if (idleNanos < MAX_BACKOFF_NANOS) {
+                    // Back off up to 1ms while events trickle in, without costing producers a wake-up call
+                    idleNanos += 50_000;
+                    LockSupport.parkNanos(idleNanos);
+                } else {
+                    // Idle: sleep until a producer sees the flag. Both sides write, then read the
+                    // other's volatile, so either the producer unparks us or we see its slot here.
+                    sleeping = true;
+                    if (slot.sequence != next && running) {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                    sleeping = false;
+                }
+                continue;
+            }
+            idleNanos = 0;
+
+            line.setLength(0);
+            format(slot, line);
+            Throwable error = slot.error;
+            Level level = slot.level;
+            slot.clear();
+            consumed = next + 1;
+
+            try {
+                if (error != null) {
+                    log.atLevel(level).setCause(error).log(line.toString());
+                } else {
+                    log.atLevel(level).log(line.toString());
+                }
+            } catch (RuntimeException e) {
+                // Never let a broken appender kill the writer thread
+            }
+        }
+    }
+
+    private void format(Slot slot, StringBuilder line) {
+        line.append("event=").append(slot.type);
+        appendField(line, "session", slot.sessionId);
+        appendField(line, "type", slot.messageType);
+        appendField(line, "from", slot.from);
+        appendField(line, "to", slot.to);
+        if (slot.size >= 0) {
+            line.append(" size=").append(slot.size);
+        }
+        appendField(line, "action", slot.action);
+        if (slot.error != null) {
+            appendField(line, "error", slot.error.getClass().getSimpleName());
+        }
+        if (slot.payload != null && payloadLogging != PayloadLogging.NONE) {
+            appendField(line, "payload", renderPayload(slot.payload));
+        }
+        line.append(" ts=").append(slot.timestamp);
+    }
+
+    private String renderPayload(String payload) {
+        if (payloadLogging == PayloadLogging.FULL) {
+            return payload;
+        }
+        // Redact before truncating, so a cut never leaves half a secret behind
+        String redacted = SENSITIVE_SDP.matcher(payload).replaceAll("$1***");
+        return redacted.length() > maxPayloadChars
+                ? redacted.substring(0, maxPayloadChars) + "...(" + payload.length() + " chars)"
+                : redacted;
+    }
+
+    private static void appendField(StringBuilder line, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        line.append(' ').append(name).append('=');
+        if (!needsQuoting(value)) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (Character.isISOControl(c)) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    private static boolean needsQuoting(String value) {
+        if (value.isEmpty()) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '=' || c == '"' || c == '\\' || Character.isWhitespace(c) || Character.isISOControl(c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * One reusable ring buffer entry
+     */
+    private static final class Slot {
+        private volatile long sequence = -1;
+        private long timestamp;
+        private Level level;
+        private SignalingEventType type;
+        private String sessionId;
+        private String messageType;
+        private String from;
+        private String to;
+        private int size;
+        private String payload;
+        private String action;
+        private Throwable error;
+
+        void clear() {
+            sessionId = null;
+            messageType = null;
+            from = null;
+            to = null;
+            payload = null;
+            action = null;
+            error = null;
+        }
+    }
+}
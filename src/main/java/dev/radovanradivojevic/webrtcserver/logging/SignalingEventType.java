@@ -0,0 +1,34 @@
+package dev.radovanradivojevic.webrtcserver.logging;
+
+/**
+ * Kinds of events recorded by SignalingEventLog
+ */
+public enum SignalingEventType {
+    CONNECTED,
+    RECEIVED,
+    REGISTERED,
+    FORWARDED,
+    SENDER_NOT_REGISTERED,
+    RECIPIENT_OFFLINE,
+    NODE_UNREACHABLE,
+    HELD,
+    PENDING_FLUSHED,
+    ROOM_JOINED,
+    ROOM_LEFT,
+    NOT_IN_ROOM,
+    CALL_TORN_DOWN,
+    DRAIN,
+    HANDED_OFF,
+    WAKEUP,
+    WAKEUP_FAILED,
+    REJECTED,
+    IDLE_TIMEOUT,
+    UNKNOWN_TYPE,
+    MALFORMED,
+    TOO_LARGE,
+    QUEUE_OVERFLOW,
+    SEND_FAILED,
+    HANDLER_ERROR,
+    TRANSPORT_ERROR,
+    DISCONNECTED
+}
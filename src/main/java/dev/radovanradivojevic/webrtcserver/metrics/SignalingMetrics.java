@@ -0,0 +1,394 @@
+package dev.radovanradivojevic.webrtcserver.metrics;
+
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * SignalingMetrics - Micrometer meters for the signaling pipeline
+ *
+ * Exposed through Spring Boot Actuator, e.g. /actuator/prometheus:
+ *
+ * signaling.messages.in{type}          messages received per type
+ * signaling.messages.out{type}         messages queued for delivery per type
+ * signaling.messages.undeliverable{reason}
+ *                                      recipient offline / sender not registered / node unreachable /
+ *                                      not in room (room message from a non-member)
+ * signaling.messages.rejected{reason,type}
+ *                                      not handled: rate-limited (per-session limit) / overloaded (node shedding load)
+ * signaling.messages.invalid{reason}   frames dropped before handling: malformed (not a JSON object with a
+ *                                      string "type", or not matching its message class) / unknown-type /
+ *                                      too-large (nested deeper than max-depth or a string over max-sdp-length) /
+ *                                      invalid-user-id (register without a userId or one over max-user-id-length)
+ * signaling.deserialize                time to parse an inbound frame (histogram)
+ * signaling.route                      time from parsed frame to queued forward (histogram)
+ * signaling.send                       time spent in WebSocketSession.sendMessage (histogram)
+ * signaling.call.setup{phase}          1:1 call timing from CallTracer: answer (offer to answer) / first-ice
+ *                                      (offer to first ICE candidate) / ice-to-end (first ICE candidate to end-call);
+ *                                      histogram with fixed buckets from 50ms to 1h
+ * signaling.outbound.queue.messages    messages waiting in all outbound queues
+ * signaling.outbound.queue.bytes       payload bytes waiting in all outbound queues
+ * signaling.outbound.dropped{reason}   messages dropped by the outbound queues
+ * signaling.connections.open           open WebSocket connections
+ * signaling.sessions.active            registered users
+ * signaling.registrations              register messages handled (rate() = registrations/s)
+ * signaling.calls.active              1:1 calls (ringing or active) on this node
+ * signaling.calls.torn-down           calls ended by the server because a participant disconnected
+ * signaling.rooms.active              rooms with at least one member
+ * signaling.cluster.relayed{direction} messages relayed to (out) or from (in) other nodes
+ * signaling.pending{outcome}           store-and-forward: held, delivered, expired, evicted,
+ *                                      cancelled (by end-call), rejected (per-recipient limit)
+ * signaling.pending.messages           messages held for offline recipients
+ * signaling.pending.bytes              payload characters held for offline recipients
+ * signaling.compression.bytes{stage}   bytes sent to "deflate-sdp" clients before (raw) and after (wire) compression
+ * signaling.compression.frames{outcome}
+ *                                      frames to those clients: compressed / uncompressed (below threshold)
+ * signaling.heartbeat.pings           pings sent to sessions that were silent for ping-interval
+ * signaling.heartbeat.sessions        sessions watched by the heartbeat monitor
+ * signaling.sessions.reaped           sessions closed because they were silent for idle-timeout
+ * signaling.drain.handed-off{reason}  sessions told to reconnect elsewhere while the node drains: drained
+ *                                      (connected before the drain) / turned-away (connected or registered during it)
+ * signaling.drain.sessions            sessions still open on a draining node (0 while not draining)
+ * signaling.wakeups{outcome}          wakeups of offline callees: sent / deduplicated (callee already being woken) /
+ *                                      cancelled (callee registered or callers hung up first) / failed (dispatcher error)
+ * signaling.audit.events{outcome}     audit events written / dropped (queue full) / failed (store error)
+ *                                      / pruned (past the retention)
+ * signaling.audit.queue               audit events waiting to be written
+ * signaling.log.dropped                event log entries dropped because the ring buffer was full
+ *
+ * All counters and timers are created up front, so recording a message is a
+ * map lookup and an atomic add - no tag arrays are built per call.
+ */
+@Component
+public class SignalingMetrics {
+
+    private static final List<String> MESSAGE_TYPES = List.of(
+            "register", "registered", "offer", "answer", "ice-candidate", "end-call",
+            "join-room", "leave-room", "room-joined", "member-joined", "member-left", "delivered", "error",
+            "reconnect-elsewhere");
+    private static final String OTHER = "other";
+
+    /**
+     * Phases of signaling.call.setup
+     */
+    public static final List<String> CALL_SETUP_PHASES = List.of("answer", "first-ice", "ice-to-end");
+
+    /**
+     * Bucket bounds of signaling.call.setup - human answer times and call lengths, not microseconds
+     */
+    private static final Duration[] CALL_SETUP_BUCKETS = {
+            Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500),
+            Duration.ofSeconds(1), Duration.ofMillis(2500), Duration.ofSeconds(5), Duration.ofSeconds(10),
+            Duration.ofSeconds(30), Duration.ofMinutes(1), Duration.ofMinutes(5), Duration.ofMinutes(15),
+            Duration.ofHours(1)};
+
+    private final MeterRegistry registry;
+    private final Map<String, Counter> messagesIn = new HashMap<>();
+    private final Map<String, Counter> messagesOut = new HashMap<>();
+    private final Map<String, Counter> undeliverable = new HashMap<>();
+    private final Map<String, Counter> rateLimited = new HashMap<>();
+    private final Map<String, Counter> overloaded = new HashMap<>();
+    private final Map<String, Counter> outboundDropped = new HashMap<>();
+    private final Map<String, Counter> pending = new HashMap<>();
+    private final Map<String, Counter> audit = new HashMap<>();
+    private final Map<String, Counter> invalid = new HashMap<>();
+    private final Map<String, Counter> handedOff = new HashMap<>();
+    private final Map<String, Counter> wakeups = new HashMap<>();
+    private final Map<String, Timer> callSetup = new HashMap<>();
+    private final Timer deserializeTimer;
+    private final Timer routeTimer;
+    private final Timer sendTimer;
+    private final Counter registrations;
+    private final Counter callsTornDown;
+    private final Counter relayedOut;
+    private final Counter relayedIn;
+    private final Counter compressionRawBytes;
+    private final Counter compressionWireBytes;
+    private final Counter compressedFrames;
+    private final Counter uncompressedFrames;
+    private final Counter heartbeatPings;
+    private final Counter sessionsReaped;
+    private final AtomicInteger openConnections = new AtomicInteger();
+
+    public SignalingMetrics(MeterRegistry registry, SignalingEventLog eventLog) {
+        this.registry = registry;
+
+        for (String type : MESSAGE_TYPES) {
+            messagesIn.put(type, counter("signaling.messages.in", "type", type));
+            messagesOut.put(type, counter("signaling.messages.out", "type", type));
+        }
+        messagesIn.put(OTHER, counter("signaling.messages.in", "type", OTHER));
+        messagesOut.put(OTHER, counter("signaling.messages.out", "type", OTHER));
+        for (String type : MESSAGE_TYPES) {
+            rateLimited.put(type, counter("signaling.messages.rejected", "reason", "rate-limited", "type", type));
+            overloaded.put(type, counter("signaling.messages.rejected", "reason", "overloaded", "type", type));
+        }
+        rateLimited.put(OTHER, counter("signaling.messages.rejected", "reason", "rate-limited", "type", OTHER));
+        overloaded.put(OTHER, counter("signaling.messages.rejected", "reason", "overloaded", "type", OTHER));
+
+        for (String reason : List.of("recipient-offline", "sender-not-registered", "node-unreachable", "not-in-room")) {
+            undeliverable.put(reason, counter("signaling.messages.undeliverable", "reason", reason));
+        }
+        for (String reason : List.of("malformed", "unknown-type", "too-large", "invalid-user-id")) {
+            invalid.put(reason, counter("signaling.messages.invalid", "reason", reason));
+        }
+        for (String reason : List.of("overflow", "send-timeout", "send-failed", "closed")) {
+            outboundDropped.put(reason, counter("signaling.outbound.dropped", "reason", reason));
+        }
+
+        for (String outcome : List.of("held", "delivered", "expired", "evicted", "cancelled", "rejected")) {
+            pending.put(outcome, counter("signaling.pending", "outcome", outcome));
+        }
+
+        for (String reason : List.of("drained", "turned-away")) {
+            handedOff.put(reason, counter("signaling.drain.handed-off", "reason", reason));
+        }
+
+        for (String outcome : List.of("sent", "deduplicated", "cancelled", "failed")) {
+            wakeups.put(outcome, counter("signaling.wakeups", "outcome", outcome));
+        }
+
+        for (String outcome : List.of("written", "dropped", "failed", "pruned")) {
+            audit.put(outcome, counter("signaling.audit.events", "outcome", outcome));
+        }
+
+        for (String phase : CALL_SETUP_PHASES) {
+            callSetup.put(phase, Timer.builder("signaling.call.setup")
+                    .description("1:1 call signaling timing")
+                    .tag("phase", phase)
+                    .serviceLevelObjectives(CALL_SETUP_BUCKETS)
+                    .register(registry));
+        }
+
+        this.deserializeTimer = timer("signaling.deserialize", "Time to parse an inbound frame");
+        this.routeTimer = timer("signaling.route", "Time from parsed frame to queued forward");
+        this.sendTimer = timer("signaling.send", "Time spent writing one frame to the socket");
+        this.registrations = counter("signaling.registrations");
+        this.callsTornDown = counter("signaling.calls.torn-down");
+        this.relayedOut = counter("signaling.cluster.relayed", "direction", "out");
+        this.relayedIn = counter("signaling.cluster.relayed", "direction", "in");
+        this.compressionRawBytes = counter("signaling.compression.bytes", "stage", "raw");
+        this.compressionWireBytes = counter("signaling.compression.bytes", "stage", "wire");
+        this.compressedFrames = counter("signaling.compression.frames", "outcome", "compressed");
+        this.uncompressedFrames = counter("signaling.compression.frames", "outcome", "uncompressed");
+        this.heartbeatPings = counter("signaling.heartbeat.pings");
+        this.sessionsReaped = counter("signaling.sessions.reaped");
+
+        Gauge.builder("signaling.connections.open", openConnections, AtomicInteger::get)
+                .description("Open WebSocket connections")
+                .register(registry);
+        FunctionCounter.builder("signaling.log.dropped", eventLog, SignalingEventLog::getDroppedCount)
+                .description("Event log entries dropped because the ring buffer was full")
+                .register(registry);
+    }
+
+    // ---- Recording (hot path) ----
+
+    public void messageReceived(String type) {
+        lookup(messagesIn, type).increment();
+    }
+
+    public void messageSent(String type) {
+        lookup(messagesOut, type).increment();
+    }
+
+    public void undeliverable(String reason) {
+        undeliverable.get(reason).increment();
+    }
+
+    public void invalidMessage(String reason) {
+        invalid.get(reason).increment();
+    }
+
+    public void rateLimited(String type) {
+        lookup(rateLimited, type).increment();
+    }
+
+    public void overloaded(String type) {
+        lookup(overloaded, type).increment();
+    }
+
+    public void outboundDropped(String reason) {
+        outboundDropped.get(reason).increment();
+    }
+
+    public void pending(String outcome, int count) {
+        if (count > 0) {
+            pending.get(outcome).increment(count);
+        }
+    }
+
+    public void recordDeserialize(long nanos) {
+        deserializeTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRoute(long nanos) {
+        routeTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSend(long nanos) {
+        sendTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordCallSetup(String phase, long nanos) {
+        callSetup.get(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void registration() {
+        registrations.increment();
+    }
+
+    public void callsTornDown(int count) {
+        if (count > 0) {
+            callsTornDown.increment(count);
+        }
+    }
+
+    public void relayedToNode() {
+        relayedOut.increment();
+    }
+
+    public void relayedFromNode() {
+        relayedIn.increment();
+    }
+
+    public void compression(boolean compressed, int rawBytes, int wireBytes) {
+        (compressed ? compressedFrames : uncompressedFrames).increment();
+        compressionRawBytes.increment(rawBytes);
+        compressionWireBytes.increment(wireBytes);
+    }
+
+    public void heartbeatPing() {
+        heartbeatPings.increment();
+    }
+
+    public void sessionReaped() {
+        sessionsReaped.increment();
+    }
+
+    public void handedOff(String reason) {
+        handedOff.get(reason).increment();
+    }
+
+    public void wakeup(String outcome) {
+        wakeups.get(outcome).increment();
+    }
+
+    public void audit(String outcome, int count) {
+        audit.get(outcome).increment(count);
+    }
+
+    public void connectionOpened() {
+        openConnections.incrementAndGet();
+    }
+
+    public void connectionClosed() {
+        openConnections.decrementAndGet();
+    }
+
+    // ---- Gauges over state owned by other components (read on scrape only) ----
+
+    public void bindActiveSessions(Supplier<Number> activeSessions) {
+        Gauge.builder("signaling.sessions.active", activeSessions)
+                .description("Registered users")
+                .strongReference(true)
+                .register(registry);
+    }
+
+    public void bindOutboundQueues(Supplier<Number> queuedMessages, Supplier<Number> queuedBytes) {
+        Gauge.builder("signaling.outbound.queue.messages", queuedMessages)
+                .description("Messages waiting in all outbound queues")
+                .strongReference(true)
+                .register(registry);
+        Gauge.builder("signaling.outbound.queue.bytes", queuedBytes)
+                .description("Payload bytes waiting in all outbound queues")
+                .baseUnit("bytes")
+                .strongReference(true)
+                .register(registry);
+    }
+
+    public void bindCalls(Supplier<Number> activeCalls, Supplier<Number> activeRooms) {
+        Gauge.builder("signaling.calls.active", activeCalls)
+                .description("1:1 calls (ringing or active)")
+                .strongReference(true)
+                .register(registry);
+        Gauge.builder("signaling.rooms.active", activeRooms)
+                .description("Rooms with at least one member")
+                .strongReference(true)
+                .register(registry);
+    }
+
+    public void bindPendingMessages(Supplier<Number> heldMessages, Supplier<Number> heldBytes) {
+        Gauge.builder("signaling.pending.messages", heldMessages)
+                .description("Messages held for offline recipients")
+                .strongReference(true)
+                .register(registry);
+        Gauge.builder("signaling.pending.bytes", heldBytes)
+                .description("Payload characters held for offline recipients")
+                .strongReference(true)
+                .register(registry);
+    }
+
+    public void bindHeartbeats(Supplier<Number> watchedSessions) {
+        Gauge.builder("signaling.heartbeat.sessions", watchedSessions)
+                .description("Sessions watched by the heartbeat monitor")
+                .strongReference(true)
+                .register(registry);
+    }
+
+    public void bindDraining(Supplier<Number> drainingSessions) {
+        Gauge.builder("signaling.drain.sessions", drainingSessions)
+                .description("Sessions still open on a draining node")
+                .strongReference(true)
+                .register(registry);
+    }
+
+    public void bindAuditQueue(Supplier<Number> queuedEvents) {
+        Gauge.builder("signaling.audit.queue", queuedEvents)
+                .description("Audit events waiting to be written")
+                .strongReference(true)
+                .register(registry);
+    }
+
+    /**
+     * Current state of one signaling.call.setup phase (count, total, max and cumulative bucket counts)
+     */
+    public HistogramSnapshot callSetupSnapshot(String phase) {
+        return callSetup.get(phase).takeSnapshot();
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    private static Counter lookup(Map<String, Counter> counters, String type) {
+        Counter counter = type != null ? counters.get(type) : null;
+        return counter != null ? counter : counters.get(OTHER);
+    }
+
+    private Counter counter(String name, String... tags) {
+        return Counter.builder(name).tags(tags).register(registry);
+    }
+
+    private Timer timer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1_000))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(registry);
+    }
+}
@@ -1,5 +1,7 @@
 package dev.radovanradivojevic.webrtcserver.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 /**
  * Call message used for both offers and answers in WebRTC signaling
  *
@@ -28,6 +30,13 @@ public class CallMessage extends SignalingMessage {
      */
     private String to;
 
+    /**
+     * Room whose other members all receive this message
+     * Used when "to" is not set; left out of the JSON when not set
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String room;
+
     /**
      * Session Description Protocol data
      * Contains media capabilities, network addresses, encryption keys, etc.
@@ -77,4 +86,12 @@ public class CallMessage extends SignalingMessage {
     public void setSdp(String sdp) {
         this.sdp = sdp;
     }
-}
\ No newline at end of file
+
+    public String getRoom() {
+        return room;
+    }
+
+    public void setRoom(String room) {
+        this.room = room;
+    }
+}
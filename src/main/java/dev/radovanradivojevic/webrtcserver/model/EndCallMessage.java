@@ -0,0 +1,75 @@
+package dev.radovanradivojevic.webrtcserver.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * End call message sent when either peer hangs up
+ *
+ * The server only forwards this to the other side so it can close
+ * its peer connection and release camera/microphone resources.
+ *
+ * Example JSON:
+ * {"type": "end-call", "to": "son"}
+ */
+public class EndCallMessage extends SignalingMessage {
+
+    /**
+     * Sender's userId
+     * Who ended the call (populated by server)
+     */
+    private String from;
+
+    /**
+     * Recipient's userId
+     * Who should be notified that the call ended
+     */
+    private String to;
+
+    /**
+     * Room whose other members all receive this message
+     * Used when "to" is not set; left out of the JSON when not set
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String room;
+
+    // Constructors
+    public EndCallMessage() {
+        super("end-call");
+    }
+
+    public EndCallMessage(String to) {
+        super("end-call");
+        this.to = to;
+    }
+
+    public EndCallMessage(String from, String to) {
+        super("end-call");
+        this.from = from;
+        this.to = to;
+    }
+
+    // Getters and Setters
+    public String getFrom() {
+        return from;
+    }
+
+    public void setFrom(String from) {
+        this.from = from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public void setTo(String to) {
+        this.to = to;
+    }
+
+    public String getRoom() {
+        return room;
+    }
+
+    public void setRoom(String room) {
+        this.room = room;
+    }
+}
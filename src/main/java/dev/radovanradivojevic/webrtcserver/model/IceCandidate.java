@@ -0,0 +1,67 @@
+package dev.radovanradivojevic.webrtcserver.model;
+
+/**
+ * ICE candidate payload as produced by the WebRTC library
+ *
+ * This is carried inside an IceCandidateMessage. The server never
+ * interprets these values, it only passes them through to the peer.
+ *
+ * Example JSON:
+ * {
+ *   "sdpMid": "1",
+ *   "sdpMLineIndex": 1,
+ *   "sdp": "candidate:1 1 udp 2130706431 192.168.100.11 52341 typ host"
+ * }
+ */
+public class IceCandidate {
+
+    /**
+     * Media stream identification tag ("0" = audio, "1" = video, ...)
+     */
+    private String sdpMid;
+
+    /**
+     * Index of the media line in the SDP this candidate belongs to
+     */
+    private int sdpMLineIndex;
+
+    /**
+     * The candidate line itself
+     */
+    private String sdp;
+
+    // Constructors
+    public IceCandidate() {
+    }
+
+    public IceCandidate(String sdpMid, int sdpMLineIndex, String sdp) {
+        this.sdpMid = sdpMid;
+        this.sdpMLineIndex = sdpMLineIndex;
+        this.sdp = sdp;
+    }
+
+    // Getters and Setters
+    public String getSdpMid() {
+        return sdpMid;
+    }
+
+    public void setSdpMid(String sdpMid) {
+        this.sdpMid = sdpMid;
+    }
+
+    public int getSdpMLineIndex() {
+        return sdpMLineIndex;
+    }
+
+    public void setSdpMLineIndex(int sdpMLineIndex) {
+        this.sdpMLineIndex = sdpMLineIndex;
+    }
+
+    public String getSdp() {
+        return sdp;
+    }
+
+    public void setSdp(String sdp) {
+        this.sdp = sdp;
+    }
+}
@@ -1,5 +1,7 @@
 package dev.radovanradivojevic.webrtcserver.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 /**
  * ICE Candidate message for WebRTC connection negotiation
  *
@@ -34,6 +36,13 @@ public class IceCandidateMessage extends SignalingMessage {
      */
     private String to;
 
+    /**
+     * Room whose other members all receive this message
+     * Used when "to" is not set; left out of the JSON when not set
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String room;
+
     /**
      * ICE candidate object generated by WebRTC library
      * Contains network path information and media line details
@@ -82,4 +91,12 @@ public class IceCandidateMessage extends SignalingMessage {
     public void setCandidate(IceCandidate candidate) {
         this.candidate = candidate;
     }
-}
\ No newline at end of file
+
+    public String getRoom() {
+        return room;
+    }
+
+    public void setRoom(String room) {
+        this.room = room;
+    }
+}
@@ -1,5 +1,7 @@
 package dev.radovanradivojevic.webrtcserver.model;
 
+import java.util.List;
+
 /**
  * Registration message sent when a device first connects
  *
@@ -9,6 +11,7 @@ package dev.radovanradivojevic.webrtcserver.model;
  * Example JSON:
  * {"type": "register", "userId": "dad"}
  * {"type": "register", "userId": "son"}
+ * {"type": "register", "userId": "son", "capabilities": ["ice-batch"]}
  */
 public class RegisterMessage extends SignalingMessage {
 
@@ -18,6 +21,13 @@ public class RegisterMessage extends SignalingMessage {
      */
     private String userId;
 
+    /**
+     * Optional protocol features the client understands
+     * Example: "ice-batch" (accepts "ice-candidates" batch frames)
+     * Older clients leave this out and get the plain protocol
+     */
+    private List<String> capabilities;
+
     // Constructors
     public RegisterMessage() {
         super("register");
@@ -28,7 +38,7 @@ public class RegisterMessage extends SignalingMessage {
         this.userId = userId;
     }
 
-    // Getter and Setter
+    // Getters and Setters
     public String getUserId() {
         return userId;
     }
@@ -36,4 +46,12 @@ public class RegisterMessage extends SignalingMessage {
     public void setUserId(String userId) {
         this.userId = userId;
     }
+
+    public List<String> getCapabilities() {
+        return capabilities;
+    }
+
+    public void setCapabilities(List<String> capabilities) {
+        this.capabilities = capabilities;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package dev.radovanradivojevic.webrtcserver.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Room membership change sent by the server
+ *
+ * "room-joined"   to the member who joined, with the members already there
+ * "member-joined" to the other members
+ * "member-left"   to the remaining members, also when a member's connection closed
+ *
+ * Example JSON:
+ * {"type": "room-joined", "room": "family", "members": ["dad", "mom"]}
+ * {"type": "member-joined", "room": "family", "userId": "son"}
+ * {"type": "member-left", "room": "family", "userId": "son"}
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RoomEvent {
+
+    private final String type;
+    private final String room;
+    private final String userId;
+    private final List<String> members;
+
+    private RoomEvent(String type, String room, String userId, List<String> members) {
+        this.type = type;
+        this.room = room;
+        this.userId = userId;
+        this.members = members;
+    }
+
+    public static RoomEvent joined(String room, List<String> members) {
+        return new RoomEvent("room-joined", room, null, members);
+    }
+
+    public static RoomEvent memberJoined(String room, String userId) {
+        return new RoomEvent("member-joined", room, userId, null);
+    }
+
+    public static RoomEvent memberLeft(String room, String userId) {
+        return new RoomEvent("member-left", room, userId, null);
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getRoom() {
+        return room;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public List<String> getMembers() {
+        return members;
+    }
+}
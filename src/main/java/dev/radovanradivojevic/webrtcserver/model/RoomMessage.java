@@ -0,0 +1,38 @@
+package dev.radovanradivojevic.webrtcserver.model;
+
+/**
+ * Room membership message, used for both joining and leaving
+ *
+ * After "join-room" the server fans out every offer/ice-candidate/end-call the
+ * member sends with "room" (and without "to") to all other members of the room.
+ *
+ * Example JSON:
+ * {"type": "join-room", "room": "family"}
+ * {"type": "leave-room", "room": "family"}
+ */
+public class RoomMessage extends SignalingMessage {
+
+    /**
+     * Name of the room, chosen by the clients
+     */
+    private String room;
+
+    // Constructors
+    public RoomMessage() {
+        super();
+    }
+
+    public RoomMessage(String type, String room) {
+        super(type);
+        this.room = room;
+    }
+
+    // Getters and Setters
+    public String getRoom() {
+        return room;
+    }
+
+    public void setRoom(String room) {
+        this.room = room;
+    }
+}
@@ -1,6 +1,8 @@
 package dev.radovanradivojevic.webrtcserver.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 
@@ -15,29 +17,48 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
  * {"type": "offer", ...} -> CallMessage
  * {"type": "answer", ...} -> CallMessage
  * {"type": "ice-candidate", ...} -> IceCandidateMessage
+ * {"type": "join-room", ...} -> RoomMessage
+ * {"type": "leave-room", ...} -> RoomMessage
+ *
+ * The server itself does not go through @JsonTypeInfo for inbound frames:
+ * SignalingHandler looks the type up in the MessageTypeRegistry and reads the
+ * payload straight into the registered class. Keep both lists in sync when
+ * adding a built-in type.
  */
 @JsonTypeInfo(
         use = JsonTypeInfo.Id.NAME,
-        include = JsonTypeInfo.As.PROPERTY,
-        property = "type"
+        include = JsonTypeInfo.As.EXISTING_PROPERTY,
+        property = "type",
+        visible = true
 )
 @JsonSubTypes({
         @JsonSubTypes.Type(value = RegisterMessage.class, name = "register"),
         @JsonSubTypes.Type(value = CallMessage.class, name = "offer"),
         @JsonSubTypes.Type(value = CallMessage.class, name = "answer"),
         @JsonSubTypes.Type(value = IceCandidateMessage.class, name = "ice-candidate"),
-        @JsonSubTypes.Type(value = EndCallMessage.class, name = "end-call")
+        @JsonSubTypes.Type(value = EndCallMessage.class, name = "end-call"),
+        @JsonSubTypes.Type(value = RoomMessage.class, name = "join-room"),
+        @JsonSubTypes.Type(value = RoomMessage.class, name = "leave-room")
 })
+@JsonPropertyOrder({"type"})
 public abstract class SignalingMessage {
 
     /**
-     * Message type - handled by Jackson's @JsonTypeInfo annotation
-     * WRITE_ONLY means Jackson will set this field when deserializing but won't serialize it,
-     * avoiding duplicate "type" fields in JSON output
+     * Message type - selects the subclass through @JsonTypeInfo
+     * EXISTING_PROPERTY + visible means Jackson also stores it here when deserializing
+     * and writes this field (not the class's registered name) when serializing,
+     * so an "answer" stays an "answer" even though CallMessage is registered for both
      */
-    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    @JsonProperty("type")
     private String type;
 
+    /**
+     * Optional client message id, echoed in "delivered" receipts and "peer-unavailable" errors
+     * A number in the payload is read as its text; left out of the JSON when not set
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String id;
+
     // Constructors
     public SignalingMessage() {
     }
@@ -55,4 +76,12 @@ public abstract class SignalingMessage {
     public void setType(String type) {
         this.type = type;
     }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
 }
\ No newline at end of file
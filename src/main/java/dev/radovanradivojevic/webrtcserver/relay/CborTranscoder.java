@@ -0,0 +1,99 @@
+package dev.radovanradivojevic.webrtcserver.relay;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+
+/**
+ * CborTranscoder - Converts signaling frames between JSON text and CBOR
+ *
+ * Binary clients (the "/signal-cbor" endpoint) send and receive the same
+ * SignalingMessage documents as JSON clients, only CBOR encoded. Routing works
+ * on JSON text, so frames are transcoded at the edge:
+ * - inbound CBOR frames become JSON before SignalingHandler sees them
+ * - outbound JSON frames become CBOR on the writer thread, right before the write
+ *
+ * Transcoding copies parser tokens straight into a generator of the other
+ * format - no Map or SignalingMessage is ever built - so it costs about as
+ * much as reading the frame once. Text and binary clients can call each other
+ * without knowing which encoding the other side uses.
+ *
+ * Inbound CBOR is read under the FrameLimits, so a deeply nested frame fails
+ * here instead of growing the generator's context stack.
+ */
+@Component
+public class CborTranscoder {
+
+    private final JsonFactory jsonFactory;
+    private final CBORFactory cborFactory;
+
+    @Autowired
+    public CborTranscoder(ObjectMapper objectMapper, SignalingProperties properties) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.cborFactory = FrameLimits.constrain(new CBORFactory(), properties.getLimits());
+    }
+
+    /**
+     * Transcoder with the default limits (for testing)
+     */
+    public CborTranscoder(ObjectMapper objectMapper) {
+        this(objectMapper, new SignalingProperties());
+    }
+
+    /**
+     * Re-encode a CBOR frame as JSON text
+     */
+    public String toJson(ByteBuffer cbor) throws IOException {
+        ByteBuffer buffer = cbor.duplicate();
+        byte[] bytes;
+        int offset;
+        if (buffer.hasArray()) {
+            bytes = buffer.array();
+            offset = buffer.arrayOffset() + buffer.position();
+        } else {
+            bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            offset = 0;
+        }
+
+        // JSON text is at most a little longer than the CBOR bytes for signaling messages
+        StringWriter json = new StringWriter(cbor.remaining() + 64);
+        try (JsonParser parser = cborFactory.createParser(bytes, offset, cbor.remaining());
+             JsonGenerator generator = jsonFactory.createGenerator(json)) {
+            copyDocument(parser, generator);
+        }
+        return json.toString();
+    }
+
+    /**
+     * Re-encode a JSON text frame as CBOR
+     */
+    public byte[] toCbor(String json) throws IOException {
+        ByteArrayBuilder cbor = new ByteArrayBuilder(json.length());
+        try (JsonParser parser = jsonFactory.createParser(json);
+             JsonGenerator generator = cborFactory.createGenerator(cbor)) {
+            copyDocument(parser, generator);
+        }
+        return cbor.toByteArray();
+    }
+
+    private static void copyDocument(JsonParser parser, JsonGenerator generator) throws IOException {
+        if (parser.nextToken() == null) {
+            throw new IOException("Empty signaling frame");
+        }
+        generator.copyCurrentStructure(parser);
+        if (parser.nextToken() != null) {
+            throw new IOException("Trailing data after signaling frame");
+        }
+    }
+}
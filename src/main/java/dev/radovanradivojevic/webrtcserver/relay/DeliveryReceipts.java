@@ -0,0 +1,199 @@
+package dev.radovanradivojevic.webrtcserver.relay;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.control.ControlFrames;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import dev.radovanradivojevic.webrtcserver.session.OutboundMessageDispatcher;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DeliveryReceipts - Tells senders whether their message reached the recipient's side
+ *
+ * Purpose: Without feedback a caller whose offer went nowhere only finds out
+ * when its own timeout fires, seconds later, and then retries blindly. Two
+ * kinds of frames go back to the sender of a routed offer/answer/ICE/end-call:
+ *
+ * 1. "peer-unavailable" errors, sent right away whenever the recipient cannot be
+ *    reached (offline and not held, or its node is unreachable). Every client
+ *    gets these. A message with an "id" always gets its error; for messages
+ *    without one (typically trickled ICE) one error per peer and
+ *    unavailable-interval is enough.
+ * 2. "delivered" receipts, for clients that list "receipts" in the capabilities
+ *    of their RegisterMessage. Accepted messages carrying an "id" are
+ *    acknowledged once they are queued for the recipient, relayed to its node
+ *    or held for its reconnect. Ids are gathered per sender for a short window
+ *    (or until max-ids) and acknowledged in one frame.
+ *
+ * Example:
+ * in:  {"type":"offer","id":"m5","to":"son","sdp":"..."}
+ *      {"type":"ice-candidate","id":"m6","to":"son","candidate":{...}}
+ * out: {"type":"delivered","ids":["m5","m6"]}
+ * or:  {"type":"error","code":"peer-unavailable","to":"son","messageType":"offer","id":"m5"}
+ */
+@Component
+public class DeliveryReceipts {
+
+    /**
+     * Capability a client puts in its RegisterMessage to receive "delivered" receipts
+     */
+    public static final String CAPABILITY = "receipts";
+
+    /**
+     * Per-session state, created on first use
+     *
+     * Structure: Map<sessionId, Sender>
+     */
+    private final Map<String, Sender> senders = new ConcurrentHashMap<>();
+    private final OutboundMessageDispatcher outbound;
+    private final ScheduledExecutorService scheduler;
+    private final SignalingMetrics metrics;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxIds;
+    private final int maxIdLength;
+    private final long unavailableIntervalNanos;
+
+    public DeliveryReceipts(SignalingProperties properties, OutboundMessageDispatcher outbound,
+                            @Qualifier("signalingScheduler") ScheduledExecutorService scheduler,
+                            SignalingMetrics metrics) {
+        SignalingProperties.Receipts config = properties.getReceipts();
+        this.outbound = outbound;
+        this.scheduler = scheduler;
+        this.metrics = metrics;
+        this.enabled = config.isEnabled();
+        this.windowNanos = config.getWindow().toNanos();
+        this.maxIds = config.getMaxIds();
+        this.maxIdLength = config.getMaxIdLength();
+        this.unavailableIntervalNanos = config.getUnavailableInterval().toNanos();
+    }
+
+    /**
+     * Enable receipts for a session if the server allows it and the client asked for them
+     *
+     * @return true if the session will receive "delivered" receipts
+     */
+    public boolean negotiate(WebSocketSession session, Collection<String> capabilities) {
+        if (!enabled || capabilities == null || !capabilities.contains(CAPABILITY)) {
+            return false;
+        }
+        sender(session).receipts = true;
+        return true;
+    }
+
+    /**
+     * The message with the given client id was accepted for its recipient
+     */
+    public void delivered(WebSocketSession session, String messageId) {
+        if (!isEchoable(messageId)) {
+            return;
+        }
+        Sender sender = senders.get(session.getId());
+        if (sender == null || !sender.receipts) {
+            return;
+        }
+
+        sender.ids.offer(messageId);
+        if (sender.count.incrementAndGet() >= maxIds) {
+            flush(sender);
+        } else if (sender.scheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> flush(sender), windowNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * The message could not be delivered to peerId - tell the sender right away
+     *
+     * @param messageId the client's id of the message, or null
+     */
+    public void unavailable(WebSocketSession session, String peerId, String messageType, String messageId) {
+        String echoedId = isEchoable(messageId) ? messageId : null;
+        if (echoedId == null && !firstUnavailable(sender(session), peerId)) {
+            return;
+        }
+        outbound.send(session, ControlFrames.peerUnavailable(peerId, messageType, echoedId));
+        metrics.messageSent(ControlFrames.ERROR);
+    }
+
+    /**
+     * Forget a closed session and drop its pending receipts
+     */
+    public void release(WebSocketSession session) {
+        senders.remove(session.getId());
+    }
+
+    private boolean isEchoable(String messageId) {
+        return messageId != null && messageId.length() <= maxIdLength;
+    }
+
+    /**
+     * Whether no id-less error for peerId went to this sender within unavailable-interval
+     */
+    private boolean firstUnavailable(Sender sender, String peerId) {
+        long now = System.nanoTime();
+        synchronized (sender) {
+            if (peerId.equals(sender.lastUnavailablePeer) && now - sender.lastUnavailableAt < unavailableIntervalNanos) {
+                return false;
+            }
+            sender.lastUnavailablePeer = peerId;
+            sender.lastUnavailableAt = now;
+            return true;
+        }
+    }
+
+    private Sender sender(WebSocketSession session) {
+        return senders.computeIfAbsent(session.getId(), id -> new Sender(session));
+    }
+
+    private void flush(Sender sender) {
+        // Serialize flushes of one sender so receipts leave in the order messages arrived
+        synchronized (sender) {
+            sender.scheduled.set(false);
+
+            int pending = sender.count.get();
+            if (pending == 0) {
+                return;
+            }
+
+            // delivered() enqueues before counting, so at least 'pending' ids are queued
+            List<String> ids = new ArrayList<>(pending);
+            for (int i = 0; i < pending; i++) {
+                ids.add(sender.ids.poll());
+            }
+            sender.count.addAndGet(-pending);
+
+            outbound.send(sender.session, ControlFrames.delivered(ids));
+            metrics.messageSent("delivered");
+        }
+    }
+
+    /**
+     * Pending receipts and error suppression of one sender session
+     */
+    private static class Sender {
+        private final WebSocketSession session;
+        private final Queue<String> ids = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean receipts;
+        private String lastUnavailablePeer;
+        private long lastUnavailableAt;
+
+        Sender(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package dev.radovanradivojevic.webrtcserver.relay;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+
+/**
+ * FrameLimits - Parsers for inbound frames that refuse oversized content as they read it
+ *
+ * Purpose: A frame within the endpoint's size limit can still be built to
+ * hurt: thousands of nested arrays cost a parser context each (and a stack
+ * frame in recursive code), and one huge string is copied into a buffer and
+ * then into a String. Jackson checks StreamReadConstraints while tokenizing,
+ * so parsers created here fail with a StreamConstraintsException at the
+ * offending token instead of after the damage is done:
+ * - max-depth: nesting of objects and arrays, checked even for skipped values
+ * - max-sdp-length: every string value that gets read (the SDP being the
+ *   longest); StreamingRelayCodec measures the skipped "sdp" itself
+ *
+ * Only copies are constrained - the application's ObjectMapper, also used by
+ * the actuator and REST endpoints, keeps Jackson's defaults.
+ */
+public final class FrameLimits {
+
+    private FrameLimits() {
+    }
+
+    /**
+     * Copy of factory whose parsers enforce the limits
+     */
+    public static <F extends JsonFactory> F constrain(F factory, SignalingProperties.Limits limits) {
+        @SuppressWarnings("unchecked")
+        F copy = (F) factory.copy();
+        copy.setStreamReadConstraints(constraints(limits));
+        return copy;
+    }
+
+    /**
+     * Copy of objectMapper whose readers enforce the limits
+     */
+    public static ObjectMapper constrain(ObjectMapper objectMapper, SignalingProperties.Limits limits) {
+        ObjectMapper copy = objectMapper.copy();
+        copy.getFactory().setStreamReadConstraints(constraints(limits));
+        return copy;
+    }
+
+    private static StreamReadConstraints constraints(SignalingProperties.Limits limits) {
+        return StreamReadConstraints.builder()
+                .maxNestingDepth(limits.getMaxDepth())
+                .maxStringLength(limits.getMaxSdpLength())
+                .build();
+    }
+}
@@ -0,0 +1,174 @@
+package dev.radovanradivojevic.webrtcserver.relay;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.session.OutboundMessageDispatcher;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * IceCandidateBatcher - Coalesces trickle ICE candidates into one frame per recipient
+ *
+ * Purpose: During trickle ICE a client fires many tiny "ice-candidate" messages
+ * back-to-back. Instead of one WebSocket frame each, candidates for the same
+ * recipient are gathered for a short window (or until a count limit) and
+ * delivered as a single "ice-candidates" frame.
+ *
+ * Opt-in on both sides:
+ * - the server needs signaling.ice-batch.enabled=true
+ * - the recipient must list "ice-batch" in the capabilities of its RegisterMessage
+ * Older clients never see a batch frame.
+ *
+ * Batch frame - the elements are the already forwarded ice-candidate messages, unchanged:
+ * {"type":"ice-candidates","candidates":[
+ *   {"type":"ice-candidate","from":"dad","to":"son","candidate":{...}},
+ *   {"type":"ice-candidate","from":"dad","to":"son","candidate":{...}}
+ * ]}
+ */
+@Component
+public class IceCandidateBatcher {
+
+    /**
+     * Capability a client puts in its RegisterMessage to receive batch frames
+     */
+    public static final String CAPABILITY = "ice-batch";
+
+    private static final String BATCH_PREFIX = "{\"type\":\"ice-candidates\",\"candidates\":[";
+    private static final String BATCH_SUFFIX = "]}";
+
+    /**
+     * Sessions that negotiated batching, mapped to their pending candidates
+     *
+     * Structure: Map<sessionId, Batch>
+     */
+    private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+    private final OutboundMessageDispatcher outbound;
+    private final ScheduledExecutorService scheduler;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxCandidates;
+
+    public IceCandidateBatcher(SignalingProperties properties, OutboundMessageDispatcher outbound,
+                               @Qualifier("signalingScheduler") ScheduledExecutorService scheduler) {
+        SignalingProperties.IceBatch iceBatch = properties.getIceBatch();
+        this.outbound = outbound;
+        this.scheduler = scheduler;
+        this.enabled = iceBatch.isEnabled();
+        this.windowNanos = iceBatch.getWindow().toNanos();
+        this.maxCandidates = iceBatch.getMaxCandidates();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable batching for a session if the server allows it and the client asked for it
+     *
+     * @return true if the session will receive batch frames
+     */
+    public boolean negotiate(WebSocketSession session, Collection<String> capabilities) {
+        if (!enabled || capabilities == null || !capabilities.contains(CAPABILITY)) {
+            return false;
+        }
+        batches.computeIfAbsent(session.getId(), id -> new Batch(session));
+        return true;
+    }
+
+    /**
+     * Add a forwarded ice-candidate message to the recipient's pending batch
+     *
+     * @return false if the recipient did not negotiate batching - send it directly instead
+     */
+    public boolean offer(WebSocketSession recipient, String candidateJson) {
+        Batch batch = batches.get(recipient.getId());
+        if (batch == null) {
+            return false;
+        }
+
+        batch.candidates.offer(candidateJson);
+        if (batch.count.incrementAndGet() >= maxCandidates) {
+            flush(batch);
+        } else if (batch.scheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> flush(batch), windowNanos, TimeUnit.NANOSECONDS);
+        }
+        return true;
+    }
+
+    /**
+     * Send anything pending for the recipient right away
+     *
+     * Called before a non-ICE message goes to the same recipient, so an
+     * end-call or answer never overtakes candidates that were sent before it.
+     */
+    public void flush(WebSocketSession recipient) {
+        Batch batch = batches.get(recipient.getId());
+        // The count only drops once a flush has queued its frame, so a flush in progress is waited for
+        if (batch != null && batch.count.get() > 0) {
+            flush(batch);
+        }
+    }
+
+    /**
+     * Forget a closed session and drop its pending candidates
+     */
+    public void release(WebSocketSession session) {
+        batches.remove(session.getId());
+    }
+
+    private void flush(Batch batch) {
+        // Serialize flushes of one batch so frames leave in the order candidates arrived
+        synchronized (batch) {
+            batch.scheduled.set(false);
+
+            int pending = batch.count.get();
+            if (pending == 0) {
+                return;
+            }
+
+            // offer() enqueues before counting, so at least 'pending' candidates are queued
+            String first = batch.candidates.poll();
+            if (pending == 1) {
+                outbound.send(batch.session, new TextMessage(first));
+                batch.count.decrementAndGet();
+                return;
+            }
+
+            StringBuilder frame = new StringBuilder(BATCH_PREFIX.length() + pending * (first.length() + 1) + 2);
+            frame.append(BATCH_PREFIX).append(first);
+            for (int i = 1; i < pending; i++) {
+                frame.append(',').append(batch.candidates.poll());
+            }
+            frame.append(BATCH_SUFFIX);
+
+            // Counted down only after the frame is queued: until then, flush(session) must wait for us
+            outbound.send(batch.session, new TextMessage(frame.toString()));
+            batch.count.addAndGet(-pending);
+        }
+    }
+
+    /**
+     * Pending candidates for one recipient session
+     */
+    private static class Batch {
+        private final WebSocketSession session;
+        private final Queue<String> candidates = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Batch(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package dev.radovanradivojevic.webrtcserver.relay;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PendingMessageBuffer - Store-and-forward for recipients who are briefly offline
+ *
+ * Purpose: On mobile networks the callee often drops and reconnects within a
+ * few seconds (Wi-Fi to LTE handover, app coming back from background). An offer
+ * sent in that gap used to be lost, and the caller had to retry with a fresh
+ * ICE gathering round. Instead, messages for an offline recipient are held here
+ * and flushed, in order, right after the recipient registers again.
+ *
+ * Bounds:
+ * - ttl: held messages older than this are dropped (a stale offer is worse than none)
+ * - max-bytes: total payload characters held for all recipients; when exceeded,
+ *   the least recently used recipients are evicted as a whole, and a message
+ *   that still does not fit is rejected rather than pushing out older ones
+ * - max-messages-per-recipient: further messages for that recipient are rejected,
+ *   so the offer at the head of the queue is never pushed out by its own candidates
+ *
+ * An "end-call" for an offline recipient cancels what its sender had held
+ * instead of being held itself - the call is over before it reached the callee.
+ *
+ * This is only used when a recipient is not connected anywhere, so a plain
+ * lock around an access-ordered LinkedHashMap is fine.
+ */
+@Component
+public class PendingMessageBuffer {
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final long maxBytes;
+    private final int maxMessagesPerRecipient;
+    private final SignalingMetrics metrics;
+
+    /**
+     * Held messages per recipient, least recently used first
+     *
+     * Structure: Map<recipientUserId, messages in arrival order>
+     */
+    private final LinkedHashMap<String, ArrayDeque<PendingMessage>> pending = new LinkedHashMap<>(16, 0.75f, true);
+    private long heldBytes;
+    private int heldMessages;
+
+    public PendingMessageBuffer(SignalingProperties properties,
+                                @Qualifier("signalingScheduler") ScheduledExecutorService scheduler,
+                                SignalingMetrics metrics) {
+        SignalingProperties.Pending config = properties.getPending();
+        this.enabled = config.isEnabled();
+        this.ttlNanos = config.getTtl().toNanos();
+        this.maxBytes = config.getMaxBytes();
+        this.maxMessagesPerRecipient = config.getMaxMessagesPerRecipient();
+        this.metrics = metrics;
+        metrics.bindPendingMessages(this::getHeldMessages, this::getHeldBytes);
+
+        if (enabled) {
+            // Frees memory of recipients who never come back; drain() also skips expired messages
+            long sweepNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(100), ttlNanos / 2);
+            scheduler.scheduleWithFixedDelay(this::sweep, sweepNanos, sweepNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Hold a forwarded message until recipientId registers
+     *
+     * @return false if the message was not held (disabled, or over a limit)
+     */
+    public boolean hold(String recipientId, String senderId, String type, String payload) {
+        if (!enabled || payload.length() > maxBytes) {
+            return false;
+        }
+
+        synchronized (pending) {
+            ArrayDeque<PendingMessage> messages = pending.computeIfAbsent(recipientId, id -> new ArrayDeque<>());
+            long now = System.nanoTime();
+            removeExpired(messages, now);
+            if (messages.size() >= maxMessagesPerRecipient) {
+                metrics.pending("rejected", 1);
+                return false;
+            }
+
+            messages.addLast(new PendingMessage(senderId, type, payload, now));
+            heldBytes += payload.length();
+            heldMessages++;
+
+            if (!evictLeastRecentlyUsed(recipientId)) {
+                release(messages.pollLast());
+                if (messages.isEmpty()) {
+                    pending.remove(recipientId);
+                }
+                metrics.pending("rejected", 1);
+                return false;
+            }
+            metrics.pending("held", 1);
+            return true;
+        }
+    }
+
+    /**
+     * Drop everything senderId had held for recipientId
+     *
+     * @return number of messages dropped
+     */
+    public int cancel(String recipientId, String senderId) {
+        if (!enabled) {
+            return 0;
+        }
+        synchronized (pending) {
+            ArrayDeque<PendingMessage> messages = pending.get(recipientId);
+            if (messages == null) {
+                return 0;
+            }
+            int cancelled = 0;
+            for (Iterator<PendingMessage> it = messages.iterator(); it.hasNext(); ) {
+                PendingMessage message = it.next();
+                if (message.senderId.equals(senderId)) {
+                    it.remove();
+                    release(message);
+                    cancelled++;
+                }
+            }
+            if (messages.isEmpty()) {
+                pending.remove(recipientId);
+            }
+            metrics.pending("cancelled", cancelled);
+            return cancelled;
+        }
+    }
+
+    /**
+     * Take all unexpired messages held for recipientId, oldest first
+     */
+    public List<PendingMessage> drain(String recipientId) {
+        if (!enabled) {
+            return List.of();
+        }
+        synchronized (pending) {
+            ArrayDeque<PendingMessage> messages = pending.remove(recipientId);
+            if (messages == null) {
+                return List.of();
+            }
+            removeExpired(messages, System.nanoTime());
+            for (PendingMessage message : messages) {
+                release(message);
+            }
+            metrics.pending("delivered", messages.size());
+            return new ArrayList<>(messages);
+        }
+    }
+
+    /**
+     * Drop expired messages of all recipients
+     */
+    void sweep() {
+        synchronized (pending) {
+            long now = System.nanoTime();
+            for (Iterator<ArrayDeque<PendingMessage>> it = pending.values().iterator(); it.hasNext(); ) {
+                ArrayDeque<PendingMessage> messages = it.next();
+                removeExpired(messages, now);
+                if (messages.isEmpty()) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    public int getHeldMessages() {
+        synchronized (pending) {
+            return heldMessages;
+        }
+    }
+
+    public long getHeldBytes() {
+        synchronized (pending) {
+            return heldBytes;
+        }
+    }
+
+    private void removeExpired(ArrayDeque<PendingMessage> messages, long now) {
+        int expired = 0;
+        while (!messages.isEmpty() && now - messages.peekFirst().heldAt >= ttlNanos) {
+            release(messages.pollFirst());
+            expired++;
+        }
+        if (expired > 0) {
+            metrics.pending("expired", expired);
+        }
+    }
+
+    /**
+     * Evict whole recipients, least recently used first, until under max-bytes
+     *
+     * The recipient just written to is the most recently used one and is never
+     * evicted: its oldest message is usually the offer the rest depend on.
+     *
+     * @return false if the current recipient alone is still over max-bytes
+     */
+    private boolean evictLeastRecentlyUsed(String currentRecipient) {
+        Iterator<Map.Entry<String, ArrayDeque<PendingMessage>>> it = pending.entrySet().iterator();
+        while (heldBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, ArrayDeque<PendingMessage>> entry = it.next();
+            ArrayDeque<PendingMessage> messages = entry.getValue();
+            if (entry.getKey().equals(currentRecipient)) {
+                continue;
+            }
+            for (PendingMessage message : messages) {
+                release(message);
+            }
+            metrics.pending("evicted", messages.size());
+            it.remove();
+        }
+        return heldBytes <= maxBytes;
+    }
+
+    private void release(PendingMessage message) {
+        heldBytes -= message.payload.length();
+        heldMessages--;
+    }
+
+    /**
+     * A forwarded message waiting for its recipient
+     */
+    public static final class PendingMessage {
+        private final String senderId;
+        private final String type;
+        private final String payload;
+        private final long heldAt;
+
+        PendingMessage(String senderId, String type, String payload, long heldAt) {
+            this.senderId = senderId;
+            this.type = type;
+            this.payload = payload;
+            this.heldAt = heldAt;
+        }
+
+        public String getSenderId() {
+            return senderId;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * The payload exactly as it will be sent ("from" already set)
+         */
+        public String getPayload() {
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package dev.radovanradivojevic.webrtcserver.relay;
+
+/**
+ * RelayHeader - The routing fields of a signaling message, read without deserializing it
+ *
+ * Besides "type", "to", "room" and the client message "id" it remembers character offsets into the original
+ * payload, so StreamingRelayCodec knows where to put the server-authoritative
+ * "from" field:
+ * - if the client sent a "from" value, it gets replaced in place
+ * - otherwise "from" is inserted right after the "type" value
+ */
+public class RelayHeader {
+
+    private final String type;
+    private final String to;
+    private final String room;
+    private final String id;
+    private final int typeEnd;
+    private final int fromStart;
+    private final int fromEnd;
+
+    public RelayHeader(String type, String to, String room, String id, int typeEnd, int fromStart, int fromEnd) {
+        this.type = type;
+        this.to = to;
+        this.room = room;
+        this.id = id;
+        this.typeEnd = typeEnd;
+        this.fromStart = fromStart;
+        this.fromEnd = fromEnd;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    /**
+     * Room to fan the message out to, null for messages to a single user
+     */
+    public String getRoom() {
+        return room;
+    }
+
+    /**
+     * Client message id (string or integer in the payload), null if there is none
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Offset just past the "type" value
+     */
+    public int getTypeEnd() {
+        return typeEnd;
+    }
+
+    /**
+     * Offset of the client supplied "from" value, -1 if there is none
+     */
+    public int getFromStart() {
+        return fromStart;
+    }
+
+    /**
+     * Offset just past the client supplied "from" value, -1 if there is none
+     */
+    public int getFromEnd() {
+        return fromEnd;
+    }
+
+    public boolean hasFrom() {
+        return fromStart >= 0;
+    }
+}
@@ -0,0 +1,13 @@
+package dev.radovanradivojevic.webrtcserver.relay;
+
+/**
+ * How offer/answer/ice-candidate/end-call messages are forwarded
+ *
+ * STREAMING - read only "type" and "to" with a streaming parser and splice the
+ *             sender into the original payload (default)
+ * OBJECT    - deserialize into the SignalingMessage subclass and serialize it again
+ */
+public enum RelayMode {
+    STREAMING,
+    OBJECT
+}
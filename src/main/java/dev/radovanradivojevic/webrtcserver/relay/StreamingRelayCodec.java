@@ -0,0 +1,186 @@
+package dev.radovanradivojevic.webrtcserver.relay;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * StreamingRelayCodec - Forwards signaling payloads without a deserialize/serialize round trip
+ *
+ * Purpose: Offers and answers carry SDP blobs of several KB, and trickle ICE sends
+ * dozens of candidates per call. The server only needs "type" and "to" to route
+ * them, so building a CallMessage and writing it back out just to add "from" is
+ * wasted work.
+ *
+ * How it works:
+ * 1. A Jackson streaming parser walks the top-level fields of the payload.
+ *    Only "type", "to", "room" and "id" are read as Strings; everything else (including the
+ *    SDP and candidate bodies) is skipped by the tokenizer without being materialized.
+ *    The parser enforces the FrameLimits (nesting depth also inside skipped
+ *    values), and the length of "sdp" is checked without building a String.
+ * 2. The server-authoritative "from" is spliced into the original characters:
+ *    a client supplied "from" value is overwritten in place, otherwise
+ *    ,"from":"<sender>" is inserted right after the "type" value.
+ *
+ * Example:
+ * in:  {"type":"offer","to":"son","sdp":"v=0\r\n..."}
+ * out: {"type":"offer","from":"dad","to":"son","sdp":"v=0\r\n..."}
+ */
+@Component
+public class StreamingRelayCodec {
+
+    private final JsonFactory jsonFactory;
+    private final int maxSdpLength;
+
+    @Autowired
+    public StreamingRelayCodec(ObjectMapper objectMapper, SignalingProperties properties) {
+        this.jsonFactory = FrameLimits.constrain(objectMapper.getFactory(), properties.getLimits());
+        this.maxSdpLength = properties.getLimits().getMaxSdpLength();
+    }
+
+    /**
+     * Codec with the default limits (for testing)
+     */
+    public StreamingRelayCodec(ObjectMapper objectMapper) {
+        this(objectMapper, new SignalingProperties());
+    }
+
+    /**
+     * Read only the "type" of a JSON object payload
+     *
+     * Stops at the "type" field, which clients send first, so the rest of the
+     * payload is not even tokenized; fields before it are skipped.
+     *
+     * @return the type, or null if the payload is not a JSON object with a string "type"
+     */
+    public String readType(String payload) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("type".equals(field)) {
+                    return value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                }
+                parser.skipChildren();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Read the routing header of a JSON object payload
+     *
+     * @return the header, or null if the payload cannot be relayed as-is: not a JSON
+     *         object with a string "type", or a nested or repeated "from"; the caller
+     *         then deserializes it instead
+     * @throws StreamConstraintsException if the payload exceeds the FrameLimits
+     */
+    public RelayHeader readHeader(String payload) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+
+            String type = null;
+            String to = null;
+            String room = null;
+            String id = null;
+            int typeEnd = -1;
+            int fromStart = -1;
+            int fromEnd = -1;
+
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                switch (field) {
+                    case "type" -> {
+                        if (value != JsonToken.VALUE_STRING) {
+                            return null;
+                        }
+                        type = parser.getText();
+                        typeEnd = (int) parser.currentLocation().getCharOffset();
+                    }
+                    case "to" -> {
+                        if (value == JsonToken.VALUE_STRING) {
+                            to = parser.getText();
+                        }
+                    }
+                    case "room" -> {
+                        if (value == JsonToken.VALUE_STRING) {
+                            room = parser.getText();
+                        }
+                    }
+                    case "id" -> {
+                        if (value == JsonToken.VALUE_STRING || value == JsonToken.VALUE_NUMBER_INT) {
+                            id = parser.getText();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    case "from" -> {
+                        // Nested or repeated "from" has no single span to overwrite - the caller falls back to the object path
+                        if (value.isStructStart() || fromStart >= 0) {
+                            return null;
+                        }
+                        fromStart = (int) parser.currentTokenLocation().getCharOffset();
+                        // getText() moves the parser past the closing quote of a string value
+                        parser.getText();
+                        fromEnd = (int) parser.currentLocation().getCharOffset();
+                    }
+                    case "sdp" -> {
+                        // Measured in the parser's buffer, never turned into a String
+                        if (value == JsonToken.VALUE_STRING && parser.getTextLength() > maxSdpLength) {
+                            throw new StreamConstraintsException("SDP length (" + parser.getTextLength()
+                                    + ") exceeds the maximum allowed (" + maxSdpLength + ")");
+                        }
+                        parser.skipChildren();
+                    }
+                    // Candidate and any unknown fields: skip without materializing
+                    default -> parser.skipChildren();
+                }
+            }
+
+            if (token != JsonToken.END_OBJECT || type == null) {
+                return null;
+            }
+            return new RelayHeader(type, to, room, id, typeEnd, fromStart, fromEnd);
+        }
+    }
+
+    /**
+     * Build the forwarded payload with "from" set to the sender
+     *
+     * The result is written in a single pass into a buffer sized up front;
+     * the SDP/candidate characters are copied as-is.
+     */
+    public String withSender(String payload, RelayHeader header, String senderId) {
+        char[] quotedSender = JsonStringEncoder.getInstance().quoteAsString(senderId);
+
+        if (header.hasFrom()) {
+            StringBuilder out = new StringBuilder(payload.length() + quotedSender.length + 2);
+            out.append(payload, 0, header.getFromStart());
+            out.append('"').append(quotedSender).append('"');
+            out.append(payload, header.getFromEnd(), payload.length());
+            return out.toString();
+        }
+
+        StringBuilder out = new StringBuilder(payload.length() + quotedSender.length + 10);
+        out.append(payload, 0, header.getTypeEnd());
+        out.append(",\"from\":\"").append(quotedSender).append('"');
+        out.append(payload, header.getTypeEnd(), payload.length());
+        return out.toString();
+    }
+}
@@ -0,0 +1,23 @@
+package dev.radovanradivojevic.webrtcserver.session;
+
+/**
+ * Which threads run signaling work
+ *
+ * PLATFORM - inbound messages are handled on the servlet container's worker thread,
+ *            outbound queues are drained by a fixed pool of platform threads
+ * VIRTUAL  - inbound messages are handed off to a virtual thread per session and
+ *            outbound queues are drained on virtual threads, so thousands of slow
+ *            peers no longer pin a bounded pool
+ * SHARDED  - users are partitioned by hashed userId over a fixed number of
+ *            single-threaded event loops (ShardedEventLoops); a session's inbound
+ *            messages run on the loop owning its user and forwards to users of
+ *            another shard are posted to that loop's mailbox. Outbound queues
+ *            are drained as in PLATFORM.
+ *
+ * Per-session ordering is the same in all modes.
+ */
+public enum ExecutionMode {
+    PLATFORM,
+    VIRTUAL,
+    SHARDED
+}
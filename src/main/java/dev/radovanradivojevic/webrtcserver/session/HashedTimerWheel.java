@@ -0,0 +1,213 @@
+package dev.radovanradivojevic.webrtcserver.session;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HashedTimerWheel - Many coarse timeouts for the price of one scheduled task
+ *
+ * Purpose: A ScheduledExecutorService keeps its tasks in a binary heap, so every
+ * schedule and cancel is O(log n) under a lock, and each task is a separate
+ * heap entry. With one heartbeat per connection that is 100k entries being
+ * reshuffled all the time, for timeouts that only need to be accurate to about
+ * a second.
+ *
+ * A timer wheel trades precision for constant cost:
+ * - time is cut into ticks (e.g. 1s); the wheel is a ring of wheelSize buckets
+ * - a timeout lands in bucket (deadline tick % wheelSize)
+ * - every tick, advance() visits one bucket and runs the timeouts that are due;
+ *   the others in that bucket are due in a later turn of the wheel
+ *
+ * So schedule() and cancel() are O(1) and lock-free, and one tick costs the
+ * number of timeouts in one bucket. A timeout fires up to one tick late,
+ * never early.
+ *
+ * Threading: schedule() and cancel() may be called from any thread. New timeouts
+ * go through a lock-free queue; the buckets themselves are only touched by the
+ * single thread calling advance(), which also runs the expired tasks - they
+ * must be short and must not block.
+ */
+public final class HashedTimerWheel {
+
+    private final long tickNanos;
+    private final Bucket[] buckets;
+    private final int mask;
+    private final long startNanos;
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Next tick advance() will process (owned by the advancing thread)
+     */
+    private long tick;
+
+    /**
+     * @param tickNanos resolution of the wheel
+     * @param wheelSize number of buckets, rounded up to a power of two
+     */
+    public HashedTimerWheel(long tickNanos, int wheelSize) {
+        if (tickNanos <= 0 || wheelSize < 1) {
+            throw new IllegalArgumentException("tick and wheel size must be positive");
+        }
+        this.tickNanos = tickNanos;
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Run task once, after at least delayNanos
+     */
+    public Timeout schedule(Runnable task, long delayNanos) {
+        long deadline = System.nanoTime() - startNanos + Math.max(0, delayNanos);
+        // Round up, so a timeout never fires early
+        Timeout timeout = new Timeout(task, (deadline + tickNanos - 1) / tickNanos);
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Process all ticks that have passed; call this at least once per tick
+     *
+     * @return number of tasks run
+     */
+    public int advance() {
+        long now = (System.nanoTime() - startNanos) / tickNanos;
+        int expired = 0;
+        while (tick <= now) {
+            transferAdded();
+            expired += buckets[(int) (tick & mask)].expire(tick);
+            tick++;
+        }
+        return expired;
+    }
+
+    /**
+     * Timeouts scheduled and not yet fired or cancelled (walks every bucket - for tests, on the advancing thread)
+     */
+    public int pending() {
+        int count = 0;
+        for (Timeout timeout : added) {
+            if (timeout.isPending()) {
+                count++;
+            }
+        }
+        for (Bucket bucket : buckets) {
+            for (Timeout timeout = bucket.head; timeout != null; timeout = timeout.next) {
+                if (timeout.isPending()) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (!timeout.isPending()) {
+                continue;
+            }
+            // Already overdue (scheduled after its tick was processed) - fire on this tick
+            long deadlineTick = Math.max(timeout.deadlineTick, tick);
+            timeout.deadlineTick = deadlineTick;
+            buckets[(int) (deadlineTick & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * A scheduled task that can be cancelled
+     */
+    public static final class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private long deadlineTick;
+
+        // Bucket links, only touched by the advancing thread
+        private Timeout next;
+        private Timeout prev;
+
+        Timeout(Runnable task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * @return false if the task already ran (or was cancelled before)
+         */
+        public boolean cancel() {
+            // Unlinked lazily, when the advancing thread next visits the bucket
+            return state.compareAndSet(PENDING, CANCELLED);
+        }
+
+        public boolean isPending() {
+            return state.get() == PENDING;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+
+    /**
+     * Doubly linked list of the timeouts hashed to one slot
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        int expire(long tick) {
+            int expired = 0;
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (!timeout.isPending()) {
+                    remove(timeout);
+                } else if (timeout.deadlineTick <= tick) {
+                    remove(timeout);
+                    if (timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+                        timeout.task.run();
+                        expired++;
+                    }
+                }
+                // Otherwise it is due in a later turn of the wheel
+                timeout = next;
+            }
+            return expired;
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.next = null;
+            timeout.prev = null;
+        }
+    }
+}
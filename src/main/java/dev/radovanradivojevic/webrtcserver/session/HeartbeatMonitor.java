@@ -0,0 +1,208 @@
+package dev.radovanradivojevic.webrtcserver.session;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.control.ControlFrames;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * HeartbeatMonitor - Finds connections that died without closing
+ *
+ * Purpose: When a phone loses its network, nothing is sent on the TCP
+ * connection - the server sees no FIN and keeps the session "open" until TCP
+ * retransmissions give up, which can take many minutes. Meanwhile messages are
+ * forwarded into the half-open socket and the session stays registered.
+ *
+ * How it works:
+ * - every inbound frame (text, binary or pong) records when the session was last heard from
+ * - after ping-interval of silence the server sends a WebSocket ping; browsers
+ *   and OkHttp answer with a pong automatically, no client code needed
+ * - after idle-timeout of silence the session is reaped: its socket is closed
+ *   and the handler cleans it up exactly like a normal close (onIdle callback,
+ *   run on the reaper executor - the cleanup ends calls and notifies peers,
+ *   which is no work for the shared timer)
+ *
+ * One timeout per session is kept on a HashedTimerWheel driven by a single
+ * task on the shared timer, so 100k sessions cost 100k list entries instead
+ * of 100k scheduled tasks. Checks are accurate to one tick, which is plenty
+ * for timeouts measured in seconds.
+ *
+ * Structure: Map<sessionId, Heartbeat>
+ */
+@Component
+public class HeartbeatMonitor {
+
+    /**
+     * Close status of reaped sessions
+     */
+    public static final CloseStatus SESSION_IDLE = CloseStatus.SESSION_NOT_RELIABLE;
+
+    private final Map<String, Heartbeat> heartbeats = new ConcurrentHashMap<>();
+    private final OutboundMessageDispatcher outbound;
+    private final SignalingMetrics metrics;
+    private final SignalingEventLog eventLog;
+    private final boolean enabled;
+    private final long pingIntervalNanos;
+    private final long idleTimeoutNanos;
+    private final HashedTimerWheel wheel;
+    private final Executor reaper;
+    private volatile Consumer<WebSocketSession> onIdle = session -> { };
+
+    @Autowired
+    public HeartbeatMonitor(SignalingProperties properties, OutboundMessageDispatcher outbound,
+                            @Qualifier("signalingScheduler") ScheduledExecutorService scheduler,
+                            @Qualifier("inboundExecutor") Executor reaper,
+                            SignalingMetrics metrics, SignalingEventLog eventLog) {
+        SignalingProperties.Heartbeat config = properties.getHeartbeat();
+        this.reaper = reaper;
+        this.outbound = outbound;
+        this.metrics = metrics;
+        this.eventLog = eventLog;
+        this.enabled = config.isEnabled();
+        this.pingIntervalNanos = config.getPingInterval().toNanos();
+        this.idleTimeoutNanos = config.getIdleTimeout().toNanos();
+        long tickNanos = config.getTick().toNanos();
+        this.wheel = new HashedTimerWheel(tickNanos, config.getWheelSize());
+        metrics.bindHeartbeats(heartbeats::size);
+
+        if (enabled) {
+            scheduler.scheduleAtFixedRate(this::advance, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Monitor that reaps on the timer thread (for testing)
+     */
+    public HeartbeatMonitor(SignalingProperties properties, OutboundMessageDispatcher outbound,
+                            ScheduledExecutorService scheduler, SignalingMetrics metrics,
+                            SignalingEventLog eventLog) {
+        this(properties, outbound, scheduler, Runnable::run, metrics, eventLog);
+    }
+
+    /**
+     * Called with a session that has been silent for idle-timeout, after its socket was closed
+     */
+    public void onIdle(Consumer<WebSocketSession> onIdle) {
+        this.onIdle = onIdle;
+    }
+
+    /**
+     * Start watching a newly opened session
+     */
+    public void track(WebSocketSession session) {
+        if (!enabled) {
+            return;
+        }
+        Heartbeat heartbeat = new Heartbeat(session, System.nanoTime());
+        heartbeats.put(session.getId(), heartbeat);
+        schedule(heartbeat, pingIntervalNanos);
+    }
+
+    /**
+     * The session sent something - it is alive (called for every inbound frame)
+     */
+    public void touch(WebSocketSession session) {
+        if (!enabled) {
+            return;
+        }
+        Heartbeat heartbeat = heartbeats.get(session.getId());
+        if (heartbeat != null) {
+            heartbeat.lastSeen = System.nanoTime();
+        }
+    }
+
+    /**
+     * Stop watching a closed session
+     */
+    public void release(WebSocketSession session) {
+        Heartbeat heartbeat = heartbeats.remove(session.getId());
+        if (heartbeat != null) {
+            heartbeat.timeout.cancel();
+        }
+    }
+
+    /**
+     * Sessions being watched (for testing and monitoring)
+     */
+    public int size() {
+        return heartbeats.size();
+    }
+
+    /**
+     * Process the ticks that have passed (normally run by the shared timer)
+     */
+    void advance() {
+        try {
+            wheel.advance();
+        } catch (RuntimeException e) {
+            // An exception would cancel the fixed-rate task and with it every heartbeat
+            eventLog.handlerError(null, e);
+        }
+    }
+
+    private void schedule(Heartbeat heartbeat, long delayNanos) {
+        heartbeat.timeout = wheel.schedule(() -> check(heartbeat), delayNanos);
+    }
+
+    /**
+     * Runs on the wheel: reap, ping or just look again later
+     */
+    private void check(Heartbeat heartbeat) {
+        WebSocketSession session = heartbeat.session;
+        if (heartbeats.get(session.getId()) != heartbeat) {
+            return;
+        }
+
+        long silentNanos = System.nanoTime() - heartbeat.lastSeen;
+        if (silentNanos >= idleTimeoutNanos || !session.isOpen()) {
+            heartbeats.remove(session.getId(), heartbeat);
+            metrics.sessionReaped();
+            eventLog.idleTimeout(session.getId(), TimeUnit.NANOSECONDS.toMillis(silentNanos));
+            // Closing may block on a dead socket, so it happens on the session's writer
+            outbound.close(session, SESSION_IDLE);
+            try {
+                reaper.execute(() -> onIdle.accept(session));
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the container reports the close and cleans up instead
+                eventLog.handlerError(session.getId(), e);
+            }
+            return;
+        }
+
+        if (silentNanos >= pingIntervalNanos) {
+            outbound.send(session, ControlFrames.ping());
+            metrics.heartbeatPing();
+            schedule(heartbeat, Math.min(pingIntervalNanos, idleTimeoutNanos - silentNanos));
+        } else {
+            // Heard from it recently - next look is one ping interval after that
+            schedule(heartbeat, pingIntervalNanos - silentNanos);
+        }
+    }
+
+    /**
+     * Liveness of one session
+     */
+    private static final class Heartbeat {
+        private final WebSocketSession session;
+        private volatile long lastSeen;
+        private volatile HashedTimerWheel.Timeout timeout;
+
+        Heartbeat(WebSocketSession session, long lastSeen) {
+            this.session = session;
+            this.lastSeen = lastSeen;
+        }
+    }
+}
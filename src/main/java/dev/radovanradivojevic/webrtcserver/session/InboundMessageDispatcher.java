@@ -0,0 +1,148 @@
+package dev.radovanradivojevic.webrtcserver.session;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * InboundMessageDispatcher - Decides which thread handles an inbound message
+ *
+ * PLATFORM mode: the task runs right away on the container thread that read it.
+ * VIRTUAL mode:  the task is queued on the session's SerialExecutor backed by
+ *                virtual threads, and the container thread returns immediately.
+ * SHARDED mode:  the session's SerialExecutor is backed by the event loop of its
+ *                shard - hashed from the session id until the session registers,
+ *                then from its userId (bind()). Forwards to another user go
+ *                through runOnOwner(), which posts to the recipient's loop.
+ *
+ * Messages of one session are always handled in the order they arrived.
+ *
+ * Structure: Map<sessionId, SerialExecutor>
+ */
+@Component
+public class InboundMessageDispatcher {
+
+    /**
+     * Work done for one inbound message (may throw like handleTextMessage does)
+     */
+    @FunctionalInterface
+    public interface SessionTask {
+        void run() throws Exception;
+    }
+
+    private final Map<String, SerialExecutor> lanes = new ConcurrentHashMap<>();
+    private final Executor executor;
+    private final ExecutionMode mode;
+    private final ShardedEventLoops loops;
+    private final OutboundMessageDispatcher outbound;
+    private final SignalingEventLog eventLog;
+
+    public InboundMessageDispatcher(SignalingProperties properties,
+                                    @Qualifier("inboundExecutor") Executor executor,
+                                    OutboundMessageDispatcher outbound, SignalingEventLog eventLog) {
+        this.executor = executor;
+        this.outbound = outbound;
+        this.eventLog = eventLog;
+        this.mode = properties.getExecution().getMode();
+        this.loops = mode == ExecutionMode.SHARDED ? new ShardedEventLoops(properties.getExecution().getShards()) : null;
+    }
+
+    /**
+     * Handle an inbound message for the session
+     */
+    public void dispatch(WebSocketSession session, SessionTask task) throws Exception {
+        if (mode == ExecutionMode.PLATFORM) {
+            task.run();
+            return;
+        }
+        lanes.computeIfAbsent(session.getId(), id -> new SerialExecutor(laneExecutor(id)))
+                .execute(() -> runGuarded(session, task));
+    }
+
+    /**
+     * The session registered as userId - in SHARDED mode its following messages
+     * run on the loop owning userId
+     */
+    public void bind(WebSocketSession session, String userId) {
+        if (mode != ExecutionMode.SHARDED) {
+            return;
+        }
+        SerialExecutor lane = lanes.get(session.getId());
+        if (lane != null) {
+            lane.moveTo(loops.loopFor(userId));
+        }
+    }
+
+    /**
+     * Run work that touches userId's session on the thread owning that user
+     *
+     * Inline unless in SHARDED mode and the user belongs to another loop, in
+     * which case the task is posted to that loop's mailbox.
+     */
+    public void runOnOwner(String userId, Runnable task) {
+        if (mode != ExecutionMode.SHARDED) {
+            task.run();
+            return;
+        }
+        ShardedEventLoops.EventLoop owner = loops.loopFor(userId);
+        if (owner.inLoop()) {
+            task.run();
+        } else {
+            owner.execute(task);
+        }
+    }
+
+    /**
+     * Run the session's final task (connection cleanup) after everything queued before it,
+     * then forget the session
+     */
+    public void dispatchLast(WebSocketSession session, SessionTask task) throws Exception {
+        if (mode == ExecutionMode.PLATFORM) {
+            task.run();
+            return;
+        }
+        SerialExecutor lane = lanes.remove(session.getId());
+        Executor target = lane != null ? lane : laneExecutor(session.getId());
+        target.execute(() -> runGuarded(session, task));
+    }
+
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (loops != null) {
+            loops.shutdown();
+        }
+    }
+
+    /**
+     * Where a new session's lane runs: a virtual thread per pass, or the loop of its session id's shard
+     */
+    private Executor laneExecutor(String sessionId) {
+        return loops != null ? loops.loopFor(sessionId) : executor;
+    }
+
+    /**
+     * Same contract as Spring's ExceptionWebSocketHandlerDecorator: a handler
+     * failure closes the session with SERVER_ERROR - through its outbound queue,
+     * so the lane never blocks on the socket or races the session's writer
+     */
+    private void runGuarded(WebSocketSession session, SessionTask task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            eventLog.handlerError(session.getId(), e);
+            outbound.close(session, CloseStatus.SERVER_ERROR);
+        }
+    }
+}
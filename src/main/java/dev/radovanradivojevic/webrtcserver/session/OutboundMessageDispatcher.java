@@ -0,0 +1,203 @@
+package dev.radovanradivojevic.webrtcserver.session;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import jakarta.websocket.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OutboundMessageDispatcher - Owns one OutboundQueue per connected session
+ *
+ * Every message the server sends (forwarded signaling as well as its own
+ * acknowledgments) goes through here, so each session has exactly one writer.
+ *
+ * Stalled peers: a writer blocked in sendMessage() to a half-open peer cannot
+ * close that peer itself, and in PLATFORM mode enough of them hold every writer
+ * thread. A watchdog on the signaling timer therefore closes sessions whose
+ * send has exceeded the send time limit, on the closer executor rather than
+ * behind the stuck writers. The container's own blocking-send timeout is set
+ * to the same limit, so the stuck send fails and frees its writer thread too.
+ *
+ * Structure: Map<sessionId, OutboundQueue>
+ */
+@Component
+public class OutboundMessageDispatcher {
+
+    /**
+     * Tomcat's per-session timeout for blocking sends, in milliseconds (20s when unset)
+     */
+    private static final String BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private final Map<String, OutboundQueue> queues = new ConcurrentHashMap<>();
+    private final Executor writer;
+    private final Executor closer;
+    private final int bufferSizeLimit;
+    private final long sendTimeLimitNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final SignalingEventLog eventLog;
+    private final SignalingMetrics metrics;
+
+    @Autowired
+    public OutboundMessageDispatcher(SignalingProperties properties,
+                                     @Qualifier("outboundExecutor") Executor writer,
+                                     @Qualifier("inboundExecutor") Executor closer,
+                                     @Qualifier("signalingScheduler") ScheduledExecutorService scheduler,
+                                     SignalingEventLog eventLog, SignalingMetrics metrics) {
+        SignalingProperties.Outbound outbound = properties.getOutbound();
+        this.writer = writer;
+        this.closer = closer;
+        this.bufferSizeLimit = outbound.getBufferSizeLimit();
+        this.sendTimeLimitNanos = outbound.getSendTimeLimit().toNanos();
+        this.overflowPolicy = outbound.getOverflowPolicy();
+        this.eventLog = eventLog;
+        this.metrics = metrics;
+        metrics.bindOutboundQueues(this::queuedMessages, this::queuedBytes);
+
+        if (scheduler != null) {
+            long intervalNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(100), sendTimeLimitNanos / 4);
+            scheduler.scheduleWithFixedDelay(this::closeStalled, intervalNanos, intervalNanos,
+                    TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Dispatcher without the stall watchdog, closing sessions on the writer
+     * (for testing and standalone use with an inline writer)
+     */
+    public OutboundMessageDispatcher(SignalingProperties properties, Executor writer,
+                                     SignalingEventLog eventLog, SignalingMetrics metrics) {
+        this(properties, writer, writer, null, eventLog, metrics);
+    }
+
+    /**
+     * Queue a message for the given session without blocking the caller
+     *
+     * @return true if the message was accepted, false if the session is closed
+     * or the message was dropped by the overflow policy
+     */
+    public boolean send(WebSocketSession session, WebSocketMessage<?> message) {
+        OutboundQueue queue = queueOf(session);
+        return queue != null && queue.offer(message);
+    }
+
+    /**
+     * Close a session without blocking the caller - pending messages are discarded
+     * and the socket is closed on the session's writer
+     */
+    public void close(WebSocketSession session, CloseStatus status) {
+        OutboundQueue queue = queueOf(session);
+        if (queue != null) {
+            queue.terminate(status);
+        }
+    }
+
+    /**
+     * Close a session without blocking the caller once the messages queued for it have been
+     * sent - for goodbyes such as "reconnect-elsewhere" that must not be cut off
+     */
+    public void closeWhenFlushed(WebSocketSession session, CloseStatus status) {
+        OutboundQueue queue = queueOf(session);
+        if (queue != null) {
+            queue.closeWhenFlushed(status);
+        }
+    }
+
+    /**
+     * Drop the queue of a closed session
+     */
+    public void release(WebSocketSession session) {
+        OutboundQueue queue = queues.remove(session.getId());
+        if (queue != null) {
+            queue.close();
+        }
+    }
+
+    /**
+     * Get the queue of a session (for testing and monitoring)
+     */
+    public OutboundQueue getQueue(String sessionId) {
+        return queues.get(sessionId);
+    }
+
+    /**
+     * Messages waiting in all queues (walks every queue - for metrics scrapes, not the hot path)
+     */
+    public long queuedMessages() {
+        long total = 0;
+        for (OutboundQueue queue : queues.values()) {
+            total += queue.size();
+        }
+        return total;
+    }
+
+    /**
+     * Payload bytes waiting in all queues (walks every queue - for metrics scrapes, not the hot path)
+     */
+    public long queuedBytes() {
+        long total = 0;
+        for (OutboundQueue queue : queues.values()) {
+            total += queue.getBufferedBytes();
+        }
+        return total;
+    }
+
+    /**
+     * Close every session whose in-flight send has exceeded the send time limit
+     * (runs on the signaling timer; only enqueues the close)
+     */
+    void closeStalled() {
+        for (OutboundQueue queue : queues.values()) {
+            queue.terminateIfStalled();
+        }
+    }
+
+    /**
+     * The queue of a session, created on first use while the session is open
+     *
+     * A closed session has been or is about to be released, so it gets no queue:
+     * one created now would never be removed. The check is repeated after the
+     * insert because release() may run between the first check and computeIfAbsent.
+     *
+     * @return null if the session is closed
+     */
+    private OutboundQueue queueOf(WebSocketSession session) {
+        OutboundQueue queue = queues.get(session.getId());
+        if (queue != null) {
+            return queue;
+        }
+        if (!session.isOpen()) {
+            return null;
+        }
+        queue = queues.computeIfAbsent(session.getId(), id -> newQueue(session));
+        if (!session.isOpen() && queues.remove(session.getId(), queue)) {
+            queue.close();
+            return null;
+        }
+        return queue;
+    }
+
+    private OutboundQueue newQueue(WebSocketSession session) {
+        if (session instanceof NativeWebSocketSession nativeSession) {
+            Session container = nativeSession.getNativeSession(Session.class);
+            if (container != null) {
+                container.getUserProperties().put(BLOCKING_SEND_TIMEOUT,
+                        TimeUnit.NANOSECONDS.toMillis(sendTimeLimitNanos));
+            }
+        }
+        return new OutboundQueue(session, writer, closer, bufferSizeLimit, sendTimeLimitNanos, overflowPolicy,
+                eventLog, metrics);
+    }
+}
@@ -0,0 +1,277 @@
+package dev.radovanradivojevic.webrtcserver.session;
+
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OutboundQueue - Bounded, lock-free outbound buffer for a single WebSocket session
+ *
+ * Purpose: Forwarding a message must never block the thread that received it.
+ * Producers only append to the queue; a single writer task per session drains it
+ * on the writer executor, so sendMessage() is never called concurrently on the
+ * same raw WebSocketSession (which is not thread-safe).
+ *
+ * Limits:
+ * - bufferSizeLimit: maximum number of payload bytes waiting to be sent
+ * - sendTimeLimit: maximum time a single sendMessage() call may take before the
+ *   peer is considered stalled
+ *
+ * When the buffer is full the OverflowPolicy decides between dropping the new
+ * message or disconnecting the session. A stalled send always disconnects,
+ * same as Spring's ConcurrentWebSocketSessionDecorator - a socket that cannot
+ * accept data for that long will not recover. The stall is noticed either by
+ * the next offer() or by the dispatcher's watchdog, and the session is closed
+ * on the closer executor: the writer it would otherwise queue behind may be
+ * the very thread that is stuck.
+ */
+public class OutboundQueue {
+
+    /**
+     * How many messages one writer pass sends before yielding the writer thread,
+     * so one busy session cannot starve the others sharing the executor
+     */
+    private static final int MAX_MESSAGES_PER_DRAIN = 64;
+
+    private final WebSocketSession session;
+    private final Executor writer;
+    private final Executor closer;
+    private final int bufferSizeLimit;
+    private final long sendTimeLimitNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final SignalingEventLog eventLog;
+    private final SignalingMetrics metrics;
+
+    private final Queue<WebSocketMessage<?>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger bufferedBytes = new AtomicInteger();
+    private final AtomicInteger bufferedMessages = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * System.nanoTime() when the in-flight send started, 0 when idle
+     */
+    private volatile long sendStartNanos;
+    private volatile CloseStatus closeWhenFlushed;
+
+    public OutboundQueue(WebSocketSession session, Executor writer, int bufferSizeLimit,
+                         long sendTimeLimitNanos, OverflowPolicy overflowPolicy,
+                         SignalingEventLog eventLog, SignalingMetrics metrics) {
+        this(session, writer, writer, bufferSizeLimit, sendTimeLimitNanos, overflowPolicy, eventLog, metrics);
+    }
+
+    public OutboundQueue(WebSocketSession session, Executor writer, Executor closer, int bufferSizeLimit,
+                         long sendTimeLimitNanos, OverflowPolicy overflowPolicy,
+                         SignalingEventLog eventLog, SignalingMetrics metrics) {
+        this.session = session;
+        this.writer = writer;
+        this.closer = closer;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.sendTimeLimitNanos = sendTimeLimitNanos;
+        this.overflowPolicy = overflowPolicy;
+        this.eventLog = eventLog;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Enqueue a message for delivery. Never blocks.
+     *
+     * @return true if the message was accepted, false if it was dropped
+     */
+    public boolean offer(WebSocketMessage<?> message) {
+        if (closed.get()) {
+            metrics.outboundDropped("closed");
+            return false;
+        }
+
+        if (isSendStalled()) {
+            metrics.outboundDropped("send-timeout");
+            eventLog.queueOverflow(session.getId(), message.getPayloadLength(), "send-timeout");
+            terminate(CloseStatus.SESSION_NOT_RELIABLE);
+            return false;
+        }
+
+        int size = message.getPayloadLength();
+        if (bufferedBytes.addAndGet(size) > bufferSizeLimit) {
+            bufferedBytes.addAndGet(-size);
+            onOverflow(size);
+            return false;
+        }
+
+        queue.offer(message);
+        bufferedMessages.incrementAndGet();
+        scheduleDrain();
+        return true;
+    }
+
+    /**
+     * Number of payload bytes currently waiting to be sent
+     */
+    public int getBufferedBytes() {
+        return bufferedBytes.get();
+    }
+
+    /**
+     * Number of messages currently waiting to be sent
+     */
+    public int size() {
+        return bufferedMessages.get();
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * Stop accepting messages and discard whatever is still buffered.
+     * Does not close the underlying session.
+     */
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            queue.clear();
+            bufferedBytes.set(0);
+            bufferedMessages.set(0);
+        }
+    }
+
+    /**
+     * Close the session if its in-flight send has taken longer than the send time limit
+     *
+     * Called by the dispatcher's watchdog: a writer blocked in sendMessage() cannot
+     * notice its own stall, and offer() only does when the next message arrives.
+     *
+     * @return true if the session was closed
+     */
+    boolean terminateIfStalled() {
+        if (closed.get() || !isSendStalled()) {
+            return false;
+        }
+        eventLog.queueOverflow(session.getId(), bufferedBytes.get(), "send-timeout");
+        terminate(CloseStatus.SESSION_NOT_RELIABLE);
+        return true;
+    }
+
+    private boolean isSendStalled() {
+        long start = sendStartNanos;
+        return start != 0 && System.nanoTime() - start > sendTimeLimitNanos;
+    }
+
+    private void onOverflow(int size) {
+        metrics.outboundDropped("overflow");
+        if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+            eventLog.queueOverflow(session.getId(), size, "disconnect");
+            terminate(CloseStatus.SESSION_NOT_RELIABLE);
+        } else {
+            eventLog.queueOverflow(session.getId(), size, "drop");
+        }
+    }
+
+    /**
+     * Stop accepting messages, discard the buffer and close the session on the closer
+     */
+    void terminate(CloseStatus status) {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        queue.clear();
+        bufferedBytes.set(0);
+        bufferedMessages.set(0);
+        // Closing may block on the socket too, so keep it off the caller's thread - and off
+        // the writer, whose threads may all be stuck in sends to other stalled peers
+        execute(closer, () -> closeSession(status));
+    }
+
+    /**
+     * Close the session on the writer once everything queued before it has been sent
+     */
+    void closeWhenFlushed(CloseStatus status) {
+        if (closed.get()) {
+            return;
+        }
+        closeWhenFlushed = status;
+        scheduleDrain();
+    }
+
+    /**
+     * Start a writer pass unless one is already running for this session
+     */
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            if (!execute(writer, this::drain)) {
+                draining.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            WebSocketMessage<?> message;
+            int sent = 0;
+            while (sent < MAX_MESSAGES_PER_DRAIN && (message = queue.poll()) != null) {
+                bufferedBytes.addAndGet(-message.getPayloadLength());
+                bufferedMessages.decrementAndGet();
+                if (closed.get() || !session.isOpen()) {
+                    continue;
+                }
+                send(message);
+                sent++;
+            }
+
+            CloseStatus status = closeWhenFlushed;
+            if (status != null && queue.isEmpty() && closed.compareAndSet(false, true)) {
+                closeSession(status);
+            }
+        } finally {
+            draining.set(false);
+        }
+
+        // A producer may have enqueued, or closeWhenFlushed() may have been called, after we
+        // last looked but while we still owned the drain flag - its scheduleDrain() was a no-op
+        if ((!queue.isEmpty() || closeWhenFlushed != null) && !closed.get()) {
+            scheduleDrain();
+        }
+    }
+
+    private void send(WebSocketMessage<?> message) {
+        long start = System.nanoTime();
+        sendStartNanos = start;
+        try {
+            session.sendMessage(message);
+            metrics.recordSend(System.nanoTime() - start);
+        } catch (IOException | IllegalStateException e) {
+            metrics.outboundDropped("send-failed");
+            eventLog.sendFailed(session.getId(), e);
+            close();
+        } finally {
+            sendStartNanos = 0;
+        }
+    }
+
+    private void closeSession(CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            eventLog.sendFailed(session.getId(), e);
+        }
+    }
+
+    private boolean execute(Executor executor, Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            eventLog.sendFailed(session.getId(), e);
+            return false;
+        }
+    }
+}
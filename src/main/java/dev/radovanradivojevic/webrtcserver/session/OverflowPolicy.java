@@ -0,0 +1,12 @@
+package dev.radovanradivojevic.webrtcserver.session;
+
+/**
+ * What to do when a session's outbound queue is full
+ *
+ * DROP       - discard the new message, keep the connection (the peer may miss a frame)
+ * DISCONNECT - close the session, the client reconnects and re-registers with a clean slate
+ */
+public enum OverflowPolicy {
+    DROP,
+    DISCONNECT
+}
@@ -0,0 +1,100 @@
+package dev.radovanradivojevic.webrtcserver.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * SerialExecutor - Runs tasks one at a time, in submission order, on a shared executor
+ *
+ * Used to give each WebSocket session its own ordered lane on top of a
+ * thread-per-task executor. Submitting never blocks; at most one task of
+ * this executor is running at any moment.
+ *
+ * One pass runs at most MAX_TASKS_PER_DRAIN tasks and then yields the thread,
+ * so a busy session cannot starve the other lanes sharing a SHARDED event loop.
+ *
+ * The lane can be moved to another executor (SHARDED mode moves a session to
+ * its user's event loop once it registers). The task running at that moment
+ * finishes where it is; everything after it runs on the new executor.
+ */
+public class SerialExecutor implements Executor {
+
+    private static final Logger log = LoggerFactory.getLogger(SerialExecutor.class);
+
+    /**
+     * How many tasks one pass runs before the lane goes to the back of its executor's queue
+     */
+    static final int MAX_TASKS_PER_DRAIN = 64;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Executor delegate;
+
+    public SerialExecutor(Executor delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Run the tasks that follow on delegate from now on
+     */
+    public void moveTo(Executor delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        tasks.offer(task);
+        try {
+            schedule();
+        } catch (RejectedExecutionException e) {
+            // Rejected means not run - not left behind for whoever comes next
+            tasks.remove(task);
+            throw e;
+        }
+    }
+
+    private void schedule() {
+        if (running.compareAndSet(false, true)) {
+            Executor owner = delegate;
+            try {
+                owner.execute(() -> drain(owner));
+            } catch (RejectedExecutionException e) {
+                // Nothing is running after all; the next execute() may find a working executor
+                running.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void drain(Executor owner) {
+        try {
+            Runnable task;
+            int ran = 0;
+            // Stop between tasks once the lane was moved; schedule() below continues on the new executor
+            while (ran++ < MAX_TASKS_PER_DRAIN && delegate == owner && (task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.error("Session task failed", e);
+                }
+            }
+        } finally {
+            running.set(false);
+        }
+
+        // Tasks left after yielding, or submitted after our last poll() while we still held the flag
+        if (!tasks.isEmpty()) {
+            try {
+                schedule();
+            } catch (RejectedExecutionException e) {
+                log.error("Session lane could not be rescheduled", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package dev.radovanradivojevic.webrtcserver.session;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.control.ControlFrames;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * SessionDrainer - Hands clients over to other nodes when this node shuts down
+ *
+ * Purpose: Stopping a node used to drop all of its connections in the same
+ * instant. Every client then reconnected and re-registered at once, and the
+ * remaining nodes took the whole herd in one CPU spike. On shutdown the node
+ * now drains instead:
+ *
+ * 1. New registrations are no longer accepted: a session that connects or
+ *    registers while draining gets "reconnect-elsewhere" and is closed right away
+ * 2. Every session that was connected before gets "reconnect-elsewhere" at a
+ *    random point within the spread window, so reconnects arrive at the other
+ *    nodes over spread instead of in one burst
+ * 3. Each session is closed (SERVICE_RESTARTED) only after its outbound queue
+ *    has flushed, so the frame and anything queued before it are not cut off
+ * 4. Shutdown continues once every session is closed and all outbound queues
+ *    are empty, or at the latest flush-timeout after the spread; whatever is
+ *    left is then closed without flushing
+ *
+ * Runs as a SmartLifecycle in the default phase, which Spring stops before the
+ * web server's graceful-shutdown phase - the container still serves the open
+ * sockets while they drain. The drain completes asynchronously on the shared
+ * timer within spring.lifecycle.timeout-per-shutdown-phase.
+ *
+ * Structure: Map<sessionId, WebSocketSession> of every open session
+ */
+@Component
+public class SessionDrainer implements SmartLifecycle {
+
+    /**
+     * Close status of handed-off sessions
+     */
+    public static final CloseStatus HANDED_OFF = CloseStatus.SERVICE_RESTARTED;
+
+    /**
+     * Session attribute set once the session was told to reconnect elsewhere
+     */
+    private static final String HANDED_OFF_ATTRIBUTE = SessionDrainer.class.getName() + ".handedOff";
+
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private final OutboundMessageDispatcher outbound;
+    private final ScheduledExecutorService scheduler;
+    private final SignalingMetrics metrics;
+    private final SignalingEventLog eventLog;
+    private final boolean enabled;
+    private final long spreadNanos;
+    private final long flushTimeoutNanos;
+    private final long checkIntervalNanos;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean running;
+
+    public SessionDrainer(SignalingProperties properties, OutboundMessageDispatcher outbound,
+                          @Qualifier("signalingScheduler") ScheduledExecutorService scheduler,
+                          SignalingMetrics metrics, SignalingEventLog eventLog) {
+        SignalingProperties.Drain config = properties.getDrain();
+        this.outbound = outbound;
+        this.scheduler = scheduler;
+        this.metrics = metrics;
+        this.eventLog = eventLog;
+        this.enabled = config.isEnabled();
+        this.spreadNanos = config.getSpread().toNanos();
+        this.flushTimeoutNanos = config.getFlushTimeout().toNanos();
+        this.checkIntervalNanos = config.getCheckInterval().toNanos();
+        metrics.bindDraining(() -> draining.get() ? sessions.size() : 0);
+    }
+
+    /**
+     * Start watching a newly opened session
+     *
+     * @return false if the node is draining - the session was told to reconnect elsewhere
+     */
+    public boolean track(WebSocketSession session) {
+        if (!enabled) {
+            return true;
+        }
+        sessions.put(session.getId(), session);
+        if (draining.get()) {
+            handOff(session, "turned-away");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Whether a register message may be handled; while draining the session is
+     * told to reconnect elsewhere instead
+     */
+    public boolean admitRegistration(WebSocketSession session) {
+        if (!draining.get()) {
+            return true;
+        }
+        handOff(session, "turned-away");
+        return false;
+    }
+
+    /**
+     * Stop watching a closed session
+     */
+    public void release(WebSocketSession session) {
+        sessions.remove(session.getId());
+    }
+
+    public boolean isDraining() {
+        return draining.get();
+    }
+
+    /**
+     * Sessions being watched (for testing and monitoring)
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Stop taking registrations and hand every session off, then run onDrained
+     * (on the shared timer) once they are gone or the flush timeout passed
+     */
+    public void drain(Runnable onDrained) {
+        if (!enabled || !draining.compareAndSet(false, true)) {
+            onDrained.run();
+            return;
+        }
+
+        List<WebSocketSession> connected = List.copyOf(sessions.values());
+        eventLog.drain("started-" + connected.size());
+        for (WebSocketSession session : connected) {
+            long delayNanos = spreadNanos > 0 ? ThreadLocalRandom.current().nextLong(spreadNanos) : 0;
+            scheduler.schedule(() -> handOff(session, "drained"), delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        Completion completion = new Completion(onDrained, System.nanoTime() + spreadNanos + flushTimeoutNanos);
+        completion.check = scheduler.scheduleWithFixedDelay(() -> checkDrained(completion),
+                checkIntervalNanos, checkIntervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // ---- SmartLifecycle ----
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        running = false;
+        drain(callback);
+    }
+
+    /**
+     * Starts the drain without waiting for it - Spring uses stop(Runnable)
+     */
+    @Override
+    public void stop() {
+        stop(() -> { });
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stopped before the web server (WebServerGracefulShutdownLifecycle runs in a lower phase)
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE;
+    }
+
+    /**
+     * Send "reconnect-elsewhere" once and close the session after it has been written
+     */
+    private void handOff(WebSocketSession session, String reason) {
+        if (!session.isOpen() || session.getAttributes().putIfAbsent(HANDED_OFF_ATTRIBUTE, Boolean.TRUE) != null) {
+            return;
+        }
+        outbound.send(session, ControlFrames.reconnectElsewhere());
+        outbound.closeWhenFlushed(session, HANDED_OFF);
+        metrics.messageSent(ControlFrames.RECONNECT_ELSEWHERE);
+        metrics.handedOff(reason);
+        eventLog.handedOff(session.getId(), reason);
+    }
+
+    /**
+     * Runs on the timer until every session is closed and flushed, or the deadline passed
+     */
+    private void checkDrained(Completion completion) {
+        try {
+            sessions.values().removeIf(session -> !session.isOpen());
+            boolean drained = sessions.isEmpty() && outbound.queuedBytes() == 0;
+            if (!drained && System.nanoTime() - completion.deadline < 0) {
+                return;
+            }
+
+            if (drained) {
+                eventLog.drain("drained");
+            } else {
+                eventLog.drain("timed-out-" + sessions.size());
+                for (WebSocketSession session : sessions.values()) {
+                    outbound.close(session, HANDED_OFF);
+                }
+            }
+            completion.finish();
+        } catch (RuntimeException e) {
+            // An exception would cancel the fixed-delay task and shutdown would wait for the phase timeout
+            eventLog.handlerError(null, e);
+            completion.finish();
+        }
+    }
+
+    /**
+     * The pending end of one drain
+     */
+    private static final class Completion {
+        private final Runnable onDrained;
+        private final long deadline;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile ScheduledFuture<?> check;
+
+        Completion(Runnable onDrained, long deadline) {
+            this.onDrained = onDrained;
+            this.deadline = deadline;
+        }
+
+        void finish() {
+            if (finished.compareAndSet(false, true)) {
+                ScheduledFuture<?> task = check;
+                if (task != null) {
+                    task.cancel(false);
+                }
+                onDrained.run();
+            }
+        }
+    }
+}
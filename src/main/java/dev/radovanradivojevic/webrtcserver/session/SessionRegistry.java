@@ -0,0 +1,206 @@
+package dev.radovanradivojevic.webrtcserver.session;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SessionRegistry - Who is connected as whom, in both directions
+ *
+ * Purpose: Every forwarded message needs two lookups - the sender's userId
+ * from its session and the recipient's session from the "to" userId. This
+ * registry keeps both directions behind one lock for writes and lock-free reads:
+ *
+ * - sender: the Registration is cached in the session's attributes, so
+ *   resolving the sender is a read of the session's own small attribute map
+ *   instead of a lookup in a map holding every connected session
+ * - recipient: one lookup by userId
+ *
+ * register() and unregister() update all directions under one lock, so
+ * re-registering cannot leave a stale reverse mapping behind, and closing an
+ * old session cannot remove the user's newer session.
+ *
+ * In SHARDED execution mode the user side is split into one slice per shard
+ * (ShardedEventLoops.shardOf(userId)), each with its own lock and map, so
+ * registrations on different event loops never contend.
+ *
+ * Structure: Slice[shards] of Map<userId, Registration>
+ */
+@Component
+public class SessionRegistry {
+
+    /**
+     * Session attribute holding the session's Registration
+     */
+    static final String REGISTRATION = SessionRegistry.class.getName() + ".registration";
+
+    private final Slice[] slices;
+
+    /**
+     * Fallback for sessions whose attribute map does not keep values (e.g. test doubles)
+     */
+    private final Map<String, Registration> bySession = new ConcurrentHashMap<>();
+
+    public SessionRegistry() {
+        this(1);
+    }
+
+    @Autowired
+    public SessionRegistry(SignalingProperties properties) {
+        this(properties.getExecution().getMode() == ExecutionMode.SHARDED ? properties.getExecution().getShards() : 1);
+    }
+
+    public SessionRegistry(int shards) {
+        this.slices = new Slice[shards];
+        for (int i = 0; i < shards; i++) {
+            slices[i] = new Slice();
+        }
+    }
+
+    /**
+     * Register session as userId
+     *
+     * A previous session of the same user is detached (it stays open but no
+     * longer receives messages); a previous user of the same session is dropped.
+     *
+     * @return the new registration
+     */
+    public Registration register(WebSocketSession session, String userId) {
+        // A session's messages are handled one at a time, so its own previous user cannot change meanwhile
+        Registration ownPrevious = bySession.get(session.getId());
+        if (ownPrevious != null && !ownPrevious.userId.equals(userId)) {
+            Slice previousSlice = slice(ownPrevious.userId);
+            synchronized (previousSlice) {
+                previousSlice.remove(ownPrevious);
+            }
+        }
+
+        Slice slice = slice(userId);
+        synchronized (slice) {
+            Registration userPrevious = slice.byUser.get(userId);
+            if (userPrevious != null && userPrevious.session != session) {
+                bySession.remove(userPrevious.session.getId(), userPrevious);
+                userPrevious.session.getAttributes().remove(REGISTRATION, userPrevious);
+            }
+
+            Registration registration = new Registration(userId, session);
+            slice.byUser.put(userId, registration);
+            bySession.put(session.getId(), registration);
+            session.getAttributes().put(REGISTRATION, registration);
+            return registration;
+        }
+    }
+
+    /**
+     * Remove session's registration, if it is still the current one for its user
+     *
+     * @return the removed registration, or null if the session was not (or no longer) registered
+     */
+    public Registration unregister(WebSocketSession session) {
+        Registration current = bySession.get(session.getId());
+        if (current == null) {
+            session.getAttributes().remove(REGISTRATION);
+            return null;
+        }
+        Slice slice = slice(current.userId);
+        synchronized (slice) {
+            Registration registration = bySession.remove(session.getId());
+            session.getAttributes().remove(REGISTRATION);
+            if (registration == null || slice.byUser.get(registration.userId) != registration) {
+                return null;
+            }
+            slice.remove(registration);
+            return registration;
+        }
+    }
+
+    /**
+     * The registration of the user connected on session, or null
+     */
+    public Registration of(WebSocketSession session) {
+        Object cached = session.getAttributes().get(REGISTRATION);
+        if (cached instanceof Registration registration) {
+            return registration;
+        }
+        return bySession.get(session.getId());
+    }
+
+    /**
+     * The userId registered on session, or null
+     */
+    public String userIdOf(WebSocketSession session) {
+        Registration registration = of(session);
+        return registration != null ? registration.userId : null;
+    }
+
+    /**
+     * The userId registered on the session with this id, or null
+     */
+    public String userIdOf(String sessionId) {
+        Registration registration = bySession.get(sessionId);
+        return registration != null ? registration.userId : null;
+    }
+
+    /**
+     * The current session of userId, or null
+     */
+    public WebSocketSession sessionOf(String userId) {
+        Registration registration = slice(userId).byUser.get(userId);
+        return registration != null ? registration.session : null;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Slice slice : slices) {
+            size += slice.byUser.size();
+        }
+        return size;
+    }
+
+    private Slice slice(String userId) {
+        return slices.length == 1 ? slices[0] : slices[ShardedEventLoops.shardOf(userId, slices.length)];
+    }
+
+    /**
+     * The users of one shard; writes hold the slice's monitor, reads take no lock
+     */
+    private final class Slice {
+        private final Map<String, Registration> byUser = new ConcurrentHashMap<>();
+
+        /**
+         * Drop registration if it is still its user's current one
+         */
+        void remove(Registration registration) {
+            bySession.remove(registration.session.getId(), registration);
+            registration.session.getAttributes().remove(REGISTRATION, registration);
+            byUser.remove(registration.userId, registration);
+        }
+    }
+
+    /**
+     * One user connected on one session
+     *
+     * Immutable; re-registering creates a new Registration.
+     */
+    public static final class Registration {
+        private final String userId;
+        private final WebSocketSession session;
+
+        Registration(String userId, WebSocketSession session) {
+            this.userId = userId;
+            this.session = session;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public WebSocketSession getSession() {
+            return session;
+        }
+    }
+}
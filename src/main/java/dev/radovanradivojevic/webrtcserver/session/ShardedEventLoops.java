@@ -0,0 +1,141 @@
+package dev.radovanradivojevic.webrtcserver.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ShardedEventLoops - One single-threaded event loop per shard of users
+ *
+ * Purpose: In PLATFORM mode every container thread may touch every user's
+ * state, so all cores contend on the same maps and lines of cache. SHARDED
+ * mode instead hashes each userId onto one of N shards and runs all inbound
+ * work of the user's session on that shard's loop:
+ * - the loop is a plain platform thread draining a lock-free mailbox, so
+ *   posting work never takes a lock and a busy loop never parks
+ * - a forward to a user of the same shard runs inline on the loop; a forward
+ *   to another shard's user is posted to that loop's mailbox
+ * - SessionRegistry partitions its routing table with the same shardOf(), so
+ *   a loop mostly reads and writes its own slice
+ *
+ * Mailboxes are FIFO, so everything one loop posts to another arrives in the
+ * order it was posted.
+ *
+ * Structure: EventLoop[shards], picked by shardOf(userId)
+ */
+public class ShardedEventLoops {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedEventLoops.class);
+
+    private final EventLoop[] loops;
+
+    public ShardedEventLoops(int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("signaling.execution.shards must be at least 1, was " + shards);
+        }
+        this.loops = new EventLoop[shards];
+        for (int i = 0; i < shards; i++) {
+            loops[i] = new EventLoop("signaling-shard-" + i);
+        }
+    }
+
+    /**
+     * Shard owning key, in [0, shards)
+     *
+     * The hash is spread like HashMap does, so userIds differing only in their
+     * last characters still land on different shards.
+     */
+    public static int shardOf(String key, int shards) {
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shards);
+    }
+
+    /**
+     * The loop owning key (a userId, or a session id before registration)
+     */
+    public EventLoop loopFor(String key) {
+        return loops[shardOf(key, loops.length)];
+    }
+
+    public int size() {
+        return loops.length;
+    }
+
+    /**
+     * Stop every loop; tasks still in the mailboxes are dropped
+     */
+    public void shutdown() {
+        for (EventLoop loop : loops) {
+            loop.shutdown();
+        }
+    }
+
+    /**
+     * A platform thread running the tasks of its mailbox in order
+     *
+     * Any thread may post; only the loop's own thread polls. When the mailbox
+     * is empty the thread parks, and a poster unparks it only if it announced
+     * that it is about to sleep - a busy loop costs posters no syscall.
+     */
+    public static final class EventLoop implements Executor {
+
+        private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+        private final Thread thread;
+        private volatile boolean sleeping;
+        private volatile boolean stopped;
+
+        EventLoop(String name) {
+            this.thread = Thread.ofPlatform().name(name).daemon(true).start(this::run);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (stopped) {
+                throw new RejectedExecutionException(thread.getName() + " is shut down");
+            }
+            mailbox.offer(task);
+            if (sleeping) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        /**
+         * Whether the calling thread is this loop
+         */
+        public boolean inLoop() {
+            return Thread.currentThread() == thread;
+        }
+
+        void shutdown() {
+            stopped = true;
+            LockSupport.unpark(thread);
+        }
+
+        private void run() {
+            while (!stopped) {
+                Runnable task = mailbox.poll();
+                if (task != null) {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        log.error("Event loop task failed", e);
+                    }
+                    continue;
+                }
+
+                // Announce the sleep before the last look: a task posted after it unparks us
+                sleeping = true;
+                if (mailbox.isEmpty() && !stopped) {
+                    LockSupport.park(this);
+                }
+                sleeping = false;
+            }
+            mailbox.clear();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package dev.radovanradivojevic.webrtcserver.wakeup;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CalleeWakeups - Wakes offline callees through the WakeupDispatcher, once per burst of calls
+ *
+ * Purpose: An offer for a user whose app is in the background found no
+ * session anywhere, and the call failed unless the app happened to reconnect
+ * within the pending TTL. Now every offer the PendingMessageBuffer holds for
+ * an offline user also asks for a wakeup:
+ *
+ * 1. The first held offer opens a batch for the callee; offers from other
+ *    callers within the batch window join it
+ * 2. When the window closes, the batch is handed to the wakeup executor, which
+ *    calls the WakeupDispatcher once with all callers of the batch
+ * 3. For dedupe-interval after a successful dispatch, further offers for the
+ *    callee are deduplicated - its device is already waking up
+ * 4. The callee registering, or every caller of an unsent batch hanging up,
+ *    cancels the batch
+ *
+ * The held offers themselves stay in the PendingMessageBuffer and are
+ * delivered when the callee registers, so signaling.pending.ttl is how long a
+ * woken app has to connect.
+ *
+ * The signaling thread only updates the batch map; the timer only enqueues,
+ * and the dispatcher (which may block on a push service) runs on the wakeup
+ * executor. Without a WakeupDispatcher bean every method returns right away.
+ *
+ * Structure: Map<calleeId, Batch>
+ */
+@Component
+public class CalleeWakeups {
+
+    private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+    private final WakeupDispatcher dispatcher;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final SignalingMetrics metrics;
+    private final SignalingEventLog eventLog;
+    private final long windowNanos;
+    private final long dedupeIntervalNanos;
+
+    @Autowired
+    public CalleeWakeups(SignalingProperties properties, ObjectProvider<WakeupDispatcher> dispatcher,
+                         @Qualifier("wakeupExecutor") Executor executor,
+                         @Qualifier("signalingScheduler") ScheduledExecutorService scheduler,
+                         SignalingMetrics metrics, SignalingEventLog eventLog) {
+        this(properties, dispatcher.getIfAvailable(), executor, scheduler, metrics, eventLog);
+    }
+
+    /**
+     * @param dispatcher null to turn wakeups off
+     */
+    public CalleeWakeups(SignalingProperties properties, WakeupDispatcher dispatcher, Executor executor,
+                         ScheduledExecutorService scheduler, SignalingMetrics metrics, SignalingEventLog eventLog) {
+        SignalingProperties.Wakeup config = properties.getWakeup();
+        this.dispatcher = config.isEnabled() ? dispatcher : null;
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.metrics = metrics;
+        this.eventLog = eventLog;
+        this.windowNanos = config.getWindow().toNanos();
+        this.dedupeIntervalNanos = config.getDedupeInterval().toNanos();
+    }
+
+    /**
+     * An offer from callerId was held for calleeId, who is not connected anywhere
+     */
+    public void offerHeld(String callerId, String calleeId) {
+        if (dispatcher == null) {
+            return;
+        }
+        Batch[] opened = new Batch[1];
+        boolean[] joined = new boolean[1];
+        batches.compute(calleeId, (id, batch) -> {
+            if (batch == null) {
+                batch = new Batch(id, System.currentTimeMillis());
+                opened[0] = batch;
+            }
+            joined[0] = !batch.sent && batch.callers.add(callerId);
+            return batch;
+        });
+
+        if (opened[0] != null) {
+            Batch batch = opened[0];
+            scheduler.schedule(() -> executor.execute(() -> send(batch)), windowNanos, TimeUnit.NANOSECONDS);
+        } else if (!joined[0]) {
+            metrics.wakeup("deduplicated");
+        }
+    }
+
+    /**
+     * callerId hung up before calleeId came online - it no longer needs waking for this call
+     */
+    public void cancel(String callerId, String calleeId) {
+        if (dispatcher == null) {
+            return;
+        }
+        boolean[] cancelled = new boolean[1];
+        batches.computeIfPresent(calleeId, (id, batch) -> {
+            if (batch.sent || !batch.callers.remove(callerId) || !batch.callers.isEmpty()) {
+                return batch;
+            }
+            cancelled[0] = true;
+            return null;
+        });
+        if (cancelled[0]) {
+            metrics.wakeup("cancelled");
+        }
+    }
+
+    /**
+     * userId registered - an unsent wakeup is no longer needed, and the next
+     * offer after it disconnects again may wake it
+     */
+    public void registered(String userId) {
+        if (dispatcher == null) {
+            return;
+        }
+        Batch batch = batches.remove(userId);
+        if (batch != null && !batch.sent) {
+            metrics.wakeup("cancelled");
+        }
+    }
+
+    /**
+     * Callees with an open or recently sent batch (for testing and monitoring)
+     */
+    public int size() {
+        return batches.size();
+    }
+
+    /**
+     * Runs on the wakeup executor once the batch window closed
+     */
+    private void send(Batch batch) {
+        Wakeup[] wakeup = new Wakeup[1];
+        batches.computeIfPresent(batch.calleeId, (id, current) -> {
+            if (current == batch && !batch.sent) {
+                batch.sent = true;
+                wakeup[0] = new Wakeup(id, batch.callers.stream().toList(), batch.openedAtMillis);
+            }
+            return current;
+        });
+        if (wakeup[0] == null) {
+            // The callee registered or every caller hung up during the window
+            return;
+        }
+
+        try {
+            dispatcher.dispatch(wakeup[0]);
+        } catch (Exception e) {
+            // Not deduplicated: the next held offer may try again
+            batches.remove(batch.calleeId, batch);
+            metrics.wakeup("failed");
+            eventLog.wakeupFailed(batch.calleeId, e);
+            return;
+        }
+        metrics.wakeup("sent");
+        eventLog.wakeup(batch.calleeId, wakeup[0].getCallerIds().size());
+        scheduler.schedule(() -> {
+            batches.remove(batch.calleeId, batch);
+        }, dedupeIntervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Callers waiting for one callee; only read and written inside the map's compute functions
+     */
+    private static final class Batch {
+        private final String calleeId;
+        private final long openedAtMillis;
+        private final Set<String> callers = new LinkedHashSet<>();
+        private boolean sent;
+
+        Batch(String calleeId, long openedAtMillis) {
+            this.calleeId = calleeId;
+            this.openedAtMillis = openedAtMillis;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package dev.radovanradivojevic.webrtcserver.wakeup;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * InMemoryWakeupDispatcher - WakeupDispatcher that only records what it was asked to send
+ *
+ * Stands in for a push service in tests and local setups; declare it as a
+ * bean to see which wakeups the server would send.
+ */
+public class InMemoryWakeupDispatcher implements WakeupDispatcher {
+
+    private final List<Wakeup> wakeups = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void dispatch(Wakeup wakeup) {
+        wakeups.add(wakeup);
+    }
+
+    /**
+     * Every wakeup dispatched so far, oldest first
+     */
+    public List<Wakeup> getWakeups() {
+        return List.copyOf(wakeups);
+    }
+
+    public void clear() {
+        wakeups.clear();
+    }
+}
@@ -0,0 +1,46 @@
+package dev.radovanradivojevic.webrtcserver.wakeup;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One wakeup for an offline callee: everyone who called during the batch window
+ */
+public class Wakeup {
+
+    private final String recipientId;
+    private final List<String> callerIds;
+    private final long firstOfferAtMillis;
+
+    public Wakeup(String recipientId, List<String> callerIds, long firstOfferAtMillis) {
+        this.recipientId = recipientId;
+        this.callerIds = List.copyOf(callerIds);
+        this.firstOfferAtMillis = firstOfferAtMillis;
+    }
+
+    /**
+     * User to wake up
+     */
+    public String getRecipientId() {
+        return recipientId;
+    }
+
+    /**
+     * Senders of the held offers, in the order they called
+     */
+    public List<String> getCallerIds() {
+        return callerIds;
+    }
+
+    /**
+     * When the first of the offers was held
+     */
+    public Instant getFirstOfferAt() {
+        return Instant.ofEpochMilli(firstOfferAtMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "Wakeup{recipientId=" + recipientId + ", callerIds=" + callerIds + "}";
+    }
+}
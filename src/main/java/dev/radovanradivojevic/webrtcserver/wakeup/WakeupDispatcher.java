@@ -0,0 +1,26 @@
+package dev.radovanradivojevic.webrtcserver.wakeup;
+
+/**
+ * WakeupDispatcher - Wakes a callee's device so its app connects and registers
+ *
+ * Called when offers are held for a user who is not connected anywhere,
+ * typically a mobile app the OS has suspended in the background. An
+ * implementation sends a push notification (APNs, FCM, ...) for the user.
+ *
+ * Calls come from CalleeWakeups on a dedicated wakeup executor, never on a
+ * signaling thread, so an implementation may block on its push service.
+ * Each recipient gets at most one call per batch window, with every caller
+ * of that window; the held offers are delivered once the callee registers.
+ *
+ * Wakeups are off until a WakeupDispatcher bean is declared.
+ */
+public interface WakeupDispatcher {
+
+    /**
+     * Wake the device(s) of wakeup.getRecipientId()
+     *
+     * @throws Exception if the push service refused or could not be reached;
+     *                   the wakeup is counted as failed and not retried
+     */
+    void dispatch(Wakeup wakeup) throws Exception;
+}
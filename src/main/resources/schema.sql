@@ -0,0 +1,14 @@
+-- Presence and call audit (see JdbcAuditStore); append-only
+CREATE TABLE IF NOT EXISTS signaling_audit (
+    id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_type VARCHAR(16)  NOT NULL,
+    user_id    VARCHAR(255) NOT NULL,
+    peer_id    VARCHAR(255),
+    session_id VARCHAR(64),
+    reason     VARCHAR(32),
+    created_at TIMESTAMP    NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS signaling_audit_user ON signaling_audit (user_id, id);
+CREATE INDEX IF NOT EXISTS signaling_audit_peer ON signaling_audit (peer_id, id);
+CREATE INDEX IF NOT EXISTS signaling_audit_created ON signaling_audit (created_at);
@@ -1,13 +1,28 @@
 package dev.radovanradivojevic.webrtcserver;
 
+import dev.radovanradivojevic.webrtcserver.audit.AuditController;
+import dev.radovanradivojevic.webrtcserver.call.CallTraceController;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 class WebRtcServerApplicationTests {
 
+    @Autowired
+    private ApplicationContext context;
+
     @Test
     void contextLoads() {
     }
 
+    @Test
+    void testHistoryEndpointsAreOffByDefault() {
+        assertTrue(context.getBeansOfType(AuditController.class).isEmpty());
+        assertTrue(context.getBeansOfType(CallTraceController.class).isEmpty());
+    }
+
 }
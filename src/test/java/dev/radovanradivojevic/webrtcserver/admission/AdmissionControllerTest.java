@@ -0,0 +1,174 @@
+package dev.radovanradivojevic.webrtcserver.admission;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import dev.radovanradivojevic.webrtcserver.session.OutboundMessageDispatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AdmissionControllerTest {
+
+    private SignalingProperties properties;
+    private SignalingEventLog eventLog;
+    private MeterRegistry registry;
+    private ScheduledExecutorService scheduler;
+    private WebSocketSession session;
+    private OutboundMessageDispatcher outbound;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SignalingProperties();
+        eventLog = new SignalingEventLog(properties);
+        registry = new SimpleMeterRegistry();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session123");
+        when(session.isOpen()).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        scheduler.shutdownNow();
+        eventLog.close();
+    }
+
+    @Test
+    void testFloodIsRejectedWithOneErrorFrame() throws Exception {
+        properties.getRateLimit().getIceCandidate().setRate(1);
+        properties.getRateLimit().getIceCandidate().setBurst(3);
+        AdmissionController admission = controller(Runnable::run);
+
+        int admitted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (admission.admit(session, "ice-candidate")) {
+                admitted++;
+            }
+        }
+
+        assertEquals(3, admitted);
+        verify(session, times(1)).sendMessage(
+                new TextMessage("{\"type\":\"error\",\"code\":\"rate-limited\",\"messageType\":\"ice-candidate\"}"));
+        assertEquals(7, rejected("rate-limited", "ice-candidate"));
+    }
+
+    @Test
+    void testLimitsArePerMessageType() {
+        properties.getRateLimit().getIceCandidate().setRate(1);
+        properties.getRateLimit().getIceCandidate().setBurst(1);
+        AdmissionController admission = controller(Runnable::run);
+
+        assertTrue(admission.admit(session, "ice-candidate"));
+        assertFalse(admission.admit(session, "ice-candidate"));
+
+        // The ICE flood did not use up the session's offers
+        assertTrue(admission.admit(session, "offer"));
+        assertTrue(admission.admit(session, "end-call"));
+    }
+
+    @Test
+    void testLimitsArePerSession() {
+        properties.getRateLimit().getOffer().setRate(1);
+        properties.getRateLimit().getOffer().setBurst(1);
+        AdmissionController admission = controller(Runnable::run);
+        WebSocketSession other = mock(WebSocketSession.class);
+        when(other.getId()).thenReturn("otherSession");
+
+        assertTrue(admission.admit(session, "offer"));
+        assertFalse(admission.admit(session, "offer"));
+        assertTrue(admission.admit(other, "offer"));
+    }
+
+    @Test
+    void testNewStreakGetsNewErrorFrame() throws Exception {
+        properties.getRateLimit().getOffer().setRate(50);
+        properties.getRateLimit().getOffer().setBurst(1);
+        AdmissionController admission = controller(Runnable::run);
+
+        assertTrue(admission.admit(session, "offer"));
+        assertFalse(admission.admit(session, "offer"));
+        Thread.sleep(40);
+        assertTrue(admission.admit(session, "offer"));
+        assertFalse(admission.admit(session, "offer"));
+
+        verify(session, times(2)).sendMessage(any());
+    }
+
+    @Test
+    void testSaturatedNodeShedsIceBeforeOffers() {
+        properties.getRateLimit().setEnabled(false);
+        properties.getAdmission().setRate(1);
+        properties.getAdmission().setBurst(10);
+        properties.getAdmission().setIceReserve(0.5);
+        AdmissionController admission = controller(Runnable::run);
+
+        int ice = 0;
+        while (admission.admit(session, "ice-candidate")) {
+            ice++;
+        }
+        assertEquals(5, ice, "ICE stops at the reserve");
+
+        int offers = 0;
+        while (admission.admit(session, "offer")) {
+            offers++;
+        }
+        assertEquals(5, offers, "Offers may use the reserve");
+
+        // end-call and register are never shed
+        assertTrue(admission.admit(session, "end-call"));
+        assertTrue(admission.admit(session, "register"));
+        assertEquals(1, rejected("overloaded", "ice-candidate"));
+        assertEquals(1, rejected("overloaded", "offer"));
+    }
+
+    @Test
+    void testOutboundBacklogShedsIceOnly() {
+        properties.getRateLimit().setEnabled(false);
+        properties.getAdmission().setMaxOutboundBacklog(10);
+
+        // Nothing is ever written, so everything sent stays queued
+        Executor stalled = task -> { };
+        AdmissionController admission = controller(stalled);
+        outbound.send(session, new TextMessage("a frame longer than ten bytes"));
+
+        admission.checkBacklog();
+
+        assertTrue(admission.isBacklogged());
+        assertFalse(admission.admit(session, "ice-candidate"));
+        assertTrue(admission.admit(session, "offer"));
+        assertTrue(admission.admit(session, "answer"));
+    }
+
+    @Test
+    void testDisabledAdmitsEverything() {
+        properties.getRateLimit().setEnabled(false);
+        properties.getAdmission().setEnabled(false);
+        AdmissionController admission = controller(Runnable::run);
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(admission.admit(session, "ice-candidate"));
+        }
+    }
+
+    private AdmissionController controller(Executor writer) {
+        SignalingMetrics metrics = new SignalingMetrics(registry, eventLog);
+        outbound = new OutboundMessageDispatcher(properties, writer, eventLog, metrics);
+        return new AdmissionController(properties, outbound, scheduler, metrics, eventLog);
+    }
+
+    private double rejected(String reason, String type) {
+        return registry.get("signaling.messages.rejected").tag("reason", reason).tag("type", type).counter().count();
+    }
+}
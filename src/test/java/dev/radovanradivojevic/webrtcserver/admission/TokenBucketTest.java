@@ -0,0 +1,71 @@
+package dev.radovanradivojevic.webrtcserver.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void testBurstThenSustainedRate() {
+        long now = System.nanoTime();
+        TokenBucket bucket = new TokenBucket(10, 5);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire(now), "Token " + i + " of the burst");
+        }
+        assertFalse(bucket.tryAcquire(now));
+
+        // One token per 100ms at 10/s
+        assertFalse(bucket.tryAcquire(now + SECOND / 20));
+        assertTrue(bucket.tryAcquire(now + SECOND / 10));
+        assertFalse(bucket.tryAcquire(now + SECOND / 10));
+    }
+
+    @Test
+    void testIdleBucketRefillsOnlyToBurst() {
+        long now = System.nanoTime();
+        TokenBucket bucket = new TokenBucket(10, 5);
+
+        long later = now + 60 * SECOND;
+        assertEquals(5, bucket.available(later));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire(later));
+        }
+        assertFalse(bucket.tryAcquire(later));
+    }
+
+    @Test
+    void testReserveIsLeftForTryAcquireWithoutReserve() {
+        long now = System.nanoTime();
+        TokenBucket bucket = new TokenBucket(10, 10);
+
+        for (int i = 0; i < 6; i++) {
+            assertTrue(bucket.tryAcquire(now, 4));
+        }
+        assertFalse(bucket.tryAcquire(now, 4), "The last 4 tokens are reserved");
+        assertEquals(4, bucket.available(now));
+        for (int i = 0; i < 4; i++) {
+            assertTrue(bucket.tryAcquire(now));
+        }
+        assertFalse(bucket.tryAcquire(now));
+    }
+
+    @Test
+    void testAcquireNeverFailsAndNeverGoesBelowEmpty() {
+        long now = System.nanoTime();
+        TokenBucket bucket = new TokenBucket(10, 2);
+
+        for (int i = 0; i < 100; i++) {
+            bucket.acquire(now);
+        }
+        assertEquals(0, bucket.available(now));
+
+        // Forced acquisitions did not build up debt: the next token is back after one interval
+        assertTrue(bucket.tryAcquire(now + SECOND / 10));
+    }
+}
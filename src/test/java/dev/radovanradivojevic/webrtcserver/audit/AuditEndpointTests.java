@@ -0,0 +1,43 @@
+package dev.radovanradivojevic.webrtcserver.audit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Same configuration as PrometheusEndpointTests, so the application context is shared
+@AutoConfigureObservability(tracing = false)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"signaling.audit.endpoint-enabled=true", "signaling.trace.endpoint-enabled=true"})
+class AuditEndpointTests {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private AuditLog audit;
+
+    @Test
+    void testRecentCallsAreServedFromDatabase() {
+        audit.call("offer", "audit-dad", "audit-son");
+        audit.call("end-call", "audit-son", "audit-dad");
+        audit.flush();
+
+        String body = restTemplate.getForObject("/audit/calls?userId=audit-dad&limit=10", String.class);
+
+        assertNotNull(body);
+        assertTrue(body.startsWith("[{\"type\":\"CALL_ENDED\""), body);
+        assertTrue(body.contains("\"reason\":\"end-call\""), body);
+        assertTrue(body.contains("\"type\":\"CALL_STARTED\""), body);
+    }
+
+    @Test
+    void testCallsOfAllUsersAreNotListed() {
+        assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.getForEntity("/audit/calls?limit=10", String.class).getStatusCode());
+    }
+}
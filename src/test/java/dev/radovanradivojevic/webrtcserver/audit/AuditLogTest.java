@@ -0,0 +1,255 @@
+package dev.radovanradivojevic.webrtcserver.audit;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditLogTest {
+
+    private SignalingProperties properties;
+    private SignalingEventLog eventLog;
+    private MeterRegistry registry;
+    private RecordingStore store;
+    private AuditLog audit;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SignalingProperties();
+        eventLog = new SignalingEventLog(properties);
+        registry = new SimpleMeterRegistry();
+        store = new RecordingStore();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (audit != null) {
+            audit.close();
+        }
+        eventLog.close();
+    }
+
+    @Test
+    void testRecordingDoesNotWriteOnCallerThread() {
+        // Long interval and large batches: nothing can be flushed during the test
+        properties.getAudit().setFlushInterval(Duration.ofMinutes(1));
+        audit = newAuditLog();
+
+        audit.registered("session1", "dad");
+        audit.call("offer", "dad", "son");
+
+        assertTrue(store.batches.isEmpty());
+        assertEquals(2, audit.getQueued());
+
+        audit.flush();
+        assertEquals(1, store.batches.size(), "Both events go out in one batch");
+        assertEquals(0, audit.getQueued());
+        assertEquals(2.0, registry.counter("signaling.audit.events", "outcome", "written").count());
+    }
+
+    @Test
+    void testFullBatchIsFlushedWithoutWaitingForInterval() throws Exception {
+        properties.getAudit().setFlushInterval(Duration.ofMinutes(1));
+        properties.getAudit().setBatchSize(3);
+        audit = newAuditLog();
+
+        audit.registered("session1", "dad");
+        audit.registered("session2", "mom");
+        audit.registered("session3", "son");
+
+        waitFor(() -> store.events().size() == 3);
+        assertEquals(List.of(3), store.batchSizes());
+    }
+
+    @Test
+    void testEventsAreFlushedAfterInterval() throws Exception {
+        properties.getAudit().setFlushInterval(Duration.ofMillis(20));
+        audit = newAuditLog();
+
+        audit.registered("session1", "dad");
+
+        waitFor(() -> store.events().size() == 1);
+        AuditEvent event = store.events().get(0);
+        assertEquals(AuditEventType.REGISTERED, event.getType());
+        assertEquals("dad", event.getUserId());
+        assertEquals("session1", event.getSessionId());
+    }
+
+    @Test
+    void testCallMessagesMapToCallEvents() {
+        properties.getAudit().setFlushInterval(Duration.ofMinutes(1));
+        audit = newAuditLog();
+
+        audit.call("offer", "dad", "son");
+        audit.call("answer", "son", "dad");
+        audit.call("ice-candidate", "son", "dad");
+        audit.call("end-call", "son", "dad");
+        audit.callTornDown("mom", "dad");
+        audit.flush();
+
+        List<AuditEvent> events = store.events();
+        assertEquals(List.of(AuditEventType.CALL_STARTED, AuditEventType.CALL_ANSWERED,
+                        AuditEventType.CALL_ENDED, AuditEventType.CALL_ENDED),
+                events.stream().map(AuditEvent::getType).toList());
+        assertEquals("end-call", events.get(2).getReason());
+        assertEquals("disconnected", events.get(3).getReason());
+        assertEquals("dad", events.get(3).getPeerId());
+    }
+
+    @Test
+    void testFullQueueDropsInsteadOfBlocking() {
+        properties.getAudit().setFlushInterval(Duration.ofMinutes(1));
+        properties.getAudit().setQueueCapacity(2);
+        audit = newAuditLog();
+
+        audit.registered("session1", "dad");
+        audit.registered("session2", "mom");
+        audit.registered("session3", "son");
+
+        assertEquals(2, audit.getQueued());
+        assertEquals(1.0, registry.counter("signaling.audit.events", "outcome", "dropped").count());
+    }
+
+    @Test
+    void testFailingStoreIsCountedAndLaterBatchesStillGoOut() {
+        properties.getAudit().setFlushInterval(Duration.ofMinutes(1));
+        audit = newAuditLog();
+        store.failNext = true;
+
+        audit.registered("session1", "dad");
+        audit.flush();
+        audit.registered("session2", "mom");
+        audit.flush();
+
+        assertEquals(1.0, registry.counter("signaling.audit.events", "outcome", "failed").count());
+        assertEquals(List.of("mom"), store.events().stream().map(AuditEvent::getUserId).toList());
+    }
+
+    @Test
+    void testCloseWritesWhatIsQueued() throws Exception {
+        properties.getAudit().setFlushInterval(Duration.ofMinutes(1));
+        audit = newAuditLog();
+
+        audit.registered("session1", "dad");
+        audit.close();
+
+        assertEquals(1, store.events().size());
+    }
+
+    @Test
+    void testDisabledAuditRecordsNothing() {
+        properties.getAudit().setEnabled(false);
+        audit = newAuditLog();
+
+        audit.registered("session1", "dad");
+        audit.flush();
+
+        assertEquals(0, audit.getQueued());
+        assertTrue(store.events().isEmpty());
+    }
+
+    @Test
+    void testRecentCallsLimitIsCapped() {
+        properties.getAudit().setMaxQueryLimit(2);
+        audit = new AuditLog(properties, new InMemoryAuditStore(), new SignalingMetrics(registry, eventLog), eventLog);
+
+        for (int i = 0; i < 5; i++) {
+            audit.call("offer", "dad", "son" + i);
+        }
+        audit.flush();
+
+        List<AuditEvent> recent = audit.recentCalls(null, 100);
+        assertEquals(2, recent.size());
+        assertEquals("son4", recent.get(0).getPeerId(), "Newest first");
+    }
+
+    @Test
+    void testEventsPastTheRetentionArePruned() {
+        properties.getAudit().setFlushInterval(Duration.ofMinutes(1));
+        properties.getAudit().setRetention(Duration.ofHours(1));
+        InMemoryAuditStore kept = new InMemoryAuditStore();
+        long now = System.currentTimeMillis();
+        kept.insert(List.of(
+                new AuditEvent(AuditEventType.CALL_STARTED, "dad", "son", null, null, now - 7_200_000),
+                new AuditEvent(AuditEventType.CALL_STARTED, "mom", "son", null, null, now)));
+        audit = new AuditLog(properties, kept, new SignalingMetrics(registry, eventLog), eventLog);
+
+        audit.prune();
+
+        assertEquals(List.of("mom"), kept.getEvents().stream().map(AuditEvent::getUserId).toList());
+        assertEquals(1.0, registry.counter("signaling.audit.events", "outcome", "pruned").count());
+    }
+
+    @Test
+    void testFlusherPrunesEveryInterval() throws Exception {
+        properties.getAudit().setFlushInterval(Duration.ofMillis(10));
+        properties.getAudit().setPruneInterval(Duration.ofMillis(20));
+        audit = newAuditLog();
+
+        waitFor(() -> store.prunes.get() >= 2);
+    }
+
+    private AuditLog newAuditLog() {
+        return new AuditLog(properties, store, new SignalingMetrics(registry, eventLog), eventLog);
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier done) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!done.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the flusher");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Remembers every batch it was given
+     */
+    private static final class RecordingStore implements AuditStore {
+        private final List<List<AuditEvent>> batches = new CopyOnWriteArrayList<>();
+        private volatile boolean failNext;
+        private final AtomicInteger prunes = new AtomicInteger();
+
+        @Override
+        public void insert(List<AuditEvent> events) {
+            if (failNext) {
+                failNext = false;
+                throw new IllegalStateException("database down");
+            }
+            batches.add(List.copyOf(events));
+        }
+
+        @Override
+        public List<AuditEvent> recentCalls(String userId, int limit) {
+            return List.of();
+        }
+
+        @Override
+        public int deleteOlderThan(long cutoffMillis) {
+            prunes.incrementAndGet();
+            return 0;
+        }
+
+        List<AuditEvent> events() {
+            List<AuditEvent> all = new ArrayList<>();
+            batches.forEach(all::addAll);
+            return all;
+        }
+
+        List<Integer> batchSizes() {
+            return batches.stream().map(List::size).toList();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package dev.radovanradivojevic.webrtcserver.audit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcAuditStoreTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private JdbcAuditStore store;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        store = new JdbcAuditStore(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void testBatchIsInsertedInOrder() {
+        store.insert(List.of(
+                event(AuditEventType.REGISTERED, "dad", null, null, 1000),
+                event(AuditEventType.CALL_STARTED, "dad", "son", null, 2000),
+                event(AuditEventType.DISCONNECTED, "dad", null, null, 3000)));
+
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM signaling_audit", Integer.class));
+        assertEquals(List.of("REGISTERED", "CALL_STARTED", "DISCONNECTED"),
+                jdbcTemplate.queryForList("SELECT event_type FROM signaling_audit ORDER BY id", String.class));
+    }
+
+    @Test
+    void testOversizedIdsAreCutInsteadOfFailingTheBatch() {
+        String longId = "x".repeat(JdbcAuditStore.MAX_ID_LENGTH + 100);
+
+        store.insert(List.of(
+                event(AuditEventType.CALL_STARTED, "dad", longId, null, 1000),
+                event(AuditEventType.REGISTERED, "son", null, null, 2000)));
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM signaling_audit", Integer.class));
+        assertEquals(JdbcAuditStore.MAX_ID_LENGTH, jdbcTemplate.queryForObject(
+                "SELECT LENGTH(peer_id) FROM signaling_audit WHERE user_id = 'dad'", Integer.class));
+    }
+
+    @Test
+    void testRecentCallsOfUserCoverBothSidesNewestFirst() {
+        store.insert(List.of(
+                event(AuditEventType.REGISTERED, "son", null, null, 1000),
+                event(AuditEventType.CALL_STARTED, "dad", "son", null, 2000),
+                event(AuditEventType.CALL_ANSWERED, "son", "dad", null, 3000),
+                event(AuditEventType.CALL_STARTED, "mom", "dad", null, 4000),
+                event(AuditEventType.CALL_ENDED, "son", "dad", "end-call", 5000)));
+
+        List<AuditEvent> calls = store.recentCalls("son", 10);
+
+        assertEquals(List.of(AuditEventType.CALL_ENDED, AuditEventType.CALL_ANSWERED, AuditEventType.CALL_STARTED),
+                calls.stream().map(AuditEvent::getType).toList());
+        AuditEvent ended = calls.get(0);
+        assertEquals("son", ended.getUserId());
+        assertEquals("dad", ended.getPeerId());
+        assertEquals("end-call", ended.getReason());
+        assertEquals(5000, ended.getTimestamp().toEpochMilli());
+    }
+
+    @Test
+    void testRecentCallsOfAllUsersAreLimited() {
+        store.insert(List.of(
+                event(AuditEventType.CALL_STARTED, "dad", "son", null, 1000),
+                event(AuditEventType.CALL_STARTED, "mom", "dad", null, 2000),
+                event(AuditEventType.DISCONNECTED, "mom", null, null, 3000)));
+
+        List<AuditEvent> calls = store.recentCalls(null, 1);
+
+        assertEquals(1, calls.size());
+        assertEquals("mom", calls.get(0).getUserId());
+    }
+
+    @Test
+    void testEventsBeforeTheCutoffAreDeleted() {
+        store.insert(List.of(
+                event(AuditEventType.CALL_STARTED, "dad", "son", null, 1000),
+                event(AuditEventType.CALL_ENDED, "dad", "son", "end-call", 2000),
+                event(AuditEventType.CALL_STARTED, "mom", "dad", null, 3000)));
+
+        assertEquals(2, store.deleteOlderThan(2500));
+
+        assertEquals(List.of("mom"), store.recentCalls(null, 10).stream().map(AuditEvent::getUserId).toList());
+    }
+
+    private static AuditEvent event(AuditEventType type, String userId, String peerId, String reason, long millis) {
+        return new AuditEvent(type, userId, peerId, "session-" + userId, reason, millis);
+    }
+}
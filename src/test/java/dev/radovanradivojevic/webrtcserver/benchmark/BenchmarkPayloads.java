@@ -0,0 +1,109 @@
+package dev.radovanradivojevic.webrtcserver.benchmark;
+
+/**
+ * Realistic signaling payloads for benchmarks
+ *
+ * The SDP below is shaped like what the Android WebRTC library produces for an
+ * audio + video offer (~3 KB): many codec, rtcp-fb and extmap lines.
+ */
+public final class BenchmarkPayloads {
+
+    private BenchmarkPayloads() {
+    }
+
+    /**
+     * Audio + video offer SDP of roughly 3 KB
+     */
+    public static String sdp() {
+        StringBuilder sdp = new StringBuilder(4096);
+        sdp.append("v=0\r\n")
+                .append("o=- 4611731400430051336 2 IN IP4 127.0.0.1\r\n")
+                .append("s=-\r\n")
+                .append("t=0 0\r\n")
+                .append("a=group:BUNDLE 0 1\r\n")
+                .append("a=extmap-allow-mixed\r\n")
+                .append("a=msid-semantic: WMS stream\r\n")
+                .append("m=audio 9 UDP/TLS/RTP/SAVPF 111 63 9 0 8 13 110 126\r\n")
+                .append("c=IN IP4 0.0.0.0\r\n")
+                .append("a=rtcp:9 IN IP4 0.0.0.0\r\n")
+                .append("a=ice-ufrag:Fq3m\r\n")
+                .append("a=ice-pwd:Kx9vG8cW3m4QzN7pT2sL5hYd\r\n")
+                .append("a=ice-options:trickle renomination\r\n")
+                .append("a=fingerprint:sha-256 6B:8B:F0:65:5F:78:E2:51:3B:AC:6F:F3:3F:46:1B:35:")
+                .append("DC:B8:5F:64:1A:24:C2:43:F0:A1:58:D0:A1:2C:19:08\r\n")
+                .append("a=setup:actpass\r\n")
+                .append("a=mid:0\r\n")
+                .append("a=extmap:1 urn:ietf:params:rtp-hdrext:ssrc-audio-level\r\n")
+                .append("a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time\r\n")
+                .append("a=extmap:3 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01\r\n")
+                .append("a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid\r\n")
+                .append("a=sendrecv\r\n")
+                .append("a=msid:stream audio0\r\n")
+                .append("a=rtcp-mux\r\n")
+                .append("a=rtpmap:111 opus/48000/2\r\n")
+                .append("a=rtcp-fb:111 transport-cc\r\n")
+                .append("a=fmtp:111 minptime=10;useinbandfec=1\r\n")
+                .append("a=rtpmap:63 red/48000/2\r\n")
+                .append("a=fmtp:63 111/111\r\n")
+                .append("a=rtpmap:9 G722/8000\r\n")
+                .append("a=rtpmap:0 PCMU/8000\r\n")
+                .append("a=rtpmap:8 PCMA/8000\r\n")
+                .append("a=rtpmap:13 CN/8000\r\n")
+                .append("a=rtpmap:110 telephone-event/48000\r\n")
+                .append("a=rtpmap:126 telephone-event/8000\r\n")
+                .append("a=ssrc:1001 cname:4TOk42mSjXCkVIa6\r\n")
+                .append("m=video 9 UDP/TLS/RTP/SAVPF 96 97 98 99 100 101 35 36 102 125 127\r\n")
+                .append("c=IN IP4 0.0.0.0\r\n")
+                .append("a=rtcp:9 IN IP4 0.0.0.0\r\n")
+                .append("a=ice-ufrag:Fq3m\r\n")
+                .append("a=ice-pwd:Kx9vG8cW3m4QzN7pT2sL5hYd\r\n")
+                .append("a=ice-options:trickle renomination\r\n")
+                .append("a=setup:actpass\r\n")
+                .append("a=mid:1\r\n")
+                .append("a=extmap:14 urn:ietf:params:rtp-hdrext:toffset\r\n")
+                .append("a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time\r\n")
+                .append("a=extmap:13 urn:3gpp:video-orientation\r\n")
+                .append("a=extmap:3 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01\r\n")
+                .append("a=extmap:5 http://www.webrtc.org/experiments/rtp-hdrext/playout-delay\r\n")
+                .append("a=extmap:6 http://www.webrtc.org/experiments/rtp-hdrext/video-content-type\r\n")
+                .append("a=extmap:7 http://www.webrtc.org/experiments/rtp-hdrext/video-timing\r\n")
+                .append("a=extmap:8 http://www.webrtc.org/experiments/rtp-hdrext/color-space\r\n")
+                .append("a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid\r\n")
+                .append("a=sendrecv\r\n")
+                .append("a=msid:stream video0\r\n")
+                .append("a=rtcp-mux\r\n")
+                .append("a=rtcp-rsize\r\n");
+        String[][] codecs = {
+                {"96", "VP8/90000"}, {"98", "VP9/90000"}, {"100", "H264/90000"},
+                {"35", "AV1/90000"}, {"102", "H264/90000"}
+        };
+        for (String[] codec : codecs) {
+            sdp.append("a=rtpmap:").append(codec[0]).append(' ').append(codec[1]).append("\r\n")
+                    .append("a=rtcp-fb:").append(codec[0]).append(" goog-remb\r\n")
+                    .append("a=rtcp-fb:").append(codec[0]).append(" transport-cc\r\n")
+                    .append("a=rtcp-fb:").append(codec[0]).append(" ccm fir\r\n")
+                    .append("a=rtcp-fb:").append(codec[0]).append(" nack\r\n")
+                    .append("a=rtcp-fb:").append(codec[0]).append(" nack pli\r\n");
+        }
+        sdp.append("a=fmtp:100 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42e01f\r\n")
+                .append("a=fmtp:102 level-asymmetry-allowed=1;packetization-mode=0;profile-level-id=42e01f\r\n")
+                .append("a=ssrc-group:FID 2002 2003\r\n")
+                .append("a=ssrc:2002 cname:4TOk42mSjXCkVIa6\r\n")
+                .append("a=ssrc:2003 cname:4TOk42mSjXCkVIa6\r\n");
+        return sdp.toString();
+    }
+
+    /**
+     * A host/srflx/relay candidate line like those sent during trickle ICE
+     */
+    public static String candidate(int n) {
+        return switch (n % 3) {
+            case 0 -> "candidate:" + (1000 + n) + " 1 udp 2122260223 192.168.1." + (n % 250)
+                    + " " + (50000 + n) + " typ host generation 0 ufrag Fq3m network-id 1 network-cost 10";
+            case 1 -> "candidate:" + (2000 + n) + " 1 udp 1686052607 203.0.113." + (n % 250)
+                    + " " + (40000 + n) + " typ srflx raddr 192.168.1.10 rport 50000 generation 0 ufrag Fq3m";
+            default -> "candidate:" + (3000 + n) + " 1 udp 41885439 198.51.100." + (n % 250)
+                    + " 3478 typ relay raddr 203.0.113.5 rport 40000 generation 0 ufrag Fq3m";
+        };
+    }
+}
@@ -0,0 +1,183 @@
+package dev.radovanradivojevic.webrtcserver.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.radovanradivojevic.webrtcserver.admission.AdmissionController;
+import dev.radovanradivojevic.webrtcserver.audit.AuditLog;
+import dev.radovanradivojevic.webrtcserver.audit.InMemoryAuditStore;
+import dev.radovanradivojevic.webrtcserver.call.CallRegistry;
+import dev.radovanradivojevic.webrtcserver.call.CallTracer;
+import dev.radovanradivojevic.webrtcserver.cluster.ClusterRouter;
+import dev.radovanradivojevic.webrtcserver.cluster.InMemorySessionDirectory;
+import dev.radovanradivojevic.webrtcserver.cluster.LoopbackNodeRelay;
+import dev.radovanradivojevic.webrtcserver.compression.FrameCompressor;
+import dev.radovanradivojevic.webrtcserver.config.SignalingConfig;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.handler.MessageTypeRegistry;
+import dev.radovanradivojevic.webrtcserver.handler.SignalingHandler;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import dev.radovanradivojevic.webrtcserver.model.CallMessage;
+import dev.radovanradivojevic.webrtcserver.model.RegisterMessage;
+import dev.radovanradivojevic.webrtcserver.relay.DeliveryReceipts;
+import dev.radovanradivojevic.webrtcserver.relay.IceCandidateBatcher;
+import dev.radovanradivojevic.webrtcserver.relay.PendingMessageBuffer;
+import dev.radovanradivojevic.webrtcserver.relay.StreamingRelayCodec;
+import dev.radovanradivojevic.webrtcserver.session.ExecutionMode;
+import dev.radovanradivojevic.webrtcserver.session.HeartbeatMonitor;
+import dev.radovanradivojevic.webrtcserver.session.InboundMessageDispatcher;
+import dev.radovanradivojevic.webrtcserver.session.OutboundMessageDispatcher;
+import dev.radovanradivojevic.webrtcserver.session.SessionDrainer;
+import dev.radovanradivojevic.webrtcserver.session.SessionRegistry;
+import dev.radovanradivojevic.webrtcserver.wakeup.CalleeWakeups;
+import dev.radovanradivojevic.webrtcserver.wakeup.WakeupDispatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ExecutionModeBenchmark - Platform threads vs virtual threads under many slow peers
+ *
+ * Registers N sessions (default 10,000), then every session sends offers to its
+ * neighbour through a 200 thread "container" pool (Tomcat's default maxThreads).
+ * Each recipient's sendMessage() blocks for a simulated network delay, which is
+ * where a fixed writer pool runs out of threads. Reports forwarded messages per
+ * second for each execution mode.
+ *
+ * Not a unit test - run it explicitly:
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=dev.radovanradivojevic.webrtcserver.benchmark.ExecutionModeBenchmark \
+ *     -Dsessions=10000 -Dmessages=3 -DsendLatencyMs=2
+ */
+public class ExecutionModeBenchmark {
+
+    private static final int CONTAINER_THREADS = 200;
+
+    public static void main(String[] args) throws Exception {
+        int sessions = Integer.getInteger("sessions", 10_000);
+        int messages = Integer.getInteger("messages", 3);
+        long sendLatencyNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong("sendLatencyMs", 2));
+
+        System.out.printf("sessions=%d messages/session=%d sendLatency=%dms cores=%d%n",
+                sessions, messages, TimeUnit.NANOSECONDS.toMillis(sendLatencyNanos),
+                Runtime.getRuntime().availableProcessors());
+
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            run(mode, sessions, messages, sendLatencyNanos);
+        }
+    }
+
+    private static void run(ExecutionMode mode, int sessionCount, int messages, long sendLatencyNanos)
+            throws Exception {
+        SignalingProperties properties = new SignalingProperties();
+        properties.getExecution().setMode(mode);
+        // Every session sends as fast as it can; this measures throughput, not the limits
+        properties.getRateLimit().setEnabled(false);
+        properties.getAdmission().setEnabled(false);
+        properties.getHeartbeat().setEnabled(false);
+        properties.getAudit().setEnabled(false);
+        SignalingConfig config = new SignalingConfig();
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        ExecutorService inboundExecutor = config.inboundExecutor();
+        ExecutorService outboundExecutor = config.outboundExecutor(properties);
+        ScheduledExecutorService scheduler = config.signalingScheduler();
+        ExecutorService container = Executors.newFixedThreadPool(CONTAINER_THREADS);
+
+        SignalingEventLog eventLog = new SignalingEventLog(properties);
+        SignalingMetrics metrics = new SignalingMetrics(new SimpleMeterRegistry(), eventLog);
+        OutboundMessageDispatcher outbound = new OutboundMessageDispatcher(properties, outboundExecutor, eventLog,
+                metrics);
+        InboundMessageDispatcher inbound = new InboundMessageDispatcher(properties, inboundExecutor, outbound,
+                eventLog);
+
+        try {
+            SignalingHandler handler = new SignalingHandler(objectMapper,
+                    inbound, outbound,
+                    new StreamingRelayCodec(objectMapper),
+                    new IceCandidateBatcher(properties, outbound, scheduler), eventLog, metrics,
+                    new ClusterRouter(properties, new InMemorySessionDirectory(), new LoopbackNodeRelay()),
+                    new PendingMessageBuffer(properties, scheduler, metrics),
+                    new FrameCompressor(properties, metrics), new SessionRegistry(properties),
+                    new AdmissionController(properties, outbound, scheduler, metrics, eventLog),
+                    new CallRegistry(properties, metrics),
+                    new CallTracer(properties, metrics),
+                    new HeartbeatMonitor(properties, outbound, scheduler, metrics, eventLog),
+                    new AuditLog(properties, new InMemoryAuditStore(), metrics, eventLog),
+                    new MessageTypeRegistry(objectMapper),
+                    new DeliveryReceipts(properties, outbound, scheduler, metrics),
+                    new SessionDrainer(properties, outbound, scheduler, metrics, eventLog),
+                    new CalleeWakeups(properties, (WakeupDispatcher) null, Runnable::run, scheduler, metrics, eventLog),
+                    properties);
+
+            CountDownLatch registered = new CountDownLatch(sessionCount);
+            CountDownLatch delivered = new CountDownLatch(sessionCount * messages);
+            StubWebSocketSession[] sessions = new StubWebSocketSession[sessionCount];
+            for (int i = 0; i < sessionCount; i++) {
+                sessions[i] = new StubWebSocketSession("s" + i, sendLatencyNanos, message -> {
+                    if (((String) message.getPayload()).startsWith("{\"type\":\"registered\"")) {
+                        registered.countDown();
+                    } else {
+                        delivered.countDown();
+                    }
+                });
+            }
+
+            for (int i = 0; i < sessionCount; i++) {
+                int n = i;
+                container.execute(() -> handle(handler, sessions[n],
+                        json(objectMapper, new RegisterMessage("user" + n))));
+            }
+            if (!registered.await(5, TimeUnit.MINUTES)) {
+                throw new IllegalStateException("Registration did not complete");
+            }
+
+            String sdp = BenchmarkPayloads.sdp();
+            long start = System.nanoTime();
+            for (int m = 0; m < messages; m++) {
+                for (int i = 0; i < sessionCount; i++) {
+                    int n = i;
+                    String offer = json(objectMapper,
+                            new CallMessage("offer", "user" + ((n + 1) % sessionCount), sdp));
+                    container.execute(() -> handle(handler, sessions[n], offer));
+                }
+            }
+            if (!delivered.await(10, TimeUnit.MINUTES)) {
+                throw new IllegalStateException("Forwarding did not complete");
+            }
+            long elapsed = System.nanoTime() - start;
+
+            int total = sessionCount * messages;
+            System.out.printf("%-8s forwarded=%d time=%dms throughput=%.0f msg/s%n",
+                    mode, total, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    total / (elapsed / 1_000_000_000.0));
+        } finally {
+            container.shutdownNow();
+            inbound.close();
+            inboundExecutor.shutdownNow();
+            outboundExecutor.shutdownNow();
+            scheduler.shutdownNow();
+            eventLog.close();
+        }
+    }
+
+    private static void handle(SignalingHandler handler, StubWebSocketSession session, String payload) {
+        try {
+            handler.handleMessage(session, new TextMessage(payload));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String json(ObjectMapper objectMapper, Object message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package dev.radovanradivojevic.webrtcserver.benchmark;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Lightweight WebSocketSession for benchmarks
+ *
+ * Mockito mocks record every invocation, which distorts timings and does not
+ * scale to tens of thousands of sessions. This stub only hands sent messages
+ * to a callback, optionally after a simulated network delay.
+ */
+public class StubWebSocketSession implements WebSocketSession {
+
+    private final String id;
+    private final long sendLatencyNanos;
+    private final Consumer<WebSocketMessage<?>> onSend;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private volatile boolean open = true;
+
+    public StubWebSocketSession(String id, long sendLatencyNanos, Consumer<WebSocketMessage<?>> onSend) {
+        this.id = id;
+        this.sendLatencyNanos = sendLatencyNanos;
+        this.onSend = onSend;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) {
+        if (sendLatencyNanos > 0) {
+            // Blocking write to a slow peer - exactly what pins a platform thread
+            try {
+                Thread.sleep(sendLatencyNanos / 1_000_000, (int) (sendLatencyNanos % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        onSend.accept(message);
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+
+    @Override
+    public void close(CloseStatus status) {
+        open = false;
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public URI getUri() {
+        return URI.create("ws://localhost/signal");
+    }
+
+    @Override
+    public HttpHeaders getHandshakeHeaders() {
+        return new HttpHeaders();
+    }
+
+    @Override
+    public Principal getPrincipal() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return null;
+    }
+
+    @Override
+    public String getAcceptedProtocol() {
+        return null;
+    }
+
+    @Override
+    public void setTextMessageSizeLimit(int messageSizeLimit) {
+    }
+
+    @Override
+    public int getTextMessageSizeLimit() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+    }
+
+    @Override
+    public int getBinaryMessageSizeLimit() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public List<WebSocketExtension> getExtensions() {
+        return List.of();
+    }
+}
@@ -0,0 +1,94 @@
+package dev.radovanradivojevic.webrtcserver.benchmark.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import dev.radovanradivojevic.webrtcserver.benchmark.BenchmarkPayloads;
+import dev.radovanradivojevic.webrtcserver.handler.MessageTypeRegistry;
+import dev.radovanradivojevic.webrtcserver.handler.SignalingHandler;
+import dev.radovanradivojevic.webrtcserver.model.CallMessage;
+import dev.radovanradivojevic.webrtcserver.model.EndCallMessage;
+import dev.radovanradivojevic.webrtcserver.model.IceCandidate;
+import dev.radovanradivojevic.webrtcserver.model.IceCandidateMessage;
+import dev.radovanradivojevic.webrtcserver.model.RegisterMessage;
+import dev.radovanradivojevic.webrtcserver.model.SignalingMessage;
+import dev.radovanradivojevic.webrtcserver.relay.RelayHeader;
+import dev.radovanradivojevic.webrtcserver.relay.StreamingRelayCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DeserializationBenchmark - Cost of turning one inbound frame into something routable
+ *
+ * polymorphic: the OBJECT relay path, ObjectMapper.readValue into SignalingMessage
+ * header: the STREAMING relay path, which only reads type/to/from offsets
+ * registry: what the handler does for non-relayed types - peek at "type", look it
+ *           up in the MessageTypeRegistry and read the payload into its class
+ *
+ * Payloads are realistic: offers and answers carry the ~3 KB SDP from
+ * BenchmarkPayloads, candidates are full srflx lines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeserializationBenchmark {
+
+    @Param({"register", "offer", "answer", "ice-candidate", "end-call"})
+    public String type;
+
+    private ObjectReader reader;
+    private StreamingRelayCodec codec;
+    private MessageTypeRegistry messageTypes;
+    private String payload;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        reader = objectMapper.readerFor(SignalingMessage.class);
+        codec = new StreamingRelayCodec(objectMapper);
+        messageTypes = new SignalingHandler(objectMapper).getMessageTypes();
+
+        SignalingMessage message = switch (type) {
+            case "register" -> {
+                RegisterMessage register = new RegisterMessage("user-1");
+                register.setCapabilities(List.of("ice-batch"));
+                yield register;
+            }
+            case "offer", "answer" -> new CallMessage(type, "user-2", BenchmarkPayloads.sdp());
+            case "ice-candidate" -> new IceCandidateMessage("user-2",
+                    new IceCandidate("0", 0, BenchmarkPayloads.candidate(1)));
+            case "end-call" -> new EndCallMessage("user-2");
+            default -> throw new IllegalArgumentException("Unknown type: " + type);
+        };
+        payload = objectMapper.writeValueAsString(message);
+    }
+
+    @Benchmark
+    public SignalingMessage polymorphic() throws Exception {
+        return reader.readValue(payload);
+    }
+
+    @Benchmark
+    public RelayHeader header() throws Exception {
+        return codec.readHeader(payload);
+    }
+
+    @Benchmark
+    public SignalingMessage registry() throws Exception {
+        return messageTypes.lookup(codec.readType(payload)).read(payload);
+    }
+}
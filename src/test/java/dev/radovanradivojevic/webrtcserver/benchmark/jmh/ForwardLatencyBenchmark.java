@@ -0,0 +1,89 @@
+package dev.radovanradivojevic.webrtcserver.benchmark.jmh;
+
+import dev.radovanradivojevic.webrtcserver.benchmark.BenchmarkPayloads;
+import dev.radovanradivojevic.webrtcserver.benchmark.StubWebSocketSession;
+import dev.radovanradivojevic.webrtcserver.config.SignalingConfig;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.model.CallMessage;
+import dev.radovanradivojevic.webrtcserver.session.ExecutionMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ForwardLatencyBenchmark - End-to-end forward latency with the real executors
+ *
+ * Measures from handleMessage() on the caller's session until the callee's
+ * sendMessage() has been called, using the same executors SignalingConfig
+ * creates in production. Unlike RoutingBenchmark this includes the hand-off
+ * to the inbound executor (VIRTUAL mode) and to the outbound writer pool.
+ *
+ * SampleTime mode reports the latency distribution (p50/p99/p99.99) rather
+ * than only the mean.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ForwardLatencyBenchmark {
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public ExecutionMode executionMode;
+
+    private final AtomicLong delivered = new AtomicLong();
+
+    private ExecutorService inboundExecutor;
+    private ExecutorService outboundExecutor;
+    private SignalingPipeline pipeline;
+    private StubWebSocketSession caller;
+    private TextMessage offer;
+
+    @Setup
+    public void setUp() throws Exception {
+        SignalingProperties properties = new SignalingProperties();
+        properties.getExecution().setMode(executionMode);
+        SignalingConfig config = new SignalingConfig();
+        inboundExecutor = config.inboundExecutor();
+        outboundExecutor = config.outboundExecutor(properties);
+        pipeline = new SignalingPipeline(properties, inboundExecutor, outboundExecutor);
+
+        caller = pipeline.register("caller", message -> delivered.incrementAndGet());
+        pipeline.register("callee", message -> delivered.incrementAndGet());
+        offer = new TextMessage(pipeline.objectMapper()
+                .writeValueAsString(new CallMessage("offer", "callee", BenchmarkPayloads.sdp())));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        pipeline.close();
+        inboundExecutor.shutdownNow();
+        outboundExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public long forwardOffer() throws Exception {
+        long expected = delivered.get() + 1;
+        pipeline.handle(caller, offer);
+        long current;
+        while ((current = delivered.get()) < expected) {
+            Thread.onSpinWait();
+        }
+        return current;
+    }
+}
@@ -0,0 +1,111 @@
+package dev.radovanradivojevic.webrtcserver.benchmark.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.radovanradivojevic.webrtcserver.benchmark.BenchmarkPayloads;
+import dev.radovanradivojevic.webrtcserver.benchmark.StubWebSocketSession;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.model.CallMessage;
+import dev.radovanradivojevic.webrtcserver.model.IceCandidate;
+import dev.radovanradivojevic.webrtcserver.model.IceCandidateMessage;
+import dev.radovanradivojevic.webrtcserver.relay.RelayMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RoutingBenchmark - handleTextMessage from parse to the recipient's sendMessage()
+ *
+ * Both dispatchers run tasks inline (Runnable::run), so one benchmark call is
+ * the complete routing path on a single thread: parse, sender lookup, recipient
+ * lookup, sender stamping, outbound queue and the write to a stub session.
+ * Thread hand-offs are measured separately by ForwardLatencyBenchmark.
+ *
+ * iceBurst sends the burst of candidates a browser trickles right after
+ * setLocalDescription(); its score is per candidate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutingBenchmark {
+
+    private static final int ICE_BURST = 20;
+
+    @Param({"STREAMING", "OBJECT"})
+    public RelayMode mode;
+
+    private SignalingPipeline pipeline;
+    private StubWebSocketSession caller;
+    private TextMessage offer;
+    private TextMessage answer;
+    private TextMessage[] candidates;
+
+    /**
+     * Last frame written to the callee - keeps the write from being optimised away
+     */
+    private volatile WebSocketMessage<?> lastSent;
+
+    @Setup
+    public void setUp() throws Exception {
+        SignalingProperties properties = new SignalingProperties();
+        properties.getRelay().setMode(mode);
+        Executor direct = Runnable::run;
+        pipeline = new SignalingPipeline(properties, direct, direct);
+
+        caller = pipeline.register("caller", message -> lastSent = message);
+        pipeline.register("callee", message -> lastSent = message);
+
+        ObjectMapper objectMapper = pipeline.objectMapper();
+        String sdp = BenchmarkPayloads.sdp();
+        offer = new TextMessage(objectMapper.writeValueAsString(new CallMessage("offer", "callee", sdp)));
+        answer = new TextMessage(objectMapper.writeValueAsString(new CallMessage("answer", "callee", sdp)));
+        candidates = new TextMessage[ICE_BURST];
+        for (int i = 0; i < ICE_BURST; i++) {
+            candidates[i] = new TextMessage(objectMapper.writeValueAsString(new IceCandidateMessage("callee",
+                    new IceCandidate(String.valueOf(i % 2), i % 2, BenchmarkPayloads.candidate(i)))));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        pipeline.close();
+    }
+
+    @Benchmark
+    public WebSocketMessage<?> offer() throws Exception {
+        pipeline.handle(caller, offer);
+        return lastSent;
+    }
+
+    @Benchmark
+    public WebSocketMessage<?> answer() throws Exception {
+        pipeline.handle(caller, answer);
+        return lastSent;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ICE_BURST)
+    public WebSocketMessage<?> iceBurst() throws Exception {
+        for (TextMessage candidate : candidates) {
+            pipeline.handle(caller, candidate);
+        }
+        return lastSent;
+    }
+}
@@ -0,0 +1,134 @@
+package dev.radovanradivojevic.webrtcserver.benchmark.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.radovanradivojevic.webrtcserver.benchmark.BenchmarkPayloads;
+import dev.radovanradivojevic.webrtcserver.benchmark.StubWebSocketSession;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.model.IceCandidate;
+import dev.radovanradivojevic.webrtcserver.model.IceCandidateMessage;
+import dev.radovanradivojevic.webrtcserver.session.ExecutionMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ShardingBenchmark - Forwarding throughput by core count, shared routing table vs shards
+ *
+ * USERS sessions each forward ICE candidates to the user half-way around the
+ * ring. "cores" container threads read the sessions, each owning a fixed
+ * slice of them like Tomcat does, and the same number of shards is used in
+ * SHARDED mode:
+ * - PLATFORM: every container thread routes inline through the one shared
+ *   SessionRegistry and writes to the recipient itself
+ * - SHARDED: container threads only hand frames to the sender's event loop;
+ *   routing runs on the loops, and forwards to a user of another shard go
+ *   through that loop's mailbox
+ *
+ * Writes are direct (Runnable::run), so the score is routing work and its
+ * contention, not the writer pool. The score is forwarded messages per
+ * millisecond; comparing it across cores shows how each design scales.
+ * Values of cores above the machine's core count only measure oversubscription.
+ *
+ * ./mvnw -Pjmh test-compile exec:exec -Djmh.includes=ShardingBenchmark -Djmh.args="-p cores=1,4"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShardingBenchmark {
+
+    private static final int USERS = 1024;
+    private static final int ROUNDS = 8;
+
+    @Param({"PLATFORM", "SHARDED"})
+    public ExecutionMode executionMode;
+
+    @Param({"1", "2", "4", "8"})
+    public int cores;
+
+    private final LongAdder delivered = new LongAdder();
+
+    private ExecutorService container;
+    private SignalingPipeline pipeline;
+    private StubWebSocketSession[] sessions;
+    private TextMessage[] candidates;
+    private long expected;
+
+    @Setup
+    public void setUp() throws Exception {
+        SignalingProperties properties = new SignalingProperties();
+        properties.getExecution().setMode(executionMode);
+        properties.getExecution().setShards(cores);
+        Executor direct = Runnable::run;
+        pipeline = new SignalingPipeline(properties, direct, direct);
+        container = Executors.newFixedThreadPool(cores,
+                Thread.ofPlatform().name("container-", 0).daemon(true).factory());
+
+        ObjectMapper objectMapper = pipeline.objectMapper();
+        sessions = new StubWebSocketSession[USERS];
+        candidates = new TextMessage[USERS];
+        for (int i = 0; i < USERS; i++) {
+            sessions[i] = pipeline.register("user" + i, message -> delivered.increment());
+            candidates[i] = new TextMessage(objectMapper.writeValueAsString(new IceCandidateMessage(
+                    "user" + ((i + USERS / 2) % USERS), new IceCandidate("0", 0, BenchmarkPayloads.candidate(i)))));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        container.shutdownNow();
+        pipeline.close();
+    }
+
+    /**
+     * Every session sends ROUNDS candidates; returns once all of them reached their recipient
+     */
+    @Benchmark
+    @OperationsPerInvocation(USERS * ROUNDS)
+    public long forward() {
+        int perThread = USERS / cores;
+        for (int c = 0; c < cores; c++) {
+            int first = c * perThread;
+            int last = c == cores - 1 ? USERS : first + perThread;
+            container.execute(() -> send(first, last));
+        }
+
+        expected += USERS * ROUNDS;
+        while (delivered.sum() < expected) {
+            LockSupport.parkNanos(20_000);
+        }
+        return expected;
+    }
+
+    private void send(int first, int last) {
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int i = first; i < last; i++) {
+                    pipeline.handle(sessions[i], candidates[i]);
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package dev.radovanradivojevic.webrtcserver.benchmark.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.radovanradivojevic.webrtcserver.admission.AdmissionController;
+import dev.radovanradivojevic.webrtcserver.audit.AuditLog;
+import dev.radovanradivojevic.webrtcserver.audit.InMemoryAuditStore;
+import dev.radovanradivojevic.webrtcserver.call.CallRegistry;
+import dev.radovanradivojevic.webrtcserver.call.CallTracer;
+import dev.radovanradivojevic.webrtcserver.cluster.ClusterRouter;
+import dev.radovanradivojevic.webrtcserver.cluster.InMemorySessionDirectory;
+import dev.radovanradivojevic.webrtcserver.cluster.LoopbackNodeRelay;
+import dev.radovanradivojevic.webrtcserver.compression.FrameCompressor;
+import dev.radovanradivojevic.webrtcserver.benchmark.StubWebSocketSession;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.handler.MessageTypeRegistry;
+import dev.radovanradivojevic.webrtcserver.handler.SignalingHandler;
+import dev.radovanradivojevic.webrtcserver.logging.PayloadLogging;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import dev.radovanradivojevic.webrtcserver.model.RegisterMessage;
+import dev.radovanradivojevic.webrtcserver.relay.DeliveryReceipts;
+import dev.radovanradivojevic.webrtcserver.relay.IceCandidateBatcher;
+import dev.radovanradivojevic.webrtcserver.relay.PendingMessageBuffer;
+import dev.radovanradivojevic.webrtcserver.relay.StreamingRelayCodec;
+import dev.radovanradivojevic.webrtcserver.session.HeartbeatMonitor;
+import dev.radovanradivojevic.webrtcserver.session.InboundMessageDispatcher;
+import dev.radovanradivojevic.webrtcserver.session.OutboundMessageDispatcher;
+import dev.radovanradivojevic.webrtcserver.session.SessionDrainer;
+import dev.radovanradivojevic.webrtcserver.session.SessionRegistry;
+import dev.radovanradivojevic.webrtcserver.wakeup.CalleeWakeups;
+import dev.radovanradivojevic.webrtcserver.wakeup.WakeupDispatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.event.Level;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A fully wired SignalingHandler for JMH benchmarks
+ *
+ * Built by hand like ExecutionModeBenchmark does, without a Spring context, so
+ * a benchmark measures the handler and its collaborators and nothing else.
+ * The event log is set to WARN so per-message events do not end up measuring
+ * the log writer, and rate limiting is off since a benchmark floods by design.
+ */
+final class SignalingPipeline implements AutoCloseable {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SignalingEventLog eventLog;
+    private final ScheduledExecutorService scheduler;
+    private final InboundMessageDispatcher inbound;
+    private final SignalingHandler handler;
+
+    SignalingPipeline(SignalingProperties properties, Executor inboundExecutor, Executor outboundExecutor) {
+        properties.getLog().setLevel(Level.WARN);
+        properties.getLog().setPayload(PayloadLogging.NONE);
+        properties.getRateLimit().setEnabled(false);
+        properties.getAdmission().setEnabled(false);
+        properties.getHeartbeat().setEnabled(false);
+        properties.getAudit().setEnabled(false);
+        this.eventLog = new SignalingEventLog(properties);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor();
+
+        SignalingMetrics metrics = new SignalingMetrics(new SimpleMeterRegistry(), eventLog);
+        OutboundMessageDispatcher outbound = new OutboundMessageDispatcher(properties, outboundExecutor, eventLog,
+                metrics);
+        this.inbound = new InboundMessageDispatcher(properties, inboundExecutor, outbound, eventLog);
+        this.handler = new SignalingHandler(objectMapper, inbound, outbound,
+                new StreamingRelayCodec(objectMapper),
+                new IceCandidateBatcher(properties, outbound, scheduler), eventLog, metrics,
+                new ClusterRouter(properties, new InMemorySessionDirectory(), new LoopbackNodeRelay()),
+                new PendingMessageBuffer(properties, scheduler, metrics),
+                new FrameCompressor(properties, metrics), new SessionRegistry(properties),
+                new AdmissionController(properties, outbound, scheduler, metrics, eventLog),
+                new CallRegistry(properties, metrics),
+                new CallTracer(properties, metrics),
+                new HeartbeatMonitor(properties, outbound, scheduler, metrics, eventLog),
+                new AuditLog(properties, new InMemoryAuditStore(), metrics, eventLog),
+                new MessageTypeRegistry(objectMapper),
+                new DeliveryReceipts(properties, outbound, scheduler, metrics),
+                new SessionDrainer(properties, outbound, scheduler, metrics, eventLog),
+                new CalleeWakeups(properties, (WakeupDispatcher) null, Runnable::run, scheduler, metrics, eventLog),
+                properties);
+    }
+
+    ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * Opens a stub session and registers it under userId
+     *
+     * Waits for the registration ack, which arrives asynchronously with real
+     * executors, and swallows it; everything after that goes to onSend.
+     */
+    StubWebSocketSession register(String userId, Consumer<WebSocketMessage<?>> onSend) throws Exception {
+        CountDownLatch registered = new CountDownLatch(1);
+        StubWebSocketSession session = new StubWebSocketSession(userId + "-session", 0, message -> {
+            if (((String) message.getPayload()).startsWith("{\"type\":\"registered\"")) {
+                registered.countDown();
+            } else {
+                onSend.accept(message);
+            }
+        });
+        handler.afterConnectionEstablished(session);
+        handle(session, objectMapper.writeValueAsString(new RegisterMessage(userId)));
+        if (!registered.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Registration of " + userId + " was not acknowledged");
+        }
+        return session;
+    }
+
+    void handle(StubWebSocketSession session, String payload) throws Exception {
+        handler.handleMessage(session, new TextMessage(payload));
+    }
+
+    void handle(StubWebSocketSession session, TextMessage message) throws Exception {
+        handler.handleMessage(session, message);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        inbound.close();
+        scheduler.shutdownNow();
+        eventLog.close();
+    }
+}
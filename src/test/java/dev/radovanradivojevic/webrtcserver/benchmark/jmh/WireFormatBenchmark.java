@@ -0,0 +1,90 @@
+package dev.radovanradivojevic.webrtcserver.benchmark.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import dev.radovanradivojevic.webrtcserver.benchmark.BenchmarkPayloads;
+import dev.radovanradivojevic.webrtcserver.model.CallMessage;
+import dev.radovanradivojevic.webrtcserver.model.IceCandidate;
+import dev.radovanradivojevic.webrtcserver.model.IceCandidateMessage;
+import dev.radovanradivojevic.webrtcserver.model.SignalingMessage;
+import dev.radovanradivojevic.webrtcserver.relay.CborTranscoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WireFormatBenchmark - JSON text frames vs CBOR binary frames
+ *
+ * decode: wire bytes to SignalingMessage (what a client library does)
+ * encode: SignalingMessage to wire bytes
+ * toJson: what the server does with an inbound CBOR frame before routing
+ *
+ * The frame size of each format is printed at setup ("frame: ..."), so one
+ * run shows both the CPU and the bandwidth side.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"JSON", "CBOR"})
+    public String format;
+
+    @Param({"offer", "ice-candidate"})
+    public String type;
+
+    private ObjectMapper mapper;
+    private ObjectReader reader;
+    private CborTranscoder transcoder;
+    private SignalingMessage message;
+    private byte[] frame;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper json = new ObjectMapper();
+        mapper = "CBOR".equals(format) ? new CBORMapper() : json;
+        reader = mapper.readerFor(SignalingMessage.class);
+        transcoder = new CborTranscoder(json);
+        message = "offer".equals(type)
+                ? new CallMessage("offer", "caller", "callee", BenchmarkPayloads.sdp())
+                : new IceCandidateMessage("caller", "callee", new IceCandidate("0", 0, BenchmarkPayloads.candidate(1)));
+        frame = mapper.writeValueAsBytes(message);
+        System.out.printf("frame: format=%s type=%s bytes=%d%n", format, type, frame.length);
+    }
+
+    @Benchmark
+    public SignalingMessage decode() throws Exception {
+        return reader.readValue(frame);
+    }
+
+    @Benchmark
+    public byte[] encode() throws Exception {
+        return mapper.writeValueAsBytes(message);
+    }
+
+    /**
+     * Server-side cost of accepting the frame: CBOR is transcoded to JSON, JSON is only decoded as UTF-8
+     */
+    @Benchmark
+    public String toJson() throws Exception {
+        return "CBOR".equals(format)
+                ? transcoder.toJson(ByteBuffer.wrap(frame))
+                : new String(frame, StandardCharsets.UTF_8);
+    }
+}
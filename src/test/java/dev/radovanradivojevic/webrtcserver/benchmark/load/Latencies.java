@@ -0,0 +1,57 @@
+package dev.radovanradivojevic.webrtcserver.benchmark.load;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency samples of one kind, exact percentiles over all of them
+ *
+ * A load run produces at most a few million samples, so keeping every one
+ * (8 bytes each) and sorting once at the end is simpler and more precise than
+ * a histogram. Each LoadClient has its own instances, merged for the report.
+ */
+final class Latencies {
+
+    private long[] samples = new long[64];
+    private int count;
+
+    synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    synchronized void addTo(Latencies total) {
+        for (int i = 0; i < count; i++) {
+            total.record(samples[i]);
+        }
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    /**
+     * "p50=0.41 p99=2.30 p999=7.95 max=12.01 ms (n=120000)"
+     */
+    synchronized String summary() {
+        if (count == 0) {
+            return "n=0";
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return String.format("p50=%.2f p99=%.2f p999=%.2f max=%.2f ms (n=%d)",
+                millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.99)),
+                millis(percentile(sorted, 0.999)), millis(sorted[sorted.length - 1]), count);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
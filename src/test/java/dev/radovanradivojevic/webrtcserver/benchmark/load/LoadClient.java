@@ -0,0 +1,223 @@
+package dev.radovanradivojevic.webrtcserver.benchmark.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.radovanradivojevic.webrtcserver.benchmark.BenchmarkPayloads;
+import dev.radovanradivojevic.webrtcserver.model.CallMessage;
+import dev.radovanradivojevic.webrtcserver.model.EndCallMessage;
+import dev.radovanradivojevic.webrtcserver.model.IceCandidate;
+import dev.radovanradivojevic.webrtcserver.model.IceCandidateMessage;
+import dev.radovanradivojevic.webrtcserver.model.RegisterMessage;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * LoadClient - One simulated Android client on a real WebSocket connection
+ *
+ * Sends what the app sends (register, offer/answer with a ~3 KB SDP, trickled
+ * ICE candidates, end-call) and measures how long each forwarded message took
+ * from the sender's sendText() to the recipient's onText().
+ *
+ * The send time travels inside the message, in places the server forwards
+ * untouched and real clients would ignore:
+ * - SDP: an extra attribute line "a=x-sent:<nanoTime>"
+ * - ICE candidate: an extension attribute pair " x-sent <nanoTime>"
+ * Sender and recipient run in the same JVM, so their System.nanoTime() agree.
+ *
+ * The scripts in SignalingLoadGenerator run on virtual threads and block on
+ * nextCallMessage(); the WebSocket listener only parses, records and queues.
+ */
+final class LoadClient implements WebSocket.Listener {
+
+    private static final Pattern SENT = Pattern.compile("x-sent[: ](\\d+)");
+    private static final String SDP = BenchmarkPayloads.sdp();
+
+    private final String userId;
+    private final ObjectMapper objectMapper;
+    private final LoadStats stats;
+    private final CountDownLatch registered;
+    private final BlockingQueue<JsonNode> callMessages = new LinkedBlockingQueue<>();
+    private final Map<String, Latencies> latencies = new ConcurrentHashMap<>();
+    private final StringBuilder partial = new StringBuilder();
+    private final ReentrantLock sendLock = new ReentrantLock();
+    private volatile WebSocket webSocket;
+    private volatile boolean closing;
+
+    LoadClient(String userId, ObjectMapper objectMapper, LoadStats stats, CountDownLatch registered) {
+        this.userId = userId;
+        this.objectMapper = objectMapper;
+        this.stats = stats;
+        this.registered = registered;
+    }
+
+    String getUserId() {
+        return userId;
+    }
+
+    /**
+     * Open the connection and register; completes when the handshake is done, not when the ack arrives
+     */
+    CompletableFuture<WebSocket> connect(HttpClient httpClient, URI uri) {
+        return httpClient.newWebSocketBuilder()
+                .buildAsync(uri, this)
+                .thenApply(ws -> {
+                    this.webSocket = ws;
+                    send(new RegisterMessage(userId));
+                    return ws;
+                });
+    }
+
+    // ---- What the app sends ----
+
+    void offer(String to) {
+        send(new CallMessage("offer", to, stampedSdp()));
+    }
+
+    void answer(String to) {
+        send(new CallMessage("answer", to, stampedSdp()));
+    }
+
+    void candidate(String to, int n) {
+        String sdp = BenchmarkPayloads.candidate(n) + " x-sent " + System.nanoTime();
+        send(new IceCandidateMessage(to, new IceCandidate(n % 2 == 0 ? "0" : "1", n % 2, sdp)));
+    }
+
+    void endCall(String to) {
+        send(new EndCallMessage(to));
+    }
+
+    /**
+     * Next offer, answer or end-call addressed to this client, or null after the timeout
+     */
+    JsonNode nextCallMessage(long timeout, TimeUnit unit) throws InterruptedException {
+        return callMessages.poll(timeout, unit);
+    }
+
+    Map<String, Latencies> getLatencies() {
+        return latencies;
+    }
+
+    void close() {
+        closing = true;
+        WebSocket ws = webSocket;
+        if (ws != null) {
+            ws.sendClose(WebSocket.NORMAL_CLOSURE, "done").exceptionally(e -> null);
+        }
+    }
+
+    /**
+     * One message at a time: java.net.http.WebSocket rejects a send while the previous one is in flight
+     *
+     * A lock rather than synchronized, so a virtual thread waiting for the send
+     * does not pin its carrier thread.
+     */
+    private void send(Object message) {
+        sendLock.lock();
+        try {
+            String json = objectMapper.writeValueAsString(message);
+            webSocket.sendText(json, true).join();
+            stats.sent.increment();
+        } catch (IOException | RuntimeException e) {
+            stats.sendFailures.increment();
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    private static String stampedSdp() {
+        return SDP + "a=x-sent:" + System.nanoTime() + "\r\n";
+    }
+
+    // ---- WebSocket.Listener (the client's reader thread) ----
+
+    @Override
+    public CompletionStage<?> onText(WebSocket ws, CharSequence data, boolean last) {
+        partial.append(data);
+        if (last) {
+            long receivedAt = System.nanoTime();
+            String text = partial.toString();
+            partial.setLength(0);
+            onMessage(text, receivedAt);
+        }
+        ws.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket ws, int statusCode, String reason) {
+        if (!closing) {
+            stats.unexpectedCloses.increment();
+        }
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket ws, Throwable error) {
+        if (!closing) {
+            stats.transportErrors.increment();
+        }
+    }
+
+    private void onMessage(String text, long receivedAt) {
+        stats.received.increment();
+        JsonNode message;
+        try {
+            message = objectMapper.readTree(text);
+        } catch (IOException e) {
+            stats.unparseable.increment();
+            return;
+        }
+        String type = message.path("type").asText();
+        switch (type) {
+            case "registered" -> registered.countDown();
+            case "offer", "answer" -> {
+                record(type, message.path("sdp").asText(), receivedAt);
+                callMessages.add(message);
+            }
+            case "ice-candidate" -> record(type, message.path("candidate").path("sdp").asText(), receivedAt);
+            case "end-call" -> callMessages.add(message);
+            case "error" -> stats.errorFrame(message.path("code").asText());
+            default -> stats.unexpected.increment();
+        }
+    }
+
+    private void record(String type, String stamped, long receivedAt) {
+        Matcher sent = SENT.matcher(stamped);
+        if (sent.find()) {
+            latencies.computeIfAbsent(type, t -> new Latencies()).record(receivedAt - Long.parseLong(sent.group(1)));
+        }
+    }
+
+    /**
+     * Counters shared by all clients of one run
+     */
+    static final class LoadStats {
+        final LongAdder sent = new LongAdder();
+        final LongAdder received = new LongAdder();
+        final LongAdder sendFailures = new LongAdder();
+        final LongAdder transportErrors = new LongAdder();
+        final LongAdder unexpectedCloses = new LongAdder();
+        final LongAdder unparseable = new LongAdder();
+        final LongAdder unexpected = new LongAdder();
+        final Map<String, LongAdder> errorFrames = new ConcurrentHashMap<>();
+
+        void errorFrame(String code) {
+            errorFrames.computeIfAbsent(code, c -> new LongAdder()).increment();
+        }
+    }
+}
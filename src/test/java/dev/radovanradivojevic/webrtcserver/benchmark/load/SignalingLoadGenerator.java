@@ -0,0 +1,242 @@
+package dev.radovanradivojevic.webrtcserver.benchmark.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.radovanradivojevic.webrtcserver.WebRtcServerApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SignalingLoadGenerator - Thousands of simulated clients on real WebSocket connections
+ *
+ * Unlike the JMH benchmarks, which call the handler directly, this goes
+ * through everything a production message goes through: TCP, the container's
+ * WebSocket stack, the handler, the outbound queues and back out.
+ *
+ * Clients come in pairs (caller, callee). Once every client is registered,
+ * each pair runs `calls` times:
+ *   caller: offer -> (callee: answer) -> both trickle `candidates` ICE candidates,
+ *   thinkMs apart -> call held for holdMs -> caller: end-call
+ * If the answer does not arrive within 10s, the call counts as timed out.
+ *
+ * Reports forward latency (sender's sendText() to recipient's onText()) per
+ * message type as p50/p99/p999, call setup time (offer sent to answer
+ * received), throughput, and every kind of error.
+ *
+ * By default a server is started in this JVM on a random port, with the
+ * per-client rate limits and load shedding off - the script would trip them
+ * by design, and this measures capacity. Pass -Durl to load a server started
+ * elsewhere (with its own settings), e.g. one started with production settings
+ * to see where shedding kicks in. Clients and an embedded server share the
+ * machine's CPUs, so absolute numbers are pessimistic; compare runs with each other.
+ *
+ * Not a unit test - run it explicitly:
+ * ./mvnw -Pload test-compile exec:exec
+ * ./mvnw -Pload test-compile exec:exec -Dload.args="-Dclients=4000 -Dcalls=10 -Dcandidates=12"
+ * ./mvnw -Pload test-compile exec:exec -Dload.args="-Durl=ws://signal-1:8080/signal"
+ *
+ * Thousands of connections need as many file descriptors on both ends (ulimit -n).
+ */
+public class SignalingLoadGenerator {
+
+    private static final long ANSWER_TIMEOUT_SECONDS = 10;
+    private static final int MAX_CONCURRENT_HANDSHAKES = 200;
+
+    public static void main(String[] args) throws Exception {
+        int clients = Math.max(2, Integer.getInteger("clients", 1000) & ~1);
+        int calls = Integer.getInteger("calls", 5);
+        int candidates = Integer.getInteger("candidates", 8);
+        long thinkMs = Long.getLong("thinkMs", 20);
+        long holdMs = Long.getLong("holdMs", 200);
+        String url = System.getProperty("url");
+
+        ConfigurableApplicationContext server = null;
+        if (url == null) {
+            server = startServer();
+            url = "ws://localhost:" + server.getEnvironment().getProperty("local.server.port") + "/signal";
+        }
+
+        System.out.printf("clients=%d calls/pair=%d candidates/side=%d thinkMs=%d holdMs=%d url=%s cores=%d%n",
+                clients, calls, candidates, thinkMs, holdMs, url, Runtime.getRuntime().availableProcessors());
+        try {
+            run(URI.create(url), clients, calls, candidates, thinkMs, holdMs);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    private static ConfigurableApplicationContext startServer() {
+        // Command line arguments, so they win over application.properties
+        return new SpringApplicationBuilder(WebRtcServerApplication.class)
+                .run("--server.port=0",
+                        "--signaling.rate-limit.enabled=false",
+                        "--signaling.admission.enabled=false",
+                        "--signaling.log.level=warn",
+                        "--logging.level.root=warn");
+    }
+
+    private static void run(URI uri, int clientCount, int calls, int candidates, long thinkMs, long holdMs)
+            throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        LoadClient.LoadStats stats = new LoadClient.LoadStats();
+        CountDownLatch registered = new CountDownLatch(clientCount);
+        List<LoadClient> clients = new ArrayList<>(clientCount);
+        for (int i = 0; i < clientCount; i++) {
+            clients.add(new LoadClient("load-" + i, objectMapper, stats, registered));
+        }
+
+        // ---- Connect and register, a bounded number of handshakes at a time ----
+        HttpClient httpClient = HttpClient.newHttpClient();
+        LongAdder connectFailures = new LongAdder();
+        Semaphore handshakes = new Semaphore(MAX_CONCURRENT_HANDSHAKES);
+        long connectStart = System.nanoTime();
+        for (LoadClient client : clients) {
+            handshakes.acquire();
+            client.connect(httpClient, uri).whenComplete((ws, error) -> {
+                handshakes.release();
+                if (error != null) {
+                    connectFailures.increment();
+                    registered.countDown();
+                }
+            });
+        }
+        if (!registered.await(60, TimeUnit.SECONDS)) {
+            System.out.printf("only %d of %d clients registered within 60s%n",
+                    clientCount - registered.getCount(), clientCount);
+        }
+        System.out.printf("connected and registered %d clients in %d ms (%d failed)%n",
+                clientCount - connectFailures.sum(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart), connectFailures.sum());
+
+        // ---- Call scripts, one virtual thread per client ----
+        Latencies callSetup = new Latencies();
+        LongAdder timeouts = new LongAdder();
+        long receivedBefore = stats.received.sum();
+        long start = System.nanoTime();
+        try (ExecutorService scripts = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clientCount; i += 2) {
+                LoadClient caller = clients.get(i);
+                LoadClient callee = clients.get(i + 1);
+                scripts.submit(() -> {
+                    caller(caller, callee.getUserId(), calls, candidates, thinkMs, holdMs, callSetup, timeouts);
+                    return null;
+                });
+                scripts.submit(() -> {
+                    callee(callee, caller.getUserId(), calls, candidates, thinkMs);
+                    return null;
+                });
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        // Let forwards still in flight arrive before counting
+        Thread.sleep(200);
+        clients.forEach(LoadClient::close);
+
+        report(clients, stats, callSetup, timeouts.sum(), calls * (clientCount / 2),
+                stats.received.sum() - receivedBefore, elapsedNanos, connectFailures.sum());
+    }
+
+    private static void caller(LoadClient caller, String callee, int calls, int candidates, long thinkMs,
+                               long holdMs, Latencies callSetup, LongAdder timeouts) throws InterruptedException {
+        for (int call = 0; call < calls; call++) {
+            long offeredAt = System.nanoTime();
+            caller.offer(callee);
+            JsonNode answer = awaitType(caller, "answer");
+            if (answer == null) {
+                timeouts.increment();
+                caller.endCall(callee);
+                continue;
+            }
+            callSetup.record(System.nanoTime() - offeredAt);
+            trickle(caller, callee, candidates, thinkMs);
+            Thread.sleep(holdMs);
+            caller.endCall(callee);
+        }
+    }
+
+    private static void callee(LoadClient callee, String caller, int calls, int candidates, long thinkMs)
+            throws InterruptedException {
+        for (int call = 0; call < calls; call++) {
+            if (awaitType(callee, "offer") == null) {
+                return;
+            }
+            callee.answer(caller);
+            trickle(callee, caller, candidates, thinkMs);
+            if (awaitType(callee, "end-call") == null) {
+                return;
+            }
+        }
+    }
+
+    private static void trickle(LoadClient from, String to, int candidates, long thinkMs)
+            throws InterruptedException {
+        for (int n = 0; n < candidates; n++) {
+            from.candidate(to, n);
+            Thread.sleep(thinkMs);
+        }
+    }
+
+    /**
+     * Next call message of the given type, skipping others (e.g. an end-call of a timed-out call)
+     */
+    private static JsonNode awaitType(LoadClient client, String type) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(ANSWER_TIMEOUT_SECONDS);
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            JsonNode message = client.nextCallMessage(remaining, TimeUnit.NANOSECONDS);
+            if (message != null && type.equals(message.path("type").asText())) {
+                return message;
+            }
+        }
+        return null;
+    }
+
+    private static void report(List<LoadClient> clients, LoadClient.LoadStats stats, Latencies callSetup,
+                               long timeouts, long callsAttempted, long received, long elapsedNanos,
+                               long connectFailures) {
+        Map<String, Latencies> byType = new TreeMap<>();
+        Latencies all = new Latencies();
+        for (LoadClient client : clients) {
+            client.getLatencies().forEach((type, latencies) -> {
+                latencies.addTo(byType.computeIfAbsent(type, t -> new Latencies()));
+                latencies.addTo(all);
+            });
+        }
+
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%nran %.1f s: sent %d, received %d (%.0f msg/s delivered)%n",
+                seconds, stats.sent.sum(), received, received / seconds);
+        System.out.println("forward latency");
+        byType.forEach((type, latencies) -> System.out.printf("  %-14s %s%n", type, latencies.summary()));
+        System.out.printf("  %-14s %s%n", "all", all.summary());
+        System.out.printf("call setup (offer sent -> answer received)%n  %-14s %s%n", "", callSetup.summary());
+
+        Map<String, Long> errorFrames = new TreeMap<>();
+        stats.errorFrames.forEach((code, count) -> errorFrames.put(code, count.sum()));
+        long errors = connectFailures + stats.sendFailures.sum() + stats.transportErrors.sum()
+                + stats.unexpectedCloses.sum() + timeouts + errorFrames.values().stream().mapToLong(Long::longValue).sum();
+        System.out.printf("errors: %d (%.3f%% of messages sent)%n", errors,
+                stats.sent.sum() == 0 ? 0.0 : 100.0 * errors / stats.sent.sum());
+        System.out.printf("  connect=%d send=%d transport=%d closed-by-server=%d answer-timeouts=%d/%d error-frames=%s"
+                        + " unparseable=%d unexpected=%d%n",
+                connectFailures, stats.sendFailures.sum(), stats.transportErrors.sum(), stats.unexpectedCloses.sum(),
+                timeouts, callsAttempted, errorFrames, stats.unparseable.sum(), stats.unexpected.sum());
+    }
+}
@@ -0,0 +1,138 @@
+package dev.radovanradivojevic.webrtcserver.call;
+
+import dev.radovanradivojevic.webrtcserver.call.CallRegistry.CallState;
+import dev.radovanradivojevic.webrtcserver.call.CallRegistry.Departure;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CallRegistryTest {
+
+    private SignalingProperties properties;
+    private SignalingEventLog eventLog;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SignalingProperties();
+        eventLog = new SignalingEventLog(properties);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        eventLog.close();
+    }
+
+    @Test
+    void testOfferAnswerEndCallLifecycle() {
+        CallRegistry calls = registry();
+
+        calls.track("offer", "dad", "son");
+        assertEquals(CallState.RINGING, calls.getCall("dad", "son"));
+        assertEquals(CallState.RINGING, calls.getCall("son", "dad"));
+
+        calls.track("ice-candidate", "dad", "son");
+        calls.track("answer", "son", "dad");
+        assertEquals(CallState.ACTIVE, calls.getCall("dad", "son"));
+
+        // A renegotiation offer does not put the call back to ringing
+        calls.track("offer", "dad", "son");
+        assertEquals(CallState.ACTIVE, calls.getCall("dad", "son"));
+        assertEquals(1, calls.getCallCount());
+
+        calls.track("end-call", "son", "dad");
+        assertNull(calls.getCall("dad", "son"));
+        assertEquals(0, calls.getCallCount());
+    }
+
+    @Test
+    void testAnswerWithoutOfferIsIgnored() {
+        CallRegistry calls = registry();
+
+        calls.track("answer", "son", "dad");
+
+        assertNull(calls.getCall("son", "dad"));
+        assertEquals(0, calls.getCallCount());
+    }
+
+    @Test
+    void testDisconnectEndsAllCallsOfUser() {
+        CallRegistry calls = registry();
+        calls.track("offer", "dad", "son");
+        calls.track("offer", "mom", "dad");
+        calls.track("offer", "son", "mom");
+
+        Departure departure = calls.disconnected("dad");
+
+        assertEquals(List.of("mom", "son"), departure.getEndedCalls().stream().sorted().toList());
+        assertNull(calls.getCall("son", "dad"));
+        assertNull(calls.getCall("mom", "dad"));
+        assertEquals(CallState.RINGING, calls.getCall("son", "mom"));
+        assertEquals(1, calls.getCallCount());
+    }
+
+    @Test
+    void testJoinReturnsExistingMembers() {
+        CallRegistry calls = registry();
+
+        assertEquals(List.of(), calls.join("family", "dad"));
+        assertEquals(List.of("dad"), calls.join("family", "mom"));
+        assertEquals(List.of("dad", "mom"), calls.join("family", "son"));
+        assertEquals(List.of("dad", "mom", "son"), calls.members("family"));
+
+        // Joining again changes nothing
+        assertEquals(List.of("dad", "son"), calls.join("family", "mom"));
+        assertEquals(List.of("dad", "mom", "son"), calls.members("family"));
+    }
+
+    @Test
+    void testFullRoomRejectsJoin() {
+        properties.getRooms().setMaxMembers(2);
+        CallRegistry calls = registry();
+        calls.join("family", "dad");
+        calls.join("family", "mom");
+
+        assertNull(calls.join("family", "son"));
+        assertEquals(List.of("dad", "mom"), calls.members("family"));
+    }
+
+    @Test
+    void testLeaveAndDisconnectRemoveMember() {
+        CallRegistry calls = registry();
+        calls.join("family", "dad");
+        calls.join("family", "son");
+        calls.join("work", "dad");
+
+        assertEquals(List.of("son"), calls.leave("family", "dad"));
+        assertNull(calls.leave("family", "dad"), "Not a member any more");
+
+        Departure departure = calls.disconnected("son");
+        assertEquals(Map.of("family", List.of()), departure.getLeftRooms());
+        assertEquals(List.of(), calls.members("family"));
+        assertEquals(List.of("dad"), calls.members("work"));
+    }
+
+    @Test
+    void testMembersIsASnapshot() {
+        CallRegistry calls = registry();
+        calls.join("family", "dad");
+        List<String> members = calls.members("family");
+
+        calls.join("family", "son");
+
+        assertEquals(List.of("dad"), members);
+        assertThrows(UnsupportedOperationException.class, () -> members.add("mom"));
+    }
+
+    private CallRegistry registry() {
+        return new CallRegistry(properties, new SignalingMetrics(new SimpleMeterRegistry(), eventLog));
+    }
+}
@@ -0,0 +1,41 @@
+package dev.radovanradivojevic.webrtcserver.call;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Same configuration as PrometheusEndpointTests, so the application context is shared
+@AutoConfigureObservability(tracing = false)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"signaling.audit.endpoint-enabled=true", "signaling.trace.endpoint-enabled=true"})
+class CallTraceEndpointTests {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private CallTracer tracer;
+
+    @Test
+    void testSlowestCallsAndSetupLatencyAreServed() {
+        tracer.record("offer", "trace-dad", "trace-son");
+        tracer.record("answer", "trace-son", "trace-dad");
+
+        String slowest = restTemplate.getForObject("/calls/slowest?limit=50", String.class);
+        String latency = restTemplate.getForObject("/calls/setup-latency", String.class);
+
+        assertNotNull(slowest);
+        assertTrue(slowest.contains("\"callerId\":\"trace-dad\""), slowest);
+        assertTrue(slowest.contains("\"state\":\"ACTIVE\""), slowest);
+        assertNotNull(latency);
+        assertTrue(latency.startsWith("{\"answer\":{\"count\":"), latency);
+        assertTrue(latency.contains("\"ice-to-end\""), latency);
+
+        String metrics = restTemplate.getForObject("/actuator/prometheus", String.class);
+        assertTrue(metrics.contains("signaling_call_setup_seconds_bucket{phase=\"answer\",le=\"0.05\"}"), metrics);
+    }
+}
@@ -0,0 +1,118 @@
+package dev.radovanradivojevic.webrtcserver.call;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CallTracerTest {
+
+    private SignalingProperties properties;
+    private SignalingEventLog eventLog;
+    private MeterRegistry registry;
+    private CallTracer tracer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SignalingProperties();
+        properties.getTrace().setCapacity(4);
+        eventLog = new SignalingEventLog(properties);
+        registry = new SimpleMeterRegistry();
+        tracer = new CallTracer(properties, new SignalingMetrics(registry, eventLog));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        eventLog.close();
+    }
+
+    @Test
+    void testCallIsTracedFromOfferToEndCall() {
+        tracer.record("offer", "dad", "son");
+        tracer.record("ice-candidate", "dad", "son");
+        tracer.record("answer", "son", "dad");
+        tracer.record("ice-candidate", "son", "dad");
+        tracer.record("offer", "son", "dad"); // renegotiation, same call
+        tracer.record("end-call", "son", "dad");
+
+        List<CallTrace> traces = tracer.slowest(10);
+        assertEquals(1, traces.size());
+        CallTrace trace = traces.get(0);
+        assertEquals("dad", trace.getCallerId());
+        assertEquals("son", trace.getCalleeId());
+        assertEquals(CallTrace.State.ENDED, trace.getState());
+        assertEquals(2, trace.getIceCandidates());
+        assertNotNull(trace.getFirstIceMillis());
+        assertNotNull(trace.getIceToEndMillis());
+        assertEquals(0, tracer.inProgress());
+
+        for (String phase : SignalingMetrics.CALL_SETUP_PHASES) {
+            assertEquals(1, registry.get("signaling.call.setup").tag("phase", phase).timer().count(), phase);
+        }
+    }
+
+    @Test
+    void testUnansweredCallsAreReportedAsSlowest() throws Exception {
+        tracer.record("offer", "dad", "son");
+        tracer.record("answer", "son", "dad");
+        tracer.record("offer", "mom", "grandma");
+        Thread.sleep(20);
+        tracer.record("end-call", "mom", "grandma");
+
+        List<CallTrace> traces = tracer.slowest(1);
+
+        assertEquals(1, traces.size());
+        assertEquals("mom", traces.get(0).getCallerId());
+        assertEquals(CallTrace.State.UNANSWERED, traces.get(0).getState());
+        assertNull(traces.get(0).getIceToEndMillis());
+    }
+
+    @Test
+    void testRingKeepsOnlyTheMostRecentCalls() {
+        for (int i = 0; i < 6; i++) {
+            tracer.record("offer", "caller" + i, "callee" + i);
+        }
+
+        List<CallTrace> traces = tracer.slowest(10);
+        assertEquals(4, traces.size());
+        assertTrue(traces.stream().noneMatch(trace -> trace.getCallerId().equals("caller0")));
+        assertEquals(4, tracer.inProgress(), "Overwritten calls are no longer tracked");
+
+        // Messages of an overwritten call are ignored
+        tracer.record("answer", "callee0", "caller0");
+        assertEquals(0, registry.get("signaling.call.setup").tag("phase", "answer").timer().count());
+    }
+
+    @Test
+    void testSetupLatencyHasCumulativeBuckets() {
+        tracer.record("offer", "dad", "son");
+        tracer.record("answer", "son", "dad");
+
+        Map<String, SetupLatency> phases = tracer.setupLatency();
+
+        assertEquals(SignalingMetrics.CALL_SETUP_PHASES, List.copyOf(phases.keySet()));
+        SetupLatency answer = phases.get("answer");
+        assertEquals(1, answer.getCount());
+        assertEquals(1L, answer.getBuckets().get("3600000"));
+        assertEquals(0, phases.get("first-ice").getCount());
+    }
+
+    @Test
+    void testDisabledTracerRecordsNothing() {
+        properties.getTrace().setEnabled(false);
+        tracer = new CallTracer(properties, new SignalingMetrics(new SimpleMeterRegistry(), eventLog));
+
+        tracer.record("offer", "dad", "son");
+
+        assertTrue(tracer.slowest(10).isEmpty());
+    }
+}
@@ -0,0 +1,113 @@
+package dev.radovanradivojevic.webrtcserver.cluster;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ClusterRouterTest {
+
+    private SessionDirectory directory;
+    private LoopbackNodeRelay relayA;
+    private ClusterRouter nodeA;
+    private ClusterRouter nodeB;
+    private final List<RelayedFrame> receivedByB = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        directory = spy(new InMemorySessionDirectory());
+        relayA = new LoopbackNodeRelay();
+        nodeA = new ClusterRouter(properties("node-a"), directory, relayA);
+        nodeB = new ClusterRouter(properties("node-b"), directory, relayA.peer());
+        nodeB.onRelayedFrame(receivedByB::add);
+    }
+
+    @Test
+    void testRemoteLocationIsCached() {
+        nodeB.registered("son");
+
+        assertEquals("node-b", nodeA.locate("son"));
+        assertEquals("node-b", nodeA.locate("son"));
+        assertEquals("node-b", nodeA.locate("son"));
+
+        verify(directory, times(1)).locate("son");
+    }
+
+    @Test
+    void testOwnNodeAndOfflineUsersAreNotRemote() {
+        nodeA.registered("dad");
+
+        assertNull(nodeA.locate("dad"), "A stale entry for this node must not be relayed to itself");
+        assertNull(nodeA.locate("nobody"));
+
+        // Offline lookups are not cached: a user who comes online is reachable at once
+        nodeB.registered("nobody");
+        assertEquals("node-b", nodeA.locate("nobody"));
+    }
+
+    @Test
+    void testRelayReachesOtherNode() {
+        nodeB.registered("son");
+
+        assertTrue(nodeA.relay(nodeA.locate("son"), "dad", "son", "offer", "{\"type\":\"offer\"}"));
+
+        assertEquals(1, receivedByB.size());
+        assertEquals("son", receivedByB.get(0).getRecipientId());
+        assertEquals("dad", receivedByB.get(0).getSenderId());
+        assertEquals("{\"type\":\"offer\"}", receivedByB.get(0).getPayload());
+    }
+
+    @Test
+    void testUnreachableNodeInvalidatesCachedLocation() {
+        nodeB.registered("son");
+        assertEquals("node-b", nodeA.locate("son"));
+
+        relayA.disconnect("node-b");
+        assertFalse(nodeA.relay("node-b", "dad", "son", "offer", "{}"));
+
+        nodeA.locate("son");
+        verify(directory, times(2)).locate("son");
+    }
+
+    @Test
+    void testMissedFrameBouncesBackToSendersNodeOnly() {
+        List<RelayedFrame> receivedByA = new ArrayList<>();
+        nodeA.onRelayedFrame(receivedByA::add);
+        nodeB.registered("son");
+        nodeA.relay(nodeA.locate("son"), "dad", "son", "offer", "{}");
+        RelayedFrame missed = receivedByB.get(0);
+        assertEquals("node-a", missed.getOriginNodeId());
+        assertEquals(RelayedFrame.Leg.FIRST, missed.getLeg());
+
+        assertTrue(nodeB.bounce(missed));
+        assertEquals(RelayedFrame.Leg.BOUNCED, receivedByA.get(0).getLeg());
+        assertEquals("son", receivedByA.get(0).getRecipientId());
+
+        // A frame never bounces back to the node it started on
+        assertFalse(nodeA.bounce(receivedByA.get(0)));
+    }
+
+    @Test
+    void testUnregisterKeepsNewerLocation() {
+        nodeA.registered("son");
+        nodeB.registered("son");
+
+        // The old session on node A closes after son reconnected to node B
+        nodeA.unregistered("son");
+
+        assertEquals("node-b", directory.locate("son"));
+    }
+
+    private static SignalingProperties properties(String nodeId) {
+        SignalingProperties properties = new SignalingProperties();
+        properties.getCluster().setNodeId(nodeId);
+        properties.getCluster().setLocationCacheTtl(Duration.ofMinutes(1));
+        return properties;
+    }
+}
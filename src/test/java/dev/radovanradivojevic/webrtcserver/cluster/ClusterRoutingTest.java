@@ -0,0 +1,154 @@
+package dev.radovanradivojevic.webrtcserver.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.radovanradivojevic.webrtcserver.call.CallTrace;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.handler.SignalingHandler;
+import dev.radovanradivojevic.webrtcserver.model.CallMessage;
+import dev.radovanradivojevic.webrtcserver.model.IceCandidate;
+import dev.radovanradivojevic.webrtcserver.model.IceCandidateMessage;
+import dev.radovanradivojevic.webrtcserver.model.RegisterMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Two handlers sharing an in-memory directory and a loopback relay,
+ * standing in for two server instances behind a load balancer
+ */
+class ClusterRoutingTest {
+
+    private ObjectMapper objectMapper;
+    private SessionDirectory directory;
+    private LoopbackNodeRelay relay;
+    private SignalingHandler nodeA;
+    private SignalingHandler nodeB;
+    private WebSocketSession dadSession;
+    private WebSocketSession sonSession;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        directory = new InMemorySessionDirectory();
+        relay = new LoopbackNodeRelay();
+        nodeA = new SignalingHandler(objectMapper, new ClusterRouter(properties("node-a"), directory, relay));
+        nodeB = new SignalingHandler(objectMapper, new ClusterRouter(properties("node-b"), directory, relay.peer()));
+
+        dadSession = session("dadSession");
+        sonSession = session("sonSession");
+        nodeA.handleMessage(dadSession, new TextMessage(objectMapper.writeValueAsString(new RegisterMessage("dad"))));
+        nodeB.handleMessage(sonSession, new TextMessage(objectMapper.writeValueAsString(new RegisterMessage("son"))));
+        clearInvocations(dadSession, sonSession);
+    }
+
+    @Test
+    void testOfferReachesUserOnOtherNode() throws Exception {
+        String offer = objectMapper.writeValueAsString(new CallMessage("offer", "son", "fake-sdp-data"));
+        nodeA.handleMessage(dadSession, new TextMessage(offer));
+
+        String expected = objectMapper.writeValueAsString(new CallMessage("offer", "dad", "son", "fake-sdp-data"));
+        verify(sonSession).sendMessage(new TextMessage(expected));
+    }
+
+    @Test
+    void testAnswerTravelsBack() throws Exception {
+        String answer = objectMapper.writeValueAsString(new CallMessage("answer", "dad", "fake-sdp-data"));
+        nodeB.handleMessage(sonSession, new TextMessage(answer));
+
+        String expected = objectMapper.writeValueAsString(new CallMessage("answer", "son", "dad", "fake-sdp-data"));
+        verify(dadSession).sendMessage(new TextMessage(expected));
+    }
+
+    @Test
+    void testRelayedAnswerIsTracedOnCallersNode() throws Exception {
+        nodeA.handleMessage(dadSession, new TextMessage(
+                objectMapper.writeValueAsString(new CallMessage("offer", "son", "fake-sdp-data"))));
+        nodeB.handleMessage(sonSession, new TextMessage(
+                objectMapper.writeValueAsString(new CallMessage("answer", "dad", "fake-sdp-data"))));
+
+        for (SignalingHandler node : List.of(nodeA, nodeB)) {
+            List<CallTrace> traces = node.getCallTracer().slowest(10);
+            assertEquals(1, traces.size());
+            assertEquals("dad", traces.get(0).getCallerId());
+            assertEquals(CallTrace.State.ACTIVE, traces.get(0).getState(), "The answer was timestamped");
+            assertEquals(1, node.getCallTracer().setupLatency().get("answer").getCount());
+        }
+    }
+
+    @Test
+    void testDisconnectedUserIsNoLongerReachable() throws Exception {
+        nodeB.afterConnectionClosed(sonSession, CloseStatus.NORMAL);
+
+        String offer = objectMapper.writeValueAsString(new CallMessage("offer", "son", "fake-sdp-data"));
+        nodeA.handleMessage(dadSession, new TextMessage(offer));
+
+        verify(sonSession, never()).sendMessage(any());
+    }
+
+    @Test
+    void testFrameFollowsUserWhoMovedOnWithinTheCacheTtl() throws Exception {
+        cacheSonOnNodeB();
+        SignalingHandler nodeC = new SignalingHandler(objectMapper,
+                new ClusterRouter(properties("node-c"), directory, relay.peer()));
+        nodeB.afterConnectionClosed(sonSession, CloseStatus.NORMAL);
+        WebSocketSession sonOnC = session("sonOnC");
+        nodeC.handleMessage(sonOnC, new TextMessage(objectMapper.writeValueAsString(new RegisterMessage("son"))));
+
+        nodeA.handleMessage(dadSession, new TextMessage(
+                objectMapper.writeValueAsString(new CallMessage("offer", "son", "fake-sdp-data"))));
+
+        String expected = objectMapper.writeValueAsString(new CallMessage("offer", "dad", "son", "fake-sdp-data"));
+        verify(sonOnC).sendMessage(new TextMessage(expected));
+        verify(sonSession, never()).sendMessage(any());
+    }
+
+    @Test
+    void testFrameForUserWhoWentOfflineIsHeldOnSendersNode() throws Exception {
+        cacheSonOnNodeB();
+        nodeB.afterConnectionClosed(sonSession, CloseStatus.NORMAL);
+
+        nodeA.handleMessage(dadSession, new TextMessage(
+                objectMapper.writeValueAsString(new CallMessage("offer", "son", "fake-sdp-data"))));
+
+        // Node B did not keep it for a return that may never come
+        WebSocketSession sonBackOnB = session("sonBackOnB");
+        nodeB.handleMessage(sonBackOnB, new TextMessage(objectMapper.writeValueAsString(new RegisterMessage("son"))));
+        verify(sonBackOnB, never()).sendMessage(argThat(message -> message.getPayload().toString().contains("sdp")));
+        nodeB.afterConnectionClosed(sonBackOnB, CloseStatus.NORMAL);
+
+        WebSocketSession sonOnA = session("sonOnA");
+        nodeA.handleMessage(sonOnA, new TextMessage(objectMapper.writeValueAsString(new RegisterMessage("son"))));
+        String expected = objectMapper.writeValueAsString(new CallMessage("offer", "dad", "son", "fake-sdp-data"));
+        verify(sonOnA).sendMessage(new TextMessage(expected));
+    }
+
+    /**
+     * Route one message to son, so node A caches son's location on node B
+     */
+    private void cacheSonOnNodeB() throws Exception {
+        nodeA.handleMessage(dadSession, new TextMessage(objectMapper.writeValueAsString(
+                new IceCandidateMessage("son", new IceCandidate("0", 0, "candidate:1")))));
+        verify(sonSession).sendMessage(any());
+        clearInvocations(sonSession);
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+
+    private static SignalingProperties properties(String nodeId) {
+        SignalingProperties properties = new SignalingProperties();
+        properties.getCluster().setNodeId(nodeId);
+        return properties;
+    }
+}
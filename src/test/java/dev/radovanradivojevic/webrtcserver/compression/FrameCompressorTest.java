@@ -0,0 +1,137 @@
+package dev.radovanradivojevic.webrtcserver.compression;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.radovanradivojevic.webrtcserver.benchmark.BenchmarkPayloads;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import dev.radovanradivojevic.webrtcserver.model.CallMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FrameCompressorTest {
+
+    private SignalingProperties properties;
+    private SignalingEventLog eventLog;
+    private MeterRegistry registry;
+    private FrameCompressor compressor;
+    private String offer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties = new SignalingProperties();
+        eventLog = new SignalingEventLog(properties);
+        registry = new SimpleMeterRegistry();
+        compressor = new FrameCompressor(properties, new SignalingMetrics(registry, eventLog));
+        offer = new ObjectMapper().writeValueAsString(new CallMessage("offer", "dad", "son", BenchmarkPayloads.sdp()));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        eventLog.close();
+    }
+
+    @Test
+    void testLargeFrameRoundTrip() throws Exception {
+        WebSocketMessage<?> compressed = compressor.compress(new TextMessage(offer));
+
+        BinaryMessage binary = assertInstanceOf(BinaryMessage.class, compressed);
+        assertEquals(offer, compressor.decompress(binary.getPayload()));
+    }
+
+    @Test
+    void testSmallFrameStaysText() {
+        TextMessage candidate = new TextMessage("{\"type\":\"ice-candidate\",\"to\":\"son\"}");
+
+        assertSame(candidate, compressor.compress(candidate));
+        assertEquals(1, registry.get("signaling.compression.frames").tag("outcome", "uncompressed").counter().count());
+    }
+
+    @Test
+    void testDictionaryBeatsPlainDeflate() {
+        byte[] raw = offer.getBytes(StandardCharsets.UTF_8);
+        Deflater plain = new Deflater(6);
+        plain.setInput(raw);
+        plain.finish();
+        byte[] buffer = new byte[raw.length];
+        int plainSize = plain.deflate(buffer);
+        plain.end();
+
+        BinaryMessage withDictionary = (BinaryMessage) compressor.compress(new TextMessage(offer));
+
+        assertTrue(withDictionary.getPayloadLength() < plainSize,
+                "dictionary " + withDictionary.getPayloadLength() + " vs plain " + plainSize);
+    }
+
+    @Test
+    void testWireBytesAreCounted() {
+        BinaryMessage compressed = (BinaryMessage) compressor.compress(new TextMessage(offer));
+
+        assertEquals(offer.length(), registry.get("signaling.compression.bytes").tag("stage", "raw").counter().count());
+        assertEquals(compressed.getPayloadLength(),
+                registry.get("signaling.compression.bytes").tag("stage", "wire").counter().count());
+    }
+
+    @Test
+    void testNegotiation() {
+        List<String> capabilities = List.of(FrameCompressor.CAPABILITY);
+        WebSocketSession raw = mock(WebSocketSession.class);
+        when(raw.getExtensions()).thenReturn(List.of());
+        CompressingSessionDecorator session = new CompressingSessionDecorator(raw, compressor);
+
+        assertFalse(compressor.negotiate(session, List.of("ice-batch")));
+        assertFalse(compressor.negotiate(raw, capabilities), "Only sessions on the compressing endpoint");
+        assertTrue(compressor.negotiate(session, capabilities));
+        assertTrue(session.isCompressionEnabled());
+
+        WebSocketSession deflated = mock(WebSocketSession.class);
+        when(deflated.getExtensions()).thenReturn(List.of(new WebSocketExtension("permessage-deflate")));
+        assertFalse(compressor.negotiate(new CompressingSessionDecorator(deflated, compressor), capabilities),
+                "permessage-deflate already compresses the connection");
+    }
+
+    @Test
+    void testInflateLimit() {
+        properties.getCompression().setMaxInflatedSize(1024);
+        FrameCompressor limited = new FrameCompressor(properties, new SignalingMetrics(registry, eventLog));
+        BinaryMessage compressed = (BinaryMessage) compressor.compress(new TextMessage(offer));
+
+        assertThrows(FrameCompressor.FrameTooLargeException.class, () -> limited.decompress(compressed.getPayload()));
+    }
+
+    @Test
+    void testInflateLimitOfTheCaller() throws Exception {
+        BinaryMessage compressed = (BinaryMessage) compressor.compress(new TextMessage(offer));
+
+        assertThrows(FrameCompressor.FrameTooLargeException.class,
+                () -> compressor.decompress(compressed.getPayload(), offer.length() / 2));
+        assertEquals(offer, compressor.decompress(compressed.getPayload(), offer.length()));
+    }
+
+    @Test
+    void testInvalidFramesAreRejected() {
+        BinaryMessage compressed = (BinaryMessage) compressor.compress(new TextMessage(offer));
+        byte[] truncated = Arrays.copyOf(compressed.getPayload().array(), compressed.getPayloadLength() / 2);
+
+        assertThrows(IOException.class, () -> compressor.decompress(ByteBuffer.wrap(truncated)));
+        assertThrows(IOException.class, () -> compressor.decompress(ByteBuffer.wrap(new byte[]{1, 2, 3})));
+    }
+}
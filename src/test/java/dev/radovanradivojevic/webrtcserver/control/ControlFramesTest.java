@@ -0,0 +1,93 @@
+package dev.radovanradivojevic.webrtcserver.control;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.radovanradivojevic.webrtcserver.model.EndCallMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ControlFramesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testRegisteredAck() {
+        assertEquals("{\"type\":\"registered\",\"userId\":\"son\"}",
+                ControlFrames.registered("son", List.of()).getPayload());
+        assertEquals("{\"type\":\"registered\",\"userId\":\"son\",\"capabilities\":[\"ice-batch\",\"deflate-sdp\"]}",
+                ControlFrames.registered("son", List.of("ice-batch", "deflate-sdp")).getPayload());
+    }
+
+    @Test
+    void testUserIdCannotInjectFields() throws Exception {
+        String userId = "x\",\"admin\":true,\"y\":\"\\\n";
+
+        JsonNode ack = objectMapper.readTree(ControlFrames.registered(userId, List.of("ice-batch")).getPayload());
+
+        assertEquals(userId, ack.get("userId").asText());
+        assertFalse(ack.has("admin"));
+        assertEquals(3, ack.size());
+    }
+
+    @Test
+    void testCapabilitySuffixIsNotTiedToCallersList() {
+        List<String> agreed = new ArrayList<>(List.of("ice-batch"));
+        ControlFrames.registered("dad", agreed);
+        agreed.add("deflate-sdp");
+
+        assertEquals("{\"type\":\"registered\",\"userId\":\"dad\",\"capabilities\":[\"ice-batch\",\"deflate-sdp\"]}",
+                ControlFrames.registered("dad", agreed).getPayload());
+    }
+
+    @Test
+    void testRejectionsOfKnownTypesAreShared() {
+        TextMessage first = ControlFrames.rejected(ControlFrames.OVERLOADED, "ice-candidate");
+
+        assertSame(first, ControlFrames.rejected(ControlFrames.OVERLOADED, "ice-candidate"));
+        assertEquals("{\"type\":\"error\",\"code\":\"overloaded\",\"messageType\":\"ice-candidate\"}", first.getPayload());
+    }
+
+    @Test
+    void testRejectionOfOtherTypeIsEscaped() throws Exception {
+        JsonNode error = objectMapper.readTree(ControlFrames.rejected(ControlFrames.RATE_LIMITED, "a\"b").getPayload());
+
+        assertEquals("rate-limited", error.get("code").asText());
+        assertEquals("a\"b", error.get("messageType").asText());
+    }
+
+    @Test
+    void testErrorsWithUserFields() throws Exception {
+        JsonNode roomFull = objectMapper.readTree(ControlFrames.roomFull("fam\"ily").getPayload());
+        assertEquals("room-full", roomFull.get("code").asText());
+        assertEquals("fam\"ily", roomFull.get("room").asText());
+
+        assertEquals("{\"type\":\"error\",\"code\":\"peer-unavailable\",\"to\":\"son\",\"messageType\":\"offer\"}",
+                ControlFrames.peerUnavailable("son", "offer", null).getPayload());
+    }
+
+    @Test
+    void testEndCallMatchesClientMessage() throws Exception {
+        assertEquals(objectMapper.writeValueAsString(new EndCallMessage("dad", "son")),
+                ControlFrames.endCall("dad", "son"));
+    }
+
+    @Test
+    void testReconnectElsewhereIsShared() {
+        assertSame(ControlFrames.reconnectElsewhere(), ControlFrames.reconnectElsewhere());
+        assertEquals("{\"type\":\"reconnect-elsewhere\"}", ControlFrames.reconnectElsewhere().getPayload());
+    }
+
+    @Test
+    void testEveryPingHasItsOwnPayloadView() {
+        PingMessage first = ControlFrames.ping();
+        first.getPayload().get();
+
+        assertEquals(2, ControlFrames.ping().getPayload().remaining(), "Sending one ping must not drain the next");
+    }
+}
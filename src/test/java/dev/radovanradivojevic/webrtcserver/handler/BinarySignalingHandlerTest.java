@@ -0,0 +1,143 @@
+package dev.radovanradivojevic.webrtcserver.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import dev.radovanradivojevic.webrtcserver.model.CallMessage;
+import dev.radovanradivojevic.webrtcserver.model.RegisterMessage;
+import dev.radovanradivojevic.webrtcserver.relay.CborTranscoder;
+import dev.radovanradivojevic.webrtcserver.session.OutboundMessageDispatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * A JSON client (dad on "/signal") and a CBOR client (son on "/signal-cbor") calling each other
+ */
+class BinarySignalingHandlerTest {
+
+    private ObjectMapper objectMapper;
+    private CborTranscoder transcoder;
+    private SignalingEventLog eventLog;
+    private SignalingHandler textHandler;
+    private BinarySignalingHandler binaryHandler;
+    private WebSocketSession dadSession;
+    private WebSocketSession sonSession;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        transcoder = new CborTranscoder(objectMapper);
+        SignalingProperties properties = new SignalingProperties();
+        eventLog = new SignalingEventLog(properties);
+        textHandler = new SignalingHandler(objectMapper);
+        OutboundMessageDispatcher outbound = new OutboundMessageDispatcher(properties, Runnable::run, eventLog,
+                new SignalingMetrics(new SimpleMeterRegistry(), eventLog));
+        binaryHandler = new BinarySignalingHandler(textHandler, transcoder, outbound, eventLog, properties);
+
+        dadSession = session("dadSession");
+        sonSession = session("sonSession");
+        textHandler.handleMessage(dadSession, json(new RegisterMessage("dad")));
+        binaryHandler.afterConnectionEstablished(sonSession);
+        binaryHandler.handleMessage(sonSession, cbor(new RegisterMessage("son")));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        eventLog.close();
+    }
+
+    @Test
+    void testSessionsGetTheCborFrameLimits() {
+        SignalingProperties.Endpoint limits = new SignalingProperties().getLimits().getSignalCbor();
+
+        verify(sonSession).setBinaryMessageSizeLimit(limits.getMaxBinaryFrameSize());
+        verify(sonSession).setTextMessageSizeLimit(limits.getMaxTextFrameSize());
+    }
+
+    @Test
+    void testBinaryClientGetsCborFrames() throws Exception {
+        ArgumentCaptor<WebSocketMessage<?>> sent = ArgumentCaptor.captor();
+        verify(sonSession).sendMessage(sent.capture());
+        BinaryMessage ack = assertInstanceOf(BinaryMessage.class, sent.getValue());
+        assertEquals("{\"type\":\"registered\",\"userId\":\"son\"}", transcoder.toJson(ack.getPayload()));
+    }
+
+    @Test
+    void testJsonOfferReachesCborClient() throws Exception {
+        clearInvocations(sonSession);
+        textHandler.handleMessage(dadSession, json(new CallMessage("offer", "son", "fake-sdp-data")));
+
+        ArgumentCaptor<WebSocketMessage<?>> sent = ArgumentCaptor.captor();
+        verify(sonSession).sendMessage(sent.capture());
+        BinaryMessage offer = assertInstanceOf(BinaryMessage.class, sent.getValue());
+        assertEquals(objectMapper.writeValueAsString(new CallMessage("offer", "dad", "son", "fake-sdp-data")),
+                transcoder.toJson(offer.getPayload()));
+    }
+
+    @Test
+    void testCborAnswerReachesJsonClient() throws Exception {
+        binaryHandler.handleMessage(sonSession, cbor(new CallMessage("answer", "dad", "fake-sdp-data")));
+
+        String expected = objectMapper.writeValueAsString(new CallMessage("answer", "son", "dad", "fake-sdp-data"));
+        verify(dadSession).sendMessage(new TextMessage(expected));
+    }
+
+    @Test
+    void testMalformedFrameClosesSession() throws Exception {
+        binaryHandler.handleMessage(sonSession, new BinaryMessage(new byte[]{(byte) 0xbf, 0x61}));
+
+        verify(sonSession).close(CloseStatus.BAD_DATA);
+    }
+
+    @Test
+    void testFrameOverTheLimitsIsDroppedWithoutClosing() throws Exception {
+        clearInvocations(dadSession);
+        String deep = "{\"type\":\"answer\",\"to\":\"dad\",\"sdp\":" + "[".repeat(20) + "]".repeat(20) + "}";
+
+        binaryHandler.handleMessage(sonSession, new BinaryMessage(ByteBuffer.wrap(transcoder.toCbor(deep))));
+
+        verify(sonSession, never()).close(any());
+        verify(dadSession, never()).sendMessage(any());
+        assertNotNull(textHandler.getSession("son"), "Still registered");
+    }
+
+    @Test
+    void testSameSessionObjectForWholeConnection() throws Exception {
+        WebSocketSession registered = textHandler.getSession("son");
+        assertNotSame(sonSession, registered, "The handler must see the CBOR decorator");
+
+        binaryHandler.afterConnectionClosed(sonSession, CloseStatus.NORMAL);
+        assertNull(textHandler.getSession("son"), "Close must clean up the decorated session");
+    }
+
+    private TextMessage json(Object message) throws Exception {
+        return new TextMessage(objectMapper.writeValueAsString(message));
+    }
+
+    private BinaryMessage cbor(Object message) throws Exception {
+        return new BinaryMessage(ByteBuffer.wrap(transcoder.toCbor(objectMapper.writeValueAsString(message))));
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getAttributes()).thenReturn(new HashMap<>());
+        return session;
+    }
+}
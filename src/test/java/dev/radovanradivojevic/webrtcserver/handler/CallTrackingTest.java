@@ -0,0 +1,183 @@
+package dev.radovanradivojevic.webrtcserver.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.model.CallMessage;
+import dev.radovanradivojevic.webrtcserver.model.EndCallMessage;
+import dev.radovanradivojevic.webrtcserver.model.IceCandidate;
+import dev.radovanradivojevic.webrtcserver.model.IceCandidateMessage;
+import dev.radovanradivojevic.webrtcserver.model.RegisterMessage;
+import dev.radovanradivojevic.webrtcserver.model.RoomMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Room fan-out and server-side teardown of calls when a connection closes
+ */
+class CallTrackingTest {
+
+    private SignalingHandler handler;
+    private ObjectMapper objectMapper;
+    private WebSocketSession dadSession;
+    private WebSocketSession momSession;
+    private WebSocketSession sonSession;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        handler = new SignalingHandler(objectMapper);
+        dadSession = register("dad");
+        momSession = register("mom");
+        sonSession = register("son");
+    }
+
+    @Test
+    void testJoinAnnouncesMembers() throws Exception {
+        send(dadSession, new RoomMessage("join-room", "family"));
+        send(sonSession, new RoomMessage("join-room", "family"));
+
+        verify(sonSession).sendMessage(new TextMessage("{\"type\":\"room-joined\",\"room\":\"family\",\"members\":[\"dad\"]}"));
+        verify(dadSession).sendMessage(new TextMessage("{\"type\":\"member-joined\",\"room\":\"family\",\"userId\":\"son\"}"));
+    }
+
+    @Test
+    void testRoomOfferIsSerializedOnceAndSentToAllOtherMembers() throws Exception {
+        joinFamily();
+        clearInvocations(dadSession, momSession, sonSession);
+
+        CallMessage offer = new CallMessage("offer", null, "fake-sdp-data");
+        offer.setRoom("family");
+        send(dadSession, offer);
+
+        ArgumentCaptor<WebSocketMessage<?>> toMom = ArgumentCaptor.captor();
+        ArgumentCaptor<WebSocketMessage<?>> toSon = ArgumentCaptor.captor();
+        verify(momSession).sendMessage(toMom.capture());
+        verify(sonSession).sendMessage(toSon.capture());
+        verify(dadSession, never()).sendMessage(any());
+
+        // The very same frame went to both members
+        assertSame(toMom.getValue(), toSon.getValue());
+        String payload = (String) toMom.getValue().getPayload();
+        assertTrue(payload.contains("\"from\":\"dad\""));
+        assertTrue(payload.contains("\"room\":\"family\""));
+    }
+
+    @Test
+    void testRoomIceCandidateIsFannedOut() throws Exception {
+        joinFamily();
+        clearInvocations(dadSession, momSession, sonSession);
+
+        IceCandidateMessage candidate = new IceCandidateMessage(null, new IceCandidate("0", 0, "candidate:1"));
+        candidate.setRoom("family");
+        send(sonSession, candidate);
+
+        verify(dadSession).sendMessage(argThat(m -> ((String) m.getPayload()).contains("\"from\":\"son\"")));
+        verify(momSession).sendMessage(argThat(m -> ((String) m.getPayload()).contains("\"from\":\"son\"")));
+    }
+
+    @Test
+    void testNonMemberCannotSendToRoom() throws Exception {
+        send(dadSession, new RoomMessage("join-room", "family"));
+        clearInvocations(dadSession);
+
+        CallMessage offer = new CallMessage("offer", null, "fake-sdp-data");
+        offer.setRoom("family");
+        send(sonSession, offer);
+
+        verify(dadSession, never()).sendMessage(any());
+    }
+
+    @Test
+    void testClosedConnectionEndsCall() throws Exception {
+        send(dadSession, new CallMessage("offer", "son", "fake-sdp-data"));
+        send(sonSession, new CallMessage("answer", "dad", "fake-sdp-data"));
+        clearInvocations(dadSession);
+
+        handler.afterConnectionClosed(sonSession, CloseStatus.GOING_AWAY);
+
+        verify(dadSession).sendMessage(
+                new TextMessage(objectMapper.writeValueAsString(new EndCallMessage("son", "dad"))));
+    }
+
+    @Test
+    void testUnavailablePeerLeavesNoCall() throws Exception {
+        // grandma is offline and her pending buffer is full, so the offer is answered with peer-unavailable
+        IceCandidate candidate = new IceCandidate("0", 0, "candidate:1");
+        for (int i = 0; i < new SignalingProperties().getPending().getMaxMessagesPerRecipient(); i++) {
+            send(momSession, new IceCandidateMessage("grandma", candidate));
+        }
+        send(dadSession, new CallMessage("offer", "grandma", "fake-sdp-data"));
+        verify(dadSession).sendMessage(argThat(message -> ((String) message.getPayload()).contains("peer-unavailable")));
+
+        WebSocketSession grandmaSession = register("grandma");
+        clearInvocations(grandmaSession);
+        handler.afterConnectionClosed(dadSession, CloseStatus.GOING_AWAY);
+
+        verify(grandmaSession, never()).sendMessage(any());
+    }
+
+    @Test
+    void testEndedCallIsNotTornDownAgain() throws Exception {
+        send(dadSession, new CallMessage("offer", "son", "fake-sdp-data"));
+        send(sonSession, new EndCallMessage("dad"));
+        clearInvocations(dadSession);
+
+        handler.afterConnectionClosed(sonSession, CloseStatus.GOING_AWAY);
+
+        verify(dadSession, never()).sendMessage(any());
+    }
+
+    @Test
+    void testClosedConnectionLeavesRooms() throws Exception {
+        joinFamily();
+        clearInvocations(dadSession, momSession);
+
+        handler.afterConnectionClosed(sonSession, CloseStatus.GOING_AWAY);
+
+        TextMessage left = new TextMessage("{\"type\":\"member-left\",\"room\":\"family\",\"userId\":\"son\"}");
+        verify(dadSession).sendMessage(left);
+        verify(momSession).sendMessage(left);
+    }
+
+    @Test
+    void testPointToPointMessagesHaveNoRoomField() throws Exception {
+        clearInvocations(sonSession);
+
+        send(dadSession, new CallMessage("offer", "son", "fake-sdp-data"));
+
+        verify(sonSession).sendMessage(
+                new TextMessage(objectMapper.writeValueAsString(new CallMessage("offer", "dad", "son", "fake-sdp-data"))));
+        verify(sonSession, never()).sendMessage(argThat(m -> ((String) m.getPayload()).contains("room")));
+    }
+
+    private void joinFamily() throws Exception {
+        send(dadSession, new RoomMessage("join-room", "family"));
+        send(momSession, new RoomMessage("join-room", "family"));
+        send(sonSession, new RoomMessage("join-room", "family"));
+    }
+
+    private WebSocketSession register(String userId) throws Exception {
+        WebSocketSession session = session(userId + "Session");
+        send(session, new RegisterMessage(userId));
+        return session;
+    }
+
+    private void send(WebSocketSession session, Object message) throws Exception {
+        handler.handleTextMessage(session, new TextMessage(objectMapper.writeValueAsString(message)));
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+}
@@ -0,0 +1,153 @@
+package dev.radovanradivojevic.webrtcserver.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.radovanradivojevic.webrtcserver.benchmark.BenchmarkPayloads;
+import dev.radovanradivojevic.webrtcserver.compression.FrameCompressor;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import dev.radovanradivojevic.webrtcserver.model.CallMessage;
+import dev.radovanradivojevic.webrtcserver.model.IceCandidate;
+import dev.radovanradivojevic.webrtcserver.model.IceCandidateMessage;
+import dev.radovanradivojevic.webrtcserver.model.RegisterMessage;
+import dev.radovanradivojevic.webrtcserver.session.OutboundMessageDispatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CompressingSignalingHandlerTest {
+
+    private ObjectMapper objectMapper;
+    private SignalingEventLog eventLog;
+    private FrameCompressor compressor;
+    private OutboundMessageDispatcher outbound;
+    private CompressingSignalingHandler handler;
+    private WebSocketSession dadSession;
+    private WebSocketSession sonSession;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        SignalingProperties properties = new SignalingProperties();
+        eventLog = new SignalingEventLog(properties);
+        SignalingMetrics metrics = new SignalingMetrics(new SimpleMeterRegistry(), eventLog);
+        compressor = new FrameCompressor(properties, metrics);
+        outbound = new OutboundMessageDispatcher(properties, Runnable::run, eventLog, metrics);
+        handler = new CompressingSignalingHandler(new SignalingHandler(objectMapper), compressor, outbound, eventLog,
+                properties);
+
+        dadSession = session("dadSession");
+        sonSession = session("sonSession");
+        handler.afterConnectionEstablished(dadSession);
+        handler.afterConnectionEstablished(sonSession);
+        handler.handleMessage(dadSession, json(new RegisterMessage("dad")));
+
+        RegisterMessage sonRegister = new RegisterMessage("son");
+        sonRegister.setCapabilities(List.of(FrameCompressor.CAPABILITY));
+        handler.handleMessage(sonSession, json(sonRegister));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        eventLog.close();
+    }
+
+    @Test
+    void testSessionsGetTheSignalFrameLimits() {
+        SignalingProperties.Endpoint limits = new SignalingProperties().getLimits().getSignal();
+
+        verify(dadSession).setTextMessageSizeLimit(limits.getMaxTextFrameSize());
+        verify(dadSession).setBinaryMessageSizeLimit(limits.getMaxBinaryFrameSize());
+    }
+
+    @Test
+    void testAckEchoesCapability() throws Exception {
+        verify(sonSession).sendMessage(
+                new TextMessage("{\"type\":\"registered\",\"userId\":\"son\",\"capabilities\":[\"deflate-sdp\"]}"));
+    }
+
+    @Test
+    void testLargeOfferIsCompressedSmallCandidateIsNot() throws Exception {
+        clearInvocations(sonSession);
+        handler.handleMessage(dadSession, json(new CallMessage("offer", "son", BenchmarkPayloads.sdp())));
+        handler.handleMessage(dadSession, json(new IceCandidateMessage("son",
+                new IceCandidate("0", 0, BenchmarkPayloads.candidate(1)))));
+
+        ArgumentCaptor<WebSocketMessage<?>> sent = ArgumentCaptor.captor();
+        verify(sonSession, times(2)).sendMessage(sent.capture());
+        BinaryMessage offer = assertInstanceOf(BinaryMessage.class, sent.getAllValues().get(0));
+        assertEquals(objectMapper.writeValueAsString(new CallMessage("offer", "dad", "son", BenchmarkPayloads.sdp())),
+                compressor.decompress(offer.getPayload()));
+        assertInstanceOf(TextMessage.class, sent.getAllValues().get(1));
+    }
+
+    @Test
+    void testClientWithoutCapabilityGetsText() throws Exception {
+        handler.handleMessage(sonSession, json(new CallMessage("answer", "dad", BenchmarkPayloads.sdp())));
+
+        ArgumentCaptor<WebSocketMessage<?>> sent = ArgumentCaptor.captor();
+        verify(dadSession, times(2)).sendMessage(sent.capture());
+        assertInstanceOf(TextMessage.class, sent.getAllValues().get(1));
+    }
+
+    @Test
+    void testCompressedClientFrameIsInflated() throws Exception {
+        String answer = objectMapper.writeValueAsString(new CallMessage("answer", "dad", BenchmarkPayloads.sdp()));
+        BinaryMessage compressed = (BinaryMessage) compressor.compress(new TextMessage(answer));
+
+        handler.handleMessage(sonSession, compressed);
+
+        String expected = objectMapper.writeValueAsString(new CallMessage("answer", "son", "dad", BenchmarkPayloads.sdp()));
+        verify(dadSession).sendMessage(new TextMessage(expected));
+    }
+
+    @Test
+    void testCompressedFrameInflatingPastTheTextLimitIsRejected() throws Exception {
+        SignalingProperties.Endpoint limits = new SignalingProperties().getLimits().getSignal();
+        // A few hundred bytes on the wire that inflate to twice the text frame limit
+        String padding = " ".repeat(2 * limits.getMaxTextFrameSize());
+        String answer = "{\"type\":\"answer\",\"recipientId\":\"dad\",\"sdp\":\"" + padding + "\"}";
+        BinaryMessage compressed = (BinaryMessage) compressor.compress(new TextMessage(answer));
+        assertTrue(compressed.getPayloadLength() < limits.getMaxBinaryFrameSize());
+        clearInvocations(dadSession);
+
+        handler.handleMessage(sonSession, compressed);
+
+        verify(sonSession).close(CloseStatus.TOO_BIG_TO_PROCESS);
+        verify(dadSession, never()).sendMessage(any());
+    }
+
+    @Test
+    void testUndecodableFrameClosesThroughTheOutboundQueue() throws Exception {
+        handler.handleMessage(sonSession, new BinaryMessage(new byte[] {1, 2, 3, 4}));
+
+        verify(sonSession).close(CloseStatus.BAD_DATA);
+        assertTrue(outbound.getQueue("sonSession").isClosed(), "Nothing more is sent after the close");
+    }
+
+    private TextMessage json(Object message) throws Exception {
+        return new TextMessage(objectMapper.writeValueAsString(message));
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getAttributes()).thenReturn(new HashMap<>());
+        when(session.getExtensions()).thenReturn(List.of());
+        return session;
+    }
+}
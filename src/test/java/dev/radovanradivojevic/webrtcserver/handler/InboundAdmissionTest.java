@@ -0,0 +1,114 @@
+package dev.radovanradivojevic.webrtcserver.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.radovanradivojevic.webrtcserver.admission.AdmissionController;
+import dev.radovanradivojevic.webrtcserver.audit.AuditLog;
+import dev.radovanradivojevic.webrtcserver.audit.InMemoryAuditStore;
+import dev.radovanradivojevic.webrtcserver.call.CallRegistry;
+import dev.radovanradivojevic.webrtcserver.call.CallTracer;
+import dev.radovanradivojevic.webrtcserver.cluster.ClusterRouter;
+import dev.radovanradivojevic.webrtcserver.cluster.InMemorySessionDirectory;
+import dev.radovanradivojevic.webrtcserver.cluster.LoopbackNodeRelay;
+import dev.radovanradivojevic.webrtcserver.compression.FrameCompressor;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import dev.radovanradivojevic.webrtcserver.model.CallMessage;
+import dev.radovanradivojevic.webrtcserver.relay.DeliveryReceipts;
+import dev.radovanradivojevic.webrtcserver.relay.IceCandidateBatcher;
+import dev.radovanradivojevic.webrtcserver.relay.PendingMessageBuffer;
+import dev.radovanradivojevic.webrtcserver.relay.StreamingRelayCodec;
+import dev.radovanradivojevic.webrtcserver.session.HeartbeatMonitor;
+import dev.radovanradivojevic.webrtcserver.session.InboundMessageDispatcher;
+import dev.radovanradivojevic.webrtcserver.session.OutboundMessageDispatcher;
+import dev.radovanradivojevic.webrtcserver.session.SessionDrainer;
+import dev.radovanradivojevic.webrtcserver.session.SessionRegistry;
+import dev.radovanradivojevic.webrtcserver.wakeup.CalleeWakeups;
+import dev.radovanradivojevic.webrtcserver.wakeup.WakeupDispatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Admission happens on the container thread, before a message is queued on the session's lane
+ */
+class InboundAdmissionTest {
+
+    private SignalingProperties properties;
+    private SignalingEventLog eventLog;
+    private ScheduledExecutorService scheduler;
+    private InboundMessageDispatcher inbound;
+    private SignalingHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        properties = new SignalingProperties();
+        properties.getRateLimit().getOffer().setBurst(3);
+        eventLog = new SignalingEventLog(properties);
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        SignalingMetrics metrics = new SignalingMetrics(new SimpleMeterRegistry(), eventLog);
+        OutboundMessageDispatcher outbound = new OutboundMessageDispatcher(properties, Runnable::run, eventLog,
+                metrics);
+
+        // Stands in for a lane that never gets to run, as under a flood
+        inbound = mock(InboundMessageDispatcher.class);
+        handler = new SignalingHandler(objectMapper,
+                inbound, outbound,
+                new StreamingRelayCodec(objectMapper, properties),
+                new IceCandidateBatcher(properties, outbound, scheduler), eventLog, metrics,
+                new ClusterRouter(properties, new InMemorySessionDirectory(), new LoopbackNodeRelay()),
+                new PendingMessageBuffer(properties, scheduler, metrics),
+                new FrameCompressor(properties, metrics), new SessionRegistry(properties),
+                new AdmissionController(properties, outbound, scheduler, metrics, eventLog),
+                new CallRegistry(properties, metrics),
+                new CallTracer(properties, metrics),
+                new HeartbeatMonitor(properties, outbound, scheduler, metrics, eventLog),
+                new AuditLog(properties, new InMemoryAuditStore(), metrics, eventLog),
+                new MessageTypeRegistry(objectMapper, properties),
+                new DeliveryReceipts(properties, outbound, scheduler, metrics),
+                new SessionDrainer(properties, outbound, scheduler, metrics, eventLog),
+                new CalleeWakeups(properties, (WakeupDispatcher) null, Runnable::run, scheduler, metrics, eventLog),
+                properties);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        scheduler.shutdownNow();
+        eventLog.close();
+    }
+
+    @Test
+    void testFloodIsRejectedBeforeItIsQueued() throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session123");
+        when(session.isOpen()).thenReturn(true);
+        TextMessage offer = new TextMessage(new ObjectMapper().writeValueAsString(
+                new CallMessage("offer", "son", "v=0")));
+
+        for (int i = 0; i < 100; i++) {
+            handler.handleTextMessage(session, offer);
+        }
+
+        verify(inbound, times(3)).dispatch(eq(session), any());
+    }
+
+    @Test
+    void testMalformedFrameIsNeverQueued() throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session123");
+
+        handler.handleTextMessage(session, new TextMessage("not json"));
+        handler.handleTextMessage(session, new TextMessage("{\"type\":\"no-such-type\"}"));
+
+        verify(inbound, never()).dispatch(any(), any());
+    }
+}
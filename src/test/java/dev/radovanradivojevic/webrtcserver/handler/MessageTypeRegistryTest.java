@@ -0,0 +1,166 @@
+package dev.radovanradivojevic.webrtcserver.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.model.CallMessage;
+import dev.radovanradivojevic.webrtcserver.model.RegisterMessage;
+import dev.radovanradivojevic.webrtcserver.model.SignalingMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MessageTypeRegistryTest {
+
+    private ObjectMapper objectMapper;
+    private SignalingHandler handler;
+    private WebSocketSession dadSession;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        handler = new SignalingHandler(objectMapper);
+        dadSession = mock(WebSocketSession.class);
+        when(dadSession.getId()).thenReturn("session-dad");
+        when(dadSession.isOpen()).thenReturn(true);
+        handler.handleTextMessage(dadSession, json(new RegisterMessage("dad")));
+        clearInvocations(dadSession);
+    }
+
+    @Test
+    void testBuiltInTypesAreRegistered() {
+        assertEquals(Set.of("register", "offer", "answer", "ice-candidate", "end-call", "join-room", "leave-room"),
+                handler.getMessageTypes().getTypes());
+        assertTrue(handler.getMessageTypes().lookup("offer").isRelayable());
+        assertFalse(handler.getMessageTypes().lookup("register").isRelayable());
+    }
+
+    @Test
+    void testSubtypeIsReadWithoutPolymorphicResolution() throws Exception {
+        MessageTypeRegistry.Registration answer = handler.getMessageTypes().lookup("answer");
+
+        SignalingMessage message = answer.read(objectMapper.writeValueAsString(new CallMessage("answer", "son", "sdp")));
+
+        CallMessage call = assertInstanceOf(CallMessage.class, message);
+        assertEquals("answer", call.getType(), "\"type\" is still read as a plain field");
+        assertEquals("son", call.getTo());
+    }
+
+    @Test
+    void testNewTypeIsDispatchedWithoutChangingTheHandler() throws Exception {
+        List<MuteMessage> handled = new CopyOnWriteArrayList<>();
+        handler.getMessageTypes().register(
+                SignalingMessageHandler.of(MuteMessage.class, (session, message) -> handled.add(message), "mute"));
+
+        handler.handleTextMessage(dadSession, new TextMessage("{\"type\":\"mute\",\"to\":\"son\",\"muted\":true}"));
+
+        assertEquals(1, handled.size());
+        assertEquals("mute", handled.get(0).getType());
+        assertTrue(handled.get(0).isMuted());
+    }
+
+    @Test
+    void testHandlerBeansAreAddedOnceAllSingletonsExist() {
+        SignalingMessageHandler<MuteMessage> bean = SignalingMessageHandler.of(MuteMessage.class,
+                (session, message) -> { }, "mute", "unmute");
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.of("muteHandler", bean));
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ObjectProvider<SignalingMessageHandler<?>> provider = (ObjectProvider) beans.getBeanProvider(SignalingMessageHandler.class);
+        MessageTypeRegistry registry = new MessageTypeRegistry(objectMapper, provider, new SignalingProperties());
+        assertNull(registry.lookup("mute"));
+
+        registry.afterSingletonsInstantiated();
+
+        assertEquals(Set.of("mute", "unmute"), registry.getTypes());
+        assertFalse(registry.lookup("mute").isRelayable());
+    }
+
+    @Test
+    void testTypeCanOnlyHaveOneHandler() {
+        MessageTypeRegistry registry = handler.getMessageTypes();
+        SignalingMessageHandler<MuteMessage> offer = SignalingMessageHandler.of(MuteMessage.class,
+                (session, message) -> { }, "mute", "offer");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> registry.register(offer));
+        assertTrue(e.getMessage().contains("\"offer\""));
+        assertNull(registry.lookup("mute"), "A rejected handler must not be half registered");
+    }
+
+    @Test
+    void testUnknownTypeIsDroppedWithoutFailing() throws Exception {
+        assertDoesNotThrow(() -> handler.handleTextMessage(dadSession,
+                new TextMessage("{\"type\":\"self-destruct\",\"to\":\"son\"}")));
+
+        verify(dadSession, never()).sendMessage(any());
+        assertEquals("dad", handler.getUserId("session-dad"), "The session stays usable");
+    }
+
+    @Test
+    void testMalformedFramesAreDroppedWithoutFailing() throws Exception {
+        for (String payload : List.of("{\"type\":\"offer\",", "[1,2,3]", "{\"to\":\"son\"}", "{\"type\":42}",
+                "{\"type\":\"register\",\"capabilities\":{\"not\":\"a list\"}}")) {
+            assertDoesNotThrow(() -> handler.handleTextMessage(dadSession, new TextMessage(payload)), payload);
+        }
+
+        verify(dadSession, never()).sendMessage(any());
+        assertEquals("dad", handler.getUserId("session-dad"));
+    }
+
+    @Test
+    void testFramesOverTheLimitsAreNotForwarded() throws Exception {
+        WebSocketSession sonSession = mock(WebSocketSession.class);
+        when(sonSession.getId()).thenReturn("session-son");
+        when(sonSession.isOpen()).thenReturn(true);
+        handler.handleTextMessage(sonSession, json(new RegisterMessage("son")));
+        clearInvocations(sonSession);
+
+        String deep = "{\"type\":\"offer\",\"to\":\"son\",\"x\":" + "[".repeat(64) + "]".repeat(64) + "}";
+        String longSdp = objectMapper.writeValueAsString(new CallMessage("offer", "son", "v".repeat(20_000)));
+        String longCandidate = "{\"type\":\"register\",\"userId\":\"" + "u".repeat(20_000) + "\"}";
+        for (String payload : List.of(deep, longSdp, longCandidate)) {
+            assertDoesNotThrow(() -> handler.handleTextMessage(dadSession, new TextMessage(payload)));
+        }
+
+        verify(sonSession, never()).sendMessage(any());
+        verify(dadSession, never()).sendMessage(any());
+        assertEquals("dad", handler.getUserId("session-dad"), "A long userId must not re-register the session");
+    }
+
+    private TextMessage json(Object message) throws Exception {
+        return new TextMessage(objectMapper.writeValueAsString(message));
+    }
+
+    /**
+     * A type the server does not know about (not listed in @JsonSubTypes)
+     */
+    static class MuteMessage extends SignalingMessage {
+        private String to;
+        private boolean muted;
+
+        public String getTo() {
+            return to;
+        }
+
+        public void setTo(String to) {
+            this.to = to;
+        }
+
+        public boolean isMuted() {
+            return muted;
+        }
+
+        public void setMuted(boolean muted) {
+            this.muted = muted;
+        }
+    }
+}
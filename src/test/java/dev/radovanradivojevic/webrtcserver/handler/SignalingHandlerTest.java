@@ -61,6 +61,18 @@ class SignalingHandlerTest {
         assertEquals(dadSession, handler.getSession("dad"), "The stored session should be the same mock session we passed in");
     }
 
+    @Test
+    void testOversizedUserIdIsRejected() throws Exception {
+        String userId = "x".repeat(256);
+
+        handler.handleTextMessage(dadSession,
+                new TextMessage(objectMapper.writeValueAsString(new RegisterMessage(userId))));
+
+        assertNull(handler.getSession(userId));
+        verify(dadSession).sendMessage(new TextMessage(
+                "{\"type\":\"error\",\"code\":\"invalid-user-id\",\"messageType\":\"register\"}"));
+    }
+
     @Test
     void testMessageForwardingToRecipient() throws Exception {
         // ARRANGE: Set up TWO users (dad and son)
@@ -113,6 +125,22 @@ class SignalingHandlerTest {
         verify(sonSession).sendMessage(new TextMessage(expectedJson));
     }
 
+    @Test
+    void testRepeatedFromIsRelayedWithTheSender() throws Exception {
+        WebSocketSession sonSession = mock(WebSocketSession.class);
+        when(sonSession.getId()).thenReturn("sonSession123");
+        when(sonSession.isOpen()).thenReturn(true);
+        handler.handleTextMessage(dadSession, new TextMessage(objectMapper.writeValueAsString(new RegisterMessage("dad"))));
+        handler.handleTextMessage(sonSession, new TextMessage(objectMapper.writeValueAsString(new RegisterMessage("son"))));
+
+        // No single "from" to overwrite in place: the frame takes the object path instead of being dropped
+        handler.handleTextMessage(dadSession, new TextMessage(
+                "{\"type\":\"offer\",\"from\":\"mallory\",\"from\":\"eve\",\"to\":\"son\",\"sdp\":\"fake-sdp-data\"}"));
+
+        verify(sonSession).sendMessage(new TextMessage(objectMapper.writeValueAsString(
+                new CallMessage("offer", "dad", "son", "fake-sdp-data"))));
+    }
+
     @Test
     void testDisconnectionCleansUpMaps() throws Exception {
         // ARRANGE: Register dad
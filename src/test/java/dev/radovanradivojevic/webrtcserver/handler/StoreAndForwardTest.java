@@ -0,0 +1,114 @@
+package dev.radovanradivojevic.webrtcserver.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.radovanradivojevic.webrtcserver.model.CallMessage;
+import dev.radovanradivojevic.webrtcserver.model.EndCallMessage;
+import dev.radovanradivojevic.webrtcserver.model.RegisterMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Offers sent while the callee is reconnecting are delivered once it registers again
+ */
+class StoreAndForwardTest {
+
+    private SignalingHandler handler;
+    private ObjectMapper objectMapper;
+    private WebSocketSession dadSession;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        handler = new SignalingHandler(objectMapper);
+        dadSession = session("dadSession");
+        send(dadSession, new RegisterMessage("dad"));
+    }
+
+    @Test
+    void testOfferIsDeliveredAfterReconnect() throws Exception {
+        WebSocketSession oldSonSession = session("sonSession1");
+        send(oldSonSession, new RegisterMessage("son"));
+        handler.afterConnectionClosed(oldSonSession, CloseStatus.GOING_AWAY);
+
+        // Dad calls while son is between connections
+        send(dadSession, new CallMessage("offer", "son", "fake-sdp-data"));
+
+        WebSocketSession sonSession = session("sonSession2");
+        send(sonSession, new RegisterMessage("son"));
+
+        ArgumentCaptor<WebSocketMessage<?>> sent = ArgumentCaptor.captor();
+        verify(sonSession, times(2)).sendMessage(sent.capture());
+        List<WebSocketMessage<?>> messages = sent.getAllValues();
+        assertTrue(((String) messages.get(0).getPayload()).startsWith("{\"type\":\"registered\""),
+                "The registration ack comes first");
+        assertEquals(objectMapper.writeValueAsString(new CallMessage("offer", "dad", "son", "fake-sdp-data")),
+                messages.get(1).getPayload());
+    }
+
+    @Test
+    void testHeldMessagesKeepTheirOrder() throws Exception {
+        send(dadSession, new CallMessage("offer", "son", "first"));
+        send(dadSession, new CallMessage("offer", "son", "second"));
+
+        WebSocketSession sonSession = session("sonSession");
+        send(sonSession, new RegisterMessage("son"));
+
+        InOrder inOrder = inOrder(sonSession);
+        inOrder.verify(sonSession).sendMessage(argThat(m -> ((String) m.getPayload()).contains("registered")));
+        inOrder.verify(sonSession).sendMessage(argThat(m -> ((String) m.getPayload()).contains("first")));
+        inOrder.verify(sonSession).sendMessage(argThat(m -> ((String) m.getPayload()).contains("second")));
+    }
+
+    @Test
+    void testEndCallCancelsHeldOffer() throws Exception {
+        send(dadSession, new CallMessage("offer", "son", "fake-sdp-data"));
+        send(dadSession, new EndCallMessage("son"));
+
+        WebSocketSession sonSession = session("sonSession");
+        send(sonSession, new RegisterMessage("son"));
+
+        // Only the registration ack
+        verify(sonSession, times(1)).sendMessage(any());
+    }
+
+    @Test
+    void testSenderLearnsWhetherTheCalleeCanBeReached() throws Exception {
+        WebSocketSession momSession = session("momSession");
+        RegisterMessage register = new RegisterMessage("mom");
+        register.setCapabilities(List.of("receipts"));
+        send(momSession, register);
+        verify(momSession).sendMessage(new TextMessage(
+                "{\"type\":\"registered\",\"userId\":\"mom\",\"capabilities\":[\"receipts\"]}"));
+
+        // Held for son's reconnect - that counts as accepted
+        handler.handleTextMessage(momSession, new TextMessage("{\"type\":\"offer\",\"id\":\"m1\",\"to\":\"son\",\"sdp\":\"x\"}"));
+        verify(momSession, timeout(2000)).sendMessage(new TextMessage("{\"type\":\"delivered\",\"ids\":[\"m1\"]}"));
+
+        // An end-call is never held, so mom hears right away that son is not there
+        handler.handleTextMessage(momSession, new TextMessage("{\"type\":\"end-call\",\"id\":7,\"to\":\"son\"}"));
+        verify(momSession).sendMessage(new TextMessage(
+                "{\"type\":\"error\",\"code\":\"peer-unavailable\",\"to\":\"son\",\"messageType\":\"end-call\",\"id\":\"7\"}"));
+    }
+
+    private void send(WebSocketSession session, Object message) throws Exception {
+        handler.handleTextMessage(session, new TextMessage(objectMapper.writeValueAsString(message)));
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+}
@@ -0,0 +1,142 @@
+package dev.radovanradivojevic.webrtcserver.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignalingEventLogTest {
+
+    private Logger eventsLogger;
+    private ListAppender<ILoggingEvent> appender;
+    private SignalingEventLog eventLog;
+
+    @BeforeEach
+    void setUp() {
+        eventsLogger = (Logger) LoggerFactory.getLogger("signaling.events");
+        eventsLogger.setLevel(ch.qos.logback.classic.Level.TRACE);
+        appender = new ListAppender<>();
+        appender.start();
+        eventsLogger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (eventLog != null) {
+            eventLog.close();
+        }
+        eventsLogger.detachAppender(appender);
+    }
+
+    @Test
+    void testEventsAreWrittenAsKeyValueLines() throws Exception {
+        eventLog = newEventLog(Level.DEBUG, PayloadLogging.NONE);
+
+        eventLog.forwarded("offer", "dad", "son", 3012);
+        eventLog.close();
+
+        List<String> lines = messages();
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).startsWith("event=FORWARDED type=offer from=dad to=son size=3012 ts="),
+                lines.get(0));
+    }
+
+    @Test
+    void testDisabledLevelRecordsNothing() throws Exception {
+        eventLog = newEventLog(Level.INFO, PayloadLogging.FULL);
+
+        eventLog.received("session123", "{\"type\":\"offer\"}");
+        eventLog.forwarded("offer", "dad", "son", 17);
+        eventLog.registered("session123", "dad");
+        eventLog.close();
+
+        List<String> lines = messages();
+        assertEquals(1, lines.size(), "Only the INFO event should be recorded");
+        assertTrue(lines.get(0).startsWith("event=REGISTERED session=session123 from=dad"));
+    }
+
+    @Test
+    void testRedactedPayloadHidesCredentialsAndIsTruncated() throws Exception {
+        SignalingProperties properties = new SignalingProperties();
+        properties.getLog().setLevel(Level.DEBUG);
+        properties.getLog().setMaxPayloadChars(80);
+        eventLog = new SignalingEventLog(properties);
+
+        String payload = "{\"type\":\"offer\",\"to\":\"son\",\"sdp\":\"v=0\\r\\na=ice-pwd:secret123\\r\\n"
+                + "a=fingerprint:sha-256 AB:CD\\r\\n" + "a=rtcp-mux\\r\\n".repeat(50) + "\"}";
+        eventLog.received("session123", payload);
+        eventLog.close();
+
+        String line = messages().get(0);
+        assertFalse(line.contains("secret123"), line);
+        assertTrue(line.contains("a=ice-pwd:***"), line);
+        assertTrue(line.contains("(" + payload.length() + " chars)"), line);
+    }
+
+    @Test
+    void testFullBufferDropsInsteadOfBlocking() throws Exception {
+        SignalingProperties properties = new SignalingProperties();
+        properties.getLog().setBufferSize(4);
+        eventLog = new SignalingEventLog(properties);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 100_000; i++) {
+            eventLog.registered("session" + (i % 10), "user");
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        eventLog.close();
+
+        assertTrue(eventLog.getDroppedCount() > 0);
+        assertEquals(100_000, eventLog.getDroppedCount() + messages().size());
+        assertTrue(elapsedMillis < 5_000, "Producers must never wait for the writer");
+    }
+
+    @Test
+    void testClientValuesCannotForgeLinesOrFields() throws Exception {
+        eventLog = newEventLog(Level.DEBUG, PayloadLogging.NONE);
+
+        eventLog.forwarded("offer", "dad", "son\nevent=REGISTERED from=\"mom\"", 17);
+        eventLog.close();
+
+        String line = messages().get(0);
+        assertFalse(line.contains("\n"), line);
+        assertTrue(line.startsWith(
+                "event=FORWARDED type=offer from=dad to=\"son\\nevent=REGISTERED from=\\\"mom\\\"\" size=17 ts="), line);
+    }
+
+    @Test
+    void testIdleWriterIsWokenByTheNextEvent() throws Exception {
+        eventLog = newEventLog(Level.DEBUG, PayloadLogging.NONE);
+
+        // Long enough for the writer to stop polling and go to sleep
+        Thread.sleep(200);
+        eventLog.forwarded("offer", "dad", "son", 17);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+        while (messages().isEmpty()) {
+            assertTrue(System.nanoTime() < deadline, "The event waited out the idle sleep");
+            Thread.sleep(1);
+        }
+    }
+
+    private SignalingEventLog newEventLog(Level level, PayloadLogging payload) {
+        SignalingProperties properties = new SignalingProperties();
+        properties.getLog().setLevel(level);
+        properties.getLog().setPayload(payload);
+        return new SignalingEventLog(properties);
+    }
+
+    private List<String> messages() {
+        return appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+    }
+}
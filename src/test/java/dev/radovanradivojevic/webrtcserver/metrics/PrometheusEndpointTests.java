@@ -0,0 +1,30 @@
+package dev.radovanradivojevic.webrtcserver.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Spring Boot tests disable metrics exporters unless asked to keep them
+@AutoConfigureObservability(tracing = false)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"signaling.audit.endpoint-enabled=true", "signaling.trace.endpoint-enabled=true"})
+class PrometheusEndpointTests {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void testSignalingMetricsAreScrapable() {
+        String body = restTemplate.getForObject("/actuator/prometheus", String.class);
+
+        assertNotNull(body);
+        assertTrue(body.contains("signaling_messages_in_total{type=\"offer\"}"));
+        assertTrue(body.contains("signaling_route_seconds_bucket"));
+        assertTrue(body.contains("signaling_outbound_queue_messages"));
+        assertTrue(body.contains("signaling_sessions_active"));
+    }
+}
@@ -0,0 +1,92 @@
+package dev.radovanradivojevic.webrtcserver.metrics;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.session.OutboundMessageDispatcher;
+import dev.radovanradivojevic.webrtcserver.session.OverflowPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SignalingMetricsTest {
+
+    private MeterRegistry registry;
+    private SignalingEventLog eventLog;
+    private SignalingMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        eventLog = new SignalingEventLog(new SignalingProperties());
+        metrics = new SignalingMetrics(registry, eventLog);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        eventLog.close();
+    }
+
+    @Test
+    void testMessagesAreCountedPerType() {
+        metrics.messageReceived("offer");
+        metrics.messageReceived("offer");
+        metrics.messageReceived("ice-candidate");
+        metrics.messageReceived("something-new");
+        metrics.messageReceived(null);
+
+        assertEquals(2, registry.get("signaling.messages.in").tag("type", "offer").counter().count());
+        assertEquals(1, registry.get("signaling.messages.in").tag("type", "ice-candidate").counter().count());
+        assertEquals(2, registry.get("signaling.messages.in").tag("type", "other").counter().count(),
+                "Unknown types must not create new time series");
+    }
+
+    @Test
+    void testOutboundQueueDepthAndDrops() throws Exception {
+        SignalingProperties properties = new SignalingProperties();
+        properties.getOutbound().setBufferSizeLimit(10);
+        properties.getOutbound().setOverflowPolicy(OverflowPolicy.DROP);
+        // Writer tasks are held back so messages stay queued
+        Queue<Runnable> writerTasks = new ArrayDeque<>();
+        OutboundMessageDispatcher outbound = new OutboundMessageDispatcher(properties, writerTasks::add,
+                eventLog, metrics);
+
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session123");
+        when(session.isOpen()).thenReturn(true);
+
+        outbound.send(session, new TextMessage("12345"));
+        outbound.send(session, new TextMessage("67890"));
+        outbound.send(session, new TextMessage("overflow"));
+
+        assertEquals(2, registry.get("signaling.outbound.queue.messages").gauge().value());
+        assertEquals(10, registry.get("signaling.outbound.queue.bytes").gauge().value());
+        assertEquals(1, registry.get("signaling.outbound.dropped").tag("reason", "overflow").counter().count());
+
+        writerTasks.poll().run();
+        assertEquals(0, registry.get("signaling.outbound.queue.messages").gauge().value());
+        assertEquals(2, registry.get("signaling.send").timer().count());
+    }
+
+    @Test
+    void testActiveSessionsGaugeReadsLiveState() {
+        Map<String, String> sessions = new ConcurrentHashMap<>();
+        metrics.bindActiveSessions(sessions::size);
+
+        sessions.put("dad", "session1");
+        sessions.put("son", "session2");
+
+        assertEquals(2, registry.get("signaling.sessions.active").gauge().value());
+    }
+}
@@ -0,0 +1,56 @@
+package dev.radovanradivojevic.webrtcserver.relay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.radovanradivojevic.webrtcserver.benchmark.BenchmarkPayloads;
+import dev.radovanradivojevic.webrtcserver.model.CallMessage;
+import dev.radovanradivojevic.webrtcserver.model.IceCandidate;
+import dev.radovanradivojevic.webrtcserver.model.IceCandidateMessage;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CborTranscoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CborTranscoder transcoder = new CborTranscoder(objectMapper);
+
+    @Test
+    void testRoundTripKeepsDocument() throws Exception {
+        String json = objectMapper.writeValueAsString(new CallMessage("offer", "dad", "son", BenchmarkPayloads.sdp()));
+
+        byte[] cbor = transcoder.toCbor(json);
+
+        assertEquals(json, transcoder.toJson(ByteBuffer.wrap(cbor)));
+    }
+
+    @Test
+    void testCborFramesAreSmaller() throws Exception {
+        String offer = objectMapper.writeValueAsString(new CallMessage("offer", "dad", "son", BenchmarkPayloads.sdp()));
+        String candidate = objectMapper.writeValueAsString(new IceCandidateMessage("dad", "son",
+                new IceCandidate("0", 0, BenchmarkPayloads.candidate(1))));
+
+        assertTrue(transcoder.toCbor(offer).length < offer.getBytes(StandardCharsets.UTF_8).length);
+        assertTrue(transcoder.toCbor(candidate).length < candidate.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    void testReadsFromBufferPosition() throws Exception {
+        byte[] cbor = transcoder.toCbor("{\"type\":\"end-call\",\"to\":\"son\"}");
+        ByteBuffer framed = ByteBuffer.allocate(cbor.length + 4);
+        framed.position(4);
+        framed.put(cbor);
+        framed.position(4);
+
+        assertEquals("{\"type\":\"end-call\",\"to\":\"son\"}", transcoder.toJson(framed));
+    }
+
+    @Test
+    void testMalformedFrameIsRejected() {
+        assertThrows(IOException.class, () -> transcoder.toJson(ByteBuffer.wrap(new byte[]{(byte) 0xbf, 0x61})));
+        assertThrows(IOException.class, () -> transcoder.toJson(ByteBuffer.allocate(0)));
+    }
+}
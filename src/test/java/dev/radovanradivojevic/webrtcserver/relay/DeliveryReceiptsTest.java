@@ -0,0 +1,129 @@
+package dev.radovanradivojevic.webrtcserver.relay;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import dev.radovanradivojevic.webrtcserver.session.OutboundMessageDispatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DeliveryReceiptsTest {
+
+    private SignalingProperties properties;
+    private ScheduledExecutorService scheduler;
+    private DeliveryReceipts receipts;
+    private WebSocketSession dadSession;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SignalingProperties();
+        properties.getReceipts().setMaxIds(3);
+        properties.getReceipts().setMaxIdLength(8);
+        properties.getReceipts().setUnavailableInterval(Duration.ofMinutes(1));
+
+        scheduler = mock(ScheduledExecutorService.class);
+        receipts = newReceipts();
+
+        dadSession = mock(WebSocketSession.class);
+        when(dadSession.getId()).thenReturn("dadSession");
+        when(dadSession.isOpen()).thenReturn(true);
+    }
+
+    @Test
+    void testClientWithoutCapabilityGetsNoReceipts() throws Exception {
+        assertFalse(receipts.negotiate(dadSession, List.of("ice-batch")));
+
+        receipts.delivered(dadSession, "m1");
+
+        verify(dadSession, never()).sendMessage(any());
+        verifyNoInteractions(scheduler);
+    }
+
+    @Test
+    void testIdsWithinWindowAreAcknowledgedInOneFrame() throws Exception {
+        assertTrue(receipts.negotiate(dadSession, List.of(DeliveryReceipts.CAPABILITY)));
+
+        receipts.delivered(dadSession, "m1");
+        receipts.delivered(dadSession, null);
+        receipts.delivered(dadSession, "m2");
+        verify(dadSession, never()).sendMessage(any());
+
+        runScheduledFlush();
+
+        verify(dadSession).sendMessage(new TextMessage("{\"type\":\"delivered\",\"ids\":[\"m1\",\"m2\"]}"));
+    }
+
+    @Test
+    void testMaxIdsFlushesImmediately() throws Exception {
+        receipts.negotiate(dadSession, List.of(DeliveryReceipts.CAPABILITY));
+
+        receipts.delivered(dadSession, "m1");
+        receipts.delivered(dadSession, "m2");
+        receipts.delivered(dadSession, "m3");
+
+        verify(dadSession).sendMessage(new TextMessage("{\"type\":\"delivered\",\"ids\":[\"m1\",\"m2\",\"m3\"]}"));
+    }
+
+    @Test
+    void testOverlongIdsAreNotEchoed() throws Exception {
+        receipts.negotiate(dadSession, List.of(DeliveryReceipts.CAPABILITY));
+
+        receipts.delivered(dadSession, "much-too-long");
+
+        verifyNoInteractions(scheduler);
+    }
+
+    @Test
+    void testServerCanTurnReceiptsOff() {
+        properties.getReceipts().setEnabled(false);
+        receipts = newReceipts();
+
+        assertFalse(receipts.negotiate(dadSession, List.of(DeliveryReceipts.CAPABILITY)));
+    }
+
+    @Test
+    void testUnavailableIsSentToEveryClientRightAway() throws Exception {
+        receipts.unavailable(dadSession, "son", "offer", "m1");
+
+        verify(dadSession).sendMessage(new TextMessage(
+                "{\"type\":\"error\",\"code\":\"peer-unavailable\",\"to\":\"son\",\"messageType\":\"offer\",\"id\":\"m1\"}"));
+    }
+
+    @Test
+    void testUnavailableWithoutIdIsSentOncePerPeer() throws Exception {
+        receipts.unavailable(dadSession, "son", "ice-candidate", null);
+        receipts.unavailable(dadSession, "son", "ice-candidate", null);
+        receipts.unavailable(dadSession, "mom", "ice-candidate", null);
+        receipts.unavailable(dadSession, "mom", "offer", "m2");
+
+        ArgumentCaptor<TextMessage> sent = ArgumentCaptor.forClass(TextMessage.class);
+        verify(dadSession, times(3)).sendMessage(sent.capture());
+        assertEquals(List.of("son", "mom", "mom"), sent.getAllValues().stream()
+                .map(frame -> frame.getPayload().replaceAll(".*\"to\":\"(\\w+)\".*", "$1")).toList());
+    }
+
+    private DeliveryReceipts newReceipts() {
+        SignalingEventLog eventLog = new SignalingEventLog(properties);
+        SignalingMetrics metrics = new SignalingMetrics(new SimpleMeterRegistry(), eventLog);
+        OutboundMessageDispatcher outbound = new OutboundMessageDispatcher(properties, Runnable::run, eventLog, metrics);
+        return new DeliveryReceipts(properties, outbound, scheduler, metrics);
+    }
+
+    private void runScheduledFlush() {
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(task.capture(), anyLong(), eq(TimeUnit.NANOSECONDS));
+        task.getValue().run();
+    }
+}
@@ -0,0 +1,57 @@
+package dev.radovanradivojevic.webrtcserver.relay;
+
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameLimitsTest {
+
+    private ObjectMapper objectMapper;
+    private SignalingProperties properties;
+    private SignalingProperties.Limits limits;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        properties = new SignalingProperties();
+        limits = properties.getLimits();
+        limits.setMaxDepth(3);
+        limits.setMaxSdpLength(8);
+    }
+
+    @Test
+    void testConstrainedMapperRejectsDeepAndLongContent() throws Exception {
+        ObjectMapper constrained = FrameLimits.constrain(objectMapper, limits);
+
+        assertNotNull(constrained.readTree("{\"a\":[{\"b\":\"12345678\"}]}"));
+        assertThrows(StreamConstraintsException.class, () -> constrained.readTree("{\"a\":[[[1]]]}"));
+        assertThrows(StreamConstraintsException.class, () -> constrained.readTree("{\"sdp\":\"123456789\"}"));
+    }
+
+    @Test
+    void testApplicationMapperKeepsJacksonDefaults() throws Exception {
+        FrameLimits.constrain(objectMapper, limits);
+        FrameLimits.constrain(objectMapper.getFactory(), limits);
+
+        assertNotNull(objectMapper.readTree("{\"a\":[[[{\"sdp\":\"123456789\"}]]]}"));
+    }
+
+    @Test
+    void testCborFramesAreReadUnderTheLimits() throws Exception {
+        CborTranscoder transcoder = new CborTranscoder(objectMapper, properties);
+        ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+        byte[] deep = cbor.writeValueAsBytes(Map.of("type", "offer", "x", List.of(List.of(List.of(1)))));
+
+        assertThrows(StreamConstraintsException.class, () -> transcoder.toJson(ByteBuffer.wrap(deep)));
+    }
+
+}
@@ -0,0 +1,152 @@
+package dev.radovanradivojevic.webrtcserver.relay;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import dev.radovanradivojevic.webrtcserver.session.OutboundMessageDispatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class IceCandidateBatcherTest {
+
+    private static final String CANDIDATE_1 = "{\"type\":\"ice-candidate\",\"from\":\"dad\",\"to\":\"son\",\"candidate\":{\"sdp\":\"c1\"}}";
+    private static final String CANDIDATE_2 = "{\"type\":\"ice-candidate\",\"from\":\"dad\",\"to\":\"son\",\"candidate\":{\"sdp\":\"c2\"}}";
+    private static final String CANDIDATE_3 = "{\"type\":\"ice-candidate\",\"from\":\"dad\",\"to\":\"son\",\"candidate\":{\"sdp\":\"c3\"}}";
+
+    private IceCandidateBatcher batcher;
+    private ScheduledExecutorService scheduler;
+    private WebSocketSession sonSession;
+
+    @BeforeEach
+    void setUp() {
+        SignalingProperties properties = new SignalingProperties();
+        properties.getIceBatch().setEnabled(true);
+        properties.getIceBatch().setMaxCandidates(3);
+
+        scheduler = mock(ScheduledExecutorService.class);
+        SignalingEventLog eventLog = new SignalingEventLog(properties);
+        OutboundMessageDispatcher outbound = new OutboundMessageDispatcher(properties, Runnable::run, eventLog,
+                new SignalingMetrics(new SimpleMeterRegistry(), eventLog));
+        batcher = new IceCandidateBatcher(properties, outbound, scheduler);
+
+        sonSession = mock(WebSocketSession.class);
+        when(sonSession.getId()).thenReturn("sonSession123");
+        when(sonSession.isOpen()).thenReturn(true);
+    }
+
+    @Test
+    void testClientWithoutCapabilityIsNotBatched() {
+        assertFalse(batcher.negotiate(sonSession, null));
+        assertFalse(batcher.offer(sonSession, CANDIDATE_1), "Old clients must get single frames");
+    }
+
+    @Test
+    void testCandidatesWithinWindowAreSentAsOneFrame() throws Exception {
+        assertTrue(batcher.negotiate(sonSession, List.of(IceCandidateBatcher.CAPABILITY)));
+
+        assertTrue(batcher.offer(sonSession, CANDIDATE_1));
+        assertTrue(batcher.offer(sonSession, CANDIDATE_2));
+        verify(sonSession, never()).sendMessage(any());
+
+        // Window expires
+        runScheduledFlush();
+
+        verify(sonSession).sendMessage(new TextMessage(
+                "{\"type\":\"ice-candidates\",\"candidates\":[" + CANDIDATE_1 + "," + CANDIDATE_2 + "]}"));
+    }
+
+    @Test
+    void testFlushWaitsForScheduledFlushInProgress() throws Exception {
+        // The scheduled flush is stopped inside outbound.send(), before its frame is queued
+        OutboundMessageDispatcher outbound = mock(OutboundMessageDispatcher.class);
+        List<Object> queued = new CopyOnWriteArrayList<>();
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            TextMessage message = invocation.getArgument(1);
+            if (message.getPayload().equals(CANDIDATE_1)) {
+                sending.countDown();
+                proceed.await(5, TimeUnit.SECONDS);
+            }
+            queued.add(message.getPayload());
+            return true;
+        }).when(outbound).send(eq(sonSession), any());
+        SignalingProperties properties = new SignalingProperties();
+        properties.getIceBatch().setEnabled(true);
+        batcher = new IceCandidateBatcher(properties, outbound, scheduler);
+        batcher.negotiate(sonSession, List.of(IceCandidateBatcher.CAPABILITY));
+        batcher.offer(sonSession, CANDIDATE_1);
+
+        ArgumentCaptor<Runnable> scheduledFlush = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(scheduledFlush.capture(), anyLong(), eq(TimeUnit.NANOSECONDS));
+        Thread timer = new Thread(scheduledFlush.getValue());
+        timer.start();
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        // An answer for the same recipient, on another thread
+        Thread handler = new Thread(() -> {
+            batcher.flush(sonSession);
+            outbound.send(sonSession, new TextMessage("answer"));
+        });
+        handler.start();
+        handler.join(100);
+        proceed.countDown();
+        timer.join();
+        handler.join();
+
+        assertEquals(List.of(CANDIDATE_1, "answer"), queued);
+    }
+
+    @Test
+    void testSingleCandidateIsSentUnwrapped() throws Exception {
+        batcher.negotiate(sonSession, List.of(IceCandidateBatcher.CAPABILITY));
+
+        batcher.offer(sonSession, CANDIDATE_1);
+        runScheduledFlush();
+
+        verify(sonSession).sendMessage(new TextMessage(CANDIDATE_1));
+    }
+
+    @Test
+    void testCountLimitFlushesImmediately() throws Exception {
+        batcher.negotiate(sonSession, List.of(IceCandidateBatcher.CAPABILITY));
+
+        batcher.offer(sonSession, CANDIDATE_1);
+        batcher.offer(sonSession, CANDIDATE_2);
+        batcher.offer(sonSession, CANDIDATE_3);
+
+        ArgumentCaptor<TextMessage> sent = ArgumentCaptor.forClass(TextMessage.class);
+        verify(sonSession).sendMessage(sent.capture());
+        assertTrue(sent.getValue().getPayload().startsWith("{\"type\":\"ice-candidates\""));
+        assertTrue(sent.getValue().getPayload().contains("\"c3\""));
+    }
+
+    @Test
+    void testExplicitFlushSendsPendingCandidates() throws Exception {
+        batcher.negotiate(sonSession, List.of(IceCandidateBatcher.CAPABILITY));
+        batcher.offer(sonSession, CANDIDATE_1);
+
+        batcher.flush(sonSession);
+
+        verify(sonSession).sendMessage(new TextMessage(CANDIDATE_1));
+    }
+
+    private void runScheduledFlush() {
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(task.capture(), anyLong(), eq(TimeUnit.NANOSECONDS));
+        task.getValue().run();
+    }
+}
@@ -0,0 +1,144 @@
+package dev.radovanradivojevic.webrtcserver.relay;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import dev.radovanradivojevic.webrtcserver.relay.PendingMessageBuffer.PendingMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PendingMessageBufferTest {
+
+    private SignalingProperties properties;
+    private SignalingEventLog eventLog;
+    private MeterRegistry registry;
+    private ScheduledExecutorService scheduler;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SignalingProperties();
+        eventLog = new SignalingEventLog(properties);
+        registry = new SimpleMeterRegistry();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        scheduler.shutdownNow();
+        eventLog.close();
+    }
+
+    @Test
+    void testDrainReturnsMessagesInOrder() {
+        PendingMessageBuffer buffer = buffer();
+
+        assertTrue(buffer.hold("son", "dad", "offer", "offer-1"));
+        assertTrue(buffer.hold("son", "dad", "ice-candidate", "ice-1"));
+        assertTrue(buffer.hold("son", "dad", "ice-candidate", "ice-2"));
+
+        List<PendingMessage> messages = buffer.drain("son");
+        assertEquals(List.of("offer-1", "ice-1", "ice-2"), messages.stream().map(PendingMessage::getPayload).toList());
+        assertEquals(0, buffer.getHeldMessages());
+        assertEquals(0, buffer.getHeldBytes());
+        assertTrue(buffer.drain("son").isEmpty(), "Messages are delivered only once");
+    }
+
+    @Test
+    void testExpiredMessagesAreNotDelivered() throws Exception {
+        properties.getPending().setTtl(Duration.ofMillis(50));
+        PendingMessageBuffer buffer = buffer();
+
+        buffer.hold("son", "dad", "offer", "stale-offer");
+        Thread.sleep(80);
+        buffer.hold("son", "dad", "offer", "fresh-offer");
+
+        List<PendingMessage> messages = buffer.drain("son");
+        assertEquals(1, messages.size());
+        assertEquals("fresh-offer", messages.get(0).getPayload());
+        assertEquals(1, registry.get("signaling.pending").tag("outcome", "expired").counter().count());
+    }
+
+    @Test
+    void testMemoryCapEvictsLeastRecentlyUsedRecipient() {
+        properties.getPending().setMaxBytes(30);
+        PendingMessageBuffer buffer = buffer();
+
+        buffer.hold("alice", "dad", "offer", "0123456789");
+        buffer.hold("bob", "dad", "offer", "0123456789");
+        buffer.hold("alice", "dad", "ice-candidate", "0123456789");
+        // Over the cap: bob was used least recently
+        buffer.hold("carol", "dad", "offer", "0123456789");
+
+        assertTrue(buffer.drain("bob").isEmpty());
+        assertEquals(2, buffer.drain("alice").size());
+        assertEquals(1, buffer.drain("carol").size());
+        assertEquals(1, registry.get("signaling.pending").tag("outcome", "evicted").counter().count());
+    }
+
+    @Test
+    void testMemoryCapRejectsNewMessageInsteadOfTheOffer() {
+        properties.getPending().setMaxBytes(25);
+        PendingMessageBuffer buffer = buffer();
+
+        assertTrue(buffer.hold("son", "dad", "offer", "0123456789"));
+        assertTrue(buffer.hold("son", "dad", "ice-candidate", "0123456789"));
+        // son alone would be over the cap
+        assertFalse(buffer.hold("son", "dad", "ice-candidate", "0123456789"));
+
+        List<PendingMessage> messages = buffer.drain("son");
+        assertEquals(List.of("offer", "ice-candidate"), messages.stream().map(PendingMessage::getType).toList());
+        assertEquals(0, buffer.getHeldBytes());
+        assertEquals(1, registry.get("signaling.pending").tag("outcome", "rejected").counter().count());
+        assertEquals(0, registry.get("signaling.pending").tag("outcome", "evicted").counter().count());
+    }
+
+    @Test
+    void testPerRecipientLimitKeepsTheOffer() {
+        properties.getPending().setMaxMessagesPerRecipient(2);
+        PendingMessageBuffer buffer = buffer();
+
+        assertTrue(buffer.hold("son", "dad", "offer", "offer"));
+        assertTrue(buffer.hold("son", "dad", "ice-candidate", "ice-1"));
+        assertFalse(buffer.hold("son", "dad", "ice-candidate", "ice-2"));
+
+        assertEquals("offer", buffer.drain("son").get(0).getPayload());
+    }
+
+    @Test
+    void testCancelDropsOnlyThatSendersMessages() {
+        PendingMessageBuffer buffer = buffer();
+
+        buffer.hold("son", "dad", "offer", "dad-offer");
+        buffer.hold("son", "mom", "offer", "mom-offer");
+        buffer.hold("son", "dad", "ice-candidate", "dad-ice");
+
+        assertEquals(2, buffer.cancel("son", "dad"));
+
+        List<PendingMessage> messages = buffer.drain("son");
+        assertEquals(1, messages.size());
+        assertEquals("mom", messages.get(0).getSenderId());
+    }
+
+    @Test
+    void testDisabledBufferHoldsNothing() {
+        properties.getPending().setEnabled(false);
+        PendingMessageBuffer buffer = buffer();
+
+        assertFalse(buffer.hold("son", "dad", "offer", "offer"));
+        assertTrue(buffer.drain("son").isEmpty());
+    }
+
+    private PendingMessageBuffer buffer() {
+        return new PendingMessageBuffer(properties, scheduler, new SignalingMetrics(registry, eventLog));
+    }
+}
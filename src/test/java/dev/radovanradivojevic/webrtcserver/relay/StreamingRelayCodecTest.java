@@ -0,0 +1,119 @@
+package dev.radovanradivojevic.webrtcserver.relay;
+
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingRelayCodecTest {
+
+    private ObjectMapper objectMapper;
+    private StreamingRelayCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        codec = new StreamingRelayCodec(objectMapper);
+    }
+
+    @Test
+    void testReadsTypeAndRecipient() throws Exception {
+        RelayHeader header = codec.readHeader(
+                "{\"type\":\"answer\",\"to\":\"dad\",\"sdp\":\"v=0\\r\\no=- 1 2 IN IP4 127.0.0.1\"}");
+
+        assertNotNull(header);
+        assertEquals("answer", header.getType());
+        assertEquals("dad", header.getTo());
+        assertFalse(header.hasFrom());
+    }
+
+    @Test
+    void testSdpLengthIsCheckedWithoutReadingIt() throws Exception {
+        SignalingProperties properties = new SignalingProperties();
+        properties.getLimits().setMaxSdpLength(10);
+        codec = new StreamingRelayCodec(objectMapper, properties);
+
+        assertNotNull(codec.readHeader("{\"type\":\"offer\",\"to\":\"son\",\"sdp\":\"v=0\\r\\n12345\"}"));
+        assertThrows(StreamConstraintsException.class,
+                () -> codec.readHeader("{\"type\":\"offer\",\"to\":\"son\",\"sdp\":\"v=0\\r\\n123456\"}"));
+    }
+
+    @Test
+    void testNestingIsLimitedInSkippedFields() {
+        String payload = "{\"type\":\"ice-candidate\",\"to\":\"son\",\"candidate\":"
+                + "[".repeat(20) + "]".repeat(20) + "}";
+
+        assertThrows(StreamConstraintsException.class, () -> codec.readHeader(payload));
+    }
+
+    @Test
+    void testInsertsFromAfterType() throws Exception {
+        String payload = "{\"type\":\"offer\",\"to\":\"son\",\"sdp\":\"v=0\\r\\n\"}";
+
+        String forwarded = codec.withSender(payload, codec.readHeader(payload), "dad");
+
+        assertEquals("{\"type\":\"offer\",\"from\":\"dad\",\"to\":\"son\",\"sdp\":\"v=0\\r\\n\"}", forwarded);
+    }
+
+    @Test
+    void testOverwritesClientSuppliedFrom() throws Exception {
+        String payload = "{\"type\":\"ice-candidate\",\"from\":\"mallory\",\"to\":\"son\","
+                + "\"candidate\":{\"sdpMid\":\"0\",\"sdpMLineIndex\":0,\"sdp\":\"candidate:1 1 udp 1 10.0.0.1 5000 typ host\"}}";
+
+        String forwarded = codec.withSender(payload, codec.readHeader(payload), "dad");
+
+        JsonNode node = objectMapper.readTree(forwarded);
+        assertEquals("dad", node.get("from").asText());
+        assertEquals("son", node.get("to").asText());
+        assertEquals("0", node.get("candidate").get("sdpMid").asText());
+        assertEquals(4, node.size(), "No duplicate or extra fields should be added");
+    }
+
+    @Test
+    void testEscapesSenderId() throws Exception {
+        String payload = "{\"type\":\"end-call\",\"to\":\"son\"}";
+
+        String forwarded = codec.withSender(payload, codec.readHeader(payload), "d\"ad");
+
+        assertEquals("d\"ad", objectMapper.readTree(forwarded).get("from").asText());
+    }
+
+    @Test
+    void testIgnoresNestedFieldsWithSameNames() throws Exception {
+        RelayHeader header = codec.readHeader(
+                "{\"type\":\"offer\",\"meta\":{\"to\":\"nobody\",\"from\":\"x\"},\"to\":\"son\"}");
+
+        assertEquals("son", header.getTo());
+        assertFalse(header.hasFrom());
+    }
+
+    @Test
+    void testRejectsPayloadsThatCannotBeRelayed() throws Exception {
+        assertNull(codec.readHeader("[1,2,3]"));
+        assertNull(codec.readHeader("{\"to\":\"son\"}"), "Missing type");
+        assertNull(codec.readHeader("{\"type\":\"offer\",\"from\":{\"id\":\"x\"},\"to\":\"son\"}"), "Structured from");
+    }
+
+    @Test
+    void testReadsTypeWithoutTokenizingTheRest() throws Exception {
+        assertEquals("offer", codec.readType("{\"type\":\"offer\",\"sdp\":\"v=0 <not even closed"));
+        assertEquals("offer", codec.readType("{\"to\":\"son\",\"meta\":{\"type\":\"x\"},\"type\":\"offer\"}"),
+                "Fields before type are skipped, nested ones ignored");
+        assertNull(codec.readType("[1,2,3]"));
+        assertNull(codec.readType("{\"to\":\"son\"}"), "Missing type");
+        assertNull(codec.readType("{\"type\":42}"), "Type is not a string");
+    }
+
+    @Test
+    void testReadsClientMessageId() throws Exception {
+        assertEquals("m1", codec.readHeader("{\"type\":\"offer\",\"id\":\"m1\",\"to\":\"son\"}").getId());
+        assertEquals("42", codec.readHeader("{\"type\":\"offer\",\"id\":42,\"to\":\"son\"}").getId());
+        RelayHeader structured = codec.readHeader("{\"type\":\"offer\",\"id\":{\"to\":\"x\"},\"to\":\"son\"}");
+        assertNull(structured.getId());
+        assertEquals("son", structured.getTo());
+    }
+}
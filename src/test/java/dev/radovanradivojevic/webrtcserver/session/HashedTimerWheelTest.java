@@ -0,0 +1,96 @@
+package dev.radovanradivojevic.webrtcserver.session;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimerWheelTest {
+
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void testTimeoutFiresAfterDelayNeverBefore() throws Exception {
+        HashedTimerWheel wheel = new HashedTimerWheel(TICK, 8);
+        long start = System.nanoTime();
+        long[] firedAt = new long[1];
+        HashedTimerWheel.Timeout timeout = wheel.schedule(() -> firedAt[0] = System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertEquals(0, wheel.advance());
+        assertTrue(timeout.isPending());
+
+        advanceUntil(wheel, timeout::isExpired);
+        assertTrue(firedAt[0] - start >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(0, wheel.pending());
+    }
+
+    @Test
+    void testDelayLongerThanOneTurnWaitsForLaterRound() throws Exception {
+        // 8 buckets of 1ms - a 30ms timeout passes its bucket three times before it is due
+        HashedTimerWheel wheel = new HashedTimerWheel(TICK, 8);
+        long start = System.nanoTime();
+        HashedTimerWheel.Timeout timeout = wheel.schedule(() -> { }, TimeUnit.MILLISECONDS.toNanos(30));
+
+        advanceUntil(wheel, timeout::isExpired);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30));
+    }
+
+    @Test
+    void testCancelledTimeoutDoesNotFire() throws Exception {
+        HashedTimerWheel wheel = new HashedTimerWheel(TICK, 8);
+        AtomicInteger fired = new AtomicInteger();
+        HashedTimerWheel.Timeout cancelled = wheel.schedule(fired::incrementAndGet, TimeUnit.MILLISECONDS.toNanos(5));
+        HashedTimerWheel.Timeout kept = wheel.schedule(fired::incrementAndGet, TimeUnit.MILLISECONDS.toNanos(5));
+
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel(), "Second cancel has nothing to cancel");
+        assertEquals(1, wheel.pending());
+
+        advanceUntil(wheel, kept::isExpired);
+        assertEquals(1, fired.get());
+        assertFalse(cancelled.isExpired());
+        assertFalse(kept.cancel(), "An expired timeout cannot be cancelled");
+    }
+
+    @Test
+    void testManyTimeoutsAllFireOnce() throws Exception {
+        HashedTimerWheel wheel = new HashedTimerWheel(TICK, 16);
+        AtomicInteger fired = new AtomicInteger();
+        List<HashedTimerWheel.Timeout> timeouts = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            timeouts.add(wheel.schedule(fired::incrementAndGet, TimeUnit.MILLISECONDS.toNanos(i % 40)));
+        }
+        // Every other one is cancelled - the rest still fire exactly once
+        for (int i = 0; i < timeouts.size(); i += 2) {
+            timeouts.get(i).cancel();
+        }
+
+        advanceUntil(wheel, () -> wheel.pending() == 0);
+        assertEquals(5_000, fired.get());
+    }
+
+    @Test
+    void testTaskMayScheduleAnotherTimeout() throws Exception {
+        HashedTimerWheel wheel = new HashedTimerWheel(TICK, 8);
+        AtomicInteger fired = new AtomicInteger();
+        wheel.schedule(() -> {
+            fired.incrementAndGet();
+            wheel.schedule(fired::incrementAndGet, 0);
+        }, TimeUnit.MILLISECONDS.toNanos(2));
+
+        advanceUntil(wheel, () -> fired.get() == 2);
+    }
+
+    private static void advanceUntil(HashedTimerWheel wheel, java.util.function.BooleanSupplier done) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!done.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the wheel");
+            Thread.sleep(1);
+            wheel.advance();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package dev.radovanradivojevic.webrtcserver.session;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class HeartbeatMonitorTest {
+
+    private SignalingProperties properties;
+    private SignalingEventLog eventLog;
+    private MeterRegistry registry;
+    private HeartbeatMonitor monitor;
+    private WebSocketSession session;
+    private List<WebSocketSession> reaped;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SignalingProperties();
+        properties.getHeartbeat().setPingInterval(Duration.ofMillis(20));
+        properties.getHeartbeat().setIdleTimeout(Duration.ofMillis(60));
+        properties.getHeartbeat().setTick(Duration.ofMillis(1));
+        properties.getHeartbeat().setWheelSize(64);
+        eventLog = new SignalingEventLog(properties);
+        registry = new SimpleMeterRegistry();
+        SignalingMetrics metrics = new SignalingMetrics(registry, eventLog);
+        OutboundMessageDispatcher outbound = new OutboundMessageDispatcher(properties, Runnable::run, eventLog, metrics);
+
+        // The test drives the wheel itself through advance()
+        monitor = new HeartbeatMonitor(properties, outbound, mock(ScheduledExecutorService.class), metrics, eventLog);
+        reaped = new ArrayList<>();
+        monitor.onIdle(reaped::add);
+
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session123");
+        when(session.isOpen()).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        eventLog.close();
+    }
+
+    @Test
+    void testSilentSessionIsPinged() throws Exception {
+        monitor.track(session);
+
+        runFor(30);
+
+        verify(session, atLeastOnce()).sendMessage(any(PingMessage.class));
+        assertTrue(registry.counter("signaling.heartbeat.pings").count() >= 1);
+        assertTrue(reaped.isEmpty());
+    }
+
+    @Test
+    void testSessionSilentForIdleTimeoutIsClosedAndReaped() throws Exception {
+        monitor.track(session);
+
+        runUntil(() -> !reaped.isEmpty(), 2000);
+
+        assertEquals(List.of(session), reaped);
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(1.0, registry.counter("signaling.sessions.reaped").count());
+        assertEquals(0, monitor.size());
+    }
+
+    @Test
+    void testReapRunsOnTheReaperNotTheTimer() throws Exception {
+        SignalingMetrics metrics = new SignalingMetrics(new SimpleMeterRegistry(), eventLog);
+        List<Runnable> reaperTasks = new ArrayList<>();
+        monitor = new HeartbeatMonitor(properties,
+                new OutboundMessageDispatcher(properties, Runnable::run, eventLog, metrics),
+                mock(ScheduledExecutorService.class), reaperTasks::add, metrics, eventLog);
+        monitor.onIdle(reaped::add);
+        monitor.track(session);
+
+        runUntil(() -> !reaperTasks.isEmpty(), 2000);
+
+        assertTrue(reaped.isEmpty(), "The timer only hands the cleanup over");
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        reaperTasks.forEach(Runnable::run);
+        assertEquals(List.of(session), reaped);
+    }
+
+    @Test
+    void testTrafficKeepsSessionAlive() throws Exception {
+        monitor.track(session);
+
+        // Three idle timeouts long, but never silent for more than a few ticks
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(180);
+        while (System.nanoTime() < end) {
+            monitor.touch(session);
+            runFor(5);
+        }
+
+        assertTrue(reaped.isEmpty());
+        verify(session, never()).close(any());
+    }
+
+    @Test
+    void testReleasedSessionIsNoLongerWatched() throws Exception {
+        monitor.track(session);
+        monitor.release(session);
+        assertEquals(0, monitor.size());
+
+        runFor(80);
+
+        assertTrue(reaped.isEmpty());
+        verify(session, never()).sendMessage(any());
+        verify(session, never()).close(any());
+    }
+
+    @Test
+    void testDisabledMonitorWatchesNothing() {
+        properties.getHeartbeat().setEnabled(false);
+        SignalingMetrics metrics = new SignalingMetrics(new SimpleMeterRegistry(), eventLog);
+        ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        HeartbeatMonitor disabled = new HeartbeatMonitor(properties, mock(OutboundMessageDispatcher.class),
+                scheduler, metrics, eventLog);
+
+        disabled.track(session);
+
+        assertEquals(0, disabled.size());
+        verifyNoInteractions(scheduler);
+    }
+
+    private void runFor(long millis) throws Exception {
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        while (System.nanoTime() < end) {
+            Thread.sleep(1);
+            monitor.advance();
+        }
+    }
+
+    private void runUntil(java.util.function.BooleanSupplier done, long timeoutMillis) throws Exception {
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (!done.getAsBoolean()) {
+            assertTrue(System.nanoTime() < end, "Timed out waiting for the monitor");
+            Thread.sleep(1);
+            monitor.advance();
+        }
+    }
+}
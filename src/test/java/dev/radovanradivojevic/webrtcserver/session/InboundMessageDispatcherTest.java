@@ -0,0 +1,143 @@
+package dev.radovanradivojevic.webrtcserver.session;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class InboundMessageDispatcherTest {
+
+    private ExecutorService virtualThreads;
+    private SignalingEventLog eventLog;
+    private OutboundMessageDispatcher outbound;
+    private InboundMessageDispatcher dispatcher;
+    private WebSocketSession session;
+
+    @BeforeEach
+    void setUp() {
+        SignalingProperties properties = new SignalingProperties();
+        properties.getExecution().setMode(ExecutionMode.VIRTUAL);
+        virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+        eventLog = new SignalingEventLog(properties);
+        outbound = new OutboundMessageDispatcher(properties, Runnable::run, eventLog,
+                new SignalingMetrics(new SimpleMeterRegistry(), eventLog));
+        dispatcher = new InboundMessageDispatcher(properties, virtualThreads, outbound, eventLog);
+
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session123");
+        when(session.isOpen()).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        virtualThreads.shutdownNow();
+        eventLog.close();
+    }
+
+    @Test
+    void testMessagesOfOneSessionKeepTheirOrder() throws Exception {
+        List<Integer> handled = new CopyOnWriteArrayList<>();
+        CountDownLatch closed = new CountDownLatch(1);
+
+        for (int i = 0; i < 1000; i++) {
+            int n = i;
+            dispatcher.dispatch(session, () -> {
+                assertTrue(Thread.currentThread().isVirtual());
+                handled.add(n);
+            });
+        }
+        dispatcher.dispatchLast(session, () -> {
+            handled.add(-1);
+            closed.countDown();
+        });
+
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        assertEquals(1001, handled.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, handled.get(i));
+        }
+        assertEquals(-1, handled.get(1000), "Cleanup must run after all queued messages");
+    }
+
+    @Test
+    void testFailingTaskClosesSessionThroughItsQueue() throws Exception {
+        dispatcher.dispatch(session, () -> {
+            throw new IllegalArgumentException("bad frame");
+        });
+
+        verify(session, timeout(5000)).close(CloseStatus.SERVER_ERROR);
+        assertTrue(outbound.getQueue("session123").isClosed(), "Nothing more is sent after the close");
+    }
+
+    @Test
+    void testShardedModeMovesTheSessionToItsUsersLoop() throws Exception {
+        SignalingProperties properties = new SignalingProperties();
+        properties.getExecution().setMode(ExecutionMode.SHARDED);
+        properties.getExecution().setShards(4);
+        InboundMessageDispatcher sharded = new InboundMessageDispatcher(properties, virtualThreads, outbound,
+                eventLog);
+        try {
+            List<String> threads = new CopyOnWriteArrayList<>();
+            List<Integer> handled = new CopyOnWriteArrayList<>();
+            CountDownLatch closed = new CountDownLatch(1);
+
+            for (int i = 0; i < 500; i++) {
+                int n = i;
+                sharded.dispatch(session, () -> {
+                    handled.add(n);
+                    threads.add(Thread.currentThread().getName());
+                    if (n == 0) {
+                        sharded.bind(session, "alice");
+                    }
+                });
+            }
+            sharded.dispatchLast(session, closed::countDown);
+
+            assertTrue(closed.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 500; i++) {
+                assertEquals(i, handled.get(i));
+            }
+            String aliceLoop = "signaling-shard-" + ShardedEventLoops.shardOf("alice", 4);
+            assertEquals("signaling-shard-" + ShardedEventLoops.shardOf("session123", 4), threads.get(0));
+            assertEquals(aliceLoop, threads.get(499), "Messages after the registration run on the user's loop");
+
+            // Work for alice posted from elsewhere lands on her loop too
+            CountDownLatch delivered = new CountDownLatch(1);
+            sharded.runOnOwner("alice", () -> {
+                assertEquals(aliceLoop, Thread.currentThread().getName());
+                delivered.countDown();
+            });
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(ExecutionMode.SHARDED, sharded.getMode());
+        } finally {
+            sharded.close();
+        }
+    }
+
+    @Test
+    void testPlatformModeRunsOnCallerThread() throws Exception {
+        SignalingProperties properties = new SignalingProperties();
+        InboundMessageDispatcher platform = new InboundMessageDispatcher(properties, virtualThreads, outbound,
+                eventLog);
+        Thread caller = Thread.currentThread();
+
+        platform.dispatch(session, () -> assertSame(caller, Thread.currentThread()));
+
+        assertEquals(ExecutionMode.PLATFORM, platform.getMode());
+    }
+}
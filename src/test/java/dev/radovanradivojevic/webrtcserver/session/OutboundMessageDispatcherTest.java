@@ -0,0 +1,129 @@
+package dev.radovanradivojevic.webrtcserver.session;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OutboundMessageDispatcherTest {
+
+    private SignalingEventLog eventLog;
+    private OutboundMessageDispatcher outbound;
+    private WebSocketSession session;
+
+    @BeforeEach
+    void setUp() {
+        SignalingProperties properties = new SignalingProperties();
+        eventLog = new SignalingEventLog(properties);
+        outbound = new OutboundMessageDispatcher(properties, Runnable::run, eventLog,
+                new SignalingMetrics(new SimpleMeterRegistry(), eventLog));
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session123");
+        when(session.isOpen()).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        eventLog.close();
+    }
+
+    @Test
+    void testCloseAfterReleaseDoesNotRecreateTheQueue() throws Exception {
+        outbound.send(session, new TextMessage("hello"));
+        when(session.isOpen()).thenReturn(false);
+        outbound.release(session);
+
+        // A drain hand-off and a heartbeat reap racing the container's close
+        outbound.closeWhenFlushed(session, CloseStatus.SERVICE_RESTARTED);
+        outbound.close(session, CloseStatus.SESSION_NOT_RELIABLE);
+
+        assertNull(outbound.getQueue("session123"));
+        assertFalse(outbound.send(session, new TextMessage("late")));
+        verify(session, never()).close(any());
+    }
+
+    @Test
+    void testCloseOfSessionThatWasNeverSentToStillClosesIt() throws Exception {
+        outbound.close(session, CloseStatus.SESSION_NOT_RELIABLE);
+
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    @Test
+    void testQueueCreatedWhileReleasingIsDropped() {
+        // The session closes between the first isOpen() check and the insert
+        when(session.isOpen()).thenReturn(true, false);
+
+        assertFalse(outbound.send(session, new TextMessage("hello")));
+        assertNull(outbound.getQueue("session123"));
+    }
+
+    @Test
+    void testStalledPeersAreClosedWhileHealthySessionStillReceives() throws Exception {
+        SignalingProperties properties = new SignalingProperties();
+        properties.getOutbound().setSendTimeLimit(Duration.ofMillis(200));
+        ExecutorService writers = Executors.newFixedThreadPool(2);
+        ExecutorService closer = Executors.newVirtualThreadPerTaskExecutor();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            outbound = new OutboundMessageDispatcher(properties, writers, closer, scheduler, eventLog,
+                    new SignalingMetrics(new SimpleMeterRegistry(), eventLog));
+
+            // Half-open peers: a send blocks until the session is closed
+            List<WebSocketSession> stalled = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                WebSocketSession peer = stalledSession("stalled" + i);
+                stalled.add(peer);
+                outbound.send(peer, new TextMessage("offer"));
+            }
+            CountDownLatch received = new CountDownLatch(1);
+            doAnswer(invocation -> {
+                received.countDown();
+                return null;
+            }).when(session).sendMessage(any());
+
+            outbound.send(session, new TextMessage("answer"));
+
+            assertTrue(received.await(5, TimeUnit.SECONDS), "The healthy session got its message");
+            for (WebSocketSession peer : stalled) {
+                verify(peer, timeout(5000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+            }
+            verify(session, never()).close(any());
+        } finally {
+            scheduler.shutdownNow();
+            writers.shutdownNow();
+            closer.shutdownNow();
+        }
+    }
+
+    private static WebSocketSession stalledSession(String id) throws Exception {
+        WebSocketSession peer = mock(WebSocketSession.class);
+        when(peer.getId()).thenReturn(id);
+        when(peer.isOpen()).thenReturn(true);
+        CountDownLatch closed = new CountDownLatch(1);
+        doAnswer(invocation -> closed.await(30, TimeUnit.SECONDS)).when(peer).sendMessage(any());
+        doAnswer(invocation -> {
+            closed.countDown();
+            return null;
+        }).when(peer).close(any());
+        return peer;
+    }
+}
@@ -0,0 +1,181 @@
+package dev.radovanradivojevic.webrtcserver.session;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OutboundQueueTest {
+
+    private WebSocketSession session;
+
+    // Writer tasks are collected here and run by the test, so we can observe what happens before a send
+    private Queue<Runnable> pendingTasks;
+
+    @BeforeEach
+    void setUp() {
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session123");
+        when(session.isOpen()).thenReturn(true);
+        pendingTasks = new ArrayDeque<>();
+    }
+
+    @Test
+    void testOfferDoesNotSendOnCallerThread() throws Exception {
+        OutboundQueue queue = newQueue(1024, OverflowPolicy.DROP);
+
+        assertTrue(queue.offer(new TextMessage("hello")));
+
+        // Nothing was sent yet - the writer task has not run
+        verify(session, never()).sendMessage(any());
+        assertEquals(5, queue.getBufferedBytes());
+
+        runPendingTasks();
+        verify(session).sendMessage(new TextMessage("hello"));
+        assertEquals(0, queue.getBufferedBytes());
+    }
+
+    @Test
+    void testMessagesAreSentInOrderBySingleWriter() throws Exception {
+        OutboundQueue queue = newQueue(1024, OverflowPolicy.DROP);
+
+        queue.offer(new TextMessage("one"));
+        queue.offer(new TextMessage("two"));
+        queue.offer(new TextMessage("three"));
+
+        // Only one writer pass is scheduled no matter how many messages are queued
+        assertEquals(1, pendingTasks.size());
+
+        runPendingTasks();
+        InOrder inOrder = inOrder(session);
+        inOrder.verify(session).sendMessage(new TextMessage("one"));
+        inOrder.verify(session).sendMessage(new TextMessage("two"));
+        inOrder.verify(session).sendMessage(new TextMessage("three"));
+    }
+
+    @Test
+    void testDropPolicyDiscardsMessageAndKeepsSession() throws Exception {
+        OutboundQueue queue = newQueue(8, OverflowPolicy.DROP);
+
+        assertTrue(queue.offer(new TextMessage("12345")));
+        assertFalse(queue.offer(new TextMessage("67890")), "Second message exceeds the 8 byte limit");
+
+        runPendingTasks();
+        verify(session).sendMessage(new TextMessage("12345"));
+        verify(session, never()).sendMessage(new TextMessage("67890"));
+        verify(session, never()).close(any());
+        assertFalse(queue.isClosed());
+    }
+
+    @Test
+    void testDisconnectPolicyClosesSession() throws Exception {
+        OutboundQueue queue = newQueue(8, OverflowPolicy.DISCONNECT);
+
+        queue.offer(new TextMessage("12345"));
+        assertFalse(queue.offer(new TextMessage("67890")));
+        assertTrue(queue.isClosed());
+
+        runPendingTasks();
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        verify(session, never()).sendMessage(any());
+        assertFalse(queue.offer(new TextMessage("x")), "Closed queue should reject new messages");
+    }
+
+    @Test
+    void testCloseWhenFlushedSendsQueuedMessagesFirst() throws Exception {
+        OutboundQueue queue = newQueue(1024, OverflowPolicy.DROP);
+
+        queue.offer(new TextMessage("bye"));
+        queue.closeWhenFlushed(CloseStatus.SERVICE_RESTARTED);
+        assertFalse(queue.isClosed(), "Queued messages still have to go out");
+
+        runPendingTasks();
+        InOrder inOrder = inOrder(session);
+        inOrder.verify(session).sendMessage(new TextMessage("bye"));
+        inOrder.verify(session).close(CloseStatus.SERVICE_RESTARTED);
+        assertTrue(queue.isClosed());
+    }
+
+    @Test
+    void testCloseWhenFlushedClosesIdleQueueRightAway() throws Exception {
+        OutboundQueue queue = newQueue(1024, OverflowPolicy.DROP);
+
+        queue.closeWhenFlushed(CloseStatus.SERVICE_RESTARTED);
+        runPendingTasks();
+
+        verify(session).close(CloseStatus.SERVICE_RESTARTED);
+        verify(session, never()).sendMessage(any());
+    }
+
+    @Test
+    void testCloseWhenFlushedDuringDrainIsNotLost() throws Exception {
+        // A real writer thread, so closeWhenFlushed() races the drain started by offer()
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        AtomicInteger closes = new AtomicInteger();
+        doAnswer(invocation -> closes.incrementAndGet()).when(session).close(any());
+        SignalingEventLog eventLog = new SignalingEventLog(new SignalingProperties());
+        SignalingMetrics metrics = new SignalingMetrics(new SimpleMeterRegistry(), eventLog);
+        int handOffs = 2_000;
+        try {
+            for (int i = 0; i < handOffs; i++) {
+                OutboundQueue queue = new OutboundQueue(session, writer, 1024, TimeUnit.SECONDS.toNanos(10),
+                        OverflowPolicy.DROP, eventLog, metrics);
+                queue.offer(new TextMessage("reconnect-elsewhere"));
+                queue.closeWhenFlushed(CloseStatus.SERVICE_RESTARTED);
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (closes.get() < handOffs && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(handOffs, closes.get(), "Every queue closes once its goodbye was sent");
+        } finally {
+            writer.shutdownNow();
+            eventLog.close();
+        }
+    }
+
+    @Test
+    void testCloseWhenFlushedDuringSendClosesAfterIt() throws Exception {
+        OutboundQueue queue = newQueue(1024, OverflowPolicy.DROP);
+        doAnswer(invocation -> {
+            queue.closeWhenFlushed(CloseStatus.SERVICE_RESTARTED);
+            return null;
+        }).when(session).sendMessage(new TextMessage("bye"));
+
+        queue.offer(new TextMessage("bye"));
+        runPendingTasks();
+
+        verify(session).close(CloseStatus.SERVICE_RESTARTED);
+        assertTrue(queue.isClosed());
+    }
+
+    private OutboundQueue newQueue(int bufferSizeLimit, OverflowPolicy policy) {
+        SignalingEventLog eventLog = new SignalingEventLog(new SignalingProperties());
+        return new OutboundQueue(session, pendingTasks::add, bufferSizeLimit, TimeUnit.SECONDS.toNanos(10), policy,
+                eventLog, new SignalingMetrics(new SimpleMeterRegistry(), eventLog));
+    }
+
+    private void runPendingTasks() {
+        Runnable task;
+        while ((task = pendingTasks.poll()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package dev.radovanradivojevic.webrtcserver.session;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerialExecutorTest {
+
+    // Stands in for a shared event loop: tasks are run by the test, in the order they were submitted
+    private Queue<Runnable> loop;
+    private List<String> ran;
+
+    @BeforeEach
+    void setUp() {
+        loop = new ArrayDeque<>();
+        ran = new ArrayList<>();
+    }
+
+    @Test
+    void testBusyLaneYieldsToOtherLanes() {
+        SerialExecutor busy = new SerialExecutor(loop::add);
+        SerialExecutor quiet = new SerialExecutor(loop::add);
+        int flood = SerialExecutor.MAX_TASKS_PER_DRAIN * 2;
+        for (int i = 0; i < flood; i++) {
+            busy.execute(() -> ran.add("busy"));
+        }
+        quiet.execute(() -> ran.add("quiet"));
+
+        runLoop();
+
+        assertEquals(flood + 1, ran.size());
+        assertEquals("quiet", ran.get(SerialExecutor.MAX_TASKS_PER_DRAIN),
+                "The quiet lane runs after one pass of the busy lane, not after all of it");
+    }
+
+    @Test
+    void testRejectedScheduleDoesNotWedgeTheLane() {
+        AtomicBoolean rejecting = new AtomicBoolean(true);
+        SerialExecutor lane = new SerialExecutor(task -> {
+            if (rejecting.get()) {
+                throw new RejectedExecutionException("loop is shutting down");
+            }
+            loop.add(task);
+        });
+
+        assertThrows(RejectedExecutionException.class, () -> lane.execute(() -> ran.add("first")));
+        rejecting.set(false);
+        lane.execute(() -> ran.add("second"));
+        runLoop();
+
+        assertEquals(List.of("second"), ran);
+    }
+
+    private void runLoop() {
+        Runnable task;
+        while ((task = loop.poll()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package dev.radovanradivojevic.webrtcserver.session;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.control.ControlFrames;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SessionDrainerTest {
+
+    private SignalingProperties properties;
+    private SignalingEventLog eventLog;
+    private MeterRegistry registry;
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> check;
+    private SessionDrainer drainer;
+    private AtomicInteger drained;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SignalingProperties();
+        properties.getDrain().setSpread(Duration.ofSeconds(10));
+        properties.getDrain().setFlushTimeout(Duration.ofSeconds(5));
+        eventLog = new SignalingEventLog(properties);
+        registry = new SimpleMeterRegistry();
+
+        // The test runs the scheduled hand-offs and checks itself
+        scheduler = mock(ScheduledExecutorService.class);
+        check = mock(ScheduledFuture.class);
+        doReturn(check).when(scheduler).scheduleWithFixedDelay(any(), anyLong(), anyLong(), any());
+        drainer = newDrainer();
+        drained = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        eventLog.close();
+    }
+
+    @Test
+    void testHandOffsAreSpreadOverTheWindow() throws Exception {
+        WebSocketSession dad = openSession("dad");
+        WebSocketSession son = openSession("son");
+        drainer.track(dad);
+        drainer.track(son);
+
+        drainer.drain(drained::incrementAndGet);
+
+        ArgumentCaptor<Long> delays = ArgumentCaptor.forClass(Long.class);
+        verify(scheduler, times(2)).schedule(any(Runnable.class), delays.capture(), eq(TimeUnit.NANOSECONDS));
+        assertTrue(delays.getAllValues().stream().allMatch(delay -> delay >= 0 && delay < TimeUnit.SECONDS.toNanos(10)));
+        verify(dad, never()).sendMessage(any());
+
+        runScheduledHandOffs();
+
+        for (WebSocketSession session : new WebSocketSession[]{dad, son}) {
+            InOrder inOrder = inOrder(session);
+            inOrder.verify(session).sendMessage(ControlFrames.reconnectElsewhere());
+            inOrder.verify(session).close(SessionDrainer.HANDED_OFF);
+        }
+        assertEquals(2, registry.get("signaling.drain.handed-off").tag("reason", "drained").counter().count());
+    }
+
+    @Test
+    void testRegistrationsAreTurnedAwayWhileDraining() throws Exception {
+        WebSocketSession dad = openSession("dad");
+        drainer.track(dad);
+        assertTrue(drainer.admitRegistration(dad));
+
+        drainer.drain(drained::incrementAndGet);
+
+        assertFalse(drainer.admitRegistration(dad));
+        verify(dad).sendMessage(ControlFrames.reconnectElsewhere());
+
+        WebSocketSession late = openSession("late");
+        assertFalse(drainer.track(late), "A session connecting during the drain is handed off right away");
+        verify(late).close(SessionDrainer.HANDED_OFF);
+
+        // Its scheduled hand-off finds the session already told
+        runScheduledHandOffs();
+        verify(dad, times(1)).sendMessage(any());
+        assertEquals(2, registry.get("signaling.drain.handed-off").tag("reason", "turned-away").counter().count());
+    }
+
+    @Test
+    void testDrainCompletesOnceSessionsAreClosed() {
+        WebSocketSession dad = openSession("dad");
+        drainer.track(dad);
+        drainer.drain(drained::incrementAndGet);
+
+        runCheck();
+        assertEquals(0, drained.get(), "dad is still connected");
+
+        runScheduledHandOffs();
+        runCheck();
+
+        assertEquals(1, drained.get());
+        assertEquals(0, drainer.size());
+        verify(check).cancel(false);
+    }
+
+    @Test
+    void testDrainGivesUpAfterFlushTimeout() throws Exception {
+        properties.getDrain().setSpread(Duration.ZERO);
+        properties.getDrain().setFlushTimeout(Duration.ZERO);
+        drainer = newDrainer();
+        WebSocketSession dad = openSession("dad");
+        drainer.track(dad);
+
+        drainer.drain(drained::incrementAndGet);
+        runCheck();
+
+        assertEquals(1, drained.get());
+        verify(dad).close(SessionDrainer.HANDED_OFF);
+        verify(dad, never()).sendMessage(any());
+    }
+
+    @Test
+    void testDisabledDrainStopsRightAway() {
+        properties.getDrain().setEnabled(false);
+        drainer = newDrainer();
+        WebSocketSession dad = openSession("dad");
+        assertTrue(drainer.track(dad));
+
+        drainer.stop(drained::incrementAndGet);
+
+        assertEquals(1, drained.get());
+        assertTrue(drainer.admitRegistration(dad));
+        verifyNoInteractions(scheduler);
+    }
+
+    private SessionDrainer newDrainer() {
+        SignalingMetrics metrics = new SignalingMetrics(registry, eventLog);
+        OutboundMessageDispatcher outbound = new OutboundMessageDispatcher(properties, Runnable::run, eventLog, metrics);
+        return new SessionDrainer(properties, outbound, scheduler, metrics, eventLog);
+    }
+
+    /**
+     * Session that reports itself closed once close() was called
+     */
+    private WebSocketSession openSession(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        AtomicBoolean open = new AtomicBoolean(true);
+        when(session.getId()).thenReturn(id);
+        when(session.getAttributes()).thenReturn(new HashMap<>());
+        when(session.isOpen()).thenAnswer(invocation -> open.get());
+        try {
+            doAnswer(invocation -> {
+                open.set(false);
+                return null;
+            }).when(session).close(any());
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+        return session;
+    }
+
+    private void runScheduledHandOffs() {
+        ArgumentCaptor<Runnable> tasks = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, atLeast(0)).schedule(tasks.capture(), anyLong(), eq(TimeUnit.NANOSECONDS));
+        tasks.getAllValues().forEach(Runnable::run);
+    }
+
+    private void runCheck() {
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).scheduleWithFixedDelay(task.capture(), anyLong(), anyLong(), eq(TimeUnit.NANOSECONDS));
+        task.getValue().run();
+    }
+}
@@ -0,0 +1,138 @@
+package dev.radovanradivojevic.webrtcserver.session;
+
+import dev.radovanradivojevic.webrtcserver.session.SessionRegistry.Registration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SessionRegistryTest {
+
+    private SessionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SessionRegistry();
+    }
+
+    @Test
+    void testRegisterMapsBothDirections() {
+        WebSocketSession session = newSession("s1");
+
+        Registration registration = registry.register(session, "alice");
+
+        assertSame(session, registry.sessionOf("alice"));
+        assertEquals("alice", registry.userIdOf(session));
+        assertEquals("alice", registry.userIdOf("s1"));
+        assertSame(registration, registry.of(session));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void testSenderIsResolvedFromSessionAttribute() {
+        WebSocketSession session = newSession("s1");
+        Registration registration = registry.register(session, "alice");
+
+        assertSame(registration, session.getAttributes().get(SessionRegistry.REGISTRATION));
+        assertSame(registration, registry.of(session));
+    }
+
+    @Test
+    void testSenderIsResolvedWithoutSessionAttributes() {
+        // A mocked session hands out a fresh attribute map on every call
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        registry.register(session, "alice");
+
+        assertEquals("alice", registry.userIdOf(session));
+    }
+
+    @Test
+    void testReRegisterFromNewSessionDetachesOldSession() {
+        WebSocketSession oldSession = newSession("s1");
+        WebSocketSession newSession = newSession("s2");
+        registry.register(oldSession, "alice");
+
+        Registration second = registry.register(newSession, "alice");
+
+        assertSame(newSession, registry.sessionOf("alice"));
+        assertNull(registry.userIdOf(oldSession));
+        assertNull(registry.userIdOf("s1"));
+        assertSame(second, registry.of(newSession));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void testClosingOldSessionKeepsNewerRegistration() {
+        WebSocketSession oldSession = newSession("s1");
+        WebSocketSession newSession = newSession("s2");
+        registry.register(oldSession, "alice");
+        registry.register(newSession, "alice");
+
+        assertNull(registry.unregister(oldSession));
+
+        assertSame(newSession, registry.sessionOf("alice"));
+        assertEquals("alice", registry.userIdOf(newSession));
+    }
+
+    @Test
+    void testSessionRegisteringAsAnotherUserDropsPreviousUser() {
+        WebSocketSession session = newSession("s1");
+        registry.register(session, "alice");
+
+        registry.register(session, "bob");
+
+        assertNull(registry.sessionOf("alice"));
+        assertSame(session, registry.sessionOf("bob"));
+        assertEquals("bob", registry.userIdOf(session));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void testUnregisterRemovesBothDirections() {
+        WebSocketSession session = newSession("s1");
+        Registration registration = registry.register(session, "alice");
+
+        assertSame(registration, registry.unregister(session));
+
+        assertNull(registry.sessionOf("alice"));
+        assertNull(registry.userIdOf(session));
+        assertNull(registry.of(session));
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void testShardedRegistryKeepsEachUserInItsShard() {
+        SessionRegistry sharded = new SessionRegistry(4);
+        Registration[] registrations = new Registration[100];
+        for (int i = 0; i < 100; i++) {
+            registrations[i] = sharded.register(newSession("s" + i), "user" + i);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            assertSame(registrations[i].getSession(), sharded.sessionOf("user" + i));
+            assertEquals("user" + i, sharded.userIdOf("s" + i));
+        }
+        assertEquals(100, sharded.size());
+
+        // A session switching to a user of another shard leaves its old shard
+        WebSocketSession session = registrations[0].getSession();
+        sharded.register(session, "user100");
+        assertNull(sharded.sessionOf("user0"));
+        assertEquals("user100", sharded.userIdOf(session));
+        assertEquals(100, sharded.size());
+    }
+
+    private static WebSocketSession newSession(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        Map<String, Object> attributes = new HashMap<>();
+        when(session.getId()).thenReturn(id);
+        when(session.getAttributes()).thenReturn(attributes);
+        return session;
+    }
+}
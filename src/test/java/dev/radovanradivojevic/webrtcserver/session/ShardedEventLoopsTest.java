@@ -0,0 +1,99 @@
+package dev.radovanradivojevic.webrtcserver.session;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedEventLoopsTest {
+
+    private ShardedEventLoops loops;
+
+    @BeforeEach
+    void setUp() {
+        loops = new ShardedEventLoops(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        loops.shutdown();
+    }
+
+    @Test
+    void testUsersAreSpreadOverAllShards() {
+        Set<Integer> shards = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            int shard = ShardedEventLoops.shardOf("user" + i, 4);
+            assertTrue(shard >= 0 && shard < 4);
+            assertEquals(shard, ShardedEventLoops.shardOf("user" + i, 4), "A user always maps to the same shard");
+            shards.add(shard);
+        }
+        assertEquals(4, shards.size());
+        assertSame(loops.loopFor("alice"), loops.loopFor("alice"));
+    }
+
+    @Test
+    void testPostsFromManyThreadsRunInOrderOnTheLoop() throws Exception {
+        ShardedEventLoops.EventLoop loop = loops.loopFor("alice");
+        List<Integer> handled = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(4000);
+
+        Thread[] posters = new Thread[4];
+        for (int t = 0; t < posters.length; t++) {
+            int poster = t;
+            posters[t] = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    int n = poster * 1000 + i;
+                    loop.execute(() -> {
+                        assertTrue(loop.inLoop());
+                        handled.add(n);
+                        done.countDown();
+                    });
+                }
+            });
+        }
+        for (Thread poster : posters) {
+            poster.join();
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertFalse(loop.inLoop());
+        // Each poster's tasks keep their relative order
+        for (int t = 0; t < posters.length; t++) {
+            int poster = t;
+            List<Integer> ownTasks = handled.stream().filter(n -> n / 1000 == poster).toList();
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(poster * 1000 + i, ownTasks.get(i));
+            }
+        }
+    }
+
+    @Test
+    void testFailingTaskDoesNotStopTheLoop() throws Exception {
+        ShardedEventLoops.EventLoop loop = loops.loopFor("alice");
+        CountDownLatch ran = new CountDownLatch(1);
+
+        loop.execute(() -> {
+            throw new IllegalStateException("boom");
+        });
+        loop.execute(ran::countDown);
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testShutDownLoopRejectsTasks() {
+        loops.shutdown();
+
+        assertThrows(RejectedExecutionException.class, () -> loops.loopFor("alice").execute(() -> { }));
+    }
+}
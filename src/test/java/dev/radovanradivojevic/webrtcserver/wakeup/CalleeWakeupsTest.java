@@ -0,0 +1,148 @@
+package dev.radovanradivojevic.webrtcserver.wakeup;
+
+import dev.radovanradivojevic.webrtcserver.config.SignalingProperties;
+import dev.radovanradivojevic.webrtcserver.logging.SignalingEventLog;
+import dev.radovanradivojevic.webrtcserver.metrics.SignalingMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CalleeWakeupsTest {
+
+    private SignalingProperties properties;
+    private SignalingEventLog eventLog;
+    private MeterRegistry registry;
+    private ScheduledExecutorService scheduler;
+    private InMemoryWakeupDispatcher dispatcher;
+    private CalleeWakeups wakeups;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SignalingProperties();
+        eventLog = new SignalingEventLog(properties);
+        registry = new SimpleMeterRegistry();
+
+        // The test closes batch windows and dedupe intervals itself
+        scheduler = mock(ScheduledExecutorService.class);
+        dispatcher = new InMemoryWakeupDispatcher();
+        wakeups = newWakeups(dispatcher);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        eventLog.close();
+    }
+
+    @Test
+    void testOffersWithinTheWindowAreOneWakeup() {
+        wakeups.offerHeld("dad", "son");
+        wakeups.offerHeld("mom", "son");
+        wakeups.offerHeld("dad", "son");
+
+        assertTrue(dispatcher.getWakeups().isEmpty(), "Nothing is sent before the window closes");
+        runScheduled(1);
+
+        List<Wakeup> sent = dispatcher.getWakeups();
+        assertEquals(1, sent.size());
+        assertEquals("son", sent.get(0).getRecipientId());
+        assertEquals(List.of("dad", "mom"), sent.get(0).getCallerIds());
+        assertEquals(1, outcome("sent"));
+        assertEquals(1, outcome("deduplicated"), "The repeated offer from dad");
+    }
+
+    @Test
+    void testCalleeIsNotWokenAgainWithinTheDedupeInterval() {
+        wakeups.offerHeld("dad", "son");
+        runScheduled(1);
+
+        wakeups.offerHeld("mom", "son");
+        assertEquals(1, outcome("deduplicated"));
+
+        // The dedupe interval ends; the next offer wakes the callee again
+        runScheduled(1);
+        assertEquals(0, wakeups.size());
+        wakeups.offerHeld("mom", "son");
+        runScheduled(1);
+
+        assertEquals(2, dispatcher.getWakeups().size());
+        assertEquals(List.of("mom"), dispatcher.getWakeups().get(1).getCallerIds());
+    }
+
+    @Test
+    void testRegisteringCancelsThePendingWakeup() {
+        wakeups.offerHeld("dad", "son");
+        wakeups.registered("son");
+
+        runScheduled(1);
+
+        assertTrue(dispatcher.getWakeups().isEmpty());
+        assertEquals(1, outcome("cancelled"));
+        assertEquals(0, wakeups.size());
+    }
+
+    @Test
+    void testWakeupIsCancelledOnceEveryCallerHungUp() {
+        wakeups.offerHeld("dad", "son");
+        wakeups.offerHeld("mom", "son");
+
+        wakeups.cancel("dad", "son");
+        assertEquals(0, outcome("cancelled"), "mom is still calling");
+        wakeups.cancel("mom", "son");
+        runScheduled(1);
+
+        assertTrue(dispatcher.getWakeups().isEmpty());
+        assertEquals(1, outcome("cancelled"));
+    }
+
+    @Test
+    void testFailedWakeupIsNotDeduplicated() {
+        wakeups = newWakeups(wakeup -> {
+            throw new IllegalStateException("push service unavailable");
+        });
+
+        wakeups.offerHeld("dad", "son");
+        runScheduled(1);
+
+        assertEquals(1, outcome("failed"));
+        assertEquals(0, wakeups.size(), "The next offer may try again");
+    }
+
+    @Test
+    void testWithoutDispatcherNothingIsTracked() {
+        wakeups = newWakeups(null);
+
+        wakeups.offerHeld("dad", "son");
+
+        assertEquals(0, wakeups.size());
+        verifyNoInteractions(scheduler);
+    }
+
+    private CalleeWakeups newWakeups(WakeupDispatcher dispatcher) {
+        return new CalleeWakeups(properties, dispatcher, Runnable::run, scheduler,
+                new SignalingMetrics(registry, eventLog), eventLog);
+    }
+
+    /**
+     * Run the tasks scheduled since the last call, with the wakeup executor inline
+     */
+    private void runScheduled(int expected) {
+        ArgumentCaptor<Runnable> tasks = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, times(expected)).schedule(tasks.capture(), anyLong(), eq(TimeUnit.NANOSECONDS));
+        clearInvocations(scheduler);
+        tasks.getAllValues().forEach(Runnable::run);
+    }
+
+    private double outcome(String outcome) {
+        return registry.get("signaling.wakeups").tag("outcome", outcome).counter().count();
+    }
+}